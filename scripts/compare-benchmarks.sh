@@ -0,0 +1,39 @@
+#!/usr/bin/env bash
+#
+# Compare two JMH result files written by the benchmark profile.
+#
+# Usage:
+#   mvn -Pbenchmark -DskipTests verify -Djmh.result="$PWD/target/jmh-$(git rev-parse --short HEAD).json"
+#   scripts/compare-benchmarks.sh target/jmh-<base>.json target/jmh-<head>.json
+#
+# Prints, per benchmark and parameter set, the primary score of both runs with the
+# relative change, followed by the normalized allocation rate (gc.alloc.rate.norm,
+# bytes per operation) when the runs used -prof gc. Requires jq.
+
+set -euo pipefail
+export LC_ALL=C
+
+if [[ $# -ne 2 ]]; then
+    echo "Usage: $0 <base.json> <head.json>" >&2
+    exit 1
+fi
+
+summarize() {
+    jq -r '.[] | [
+        (.benchmark | sub("^com\\.example\\.stran\\.benchmark\\."; ""))
+            + ((.params // {}) | to_entries | map("\(.key)=\(.value)") | if length > 0 then " [" + join(",") + "]" else "" end),
+        .primaryMetric.score,
+        .primaryMetric.scoreUnit,
+        (.secondaryMetrics["gc.alloc.rate.norm"].score // "")
+    ] | @tsv' "$1" | sort
+}
+
+join -t $'\t' -j 1 <(summarize "$1") <(summarize "$2") | awk -F '\t' '
+    BEGIN {
+        printf "%-70s %14s %14s %8s %-8s %12s %12s\n", "benchmark", "base", "head", "change", "unit", "base B/op", "head B/op"
+    }
+    {
+        change = $2 == 0 ? 0 : ($5 - $2) / $2 * 100
+        printf "%-70s %14.3f %14.3f %+7.1f%% %-8s %12s %12s\n", $1, $2, $5, change, $3, \
+            $4 == "" ? "-" : sprintf("%.0f", $4), $7 == "" ? "-" : sprintf("%.0f", $7)
+    }'
@@ -0,0 +1,52 @@
+#!/usr/bin/env bash
+#
+# Measure stran startup time with and without the AOT + AppCDS optimizations.
+#
+# Usage (after `mvn -Pcds -DskipTests package`):
+#   scripts/measure-startup.sh [runs]
+#
+# Each run starts the application until Spring Boot logs "Started StranApplication",
+# records the reported JVM time, and stops it. No Kafka broker is required: listener
+# containers start in the background and only log connection warnings.
+
+set -euo pipefail
+
+RUNS="${1:-5}"
+TARGET="$(cd "$(dirname "$0")/../target" && pwd)"
+JAR="$(ls "$TARGET"/stran-*-SNAPSHOT.jar | grep -v -- '-exec.jar' | head -n 1)"
+ARCHIVE="$TARGET/stran.jsa"
+
+if [[ ! -f "$ARCHIVE" ]]; then
+    echo "Missing $ARCHIVE — build with: mvn -Pcds -DskipTests package" >&2
+    exit 1
+fi
+
+measure() {
+    local label="$1"; shift
+    local total=0
+    for ((i = 1; i <= RUNS; i++)); do
+        local log
+        log="$(mktemp)"
+        (cd "$TARGET" && exec java "$@" -jar "$JAR" --server.port=0 --logging.level.org.apache.kafka=ERROR >"$log" 2>&1) &
+        local pid=$!
+        until grep -q "Started StranApplication" "$log" 2>/dev/null; do
+            if ! kill -0 "$pid" 2>/dev/null; then
+                echo "$label: application exited before startup completed, see $log" >&2
+                exit 1
+            fi
+            sleep 0.2
+        done
+        local seconds
+        seconds="$(grep -o 'process running for [0-9.]*' "$log" | grep -o '[0-9.]*$')"
+        kill "$pid" 2>/dev/null || true
+        wait "$pid" 2>/dev/null || true
+        rm -f "$log"
+        total="$(awk -v a="$total" -v b="$seconds" 'BEGIN { print a + b }')"
+        printf '%-10s run %d: %ss\n' "$label" "$i" "$seconds"
+    done
+    printf '%-10s average: %.3fs\n\n' "$label" "$(awk -v t="$total" -v n="$RUNS" 'BEGIN { print t / n }')"
+}
+
+measure "baseline"
+measure "aot"      -Dspring.aot.enabled=true
+measure "aot+cds"  -Dspring.aot.enabled=true -XX:SharedArchiveFile="$ARCHIVE"
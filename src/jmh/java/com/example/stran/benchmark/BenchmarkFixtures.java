@@ -0,0 +1,119 @@
+package com.example.stran.benchmark;
+
+import ch.qos.logback.classic.Level;
+import ch.qos.logback.classic.Logger;
+import com.example.stran.dto.inventory.EventContext;
+import com.example.stran.dto.inventory.InventoryEvent;
+import com.example.stran.dto.inventory.InventoryEventBody;
+import com.example.stran.dto.inventory.InventoryEventValue;
+import com.example.stran.dto.inventory.RoomRecommendation;
+import com.example.stran.entity.StaySubscription;
+import com.example.stran.entity.SubscriptionSearchType;
+import com.example.stran.entity.SubscriptionStatus;
+import org.slf4j.LoggerFactory;
+
+import java.math.BigDecimal;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.SplittableRandom;
+
+/**
+ * Deterministic inputs shared by the matching-path benchmarks, so that runs on
+ * different commits measure the same data.
+ */
+final class BenchmarkFixtures {
+
+    static final String PROP_CODE = "FNLCO";
+    static final LocalDate CHECK_IN = LocalDate.of(2026, 3, 9);
+
+    private static final long SEED = 42L;
+
+    private BenchmarkFixtures() {
+    }
+
+    /**
+     * Benchmarks run without Spring, where Logback defaults to DEBUG on the console.
+     */
+    static void quietLogging() {
+        ((Logger) LoggerFactory.getLogger("com.example.stran")).setLevel(Level.WARN);
+    }
+
+    /**
+     * Room types whose patterns offer 1- and 2-night stays, except the last pattern
+     * of the last room, which offers every length. A lookup for a longer stay
+     * therefore scans every pattern.
+     */
+    static List<RoomRecommendation> rooms(int rooms, int patternsPerRoom) {
+        List<RoomRecommendation> recommendations = new ArrayList<>(rooms);
+        for (int r = 0; r < rooms; r++) {
+            List<String> patterns = new ArrayList<>(patternsPerRoom);
+            for (int p = 0; p < patternsPerRoom; p++) {
+                boolean last = r == rooms - 1 && p == patternsPerRoom - 1;
+                patterns.add(last ? "YYYYYYY" : "YYNNNNN");
+            }
+            recommendations.add(RoomRecommendation.builder()
+                    .roomTypeCode("RT" + r)
+                    .lengthOfStayPattern(patterns)
+                    .build());
+        }
+        return recommendations;
+    }
+
+    static InventoryEventBody body(int rooms, int patternsPerRoom) {
+        return InventoryEventBody.builder()
+                .recommendationId(987_654L)
+                .propCode(PROP_CODE)
+                .startDate(CHECK_IN.toString())
+                .endDate(CHECK_IN.toString())
+                .ratePlanCode("BAR")
+                .roomRecommendations(rooms(rooms, patternsPerRoom))
+                .build();
+    }
+
+    static InventoryEvent event(int rooms, int patternsPerRoom) {
+        return InventoryEvent.builder()
+                .key(PROP_CODE + "::BAR")
+                .value(InventoryEventValue.builder()
+                        .context(EventContext.builder()
+                                .timestamp("2026-03-01T10:15:30.250Z")
+                                .publisher("rate-recomm")
+                                .method("PUT")
+                                .resource("recommendations")
+                                .messageId("7d1f0c3e-55a4-4c43-9a0e-2a4f1c9b8e01")
+                                .build())
+                        .body(body(rooms, patternsPerRoom))
+                        .build())
+                .build();
+    }
+
+    /**
+     * Active PROPERTY subscriptions for {@link #CHECK_IN} with stay lengths of 1-7
+     * nights drawn from a fixed seed.
+     */
+    static List<StaySubscription> subscriptions(int count) {
+        SplittableRandom random = new SplittableRandom(SEED);
+        Instant created = Instant.parse("2026-01-01T00:00:00Z");
+        List<StaySubscription> subscriptions = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            StaySubscription subscription = new StaySubscription();
+            subscription.setId((long) i + 1);
+            subscription.setGuestId("guest-" + Integer.toHexString(0x100000 + i));
+            subscription.setSearchType(SubscriptionSearchType.PROPERTY);
+            subscription.setPropertyId(1L);
+            subscription.setCheckInDate(CHECK_IN);
+            subscription.setCheckOutDate(CHECK_IN.plusDays(1 + random.nextInt(7)));
+            subscription.setMaxPricePerNight(BigDecimal.valueOf(200));
+            subscription.setCurrencyCode("USD");
+            subscription.setNumAdults(2);
+            subscription.setNumRooms(1);
+            subscription.setStatus(SubscriptionStatus.ACTIVE);
+            subscription.setCreatedAt(created);
+            subscription.setUpdatedAt(created);
+            subscription.setCheckCount(0);
+            subscriptions.add(subscription);
+        }
+        return subscriptions;
+    }
+}
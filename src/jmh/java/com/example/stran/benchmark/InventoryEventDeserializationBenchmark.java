@@ -0,0 +1,61 @@
+package com.example.stran.benchmark;
+
+import com.example.stran.dto.inventory.InventoryEvent;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.kafka.support.serializer.JsonDeserializer;
+
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Deserializes one {@code rate-recomm-prd} record with the value deserializer the
+ * inventory consumer uses (Spring Kafka {@link JsonDeserializer} without type headers).
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class InventoryEventDeserializationBenchmark {
+
+    private static final String TOPIC = "rate-recomm-prd";
+
+    @Param({"1", "8", "32"})
+    public int rooms;
+
+    private JsonDeserializer<InventoryEvent> deserializer;
+    private byte[] payload;
+
+    @Setup
+    public void setUp() throws Exception {
+        deserializer = new JsonDeserializer<>();
+        deserializer.configure(Map.of(
+                JsonDeserializer.TRUSTED_PACKAGES, "*",
+                JsonDeserializer.VALUE_DEFAULT_TYPE, InventoryEvent.class.getName(),
+                JsonDeserializer.USE_TYPE_INFO_HEADERS, false), false);
+        payload = new ObjectMapper().writeValueAsBytes(BenchmarkFixtures.event(rooms, 4));
+    }
+
+    @TearDown
+    public void tearDown() {
+        deserializer.close();
+    }
+
+    @Benchmark
+    public InventoryEvent deserialize() {
+        return deserializer.deserialize(TOPIC, payload);
+    }
+}
@@ -0,0 +1,62 @@
+package com.example.stran.benchmark;
+
+import com.example.stran.dto.inventory.RoomRecommendation;
+import com.example.stran.service.LengthOfStayPatternUtil;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Length-of-stay availability checks over events with {@code rooms} room types of
+ * {@code patterns} patterns each.
+ *
+ * <p>Only the last pattern offers a 7-night stay, so {@code longStay} scans the
+ * whole event; {@code shortStay} is satisfied by the first pattern.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class LengthOfStayPatternBenchmark {
+
+    @Param({"1", "8", "32"})
+    public int rooms;
+
+    @Param({"1", "4"})
+    public int patterns;
+
+    private List<RoomRecommendation> recommendations;
+
+    @Setup
+    public void setUp() {
+        recommendations = BenchmarkFixtures.rooms(rooms, patterns);
+    }
+
+    @Benchmark
+    public boolean shortStay() {
+        return LengthOfStayPatternUtil.isAvailableForNights(recommendations, 2);
+    }
+
+    @Benchmark
+    public boolean longStay() {
+        return LengthOfStayPatternUtil.isAvailableForNights(recommendations, 7);
+    }
+
+    @Benchmark
+    public int availableNightsMask() {
+        return LengthOfStayPatternUtil.availableNightsMask(recommendations);
+    }
+}
@@ -0,0 +1,81 @@
+package com.example.stran.benchmark;
+
+import com.example.stran.dto.inventory.InventoryEventBody;
+import com.example.stran.entity.StaySubscription;
+import com.example.stran.repository.PropertyRepository;
+import com.example.stran.repository.StaySubscriptionRepository;
+import com.example.stran.service.HotKeyTracker;
+import com.example.stran.service.HotPathLog;
+import com.example.stran.service.PipelineMetrics;
+import com.example.stran.service.PropertyAvailabilityMatchingService;
+import com.example.stran.service.SubscriptionCache;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.beans.factory.support.StaticListableBeanFactory;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.TimeUnit;
+
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+import static org.mockito.Mockito.withSettings;
+
+/**
+ * {@link PropertyAvailabilityMatchingService#findMatchingSubscriptions} over
+ * {@code candidates} cached subscriptions with stay lengths of 1-7 nights.
+ *
+ * <p>The cache is a stub-only mock that returns the same list every time, so the
+ * score is the length-of-stay filter plus metrics, without any database access.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class MatchingFilterBenchmark {
+
+    @Param({"100", "10000", "100000"})
+    public int candidates;
+
+    @Param({"1", "8"})
+    public int rooms;
+
+    private PropertyAvailabilityMatchingService matchingService;
+    private InventoryEventBody body;
+
+    @Setup
+    public void setUp() {
+        BenchmarkFixtures.quietLogging();
+        List<StaySubscription> subscriptions = BenchmarkFixtures.subscriptions(candidates);
+        SubscriptionCache cache = mock(SubscriptionCache.class, withSettings().stubOnly());
+        when(cache.find(BenchmarkFixtures.PROP_CODE, BenchmarkFixtures.CHECK_IN)).thenReturn(Optional.of(subscriptions));
+
+        matchingService = new PropertyAvailabilityMatchingService(
+                mock(PropertyRepository.class, withSettings().stubOnly()),
+                mock(StaySubscriptionRepository.class, withSettings().stubOnly()),
+                new StaticListableBeanFactory(Map.of("subscriptionCache", cache)).getBeanProvider(SubscriptionCache.class),
+                new PipelineMetrics(new SimpleMeterRegistry()),
+                new HotPathLog(false, 1, 1, 10_000),
+                new HotKeyTracker(false, Duration.ofMinutes(5), 5, 20, 4, 2048, 16, new SimpleMeterRegistry()));
+        body = BenchmarkFixtures.body(rooms, 4);
+    }
+
+    @Benchmark
+    public List<StaySubscription> findMatchingSubscriptions() {
+        return matchingService.findMatchingSubscriptions(body);
+    }
+}
@@ -0,0 +1,82 @@
+package com.example.stran.benchmark;
+
+import com.example.stran.dto.inventory.InventoryEventBody;
+import com.example.stran.dto.inventory.SourceRecord;
+import com.example.stran.dto.notification.NotificationMessage;
+import com.example.stran.entity.StaySubscription;
+import com.example.stran.service.HotPathLog;
+import com.example.stran.service.NotificationDispatchService;
+import com.example.stran.service.NotificationProducer;
+import com.example.stran.service.PipelineMetrics;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.beans.factory.ObjectProvider;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.withSettings;
+
+/**
+ * Builds the notifications for one inventory event through
+ * {@link NotificationDispatchService#dispatch}, which runs {@code buildNotification}
+ * once per matched subscription. The producer is a stub-only mock, so nothing is
+ * sent; serialization is covered by {@link NotificationSerializationBenchmark}.
+ *
+ * <p>{@code withSource} derives notification IDs from the source record, as the
+ * listener does; otherwise IDs are random.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class NotificationBuildBenchmark {
+
+    @Param({"1", "100"})
+    public int matches;
+
+    @Param({"true", "false"})
+    public boolean withSource;
+
+    private NotificationDispatchService dispatchService;
+    private List<StaySubscription> subscriptions;
+    private InventoryEventBody body;
+    private SourceRecord source;
+    private Map<Long, String> strategies;
+
+    @Setup
+    @SuppressWarnings("unchecked")
+    public void setUp() {
+        BenchmarkFixtures.quietLogging();
+        dispatchService = new NotificationDispatchService(
+                mock(NotificationProducer.class, withSettings().stubOnly()),
+                mock(ObjectProvider.class, withSettings().stubOnly()),
+                new PipelineMetrics(new SimpleMeterRegistry()),
+                new HotPathLog(false, 1, 1, 10_000));
+        subscriptions = BenchmarkFixtures.subscriptions(matches);
+        body = BenchmarkFixtures.body(8, 4);
+        source = withSource ? new SourceRecord("rate-recomm-prd", 3, 1_234_567L, 1_772_360_130_250L) : null;
+        strategies = new HashMap<>();
+        subscriptions.forEach(sub -> strategies.put(sub.getId(), "property-db"));
+    }
+
+    @Benchmark
+    public List<NotificationMessage> buildNotifications() {
+        return dispatchService.dispatch(subscriptions, body, source, strategies);
+    }
+}
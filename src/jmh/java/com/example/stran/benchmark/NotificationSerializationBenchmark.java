@@ -0,0 +1,123 @@
+package com.example.stran.benchmark;
+
+import com.example.stran.dto.notification.NotificationMessage;
+import com.example.stran.serialization.NotificationMessageSerializer;
+import com.example.stran.service.NotificationIdGenerator;
+import com.example.stran.service.NotificationTextTemplate;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.kafka.support.serializer.JsonSerializer;
+
+import java.time.Instant;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Builds and serializes one notification the way the dispatch path used to
+ * ({@code UUID.randomUUID}, {@code String.format}, {@code Instant.now} per
+ * message, Jackson {@code JsonSerializer}) and the way it does now (fast IDs,
+ * precompiled template, {@link NotificationMessageSerializer}).
+ *
+ * <p>Run with {@code mvn -Pbenchmark -DskipTests verify -Djmh.args="NotificationSerialization -prof gc"}
+ * to also see allocation per operation.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class NotificationSerializationBenchmark {
+
+    private static final String TOPIC = "stran-notifications";
+
+    private static final NotificationTextTemplate TEMPLATE = NotificationTextTemplate.compile(
+            "Availability found at property {propCode} for {nights} night(s) starting {checkInDate}",
+            "propCode", "nights", "checkInDate");
+
+    private JsonSerializer<NotificationMessage> jackson;
+    private NotificationMessageSerializer compactJson;
+    private NotificationMessageSerializer compactBinary;
+    private NotificationMessage message;
+    private Instant dispatchTime;
+
+    @Setup
+    public void setUp() {
+        jackson = new JsonSerializer<>();
+        compactJson = new NotificationMessageSerializer(NotificationMessageSerializer.Format.JSON);
+        compactBinary = new NotificationMessageSerializer(NotificationMessageSerializer.Format.BINARY);
+        dispatchTime = Instant.now();
+        message = NotificationMessage.builder()
+                .notificationId(UUID.randomUUID().toString())
+                .subscriptionId(123_456L)
+                .guestId("guest-8c41f0")
+                .propCode("FNLCO")
+                .checkInDate("2026-03-09")
+                .nights(3)
+                .message(TEMPLATE.render("FNLCO", "3", "2026-03-09"))
+                .timestamp(dispatchTime)
+                .build();
+    }
+
+    @TearDown
+    public void tearDown() {
+        jackson.close();
+    }
+
+    @Benchmark
+    public byte[] serializeJackson() {
+        return jackson.serialize(TOPIC, message);
+    }
+
+    @Benchmark
+    public byte[] serializeCompactJson() {
+        return compactJson.serialize(TOPIC, message);
+    }
+
+    @Benchmark
+    public byte[] serializeCompactBinary() {
+        return compactBinary.serialize(TOPIC, message);
+    }
+
+    @Benchmark
+    public byte[] buildAndSerializeLegacy() {
+        int nights = 3;
+        NotificationMessage built = NotificationMessage.builder()
+                .notificationId(UUID.randomUUID().toString())
+                .subscriptionId(123_456L)
+                .guestId("guest-8c41f0")
+                .propCode("FNLCO")
+                .checkInDate("2026-03-09")
+                .nights(nights)
+                .message(String.format("Availability found at property %s for %d night(s) starting %s",
+                        "FNLCO", nights, "2026-03-09"))
+                .timestamp(Instant.now())
+                .build();
+        return jackson.serialize(TOPIC, built);
+    }
+
+    @Benchmark
+    public byte[] buildAndSerializeCompact() {
+        int nights = 3;
+        NotificationMessage built = NotificationMessage.builder()
+                .notificationId(NotificationIdGenerator.randomId())
+                .subscriptionId(123_456L)
+                .guestId("guest-8c41f0")
+                .propCode("FNLCO")
+                .checkInDate("2026-03-09")
+                .nights(nights)
+                .message(TEMPLATE.render("FNLCO", Integer.toString(nights), "2026-03-09"))
+                .timestamp(dispatchTime)
+                .build();
+        return compactJson.serialize(TOPIC, built);
+    }
+}
@@ -0,0 +1,156 @@
+package com.example.stran.benchmark;
+
+import com.example.stran.dto.notification.NotificationMessage;
+import com.example.stran.serialization.NotificationMessageSerializer;
+import org.apache.kafka.clients.consumer.ConsumerGroupMetadata;
+import org.apache.kafka.clients.consumer.OffsetAndMetadata;
+import org.apache.kafka.clients.producer.KafkaProducer;
+import org.apache.kafka.clients.producer.Producer;
+import org.apache.kafka.clients.producer.ProducerConfig;
+import org.apache.kafka.clients.producer.ProducerRecord;
+import org.apache.kafka.clients.producer.RecordMetadata;
+import org.apache.kafka.common.TopicPartition;
+import org.apache.kafka.common.serialization.StringSerializer;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.kafka.test.EmbeddedKafkaKraftBroker;
+
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Throughput cost of exactly-once mode on an embedded Kafka broker.
+ *
+ * <p>One operation publishes the notifications produced by one inventory event
+ * ({@code batchSize} messages) and waits until they are durable:
+ * <ul>
+ *   <li>{@code idempotent} — the default producer (acks=all, idempotence), waiting for every ack;</li>
+ *   <li>{@code transactional} — begin, send, add the consumed offset, commit: one
+ *       transaction per event;</li>
+ *   <li>{@code transactionalPoll} — what {@code InventoryBatchListener} does: one
+ *       transaction for a poll of {@value #EVENTS_PER_POLL} events, with the poll's
+ *       offset added once before the commit.</li>
+ * </ul>
+ * Every score is in events per second; notifications per second are
+ * {@code score × batchSize}.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 2, time = 3)
+@Measurement(iterations = 3, time = 5)
+@Fork(1)
+public class TransactionalPublishBenchmark {
+
+    private static final String TOPIC = "bench-notifications";
+    private static final TopicPartition SOURCE = new TopicPartition("bench-inventory", 0);
+    private static final int EVENTS_PER_POLL = 100;
+
+    @Param({"1", "10", "100"})
+    public int batchSize;
+
+    private EmbeddedKafkaKraftBroker broker;
+    private Producer<String, NotificationMessage> idempotent;
+    private Producer<String, NotificationMessage> transactional;
+    private ConsumerGroupMetadata groupMetadata;
+    private NotificationMessage message;
+    private long sourceOffset;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        broker = new EmbeddedKafkaKraftBroker(1, 4, TOPIC, SOURCE.topic());
+        broker.brokerProperties(Map.of(
+                "transaction.state.log.replication.factor", "1",
+                "transaction.state.log.min.isr", "1"));
+        broker.afterPropertiesSet();
+
+        idempotent = new KafkaProducer<>(producerProps(null));
+        transactional = new KafkaProducer<>(producerProps("stran-bench-tx"));
+        transactional.initTransactions();
+        groupMetadata = new ConsumerGroupMetadata("stran-bench");
+
+        message = NotificationMessage.builder()
+                .notificationId("00000000-0000-3000-8000-000000000000")
+                .guestId("guest-8c41f0")
+                .propCode("FNLCO")
+                .checkInDate("2026-03-09")
+                .nights(3)
+                .message("Availability found at property FNLCO for 3 night(s) starting 2026-03-09")
+                .timestamp(Instant.now())
+                .build();
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        idempotent.close();
+        transactional.close();
+        broker.destroy();
+    }
+
+    @Benchmark
+    public void idempotent() throws Exception {
+        List<Future<RecordMetadata>> acks = new ArrayList<>(batchSize);
+        for (int i = 0; i < batchSize; i++) {
+            acks.add(idempotent.send(new ProducerRecord<>(TOPIC, Integer.toString(i), message)));
+        }
+        for (Future<RecordMetadata> ack : acks) {
+            ack.get();
+        }
+    }
+
+    @Benchmark
+    public void transactional() {
+        transactional.beginTransaction();
+        for (int i = 0; i < batchSize; i++) {
+            transactional.send(new ProducerRecord<>(TOPIC, Integer.toString(i), message));
+        }
+        transactional.sendOffsetsToTransaction(
+                Map.of(SOURCE, new OffsetAndMetadata(++sourceOffset)), groupMetadata);
+        transactional.commitTransaction();
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(EVENTS_PER_POLL)
+    public void transactionalPoll() {
+        transactional.beginTransaction();
+        for (int event = 0; event < EVENTS_PER_POLL; event++) {
+            for (int i = 0; i < batchSize; i++) {
+                transactional.send(new ProducerRecord<>(TOPIC, Integer.toString(i), message));
+            }
+        }
+        sourceOffset += EVENTS_PER_POLL;
+        transactional.sendOffsetsToTransaction(Map.of(SOURCE, new OffsetAndMetadata(sourceOffset)), groupMetadata);
+        transactional.commitTransaction();
+    }
+
+    private Map<String, Object> producerProps(String transactionalId) {
+        Map<String, Object> props = new HashMap<>();
+        props.put(ProducerConfig.BOOTSTRAP_SERVERS_CONFIG, broker.getBrokersAsString());
+        props.put(ProducerConfig.KEY_SERIALIZER_CLASS_CONFIG, StringSerializer.class);
+        props.put(ProducerConfig.VALUE_SERIALIZER_CLASS_CONFIG, NotificationMessageSerializer.class);
+        props.put(ProducerConfig.ACKS_CONFIG, "all");
+        props.put(ProducerConfig.ENABLE_IDEMPOTENCE_CONFIG, true);
+        if (transactionalId != null) {
+            props.put(ProducerConfig.TRANSACTIONAL_ID_CONFIG, transactionalId);
+            props.put(ProducerConfig.RETRY_BACKOFF_MS_CONFIG, 10);
+        }
+        return props;
+    }
+}
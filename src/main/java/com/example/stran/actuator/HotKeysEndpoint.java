@@ -0,0 +1,68 @@
+package com.example.stran.actuator;
+
+import com.example.stran.service.HotKeyTracker;
+import lombok.RequiredArgsConstructor;
+import org.springframework.boot.actuate.endpoint.annotation.Endpoint;
+import org.springframework.boot.actuate.endpoint.annotation.ReadOperation;
+import org.springframework.boot.actuate.endpoint.annotation.Selector;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Actuator endpoint ({@code /actuator/hotkeys}) exposing the {@link HotKeyTracker}:
+ * the heaviest keys of each dimension over the sliding window, with their
+ * estimated counts and share of the window.
+ *
+ * <ul>
+ *   <li>{@code GET /actuator/hotkeys} — all dimensions</li>
+ *   <li>{@code GET /actuator/hotkeys/{dimension}} — one of {@code events},
+ *       {@code fan-out} or {@code candidates}</li>
+ * </ul>
+ *
+ * <p>Registered only with {@code stran.hotkeys.enabled=true}.
+ */
+@Component
+@ConditionalOnProperty(name = "stran.hotkeys.enabled", havingValue = "true")
+@Endpoint(id = "hotkeys")
+@RequiredArgsConstructor
+public class HotKeysEndpoint {
+
+    private final HotKeyTracker hotKeyTracker;
+
+    @ReadOperation
+    public Map<String, Object> hotKeys() {
+        Map<String, Object> result = new LinkedHashMap<>();
+        result.put("windowSeconds", hotKeyTracker.window().toSeconds());
+        for (HotKeyTracker.Dimension dimension : HotKeyTracker.Dimension.values()) {
+            result.put(dimension.tag(), describe(dimension));
+        }
+        return result;
+    }
+
+    @ReadOperation
+    public Map<String, Object> dimension(@Selector String dimension) {
+        for (HotKeyTracker.Dimension candidate : HotKeyTracker.Dimension.values()) {
+            if (candidate.tag().equals(dimension)) {
+                return describe(candidate);
+            }
+        }
+        return null;
+    }
+
+    private Map<String, Object> describe(HotKeyTracker.Dimension dimension) {
+        long total = hotKeyTracker.total(dimension);
+        Map<String, Object> entry = new LinkedHashMap<>();
+        entry.put("total", total);
+        entry.put("top", hotKeyTracker.top(dimension).stream().map(hitter -> {
+            Map<String, Object> key = new LinkedHashMap<>();
+            key.put("key", hitter.key());
+            key.put("count", hitter.count());
+            key.put("share", total == 0 ? 0.0 : Math.round(Math.min(1.0, (double) hitter.count() / total) * 10_000) / 10_000.0);
+            return key;
+        }).toList());
+        return entry;
+    }
+}
@@ -0,0 +1,68 @@
+package com.example.stran.actuator;
+
+import com.example.stran.jfr.JfrRecorder;
+import lombok.RequiredArgsConstructor;
+import org.springframework.boot.actuate.endpoint.annotation.DeleteOperation;
+import org.springframework.boot.actuate.endpoint.annotation.Endpoint;
+import org.springframework.boot.actuate.endpoint.annotation.ReadOperation;
+import org.springframework.boot.actuate.endpoint.annotation.WriteOperation;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnExpression;
+import org.springframework.lang.Nullable;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Actuator endpoint ({@code /actuator/jfr}) for on-demand Java Flight Recorder
+ * recordings of the stran pipeline events, see {@link JfrRecorder}.
+ *
+ * <ul>
+ *   <li>{@code GET /actuator/jfr} — the running or most recent recording</li>
+ *   <li>{@code POST /actuator/jfr} {@code {"durationSeconds":120,"settings":"profile"}} — start one</li>
+ *   <li>{@code DELETE /actuator/jfr} — stop it early and write the file</li>
+ * </ul>
+ *
+ * <p>Every request needs {@code Authorization: Bearer <stran.tuning.token>} (see
+ * {@link TuningAuthenticationFilter}); without a token the endpoint is not registered.
+ */
+@Component
+@Endpoint(id = "jfr")
+@ConditionalOnExpression("!'${stran.tuning.token:}'.isBlank()")
+@RequiredArgsConstructor
+public class JfrEndpoint {
+
+    private final JfrRecorder recorder;
+
+    @ReadOperation
+    public Map<String, Object> recording() {
+        return describe(recorder.status());
+    }
+
+    @WriteOperation
+    public Map<String, Object> start(@Nullable Long durationSeconds, @Nullable String settings) {
+        return describe(recorder.start(durationSeconds == null ? null : Duration.ofSeconds(durationSeconds), settings));
+    }
+
+    @DeleteOperation
+    public Map<String, Object> stop() {
+        return describe(recorder.stop());
+    }
+
+    private static Map<String, Object> describe(JfrRecorder.Status status) {
+        Map<String, Object> entry = new LinkedHashMap<>();
+        if (status == null) {
+            entry.put("state", "NONE");
+            return entry;
+        }
+        entry.put("id", status.id());
+        entry.put("name", status.name());
+        entry.put("state", status.state().name());
+        entry.put("startTime", status.startTime() == null ? null : status.startTime().toString());
+        entry.put("durationSeconds", status.duration() == null ? null : status.duration().toSeconds());
+        entry.put("maxSizeBytes", status.maxSizeBytes());
+        entry.put("file", status.file() == null ? null : status.file().toString());
+        return entry;
+    }
+}
@@ -0,0 +1,41 @@
+package com.example.stran.actuator;
+
+import com.example.stran.service.NotificationLatencyTracker;
+import lombok.RequiredArgsConstructor;
+import org.springframework.boot.actuate.endpoint.annotation.Endpoint;
+import org.springframework.boot.actuate.endpoint.annotation.ReadOperation;
+import org.springframework.stereotype.Component;
+
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Actuator endpoint ({@code GET /actuator/latency}) listing the notifications
+ * with the highest end-to-end latency in the recent window, slowest first.
+ */
+@Component
+@Endpoint(id = "latency")
+@RequiredArgsConstructor
+public class LatencyEndpoint {
+
+    private final NotificationLatencyTracker latencyTracker;
+
+    @ReadOperation
+    public List<Map<String, Object>> worstOffenders() {
+        return latencyTracker.worstOffenders().stream()
+                .map(offender -> {
+                    Map<String, Object> entry = new LinkedHashMap<>();
+                    entry.put("notificationId", offender.notificationId());
+                    entry.put("subscriptionId", offender.subscriptionId());
+                    entry.put("propCode", offender.propCode());
+                    entry.put("partition", offender.partition());
+                    entry.put("strategy", offender.strategy());
+                    entry.put("sourceTimestamp", offender.sourceTimestamp().toString());
+                    entry.put("ackedAt", offender.ackedAt().toString());
+                    entry.put("latencyMs", offender.latency().toMillis());
+                    return entry;
+                })
+                .toList();
+    }
+}
@@ -0,0 +1,70 @@
+package com.example.stran.actuator;
+
+import com.example.stran.service.NotificationRateGovernor;
+import lombok.RequiredArgsConstructor;
+import org.springframework.boot.actuate.endpoint.annotation.DeleteOperation;
+import org.springframework.boot.actuate.endpoint.annotation.Endpoint;
+import org.springframework.boot.actuate.endpoint.annotation.ReadOperation;
+import org.springframework.boot.actuate.endpoint.annotation.Selector;
+import org.springframework.boot.actuate.endpoint.annotation.WriteOperation;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnExpression;
+import org.springframework.lang.Nullable;
+import org.springframework.stereotype.Component;
+
+import java.util.Map;
+
+/**
+ * Actuator endpoint ({@code /actuator/ratelimit}) for inspecting and adjusting
+ * the {@link NotificationRateGovernor} limits at runtime.
+ *
+ * <ul>
+ *   <li>{@code GET /actuator/ratelimit} — current limits and queue depth</li>
+ *   <li>{@code POST /actuator/ratelimit} {@code {"globalPerSecond":200,"perPropertyPerSecond":20}}</li>
+ *   <li>{@code POST /actuator/ratelimit/{propCode}} {@code {"perSecond":5}} — per-property override</li>
+ *   <li>{@code DELETE /actuator/ratelimit/{propCode}} — clear the override</li>
+ * </ul>
+ *
+ * <p>Every request needs {@code Authorization: Bearer <stran.tuning.token>} (see
+ * {@link TuningAuthenticationFilter}); without a token the endpoint is not registered.
+ */
+@Component
+@Endpoint(id = "ratelimit")
+@ConditionalOnExpression("${stran.notification.rate-limit.enabled:false} and !${kafka.transactions.enabled:false}"
+        + " and !'${stran.tuning.token:}'.isBlank()")
+@RequiredArgsConstructor
+public class RateLimitEndpoint {
+
+    private final NotificationRateGovernor governor;
+
+    @ReadOperation
+    public Map<String, Object> limits() {
+        return Map.of(
+                "globalPerSecond", governor.getGlobalRate(),
+                "perPropertyPerSecond", governor.getPropertyRate(),
+                "propertyOverrides", governor.getPropertyOverrides(),
+                "queued", governor.queued());
+    }
+
+    @WriteOperation
+    public Map<String, Object> update(@Nullable Double globalPerSecond, @Nullable Double perPropertyPerSecond) {
+        if (globalPerSecond != null) {
+            governor.setGlobalRate(globalPerSecond);
+        }
+        if (perPropertyPerSecond != null) {
+            governor.setPropertyRate(perPropertyPerSecond);
+        }
+        return limits();
+    }
+
+    @WriteOperation
+    public Map<String, Object> updateProperty(@Selector String propCode, double perSecond) {
+        governor.setPropertyRate(propCode, perSecond);
+        return limits();
+    }
+
+    @DeleteOperation
+    public Map<String, Object> clearProperty(@Selector String propCode) {
+        governor.setPropertyRate(propCode, null);
+        return limits();
+    }
+}
@@ -0,0 +1,68 @@
+package com.example.stran.actuator;
+
+import com.example.stran.service.BulkRematchJob;
+import com.example.stran.service.LatestAvailability;
+import lombok.RequiredArgsConstructor;
+import org.springframework.boot.actuate.endpoint.annotation.DeleteOperation;
+import org.springframework.boot.actuate.endpoint.annotation.Endpoint;
+import org.springframework.boot.actuate.endpoint.annotation.ReadOperation;
+import org.springframework.boot.actuate.endpoint.annotation.WriteOperation;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnExpression;
+import org.springframework.stereotype.Component;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Actuator endpoint ({@code /actuator/rematch}) for running the {@link BulkRematchJob}
+ * on demand.
+ *
+ * <ul>
+ *   <li>{@code GET /actuator/rematch} — progress of the current or last run</li>
+ *   <li>{@code POST /actuator/rematch} — start a run, resuming after the checkpoint if any</li>
+ *   <li>{@code DELETE /actuator/rematch} — stop the current run at its checkpoint</li>
+ * </ul>
+ *
+ * <p>Every request needs {@code Authorization: Bearer <stran.tuning.token>} (see
+ * {@link TuningAuthenticationFilter}); without a token the endpoint is not registered.
+ */
+@Component
+@Endpoint(id = "rematch")
+@ConditionalOnExpression("${stran.rematch.enabled:false} and !${kafka.transactions.enabled:false}"
+        + " and !'${stran.tuning.token:}'.isBlank()")
+@RequiredArgsConstructor
+public class RematchEndpoint {
+
+    private final BulkRematchJob job;
+    private final LatestAvailability latestAvailability;
+
+    @ReadOperation
+    public Map<String, Object> status() {
+        BulkRematchJob.Status status = job.status();
+        Map<String, Object> result = new LinkedHashMap<>();
+        result.put("running", status.running());
+        result.put("runId", status.runId());
+        result.put("propertiesTotal", status.propertiesTotal());
+        result.put("propertiesDone", status.propertiesDone());
+        result.put("subscriptionsChecked", status.subscriptionsChecked());
+        result.put("notificationsSent", status.notificationsSent());
+        result.put("checkpoint", status.checkpoint());
+        result.put("lastError", status.lastError());
+        result.put("availabilityEntries", latestAvailability.size());
+        return result;
+    }
+
+    @WriteOperation
+    public Map<String, Object> start() {
+        Map<String, Object> result = new LinkedHashMap<>();
+        result.put("started", job.start());
+        result.putAll(status());
+        return result;
+    }
+
+    @DeleteOperation
+    public Map<String, Object> stop() {
+        job.stop();
+        return status();
+    }
+}
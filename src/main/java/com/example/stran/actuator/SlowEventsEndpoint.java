@@ -0,0 +1,68 @@
+package com.example.stran.actuator;
+
+import com.example.stran.service.SlowEventLog;
+import lombok.RequiredArgsConstructor;
+import org.springframework.boot.actuate.endpoint.annotation.DeleteOperation;
+import org.springframework.boot.actuate.endpoint.annotation.Endpoint;
+import org.springframework.boot.actuate.endpoint.annotation.ReadOperation;
+import org.springframework.stereotype.Component;
+
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Actuator endpoint ({@code /actuator/slowevents}) exposing the {@link SlowEventLog}:
+ * the most recent inventory events over the latency budget, slowest first, each
+ * with its per-stage breakdown in milliseconds.
+ *
+ * <ul>
+ *   <li>{@code GET /actuator/slowevents} — budget, total recorded and buffered events</li>
+ *   <li>{@code DELETE /actuator/slowevents} — clear the buffer</li>
+ * </ul>
+ */
+@Component
+@Endpoint(id = "slowevents")
+@RequiredArgsConstructor
+public class SlowEventsEndpoint {
+
+    private final SlowEventLog slowEventLog;
+
+    @ReadOperation
+    public Map<String, Object> slowEvents() {
+        Map<String, Object> result = new LinkedHashMap<>();
+        result.put("budgetMs", slowEventLog.budget().toMillis());
+        result.put("windowSeconds", slowEventLog.window().toSeconds());
+        result.put("recorded", slowEventLog.recorded());
+        result.put("events", slowEventLog.slowest().stream().map(SlowEventsEndpoint::describe).toList());
+        return result;
+    }
+
+    @DeleteOperation
+    public Map<String, Object> clear() {
+        slowEventLog.clear();
+        return slowEvents();
+    }
+
+    private static Map<String, Object> describe(SlowEventLog.SlowEvent event) {
+        Map<String, Object> entry = new LinkedHashMap<>();
+        entry.put("recordedAt", event.recordedAt().toString());
+        entry.put("topic", event.topic());
+        entry.put("partition", event.partition());
+        entry.put("offset", event.offset());
+        entry.put("propCode", event.propCode());
+        entry.put("date", event.date());
+        entry.put("elapsedMs", millis(event.elapsed().toNanos()));
+        Map<String, Object> stages = new LinkedHashMap<>();
+        event.stages().forEach((stage, duration) -> stages.put(stage.name().toLowerCase(), millis(duration.toNanos())));
+        stages.put("other", millis(event.other().toNanos()));
+        entry.put("stagesMs", stages);
+        entry.put("candidates", event.candidates());
+        entry.put("matches", event.matches());
+        return entry;
+    }
+
+    private static double millis(long nanos) {
+        return Math.round(nanos / 10_000.0) / 100.0;
+    }
+}
@@ -0,0 +1,78 @@
+package com.example.stran.actuator;
+
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnExpression;
+import org.springframework.http.HttpHeaders;
+import org.springframework.stereotype.Component;
+import org.springframework.web.filter.OncePerRequestFilter;
+import org.springframework.web.util.UrlPathHelper;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.util.List;
+
+/**
+ * Requires {@code Authorization: Bearer <stran.tuning.token>} on every request to
+ * the write endpoints ({@link TuningEndpoint}, {@link RateLimitEndpoint},
+ * {@link JfrEndpoint}, {@link RematchEndpoint}); anything else gets {@code 401}. Other actuator endpoints are
+ * not affected. The guarded endpoints are only registered while the token is set,
+ * so they are never reachable without it.
+ *
+ * <p>Requests are matched on the normalized path (URL-decoded, {@code ;} parameters
+ * removed, duplicate slashes collapsed), the way Spring MVC routes them, so
+ * {@code /actuator/tuning;x=1} or {@code /actuator/tunin%67} are filtered too.
+ *
+ * <p>The token is compared in constant time. The application has no Spring Security,
+ * so this guards the write endpoints; keep the token in a secret store and the
+ * actuator port off the public network.
+ */
+@Slf4j
+@Component
+@ConditionalOnExpression("!'${stran.tuning.token:}'.isBlank()")
+public class TuningAuthenticationFilter extends OncePerRequestFilter {
+
+    private static final String BEARER = "Bearer ";
+
+    /** IDs of the guarded endpoints. */
+    static final List<String> ENDPOINTS = List.of("tuning", "ratelimit", "jfr", "rematch");
+
+    private final byte[] token;
+    private final List<String> paths;
+    private final UrlPathHelper urlPathHelper = new UrlPathHelper();
+
+    public TuningAuthenticationFilter(
+            @Value("${stran.tuning.token}") String token,
+            @Value("${management.endpoints.web.base-path:/actuator}") String basePath) {
+        this.token = token.getBytes(StandardCharsets.UTF_8);
+        this.paths = ENDPOINTS.stream().map(id -> basePath + "/" + id).toList();
+        urlPathHelper.setUrlDecode(true);
+        urlPathHelper.setRemoveSemicolonContent(true);
+    }
+
+    @Override
+    protected boolean shouldNotFilter(HttpServletRequest request) {
+        String uri = urlPathHelper.getPathWithinApplication(request);
+        return paths.stream().noneMatch(path -> uri.equals(path) || uri.startsWith(path + "/"));
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain chain)
+            throws ServletException, IOException {
+        String authorization = request.getHeader(HttpHeaders.AUTHORIZATION);
+        if (authorization == null || !authorization.startsWith(BEARER)
+                || !MessageDigest.isEqual(token, authorization.substring(BEARER.length()).getBytes(StandardCharsets.UTF_8))) {
+            log.warn("Rejected unauthenticated {} {} from {}", request.getMethod(), request.getRequestURI(),
+                    request.getRemoteAddr());
+            response.setHeader(HttpHeaders.WWW_AUTHENTICATE, "Bearer");
+            response.sendError(HttpServletResponse.SC_UNAUTHORIZED);
+            return;
+        }
+        chain.doFilter(request, response);
+    }
+}
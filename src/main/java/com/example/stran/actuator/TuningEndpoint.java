@@ -0,0 +1,61 @@
+package com.example.stran.actuator;
+
+import com.example.stran.service.PipelineTuning;
+import lombok.RequiredArgsConstructor;
+import org.springframework.boot.actuate.endpoint.InvalidEndpointRequestException;
+import org.springframework.boot.actuate.endpoint.annotation.ReadOperation;
+import org.springframework.boot.actuate.endpoint.annotation.WriteOperation;
+import org.springframework.boot.actuate.endpoint.web.annotation.WebEndpoint;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnExpression;
+import org.springframework.lang.Nullable;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.Map;
+
+/**
+ * Actuator endpoint ({@code /actuator/tuning}) for adjusting pipeline concurrency,
+ * batching, in-flight limits and cache bounds at runtime through {@link PipelineTuning}.
+ *
+ * <ul>
+ *   <li>{@code GET /actuator/tuning} — effective values</li>
+ *   <li>{@code POST /actuator/tuning} {@code {"concurrency":4,"maxPollRecords":200,"lingerMs":5}} —
+ *       change any subset; omitted values are kept</li>
+ * </ul>
+ *
+ * <p>Web only, and every request needs {@code Authorization: Bearer <stran.tuning.token>}
+ * (see {@link TuningAuthenticationFilter}); without a token the endpoint is not registered.
+ */
+@Component
+@WebEndpoint(id = "tuning")
+@ConditionalOnExpression("!'${stran.tuning.token:}'.isBlank()")
+@RequiredArgsConstructor
+public class TuningEndpoint {
+
+    private final PipelineTuning tuning;
+
+    @ReadOperation
+    public Map<String, Object> effective() {
+        return tuning.effective();
+    }
+
+    @WriteOperation
+    public Map<String, Object> update(@Nullable Integer concurrency, @Nullable Integer maxPollRecords,
+                                      @Nullable Long retryIntervalMs, @Nullable Long retryMaxAttempts,
+                                      @Nullable Integer lingerMs, @Nullable Integer batchSize,
+                                      @Nullable Integer maxInFlightRequests,
+                                      @Nullable Integer commitAfterAckMaxInFlight,
+                                      @Nullable Integer priorityMaxInFlight,
+                                      @Nullable Duration hotLanesDetectTtl, @Nullable Integer hotLanesMaxProperties,
+                                      @Nullable Integer rematchAvailabilityMaxEntries) {
+        try {
+            tuning.apply(new PipelineTuning.Changes(concurrency, maxPollRecords, retryIntervalMs, retryMaxAttempts,
+                    lingerMs, batchSize, maxInFlightRequests, commitAfterAckMaxInFlight, priorityMaxInFlight,
+                    hotLanesDetectTtl, hotLanesMaxProperties, rematchAvailabilityMaxEntries));
+        } catch (IllegalArgumentException e) {
+            // Reported as 400 with the reason instead of a 500
+            throw new InvalidEndpointRequestException(e.getMessage(), e.getMessage());
+        }
+        return tuning.effective();
+    }
+}
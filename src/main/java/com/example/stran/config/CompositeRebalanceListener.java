@@ -0,0 +1,48 @@
+package com.example.stran.config;
+
+import org.apache.kafka.clients.consumer.Consumer;
+import org.apache.kafka.common.TopicPartition;
+import org.springframework.kafka.listener.ConsumerAwareRebalanceListener;
+
+import java.util.Collection;
+import java.util.List;
+
+/**
+ * Fans container rebalance callbacks out to several listeners, since a
+ * container accepts only one. Revocation callbacks run in reverse order so that
+ * listeners registered first see partitions last.
+ */
+public class CompositeRebalanceListener implements ConsumerAwareRebalanceListener {
+
+    private final List<ConsumerAwareRebalanceListener> delegates;
+
+    public CompositeRebalanceListener(List<ConsumerAwareRebalanceListener> delegates) {
+        this.delegates = List.copyOf(delegates);
+    }
+
+    @Override
+    public void onPartitionsRevokedBeforeCommit(Consumer<?, ?> consumer, Collection<TopicPartition> partitions) {
+        for (int i = delegates.size() - 1; i >= 0; i--) {
+            delegates.get(i).onPartitionsRevokedBeforeCommit(consumer, partitions);
+        }
+    }
+
+    @Override
+    public void onPartitionsRevokedAfterCommit(Consumer<?, ?> consumer, Collection<TopicPartition> partitions) {
+        for (int i = delegates.size() - 1; i >= 0; i--) {
+            delegates.get(i).onPartitionsRevokedAfterCommit(consumer, partitions);
+        }
+    }
+
+    @Override
+    public void onPartitionsLost(Consumer<?, ?> consumer, Collection<TopicPartition> partitions) {
+        for (int i = delegates.size() - 1; i >= 0; i--) {
+            delegates.get(i).onPartitionsLost(consumer, partitions);
+        }
+    }
+
+    @Override
+    public void onPartitionsAssigned(Consumer<?, ?> consumer, Collection<TopicPartition> partitions) {
+        delegates.forEach(delegate -> delegate.onPartitionsAssigned(consumer, partitions));
+    }
+}
@@ -1,24 +1,77 @@
 package com.example.stran.config;
 
 import com.example.stran.dto.inventory.InventoryEvent;
+import com.example.stran.dto.notification.NotificationMessage;
+import com.example.stran.serialization.TimedDeserializer;
+import com.example.stran.service.HotPropertyLanes;
+import com.example.stran.service.InventoryBatchListener;
+import com.example.stran.service.NotificationAckTracker;
+import com.example.stran.service.PipelineMetrics;
+import com.example.stran.service.PipelineTuning;
+import com.example.stran.service.PropertyPartitionOwnership;
+import com.example.stran.service.RebalanceCacheWarmup;
+import io.micrometer.core.instrument.MeterRegistry;
 import org.apache.kafka.clients.consumer.ConsumerConfig;
+import org.apache.kafka.clients.consumer.CooperativeStickyAssignor;
+import org.apache.kafka.clients.consumer.RangeAssignor;
+import org.apache.kafka.clients.consumer.RoundRobinAssignor;
+import org.apache.kafka.clients.consumer.StickyAssignor;
 import org.apache.kafka.common.serialization.StringDeserializer;
+import org.springframework.beans.factory.ObjectProvider;
 import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 import org.springframework.kafka.config.ConcurrentKafkaListenerContainerFactory;
 import org.springframework.kafka.core.ConsumerFactory;
 import org.springframework.kafka.core.DefaultKafkaConsumerFactory;
+import org.springframework.kafka.core.KafkaTemplate;
+import org.springframework.kafka.core.MicrometerConsumerListener;
+import org.springframework.kafka.listener.ConsumerAwareRebalanceListener;
+import org.springframework.kafka.listener.ContainerProperties;
+import org.springframework.kafka.listener.DefaultAfterRollbackProcessor;
 import org.springframework.kafka.listener.DefaultErrorHandler;
+import org.springframework.kafka.transaction.KafkaTransactionManager;
 import org.springframework.kafka.support.serializer.JsonDeserializer;
 import org.springframework.util.backoff.FixedBackOff;
 
+import java.util.ArrayList;
 import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
 
 /**
  * Kafka consumer configuration for consuming inventory events
  * from the rate-recomm-prd MSK topic.
+ *
+ * <p>With {@code kafka.transactions.enabled=true} every delivery runs in a
+ * transaction of the notifications producer: the notifications it produces and
+ * the consumed offsets commit or abort together. The inventory listener then
+ * receives whole polls ({@link InventoryBatchListener}), so a delivery is a batch.
+ * The transaction manager is not registered as a bean so that it does not replace
+ * the JPA transaction manager.
+ *
+ * <p>The repartition listener has its own container factory, which is never
+ * transactional: its forwards go through the non-transactional repartition
+ * producer, and the listener acknowledges each record once its forward is
+ * acknowledged.
+ *
+ * <p>With {@code kafka.consumer.commit-after-ack.enabled=true} (and transactions
+ * off) the container uses manual, asynchronous acks driven by the
+ * {@link NotificationAckTracker}. The same applies with
+ * {@code stran.hot-lanes.enabled=true}, whose {@link HotPropertyLanes} acknowledge
+ * records from their own threads.
+ *
+ * <p>Partitions are assigned with the cooperative-sticky assignor, so a rebalance
+ * moves only the partitions that change owner instead of pausing every consumer.
+ * The client's previous default, {@code range,cooperative-sticky}, shares the
+ * assignor, so a single rolling restart switches a running group over. Setting
+ * {@code kafka.consumer.group-instance-id} enables static membership: a restart
+ * within {@code session-timeout-ms} does not rebalance.
+ *
+ * <p>Value deserialization is timed as the {@code deserialization} pipeline stage,
+ * and the Kafka client metrics (including per-partition {@code records-lag}) are
+ * bound to the meter registry.
  */
 @Configuration
 public class KafkaConsumerConfig {
@@ -32,30 +85,153 @@ public class KafkaConsumerConfig {
     @Value("${kafka.consumer.concurrency:1}")
     private int concurrency;
 
+    @Value("${kafka.transactions.enabled:false}")
+    private boolean transactionsEnabled;
+
+    @Value("${kafka.consumer.assignment-strategies:cooperative-sticky}")
+    private String[] assignmentStrategies;
+
+    @Value("${kafka.consumer.group-instance-id:}")
+    private String groupInstanceId;
+
+    @Value("${kafka.consumer.session-timeout-ms:45000}")
+    private int sessionTimeoutMillis;
+
+    @Value("${kafka.consumer.retry.interval-ms:1000}")
+    private long retryIntervalMillis;
+
+    @Value("${kafka.consumer.retry.max-attempts:3}")
+    private long retryMaxAttempts;
+
     @Bean
-    public ConsumerFactory<String, InventoryEvent> inventoryEventConsumerFactory() {
+    public ConsumerFactory<String, InventoryEvent> inventoryEventConsumerFactory(
+            PipelineMetrics pipelineMetrics, MeterRegistry meterRegistry) {
         Map<String, Object> props = new HashMap<>();
         props.put(ConsumerConfig.BOOTSTRAP_SERVERS_CONFIG, bootstrapServers);
         props.put(ConsumerConfig.GROUP_ID_CONFIG, groupId);
         props.put(ConsumerConfig.AUTO_OFFSET_RESET_CONFIG, "earliest");
-        props.put(ConsumerConfig.KEY_DESERIALIZER_CLASS_CONFIG, StringDeserializer.class);
-        props.put(ConsumerConfig.VALUE_DESERIALIZER_CLASS_CONFIG, JsonDeserializer.class);
         props.put(JsonDeserializer.TRUSTED_PACKAGES, "*");
         props.put(JsonDeserializer.VALUE_DEFAULT_TYPE, InventoryEvent.class.getName());
         props.put(JsonDeserializer.USE_TYPE_INFO_HEADERS, false);
-        return new DefaultKafkaConsumerFactory<>(props);
+        props.put(ConsumerConfig.PARTITION_ASSIGNMENT_STRATEGY_CONFIG, assignors(assignmentStrategies));
+        props.put(ConsumerConfig.SESSION_TIMEOUT_MS_CONFIG, sessionTimeoutMillis);
+        if (!groupInstanceId.isBlank()) {
+            // The container appends -n per concurrent consumer so every member keeps a distinct id
+            props.put(ConsumerConfig.GROUP_INSTANCE_ID_CONFIG, groupInstanceId);
+        }
+        DefaultKafkaConsumerFactory<String, InventoryEvent> factory = new DefaultKafkaConsumerFactory<>(props,
+                new StringDeserializer(),
+                new TimedDeserializer<>(new JsonDeserializer<>(),
+                        pipelineMetrics.timer(PipelineMetrics.Stage.DESERIALIZATION)));
+        factory.addListener(new MicrometerConsumerListener<>(meterRegistry));
+        return factory;
     }
 
+    /**
+     * Backoff between redeliveries of a failed inventory record. Shared by the error
+     * handler and the after-rollback processor and read on every failure, so
+     * {@link PipelineTuning} can change it without recreating the containers.
+     */
     @Bean
-    public ConcurrentKafkaListenerContainerFactory<String, InventoryEvent> inventoryEventListenerContainerFactory() {
+    public FixedBackOff inventoryRetryBackOff() {
+        return new FixedBackOff(retryIntervalMillis, retryMaxAttempts);
+    }
+
+    @Bean
+    public ConcurrentKafkaListenerContainerFactory<String, InventoryEvent> inventoryEventListenerContainerFactory(
+            ConsumerFactory<String, InventoryEvent> inventoryEventConsumerFactory,
+            FixedBackOff inventoryRetryBackOff,
+            ObjectProvider<PropertyPartitionOwnership> partitionOwnership,
+            ObjectProvider<RebalanceCacheWarmup> cacheWarmup,
+            ObjectProvider<NotificationAckTracker> ackTracker,
+            ObjectProvider<HotPropertyLanes> hotLanes,
+            KafkaTemplate<String, NotificationMessage> notificationKafkaTemplate) {
         ConcurrentKafkaListenerContainerFactory<String, InventoryEvent> factory =
                 new ConcurrentKafkaListenerContainerFactory<>();
-        factory.setConsumerFactory(inventoryEventConsumerFactory());
+        factory.setConsumerFactory(inventoryEventConsumerFactory);
         factory.setConcurrency(concurrency);
 
-        // Retry failed records up to 3 times with 1-second backoff, then log and skip
-        factory.setCommonErrorHandler(new DefaultErrorHandler(new FixedBackOff(1000L, 3)));
+        if (transactionsEnabled) {
+            factory.getContainerProperties().setTransactionManager(
+                    new KafkaTransactionManager<>(notificationKafkaTemplate.getProducerFactory()));
+            // Rolled-back records are retried the same way, then logged (null = default recoverer)
+            // and skipped; the skip itself is committed in a transaction. Rolled-back batches are
+            // redelivered after the same backoff until InventoryBatchListener skips the failing record
+            factory.setAfterRollbackProcessor(new DefaultAfterRollbackProcessor<>(
+                    null, inventoryRetryBackOff, notificationKafkaTemplate, true));
+        } else {
+            // Retry failed records up to max-attempts times (default 3, 1-second backoff), then log and skip
+            factory.setCommonErrorHandler(new DefaultErrorHandler(inventoryRetryBackOff));
+        }
+
+        // Offsets are committed once the notifications of a record are acknowledged, not when it is processed,
+        // and hot-property lanes acknowledge their records out of order from the lane threads
+        if (ackTracker.getIfAvailable() != null || hotLanes.getIfAvailable() != null) {
+            factory.getContainerProperties().setAckMode(ContainerProperties.AckMode.MANUAL);
+            factory.getContainerProperties().setAsyncAcks(true);
+        }
 
+        // Shard-local subscription ownership follows partition assignment when repartitioning is on, and the
+        // cache is otherwise warmed with the properties recently seen on assigned partitions;
+        // hot-property lanes, then the ack tracker, drain in-flight records of revoked partitions before their
+        // offsets are committed
+        List<ConsumerAwareRebalanceListener> rebalanceListeners = new ArrayList<>();
+        partitionOwnership.ifAvailable(rebalanceListeners::add);
+        cacheWarmup.ifAvailable(rebalanceListeners::add);
+        hotLanes.ifAvailable(rebalanceListeners::add);
+        ackTracker.ifAvailable(rebalanceListeners::add);
+        if (!rebalanceListeners.isEmpty()) {
+            factory.getContainerProperties().setConsumerRebalanceListener(
+                    new CompositeRebalanceListener(rebalanceListeners));
+        }
+
+        return factory;
+    }
+
+    /**
+     * Container factory of {@link com.example.stran.service.InventoryRepartitionListener}.
+     * No transaction manager even in exactly-once mode: a forward is not part of a
+     * notifications transaction, so one would cost a commit per record and protect
+     * nothing. Records are acknowledged manually after their forward is acknowledged,
+     * by the listener or, with commit-after-ack, by the ack tracker, which also
+     * drains in-flight forwards of revoked partitions.
+     */
+    @Bean
+    @ConditionalOnProperty(name = "kafka.repartition.enabled", havingValue = "true")
+    public ConcurrentKafkaListenerContainerFactory<String, InventoryEvent> inventoryRepartitionListenerContainerFactory(
+            ConsumerFactory<String, InventoryEvent> inventoryEventConsumerFactory,
+            FixedBackOff inventoryRetryBackOff,
+            ObjectProvider<NotificationAckTracker> ackTracker) {
+        ConcurrentKafkaListenerContainerFactory<String, InventoryEvent> factory =
+                new ConcurrentKafkaListenerContainerFactory<>();
+        factory.setConsumerFactory(inventoryEventConsumerFactory);
+        factory.setConcurrency(concurrency);
+        factory.setCommonErrorHandler(new DefaultErrorHandler(inventoryRetryBackOff));
+        factory.getContainerProperties().setAckMode(ContainerProperties.AckMode.MANUAL);
+        NotificationAckTracker tracker = ackTracker.getIfAvailable();
+        if (tracker != null) {
+            factory.getContainerProperties().setAsyncAcks(true);
+            factory.getContainerProperties().setConsumerRebalanceListener(tracker);
+        }
         return factory;
     }
+
+    /**
+     * Resolve assignor names ({@code cooperative-sticky}, {@code sticky}, {@code range},
+     * {@code roundrobin}) or class names to the {@code partition.assignment.strategy} list.
+     */
+    static List<String> assignors(String[] strategies) {
+        List<String> assignors = new ArrayList<>();
+        for (String strategy : strategies) {
+            String name = strategy.trim();
+            assignors.add(switch (name) {
+                case "cooperative-sticky" -> CooperativeStickyAssignor.class.getName();
+                case "sticky" -> StickyAssignor.class.getName();
+                case "range" -> RangeAssignor.class.getName();
+                case "roundrobin" -> RoundRobinAssignor.class.getName();
+                default -> name;
+            });
+        }
+        return assignors;
+    }
 }
@@ -1,9 +1,12 @@
 package com.example.stran.config;
 
+import com.example.stran.dto.inventory.InventoryEvent;
 import com.example.stran.dto.notification.NotificationMessage;
+import com.example.stran.serialization.NotificationMessageSerializer;
 import org.apache.kafka.clients.producer.ProducerConfig;
 import org.apache.kafka.common.serialization.StringSerializer;
 import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 import org.springframework.kafka.core.DefaultKafkaProducerFactory;
@@ -16,7 +19,12 @@ import java.util.Map;
 
 /**
  * Kafka producer configuration for publishing notification messages
- * to the notifications MSK topic.
+ * to the notifications MSK topic, plus the optional producer that re-keys
+ * inventory events onto the internal propCode-partitioned topic.
+ *
+ * <p>With {@code kafka.transactions.enabled=true} the notifications producer is
+ * transactional; the inventory listener container then commits consumed offsets
+ * in the same transaction (see {@link KafkaConsumerConfig}).
  */
 @Configuration
 public class KafkaProducerConfig {
@@ -24,12 +32,28 @@ public class KafkaProducerConfig {
     @Value("${spring.kafka.bootstrap-servers}")
     private String bootstrapServers;
 
+    @Value("${stran.notification.serializer.format:json}")
+    private String notificationFormat;
+
+    @Value("${kafka.transactions.enabled:false}")
+    private boolean transactionsEnabled;
+
+    @Value("${kafka.transactions.id-prefix:stran-tx-}")
+    private String transactionIdPrefix;
+
+    @Value("${stran.notification.outbox.enabled:false}")
+    private boolean outboxEnabled;
+
+    @Value("${stran.notification.outbox.max-block-ms:1000}")
+    private long outboxMaxBlockMs;
+
     @Bean
     public ProducerFactory<String, NotificationMessage> notificationProducerFactory() {
         Map<String, Object> props = new HashMap<>();
         props.put(ProducerConfig.BOOTSTRAP_SERVERS_CONFIG, bootstrapServers);
         props.put(ProducerConfig.KEY_SERIALIZER_CLASS_CONFIG, StringSerializer.class);
-        props.put(ProducerConfig.VALUE_SERIALIZER_CLASS_CONFIG, JsonSerializer.class);
+        props.put(ProducerConfig.VALUE_SERIALIZER_CLASS_CONFIG, NotificationMessageSerializer.class);
+        props.put(NotificationMessageSerializer.FORMAT_CONFIG, notificationFormat);
         props.put(ProducerConfig.ACKS_CONFIG, "all");
         props.put(ProducerConfig.ENABLE_IDEMPOTENCE_CONFIG, true);
         props.put(ProducerConfig.RETRIES_CONFIG, Integer.MAX_VALUE);
@@ -37,11 +61,50 @@ public class KafkaProducerConfig {
         // Cap the total time a send() can retry before reporting failure (default 120s)
         props.put(ProducerConfig.DELIVERY_TIMEOUT_MS_CONFIG, 30_000);
         props.put(ProducerConfig.REQUEST_TIMEOUT_MS_CONFIG, 10_000);
-        return new DefaultKafkaProducerFactory<>(props);
+        if (outboxEnabled && !transactionsEnabled) {
+            // Fail fast on missing topic metadata or a full send buffer so the notification is spilled
+            // to the outbox instead of stalling the listener thread for the default 60s
+            props.put(ProducerConfig.MAX_BLOCK_MS_CONFIG, outboxMaxBlockMs);
+        }
+        if (transactionsEnabled) {
+            // A transaction started right after a commit is rejected with CONCURRENT_TRANSACTIONS until the
+            // commit markers are written; the default 100ms retry backoff caps commits at ~10/s per producer
+            props.put(ProducerConfig.RETRY_BACKOFF_MS_CONFIG, 10);
+        }
+        DefaultKafkaProducerFactory<String, NotificationMessage> factory = new DefaultKafkaProducerFactory<>(props);
+        if (transactionsEnabled) {
+            // Must be unique per instance: instances sharing a prefix fence each other's producers
+            factory.setTransactionIdPrefix(transactionIdPrefix);
+        }
+        return factory;
     }
 
     @Bean
     public KafkaTemplate<String, NotificationMessage> notificationKafkaTemplate() {
+        // Every send runs in a listener transaction; the off-thread senders (digest, priority lanes,
+        // rate governor, bulk re-match) are disabled in this mode
         return new KafkaTemplate<>(notificationProducerFactory());
     }
+
+    @Bean
+    @ConditionalOnProperty(name = "kafka.repartition.enabled", havingValue = "true")
+    public ProducerFactory<String, InventoryEvent> inventoryRepartitionProducerFactory() {
+        Map<String, Object> props = new HashMap<>();
+        props.put(ProducerConfig.BOOTSTRAP_SERVERS_CONFIG, bootstrapServers);
+        props.put(ProducerConfig.KEY_SERIALIZER_CLASS_CONFIG, StringSerializer.class);
+        props.put(ProducerConfig.VALUE_SERIALIZER_CLASS_CONFIG, JsonSerializer.class);
+        props.put(JsonSerializer.ADD_TYPE_INFO_HEADERS, false);
+        props.put(ProducerConfig.ACKS_CONFIG, "all");
+        props.put(ProducerConfig.ENABLE_IDEMPOTENCE_CONFIG, true);
+        props.put(ProducerConfig.LINGER_MS_CONFIG, 5);
+        props.put(ProducerConfig.DELIVERY_TIMEOUT_MS_CONFIG, 30_000);
+        props.put(ProducerConfig.REQUEST_TIMEOUT_MS_CONFIG, 10_000);
+        return new DefaultKafkaProducerFactory<>(props);
+    }
+
+    @Bean
+    @ConditionalOnProperty(name = "kafka.repartition.enabled", havingValue = "true")
+    public KafkaTemplate<String, InventoryEvent> inventoryRepartitionKafkaTemplate() {
+        return new KafkaTemplate<>(inventoryRepartitionProducerFactory());
+    }
 }
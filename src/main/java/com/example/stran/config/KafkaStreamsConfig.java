@@ -0,0 +1,153 @@
+package com.example.stran.config;
+
+import com.example.stran.entity.Property;
+import com.example.stran.entity.StaySubscription;
+import com.example.stran.repository.PropertyRepository;
+import com.example.stran.service.PipelineMetrics;
+import com.example.stran.streams.SubscriptionMatchingTopology;
+import org.apache.kafka.clients.admin.NewTopic;
+import org.apache.kafka.clients.producer.ProducerConfig;
+import org.apache.kafka.common.serialization.StringSerializer;
+import org.apache.kafka.streams.StreamsBuilder;
+import org.apache.kafka.streams.StreamsConfig;
+import org.apache.kafka.streams.errors.LogAndContinueExceptionHandler;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.kafka.annotation.EnableKafkaStreams;
+import org.springframework.kafka.annotation.KafkaStreamsDefaultConfiguration;
+import org.springframework.kafka.config.KafkaStreamsConfiguration;
+import org.springframework.kafka.config.TopicBuilder;
+import org.springframework.kafka.core.DefaultKafkaProducerFactory;
+import org.springframework.kafka.core.KafkaTemplate;
+import org.springframework.kafka.support.serializer.JsonSerializer;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Function;
+
+/**
+ * Kafka Streams configuration for the {@code streams} matching engine
+ * ({@code stran.matching.engine=streams}), which replaces the inventory listener
+ * with the {@link SubscriptionMatchingTopology}.
+ *
+ * <p>The subscription changes topic is compacted and keyed by subscription id,
+ * so it holds the latest version of every subscription and can rebuild the
+ * topology's stores from scratch. It is fed by the
+ * {@link com.example.stran.streams.SubscriptionChangeFeed} unless
+ * {@code stran.streams.change-feed.enabled=false}, e.g. when the
+ * subscription-service publishes it through change data capture.
+ *
+ * <p>The topology publishes notifications itself, bypassing
+ * {@code NotificationProducer}: the {@code stran.notification.*} outbox, rate limit,
+ * priority, latency and digest settings have no effect with this engine.
+ */
+@Configuration
+@EnableKafkaStreams
+@ConditionalOnProperty(name = "stran.matching.engine", havingValue = "streams")
+public class KafkaStreamsConfig {
+
+    @Value("${spring.kafka.bootstrap-servers}")
+    private String bootstrapServers;
+
+    @Value("${kafka.topic.inventory}")
+    private String inventoryTopic;
+
+    @Value("${kafka.topic.notifications}")
+    private String notificationsTopic;
+
+    @Value("${kafka.topic.subscription-changes:stran-subscription-changes}")
+    private String changesTopic;
+
+    @Value("${stran.notification.serializer.format:json}")
+    private String notificationFormat;
+
+    @Value("${stran.streams.application-id:stran-matching-streams}")
+    private String applicationId;
+
+    @Value("${stran.streams.partitions:12}")
+    private int partitions;
+
+    @Value("${stran.streams.threads:1}")
+    private int threads;
+
+    @Value("${stran.streams.state-dir:./data/streams}")
+    private String stateDir;
+
+    @Value("${stran.streams.processing-guarantee:at_least_once}")
+    private String processingGuarantee;
+
+    @Value("${stran.streams.replication-factor:-1}")
+    private int replicationFactor;
+
+    @Bean(name = KafkaStreamsDefaultConfiguration.DEFAULT_STREAMS_CONFIG_BEAN_NAME)
+    public KafkaStreamsConfiguration defaultKafkaStreamsConfig() {
+        Map<String, Object> props = new HashMap<>();
+        props.put(StreamsConfig.APPLICATION_ID_CONFIG, applicationId);
+        props.put(StreamsConfig.BOOTSTRAP_SERVERS_CONFIG, bootstrapServers);
+        props.put(StreamsConfig.NUM_STREAM_THREADS_CONFIG, threads);
+        props.put(StreamsConfig.STATE_DIR_CONFIG, stateDir);
+        props.put(StreamsConfig.PROCESSING_GUARANTEE_CONFIG, processingGuarantee);
+        props.put(StreamsConfig.REPLICATION_FACTOR_CONFIG, replicationFactor);
+        // Same policy as the listener's error handler: a record that cannot be read is logged and skipped
+        props.put(StreamsConfig.DEFAULT_DESERIALIZATION_EXCEPTION_HANDLER_CLASS_CONFIG,
+                LogAndContinueExceptionHandler.class);
+        // Keep a warm copy of each store on another instance so a failover does not replay the changelog
+        props.put(StreamsConfig.NUM_STANDBY_REPLICAS_CONFIG, 1);
+        props.put(StreamsConfig.producerPrefix(ProducerConfig.ACKS_CONFIG), "all");
+        return new KafkaStreamsConfiguration(props);
+    }
+
+    @Bean
+    public SubscriptionMatchingTopology subscriptionMatchingTopology(StreamsBuilder streamsBuilder,
+                                                                     PropertyRepository propertyRepository,
+                                                                     PipelineMetrics pipelineMetrics) {
+        SubscriptionMatchingTopology topology = new SubscriptionMatchingTopology(inventoryTopic, changesTopic,
+                notificationsTopic, partitions, notificationFormat, propertyIds(propertyRepository),
+                pipelineMetrics);
+        topology.build(streamsBuilder);
+        return topology;
+    }
+
+    @Bean
+    public NewTopic subscriptionChangesTopic() {
+        return TopicBuilder.name(changesTopic)
+                .partitions(partitions)
+                .compact()
+                .build();
+    }
+
+    @Bean
+    @ConditionalOnProperty(name = "stran.streams.change-feed.enabled", havingValue = "true", matchIfMissing = true)
+    public KafkaTemplate<String, StaySubscription> subscriptionChangeKafkaTemplate() {
+        Map<String, Object> props = new HashMap<>();
+        props.put(ProducerConfig.BOOTSTRAP_SERVERS_CONFIG, bootstrapServers);
+        props.put(ProducerConfig.KEY_SERIALIZER_CLASS_CONFIG, StringSerializer.class);
+        props.put(ProducerConfig.VALUE_SERIALIZER_CLASS_CONFIG, JsonSerializer.class);
+        props.put(JsonSerializer.ADD_TYPE_INFO_HEADERS, false);
+        props.put(ProducerConfig.ACKS_CONFIG, "all");
+        props.put(ProducerConfig.ENABLE_IDEMPOTENCE_CONFIG, true);
+        props.put(ProducerConfig.LINGER_MS_CONFIG, 20);
+        return new KafkaTemplate<>(new DefaultKafkaProducerFactory<>(props));
+    }
+
+    /**
+     * Resolve propCodes through the property table, caching known properties:
+     * a propCode never moves to another property.
+     */
+    private static Function<String, Long> propertyIds(PropertyRepository propertyRepository) {
+        Map<String, Long> cache = new ConcurrentHashMap<>();
+        return propCode -> {
+            Long propertyId = cache.get(propCode);
+            if (propertyId == null) {
+                propertyId = propertyRepository.findByPropCode(propCode).map(Property::getPropertyId).orElse(null);
+                if (propertyId != null) {
+                    cache.put(propCode, propertyId);
+                }
+            }
+            return propertyId;
+        };
+    }
+}
@@ -0,0 +1,13 @@
+package com.example.stran.config;
+
+import org.springframework.context.annotation.Configuration;
+import org.springframework.scheduling.annotation.EnableScheduling;
+
+/**
+ * Enables {@code @Scheduled} background tasks such as the periodic
+ * subscription cache refresh.
+ */
+@Configuration
+@EnableScheduling
+public class SchedulingConfig {
+}
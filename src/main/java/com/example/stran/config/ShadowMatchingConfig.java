@@ -0,0 +1,71 @@
+package com.example.stran.config;
+
+import com.example.stran.repository.PropertyRepository;
+import com.example.stran.repository.StaySubscriptionRepository;
+import com.example.stran.service.HotKeyTracker;
+import com.example.stran.service.HotPathLog;
+import com.example.stran.service.MappedStoreMatchingService;
+import com.example.stran.service.PipelineMetrics;
+import com.example.stran.service.PropertyAvailabilityMatchingService;
+import com.example.stran.service.ShadowMatching;
+import com.example.stran.service.SubscriptionCache;
+import com.example.stran.service.SubscriptionMatchingStrategy;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnExpression;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import java.nio.file.Path;
+import java.time.Duration;
+
+/**
+ * Creates the candidate strategy for {@link ShadowMatching} with
+ * {@code stran.matching.shadow.engine} set.
+ *
+ * <p>The candidate is a regular bean, so its lifecycle and scheduled syncs run as
+ * they would for the primary engine, but it is not an autowire candidate and so
+ * never joins the strategies {@link com.example.stran.service.InventoryEventProcessingService}
+ * dispatches from. Its pipeline metrics and hot-key counts go to a private
+ * registry, keeping the primary's stage timings and hot keys unaffected.
+ */
+@Configuration
+@ConditionalOnExpression("!'${stran.matching.shadow.engine:}'.isBlank()")
+public class ShadowMatchingConfig {
+
+    public static final String SHADOW_STRATEGY_BEAN = "shadowMatchingStrategy";
+
+    @Value("${stran.matching.shadow.engine}")
+    private String engine;
+
+    @Value("${stran.matching.engine:db}")
+    private String primaryEngine;
+
+    @Bean(name = SHADOW_STRATEGY_BEAN, autowireCandidate = false)
+    public SubscriptionMatchingStrategy shadowMatchingStrategy(
+            PropertyRepository propertyRepository,
+            StaySubscriptionRepository subscriptionRepository,
+            ObjectProvider<SubscriptionCache> subscriptionCache,
+            HotPathLog hotPathLog,
+            @Value("${stran.matching.mmap.path}") Path storePath,
+            @Value("${stran.matching.mmap.record-capacity:4000000}") int recordCapacity,
+            @Value("${stran.matching.mmap.guest-bytes-capacity:268435456}") long guestBytesCapacity,
+            @Value("${stran.matching.mmap.sync-page-size:5000}") int syncPageSize) {
+        if (engine.equals(primaryEngine)) {
+            throw new IllegalStateException("stran.matching.shadow.engine must differ from stran.matching.engine ("
+                    + primaryEngine + ")");
+        }
+        SimpleMeterRegistry isolated = new SimpleMeterRegistry();
+        PipelineMetrics pipelineMetrics = new PipelineMetrics(isolated);
+        HotKeyTracker hotKeyTracker = new HotKeyTracker(false, Duration.ofMinutes(1), 1, 1, 1, 16, 1, isolated);
+        return switch (engine) {
+            case "db" -> new PropertyAvailabilityMatchingService(propertyRepository, subscriptionRepository,
+                    subscriptionCache, pipelineMetrics, hotPathLog, hotKeyTracker);
+            case "mmap" -> new MappedStoreMatchingService(propertyRepository, subscriptionRepository, storePath,
+                    recordCapacity, guestBytesCapacity, syncPageSize, pipelineMetrics, hotPathLog, hotKeyTracker, isolated);
+            default -> throw new IllegalStateException("Unknown stran.matching.shadow.engine: " + engine
+                    + " (expected db or mmap)");
+        };
+    }
+}
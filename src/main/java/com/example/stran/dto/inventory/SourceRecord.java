@@ -0,0 +1,94 @@
+package com.example.stran.dto.inventory;
+
+import org.apache.kafka.clients.consumer.ConsumerRecord;
+import org.apache.kafka.common.header.Header;
+import org.apache.kafka.common.header.Headers;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.time.OffsetDateTime;
+import java.time.format.DateTimeParseException;
+
+/**
+ * Coordinates of the inventory record an event was read from.
+ *
+ * <p>Used to derive deterministic notification IDs, so a redelivered event
+ * produces notifications downstream can recognise as duplicates.
+ *
+ * <p>When an event is forwarded onto the propCode-keyed internal topic, the
+ * original coordinates travel in {@code stran-source-*} headers and take
+ * precedence over the internal record's own, so IDs are the same whether or
+ * not repartitioning is enabled.
+ *
+ * @param topic     source topic
+ * @param partition source partition
+ * @param offset    source offset
+ * @param timestamp source event time (epoch millis): the record timestamp, or the
+ *                  event context timestamp once applied with {@link #withEventTime}
+ */
+public record SourceRecord(String topic, int partition, long offset, long timestamp) {
+
+    public static final String TOPIC_HEADER = "stran-source-topic";
+    public static final String PARTITION_HEADER = "stran-source-partition";
+    public static final String OFFSET_HEADER = "stran-source-offset";
+    public static final String TIMESTAMP_HEADER = "stran-source-timestamp";
+
+    /**
+     * Read the coordinates of a consumed record, preferring forwarded source headers.
+     */
+    public static SourceRecord of(ConsumerRecord<?, ?> record) {
+        SourceRecord forwarded = fromHeaders(record.headers());
+        return forwarded != null
+                ? forwarded
+                : new SourceRecord(record.topic(), record.partition(), record.offset(), record.timestamp());
+    }
+
+    /**
+     * Read coordinates written by {@link #writeTo(Headers)}.
+     *
+     * @return the forwarded source coordinates, or {@code null} if the headers carry none
+     */
+    public static SourceRecord fromHeaders(Headers headers) {
+        Header topic = headers.lastHeader(TOPIC_HEADER);
+        Header partition = headers.lastHeader(PARTITION_HEADER);
+        Header offset = headers.lastHeader(OFFSET_HEADER);
+        Header timestamp = headers.lastHeader(TIMESTAMP_HEADER);
+        if (topic == null || partition == null || offset == null || timestamp == null) {
+            return null;
+        }
+        return new SourceRecord(new String(topic.value(), StandardCharsets.UTF_8),
+                ByteBuffer.wrap(partition.value()).getInt(),
+                ByteBuffer.wrap(offset.value()).getLong(),
+                ByteBuffer.wrap(timestamp.value()).getLong());
+    }
+
+    /**
+     * Copy with the timestamp replaced by the upstream event time from the event
+     * context (ISO-8601 or epoch millis). Kept unchanged when the context has no
+     * parseable timestamp.
+     */
+    public SourceRecord withEventTime(EventContext context) {
+        if (context == null || context.getTimestamp() == null || context.getTimestamp().isBlank()) {
+            return this;
+        }
+        String value = context.getTimestamp().trim();
+        try {
+            long eventTime = value.chars().allMatch(Character::isDigit)
+                    ? Long.parseLong(value)
+                    : OffsetDateTime.parse(value).toInstant().toEpochMilli();
+            return new SourceRecord(topic, partition, offset, eventTime);
+        } catch (DateTimeParseException | NumberFormatException e) {
+            return this;
+        }
+    }
+
+    /**
+     * Write these coordinates as {@code stran-source-*} headers on a forwarded record.
+     */
+    public void writeTo(Headers headers) {
+        headers.add(TOPIC_HEADER, topic.getBytes(StandardCharsets.UTF_8));
+        headers.add(PARTITION_HEADER, ByteBuffer.allocate(Integer.BYTES).putInt(partition).array());
+        headers.add(OFFSET_HEADER, ByteBuffer.allocate(Long.BYTES).putLong(offset).array());
+        headers.add(TIMESTAMP_HEADER, ByteBuffer.allocate(Long.BYTES).putLong(timestamp).array());
+    }
+}
@@ -0,0 +1,30 @@
+package com.example.stran.dto.notification;
+
+import com.fasterxml.jackson.annotation.JsonIgnoreProperties;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * One matched subscription inside a digest {@link NotificationMessage}.
+ */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+@JsonIgnoreProperties(ignoreUnknown = true)
+public class MatchedStay {
+
+    /** Matched subscription ID */
+    private Long subscriptionId;
+
+    /** Hotel property code (e.g., "FNLCO") */
+    private String propCode;
+
+    /** Check-in date the guest subscribed for (e.g., "2026-03-09") */
+    private String checkInDate;
+
+    /** Number of nights the guest wants */
+    private Integer nights;
+}
@@ -1,18 +1,30 @@
 package com.example.stran.dto.notification;
 
+import com.fasterxml.jackson.annotation.JsonIgnore;
 import com.fasterxml.jackson.annotation.JsonIgnoreProperties;
+import com.fasterxml.jackson.annotation.JsonInclude;
 import lombok.AllArgsConstructor;
 import lombok.Builder;
 import lombok.Data;
 import lombok.NoArgsConstructor;
 
 import java.time.Instant;
+import java.util.List;
 
 /**
  * Notification message published to the notifications MSK topic
  * when a subscription matches available inventory.
  *
  * <p>Consumed downstream by stran-notification-service for guest delivery.
+ *
+ * <p>In digest mode a single message may cover several subscriptions of the
+ * same guest: the top-level fields describe the first match and
+ * {@link #matches} lists every matched stay. {@code matches} is omitted for
+ * regular single-subscription messages.
+ *
+ * <p>{@link #sourceTimestamp} carries the upstream event time for end-to-end
+ * latency tracking; {@link #sourcePartition} and {@link #strategy} are local
+ * breakdown keys and are not serialized.
  */
 @Data
 @Builder
@@ -44,4 +56,20 @@ public class NotificationMessage {
 
     /** Notification creation timestamp */
     private Instant timestamp;
+
+    /** Upstream inventory event time (event context timestamp, else record timestamp); absent when unknown */
+    @JsonInclude(JsonInclude.Include.NON_NULL)
+    private Instant sourceTimestamp;
+
+    /** Every matched stay when this is a per-guest digest; absent otherwise */
+    @JsonInclude(JsonInclude.Include.NON_EMPTY)
+    private List<MatchedStay> matches;
+
+    /** Partition of the inventory record that triggered this notification; not serialized */
+    @JsonIgnore
+    private Integer sourcePartition;
+
+    /** Matching strategy that produced the match; not serialized */
+    @JsonIgnore
+    private String strategy;
 }
@@ -0,0 +1,171 @@
+package com.example.stran.jfr;
+
+import jakarta.annotation.PreDestroy;
+import jdk.jfr.Configuration;
+import jdk.jfr.Event;
+import jdk.jfr.Recording;
+import jdk.jfr.RecordingState;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.text.ParseException;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.ZoneOffset;
+import java.time.format.DateTimeFormatter;
+import java.util.Comparator;
+import java.util.List;
+import java.util.stream.Stream;
+
+/**
+ * Starts and stops bounded Java Flight Recorder recordings on demand, with the
+ * stran pipeline events ({@link ListenerEvent}, {@link MatchingEvent},
+ * {@link PublishEvent}) enabled without a duration threshold.
+ *
+ * <p>Only one recording runs at a time. Its duration is capped at
+ * {@code stran.jfr.max-duration} and its size at {@code stran.jfr.max-size-mb}. It
+ * is written to {@code stran.jfr.directory} when it stops or its duration elapses.
+ * Only the newest {@code stran.jfr.retained-files} recordings are kept.
+ */
+@Slf4j
+@Component
+public class JfrRecorder {
+
+    static final List<Class<? extends Event>> PIPELINE_EVENTS =
+            List.of(ListenerEvent.class, MatchingEvent.class, PublishEvent.class);
+
+    private static final DateTimeFormatter FILE_TIME =
+            DateTimeFormatter.ofPattern("yyyyMMdd-HHmmss").withZone(ZoneOffset.UTC);
+
+    private final Path directory;
+    private final Duration maxDuration;
+    private final long maxSizeBytes;
+    private final int retainedFiles;
+
+    private Recording recording;
+
+    public JfrRecorder(
+            @Value("${stran.jfr.directory:${java.io.tmpdir}/stran-jfr}") Path directory,
+            @Value("${stran.jfr.max-duration:PT10M}") Duration maxDuration,
+            @Value("${stran.jfr.max-size-mb:100}") long maxSizeMb,
+            @Value("${stran.jfr.retained-files:5}") int retainedFiles) {
+        this.directory = directory;
+        this.maxDuration = maxDuration;
+        this.maxSizeBytes = maxSizeMb * 1024 * 1024;
+        this.retainedFiles = retainedFiles;
+    }
+
+    /**
+     * Start a recording.
+     *
+     * @param duration how long to record; {@code null} or longer than {@code max-duration} means the maximum
+     * @param settings JDK settings to record with besides the pipeline events, {@code default}
+     *                 (about 1% overhead) when {@code null}, or {@code profile}
+     * @throws IllegalStateException if a recording is already running
+     * @throws IllegalArgumentException if the settings are unknown
+     */
+    public synchronized Status start(Duration duration, String settings) {
+        if (isRunning()) {
+            throw new IllegalStateException("JFR recording " + recording.getId() + " is already running");
+        }
+        Configuration configuration;
+        try {
+            configuration = Configuration.getConfiguration(settings == null ? "default" : settings);
+        } catch (IOException | ParseException e) {
+            throw new IllegalArgumentException("Unknown JFR settings: " + settings, e);
+        }
+        Duration bounded = duration == null || duration.isNegative() || duration.isZero()
+                || duration.compareTo(maxDuration) > 0 ? maxDuration : duration;
+
+        Recording next = new Recording(configuration);
+        try {
+            Files.createDirectories(directory);
+            pruneRecordings();
+            next.setName("stran-" + FILE_TIME.format(Instant.now()));
+            next.setDestination(directory.resolve(next.getName() + ".jfr"));
+            next.setDuration(bounded);
+            next.setMaxSize(maxSizeBytes);
+            next.setToDisk(true);
+            for (Class<? extends Event> event : PIPELINE_EVENTS) {
+                next.enable(event).withoutThreshold();
+            }
+            next.start();
+        } catch (IOException e) {
+            next.close();
+            throw new UncheckedIOException("Cannot write JFR recordings to " + directory, e);
+        }
+        if (recording != null) {
+            recording.close();
+        }
+        recording = next;
+        log.info("Started JFR recording {} ({} settings) for {} to {}",
+                recording.getName(), configuration.getName(), bounded, recording.getDestination());
+        return status();
+    }
+
+    /**
+     * Stop the running recording and write it to its file.
+     *
+     * @throws IllegalStateException if no recording is running
+     */
+    public synchronized Status stop() {
+        if (!isRunning()) {
+            throw new IllegalStateException("No JFR recording is running");
+        }
+        recording.stop();
+        log.info("Stopped JFR recording {}, written to {}", recording.getName(), recording.getDestination());
+        return status();
+    }
+
+    /**
+     * @return the running or most recent recording, or {@code null} if none was started
+     */
+    public synchronized Status status() {
+        if (recording == null) {
+            return null;
+        }
+        return new Status(recording.getId(), recording.getName(), recording.getState(),
+                recording.getStartTime(), recording.getDuration(), recording.getMaxSize(),
+                recording.getDestination());
+    }
+
+    @PreDestroy
+    synchronized void shutdown() {
+        if (isRunning()) {
+            stop();
+        }
+        if (recording != null) {
+            recording.close();
+        }
+    }
+
+    private boolean isRunning() {
+        return recording != null
+                && (recording.getState() == RecordingState.RUNNING || recording.getState() == RecordingState.DELAYED);
+    }
+
+    /** Make room for one more file within {@code retained-files}. */
+    private void pruneRecordings() throws IOException {
+        List<Path> files;
+        try (Stream<Path> listing = Files.list(directory)) {
+            files = listing.filter(path -> path.getFileName().toString().matches("stran-.*\\.jfr"))
+                    .sorted(Comparator.comparing(Path::getFileName).reversed())
+                    .toList();
+        }
+        for (Path old : files.subList(Math.min(files.size(), Math.max(retainedFiles - 1, 0)), files.size())) {
+            Files.deleteIfExists(old);
+        }
+    }
+
+    /**
+     * A recording as reported by the {@code jfr} actuator endpoint.
+     */
+    public record Status(long id, String name, RecordingState state, Instant startTime,
+                         Duration duration, long maxSizeBytes, Path file) {
+    }
+}
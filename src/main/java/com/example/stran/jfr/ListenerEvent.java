@@ -0,0 +1,34 @@
+package com.example.stran.jfr;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+
+/**
+ * JFR event spanning the listener's handling of one inventory record, from
+ * delivery to the end of matching and dispatch. {@link MatchingEvent}s and
+ * {@link PublishEvent}s of the same record start on the same thread inside it.
+ */
+@Name("com.example.stran.InventoryEvent")
+@Label("Inventory Event")
+@Category({"Stran", "Pipeline"})
+@Description("Processing of one inventory record by InventoryEventListener")
+public class ListenerEvent extends Event {
+
+    @Label("Topic")
+    public String topic;
+
+    @Label("Partition")
+    public int partition;
+
+    @Label("Offset")
+    public long offset;
+
+    @Label("Property Code")
+    public String propCode;
+
+    @Label("Start Date")
+    public String startDate;
+}
@@ -0,0 +1,49 @@
+package com.example.stran.jfr;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+
+/**
+ * JFR event spanning one {@code SubscriptionMatchingStrategy} lookup.
+ */
+@Name("com.example.stran.Matching")
+@Label("Subscription Matching")
+@Category({"Stran", "Pipeline"})
+@Description("One matching strategy's lookup for an inventory event")
+public class MatchingEvent extends Event {
+
+    @Label("Strategy")
+    public String strategy;
+
+    @Label("Property Code")
+    public String propCode;
+
+    @Label("Check-In Date")
+    public String checkInDate;
+
+    @Label("Candidates")
+    @Description("Subscriptions examined")
+    public int candidates;
+
+    @Label("Matches")
+    @Description("Subscriptions whose length of stay is available")
+    public int matches;
+
+    /**
+     * End the event and commit it with its results, if it is recorded.
+     */
+    public void complete(String strategy, String propCode, String checkInDate, int candidates, int matches) {
+        end();
+        if (shouldCommit()) {
+            this.strategy = strategy;
+            this.propCode = propCode;
+            this.checkInDate = checkInDate;
+            this.candidates = candidates;
+            this.matches = matches;
+            commit();
+        }
+    }
+}
@@ -0,0 +1,58 @@
+package com.example.stran.jfr;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.EventType;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+
+/**
+ * JFR event spanning one notification send, from {@code KafkaTemplate.send} to the
+ * broker acknowledgment. It is committed on the producer's callback thread.
+ */
+@Name("com.example.stran.NotificationPublish")
+@Label("Notification Publish")
+@Category({"Stran", "Pipeline"})
+@Description("One notification send, from send() to the broker acknowledgment")
+public class PublishEvent extends Event {
+
+    private static final EventType TYPE = EventType.getEventType(PublishEvent.class);
+
+    @Label("Notification ID")
+    public String notificationId;
+
+    @Label("Subscription ID")
+    public long subscriptionId;
+
+    @Label("Property Code")
+    public String propCode;
+
+    @Label("Source Partition")
+    @Description("Partition of the inventory record that triggered the notification, or -1")
+    public int sourcePartition;
+
+    @Label("Partition")
+    @Description("Notifications topic partition, or -1 if the send failed")
+    public int partition;
+
+    @Label("Offset")
+    @Description("Notifications topic offset, or -1 if the send failed")
+    public long offset;
+
+    @Label("Succeeded")
+    public boolean succeeded;
+
+    /**
+     * Begin an event for a send, or return {@code null} when no recording has the
+     * event enabled, so that the callback does not capture an event object.
+     */
+    public static PublishEvent start() {
+        if (!TYPE.isEnabled()) {
+            return null;
+        }
+        PublishEvent event = new PublishEvent();
+        event.begin();
+        return event;
+    }
+}
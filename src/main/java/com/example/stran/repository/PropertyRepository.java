@@ -4,6 +4,8 @@ import com.example.stran.entity.Property;
 import org.springframework.data.repository.Repository;
 import org.springframework.transaction.annotation.Transactional;
 
+import java.util.Collection;
+import java.util.List;
 import java.util.Optional;
 
 /**
@@ -23,4 +25,22 @@ public interface PropertyRepository extends Repository<Property, Long> {
      * @return the property if found
      */
     Optional<Property> findByPropCode(String propCode);
+
+    /**
+     * Find all properties that carry a property code.
+     *
+     * <p>Used to decide which properties a shard-local instance owns
+     * when inventory is repartitioned by propCode.
+     *
+     * @return every property with a non-null propCode
+     */
+    List<Property> findByPropCodeIsNotNull();
+
+    /**
+     * Find the properties for a set of property codes.
+     *
+     * @param propCodes the property codes to resolve
+     * @return the properties that exist for those codes
+     */
+    List<Property> findByPropCodeIn(Collection<String> propCodes);
 }
@@ -3,10 +3,14 @@ package com.example.stran.repository;
 import com.example.stran.entity.StaySubscription;
 import com.example.stran.entity.SubscriptionSearchType;
 import com.example.stran.entity.SubscriptionStatus;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
 import org.springframework.data.repository.Repository;
 import org.springframework.transaction.annotation.Transactional;
 
+import java.time.Instant;
 import java.time.LocalDate;
+import java.util.Collection;
 import java.util.List;
 
 /**
@@ -46,4 +50,55 @@ public interface StaySubscriptionRepository extends Repository<StaySubscription,
         return findByPropertyIdAndCheckInDateAndStatusAndSearchType(
                 propertyId, checkInDate, SubscriptionStatus.ACTIVE, SubscriptionSearchType.PROPERTY);
     }
+
+    /**
+     * Find subscriptions for a set of properties, filtered by status and search type.
+     *
+     * <p>Used to bulk-load the subscriptions of every property a shard-local
+     * instance owns, instead of querying per event.
+     *
+     * @param propertyIds the property IDs to load
+     * @param status the subscription status to filter by (e.g., ACTIVE)
+     * @param searchType the search type to filter by (e.g., PROPERTY)
+     * @return list of matching subscriptions across all dates
+     */
+    List<StaySubscription> findByPropertyIdInAndStatusAndSearchType(
+            Collection<Long> propertyIds,
+            SubscriptionStatus status,
+            SubscriptionSearchType searchType);
+
+    /**
+     * Convenience method: find active PROPERTY subscriptions for a set of properties.
+     */
+    default List<StaySubscription> findActivePropertySubscriptions(Collection<Long> propertyIds) {
+        return findByPropertyIdInAndStatusAndSearchType(
+                propertyIds, SubscriptionStatus.ACTIVE, SubscriptionSearchType.PROPERTY);
+    }
+
+    /**
+     * Find every subscription modified after the given instant, regardless of status.
+     *
+     * <p>Used by in-memory subscription caches to pick up inserts, updates and
+     * status changes (e.g., ACTIVE → CANCELLED) made by stran-subscription-service.
+     *
+     * @param updatedAt the exclusive lower bound on {@code updated_at}
+     * @return subscriptions changed since {@code updatedAt}, oldest first
+     */
+    List<StaySubscription> findByUpdatedAtAfterOrderByUpdatedAtAsc(Instant updatedAt);
+
+    /**
+     * Page through every subscription whose {@code updated_at} falls in {@code (from, to]}.
+     *
+     * <p>Used to (re)sync the off-heap subscription store in bounded batches;
+     * the fixed upper bound keeps page boundaries stable while rows are being
+     * modified concurrently (rows touched during the sync move past {@code to}
+     * and are picked up by the next sync).
+     *
+     * @param from     the exclusive lower bound on {@code updated_at}
+     * @param to       the inclusive upper bound on {@code updated_at}
+     * @param pageable the page to fetch; should be sorted by {@code updatedAt, id}
+     * @return one page of changed subscriptions
+     */
+    Slice<StaySubscription> findByUpdatedAtGreaterThanAndUpdatedAtLessThanEqual(
+            Instant from, Instant to, Pageable pageable);
 }
@@ -0,0 +1,129 @@
+package com.example.stran.serialization;
+
+import com.example.stran.dto.notification.MatchedStay;
+import com.example.stran.dto.notification.NotificationMessage;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.apache.kafka.common.errors.SerializationException;
+import org.apache.kafka.common.serialization.Deserializer;
+import org.springframework.kafka.support.JacksonUtils;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Kafka deserializer reading both formats written by
+ * {@link NotificationMessageSerializer}.
+ *
+ * <p>The format is detected per record from the first byte, so consumers can
+ * switch to this deserializer before producers switch to the binary encoding.
+ * Binary versions 1 and 2 are both accepted.
+ */
+public class NotificationMessageDeserializer implements Deserializer<NotificationMessage> {
+
+    private final ObjectMapper objectMapper = JacksonUtils.enhancedObjectMapper();
+
+    @Override
+    public NotificationMessage deserialize(String topic, byte[] data) {
+        if (data == null) {
+            return null;
+        }
+        try {
+            if (data.length > 0 && data[0] == NotificationMessageSerializer.BINARY_MAGIC) {
+                return readBinary(new Reader(data));
+            }
+            return objectMapper.readValue(data, NotificationMessage.class);
+        } catch (IOException | RuntimeException e) {
+            throw new SerializationException("Can't deserialize notification from topic " + topic, e);
+        }
+    }
+
+    private static NotificationMessage readBinary(Reader in) {
+        in.pos = 1;
+        int version = in.bytes[in.pos++];
+        if (version < 1 || version > NotificationMessageSerializer.BINARY_VERSION) {
+            throw new IllegalArgumentException("Unsupported notification binary version " + version);
+        }
+
+        NotificationMessage message = NotificationMessage.builder()
+                .notificationId(in.string())
+                .subscriptionId(in.nullableLong())
+                .guestId(in.string())
+                .propCode(in.string())
+                .checkInDate(in.string())
+                .nights(toInteger(in.nullableLong()))
+                .message(in.string())
+                .build();
+        message.setTimestamp(readInstant(in));
+
+        int count = (int) in.varLong();
+        if (count > 0) {
+            List<MatchedStay> matches = new ArrayList<>(count);
+            for (int i = 0; i < count; i++) {
+                matches.add(MatchedStay.builder()
+                        .subscriptionId(in.nullableLong())
+                        .propCode(in.string())
+                        .checkInDate(in.string())
+                        .nights(toInteger(in.nullableLong()))
+                        .build());
+            }
+            message.setMatches(matches);
+        }
+        if (version >= 2) {
+            message.setSourceTimestamp(readInstant(in));
+        }
+        return message;
+    }
+
+    private static Instant readInstant(Reader in) {
+        if (in.varLong() == 0) {
+            return null;
+        }
+        return Instant.ofEpochSecond(unZigZag(in.varLong()), in.varLong());
+    }
+
+    private static Integer toInteger(Long value) {
+        return value == null ? null : Math.toIntExact(value);
+    }
+
+    private static long unZigZag(long value) {
+        return (value >>> 1) ^ -(value & 1);
+    }
+
+    private static final class Reader {
+
+        private final byte[] bytes;
+        private int pos;
+
+        private Reader(byte[] bytes) {
+            this.bytes = bytes;
+        }
+
+        long varLong() {
+            long value = 0;
+            for (int shift = 0; ; shift += 7) {
+                byte b = bytes[pos++];
+                value |= (long) (b & 0x7F) << shift;
+                if (b >= 0) {
+                    return value;
+                }
+            }
+        }
+
+        Long nullableLong() {
+            return bytes[pos++] == 0 ? null : unZigZag(varLong());
+        }
+
+        String string() {
+            int length = (int) varLong() - 1;
+            if (length < 0) {
+                return null;
+            }
+            String value = new String(bytes, pos, length, StandardCharsets.UTF_8);
+            pos += length;
+            return value;
+        }
+    }
+}
@@ -0,0 +1,395 @@
+package com.example.stran.serialization;
+
+import com.example.stran.dto.notification.MatchedStay;
+import com.example.stran.dto.notification.NotificationMessage;
+import org.apache.kafka.common.errors.SerializationException;
+import org.apache.kafka.common.header.Headers;
+import org.apache.kafka.common.serialization.Serializer;
+import org.springframework.kafka.support.mapping.AbstractJavaTypeMapper;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.time.Instant;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Hand-written Kafka serializer for {@link NotificationMessage}.
+ *
+ * <p>Messages are written field by field straight into a per-thread byte buffer
+ * that is retained between calls and only grows, so the steady-state cost is a
+ * single exact-size copy per record instead of Jackson's reflective tree walk,
+ * intermediate {@code String}s and buffer recycling.
+ *
+ * <p>Two formats are supported, selected by {@link #FORMAT_CONFIG}:
+ * <ul>
+ *   <li>{@code json} (default) — byte-for-byte what Spring Kafka's
+ *       {@code JsonSerializer} writes with its default {@code ObjectMapper},
+ *       string escapes included, plus the {@code __TypeId__} header it adds.
+ *       Consumers need no changes.</li>
+ *   <li>{@code binary} — a compact length-prefixed encoding starting with
+ *       {@link #BINARY_MAGIC} and {@link #BINARY_VERSION}; read it with
+ *       {@link NotificationMessageDeserializer}. Only enable once every
+ *       consumer of the notifications topic uses that deserializer.</li>
+ * </ul>
+ *
+ * <p>In both formats a message's {@code sourceTimestamp} is also written as the
+ * {@link #EVENT_TIME_HEADER} header (epoch millis, 8 bytes big-endian) so latency
+ * can be measured from headers alone.
+ */
+public class NotificationMessageSerializer implements Serializer<NotificationMessage> {
+
+    /** Producer config key selecting the wire format: {@code json} or {@code binary}. */
+    public static final String FORMAT_CONFIG = "stran.notification.serializer.format";
+
+    /** First byte of every binary record; never a valid first byte of a JSON document. */
+    public static final byte BINARY_MAGIC = 'S';
+
+    /** Current binary layout version, written after {@link #BINARY_MAGIC}; version 2 added the source timestamp. */
+    public static final byte BINARY_VERSION = 2;
+
+    /** Header carrying the upstream event time of the notification. */
+    public static final String EVENT_TIME_HEADER = "stran-event-time";
+
+    private static final byte[] TYPE_ID = NotificationMessage.class.getName().getBytes(StandardCharsets.UTF_8);
+    private static final byte[] HEX = "0123456789ABCDEF".getBytes(StandardCharsets.US_ASCII);
+
+    private static final ThreadLocal<Buffer> BUFFERS = ThreadLocal.withInitial(Buffer::new);
+
+    private Format format = Format.JSON;
+
+    public enum Format {
+        JSON, BINARY;
+
+        public static Format of(Object value) {
+            return value == null ? JSON : valueOf(value.toString().trim().toUpperCase());
+        }
+    }
+
+    public NotificationMessageSerializer() {
+    }
+
+    public NotificationMessageSerializer(Format format) {
+        this.format = format;
+    }
+
+    @Override
+    public void configure(Map<String, ?> configs, boolean isKey) {
+        format = Format.of(configs.get(FORMAT_CONFIG));
+    }
+
+    @Override
+    public byte[] serialize(String topic, Headers headers, NotificationMessage data) {
+        if (data != null && format == Format.JSON) {
+            headers.remove(AbstractJavaTypeMapper.DEFAULT_CLASSID_FIELD_NAME);
+            headers.add(AbstractJavaTypeMapper.DEFAULT_CLASSID_FIELD_NAME, TYPE_ID);
+        }
+        if (data != null && data.getSourceTimestamp() != null) {
+            headers.remove(EVENT_TIME_HEADER);
+            headers.add(EVENT_TIME_HEADER, ByteBuffer.allocate(Long.BYTES)
+                    .putLong(data.getSourceTimestamp().toEpochMilli()).array());
+        }
+        return serialize(topic, data);
+    }
+
+    @Override
+    public byte[] serialize(String topic, NotificationMessage data) {
+        if (data == null) {
+            return null;
+        }
+        Buffer buffer = BUFFERS.get();
+        buffer.reset();
+        try {
+            if (format == Format.BINARY) {
+                writeBinary(buffer, data);
+            } else {
+                writeJson(buffer, data);
+            }
+        } catch (RuntimeException e) {
+            throw new SerializationException("Can't serialize notification " + data.getNotificationId(), e);
+        }
+        return buffer.toByteArray();
+    }
+
+    // ---- JSON -------------------------------------------------------------
+
+    private static void writeJson(Buffer out, NotificationMessage m) {
+        out.ascii("{\"notificationId\":");
+        jsonString(out, m.getNotificationId());
+        out.ascii(",\"subscriptionId\":");
+        jsonNumber(out, m.getSubscriptionId());
+        out.ascii(",\"guestId\":");
+        jsonString(out, m.getGuestId());
+        out.ascii(",\"propCode\":");
+        jsonString(out, m.getPropCode());
+        out.ascii(",\"checkInDate\":");
+        jsonString(out, m.getCheckInDate());
+        out.ascii(",\"nights\":");
+        jsonNumber(out, m.getNights());
+        out.ascii(",\"message\":");
+        jsonString(out, m.getMessage());
+        out.ascii(",\"timestamp\":");
+        jsonInstant(out, m.getTimestamp());
+        if (m.getSourceTimestamp() != null) {
+            out.ascii(",\"sourceTimestamp\":");
+            jsonInstant(out, m.getSourceTimestamp());
+        }
+
+        List<MatchedStay> matches = m.getMatches();
+        if (matches != null && !matches.isEmpty()) {
+            out.ascii(",\"matches\":[");
+            for (int i = 0; i < matches.size(); i++) {
+                MatchedStay stay = matches.get(i);
+                out.ascii(i == 0 ? "{\"subscriptionId\":" : ",{\"subscriptionId\":");
+                jsonNumber(out, stay.getSubscriptionId());
+                out.ascii(",\"propCode\":");
+                jsonString(out, stay.getPropCode());
+                out.ascii(",\"checkInDate\":");
+                jsonString(out, stay.getCheckInDate());
+                out.ascii(",\"nights\":");
+                jsonNumber(out, stay.getNights());
+                out.write('}');
+            }
+            out.write(']');
+        }
+        out.write('}');
+    }
+
+    private static void jsonNumber(Buffer out, Number value) {
+        out.ascii(value == null ? "null" : value.toString());
+    }
+
+    /**
+     * Instants are written the way Jackson's default {@code InstantSerializer}
+     * does: decimal epoch seconds with a nine-digit nanosecond fraction.
+     */
+    private static void jsonInstant(Buffer out, Instant value) {
+        if (value == null) {
+            out.ascii("null");
+            return;
+        }
+        out.ascii(Long.toString(value.getEpochSecond()));
+        out.write('.');
+        String nanos = Integer.toString(value.getNano());
+        for (int i = nanos.length(); i < 9; i++) {
+            out.write('0');
+        }
+        out.ascii(nanos);
+    }
+
+    private static void jsonString(Buffer out, String value) {
+        if (value == null) {
+            out.ascii("null");
+            return;
+        }
+        out.write('"');
+        for (int i = 0; i < value.length(); i++) {
+            char c = value.charAt(i);
+            if (c == '"' || c == '\\') {
+                out.write('\\');
+                out.write(c);
+            } else if (c < 0x20) {
+                jsonControl(out, c);
+            } else if (c < 0x80) {
+                out.write(c);
+            } else if (Character.isSurrogate(c)) {
+                // Jackson's UTF-8 generator escapes each surrogate rather than combining pairs
+                jsonUnicodeEscape(out, c);
+            } else {
+                i = out.utf8(value, i);
+            }
+        }
+        out.write('"');
+    }
+
+    /** Control characters use the short escapes Jackson writes, else a hex escape. */
+    private static void jsonControl(Buffer out, char c) {
+        switch (c) {
+            case '\b' -> out.ascii("\\b");
+            case '\t' -> out.ascii("\\t");
+            case '\n' -> out.ascii("\\n");
+            case '\f' -> out.ascii("\\f");
+            case '\r' -> out.ascii("\\r");
+            default -> jsonUnicodeEscape(out, c);
+        }
+    }
+
+    private static void jsonUnicodeEscape(Buffer out, char c) {
+        out.ascii("\\u");
+        out.write(HEX[c >> 12]);
+        out.write(HEX[(c >> 8) & 0xF]);
+        out.write(HEX[(c >> 4) & 0xF]);
+        out.write(HEX[c & 0xF]);
+    }
+
+    // ---- binary -----------------------------------------------------------
+
+    private static void writeBinary(Buffer out, NotificationMessage m) {
+        out.write(BINARY_MAGIC);
+        out.write(BINARY_VERSION);
+        binaryString(out, m.getNotificationId());
+        binaryLong(out, m.getSubscriptionId());
+        binaryString(out, m.getGuestId());
+        binaryString(out, m.getPropCode());
+        binaryString(out, m.getCheckInDate());
+        binaryLong(out, m.getNights() == null ? null : m.getNights().longValue());
+        binaryString(out, m.getMessage());
+        binaryInstant(out, m.getTimestamp());
+
+        List<MatchedStay> matches = m.getMatches();
+        int count = matches == null ? 0 : matches.size();
+        out.varLong(count);
+        for (int i = 0; i < count; i++) {
+            MatchedStay stay = matches.get(i);
+            binaryLong(out, stay.getSubscriptionId());
+            binaryString(out, stay.getPropCode());
+            binaryString(out, stay.getCheckInDate());
+            binaryLong(out, stay.getNights() == null ? null : stay.getNights().longValue());
+        }
+        binaryInstant(out, m.getSourceTimestamp());
+    }
+
+    /** Nullable instant: presence varint, then zig-zag epoch seconds and nanos. */
+    private static void binaryInstant(Buffer out, Instant value) {
+        if (value == null) {
+            out.varLong(0);
+        } else {
+            out.varLong(1);
+            out.varLong(zigZag(value.getEpochSecond()));
+            out.varLong(value.getNano());
+        }
+    }
+
+    /** Nullable string: varint (UTF-8 length + 1), 0 for null, then the bytes. */
+    private static void binaryString(Buffer out, String value) {
+        if (value == null) {
+            out.varLong(0);
+            return;
+        }
+        out.varLong(utf8Length(value) + 1L);
+        for (int i = 0; i < value.length(); i++) {
+            char c = value.charAt(i);
+            if (c < 0x80) {
+                out.write(c);
+            } else {
+                i = out.utf8(value, i);
+            }
+        }
+    }
+
+    private static int utf8Length(String value) {
+        int length = value.length();
+        for (int i = 0; i < value.length(); i++) {
+            char c = value.charAt(i);
+            if (c >= 0x800) {
+                if (Character.isHighSurrogate(c) && i + 1 < value.length()
+                        && Character.isLowSurrogate(value.charAt(i + 1))) {
+                    length += 2;
+                    i++;
+                } else if (!Character.isSurrogate(c)) {
+                    length += 2;
+                }
+            } else if (c >= 0x80) {
+                length++;
+            }
+        }
+        return length;
+    }
+
+    /** Nullable long: presence byte, then a zig-zag varint. */
+    private static void binaryLong(Buffer out, Long value) {
+        if (value == null) {
+            out.write(0);
+        } else {
+            out.write(1);
+            out.varLong(zigZag(value));
+        }
+    }
+
+    private static long zigZag(long value) {
+        return (value << 1) ^ (value >> 63);
+    }
+
+    /**
+     * Growable per-thread output buffer. It keeps its capacity between records so
+     * that after warm-up serialization allocates only the returned array.
+     */
+    static final class Buffer {
+
+        private byte[] bytes = new byte[512];
+        private int size;
+
+        void reset() {
+            size = 0;
+        }
+
+        void write(int b) {
+            ensure(1);
+            bytes[size++] = (byte) b;
+        }
+
+        void ascii(String s) {
+            int length = s.length();
+            ensure(length);
+            for (int i = 0; i < length; i++) {
+                bytes[size++] = (byte) s.charAt(i);
+            }
+        }
+
+        /**
+         * Encode the non-ASCII character at {@code index} (and its low surrogate if
+         * present) as UTF-8.
+         *
+         * @return the index of the last char consumed
+         */
+        int utf8(String s, int index) {
+            char c = s.charAt(index);
+            ensure(4);
+            if (c < 0x800) {
+                bytes[size++] = (byte) (0xC0 | (c >> 6));
+                bytes[size++] = (byte) (0x80 | (c & 0x3F));
+                return index;
+            }
+            if (Character.isHighSurrogate(c) && index + 1 < s.length()
+                    && Character.isLowSurrogate(s.charAt(index + 1))) {
+                int cp = Character.toCodePoint(c, s.charAt(index + 1));
+                bytes[size++] = (byte) (0xF0 | (cp >> 18));
+                bytes[size++] = (byte) (0x80 | ((cp >> 12) & 0x3F));
+                bytes[size++] = (byte) (0x80 | ((cp >> 6) & 0x3F));
+                bytes[size++] = (byte) (0x80 | (cp & 0x3F));
+                return index + 1;
+            }
+            if (Character.isSurrogate(c)) {
+                bytes[size++] = '?';
+                return index;
+            }
+            bytes[size++] = (byte) (0xE0 | (c >> 12));
+            bytes[size++] = (byte) (0x80 | ((c >> 6) & 0x3F));
+            bytes[size++] = (byte) (0x80 | (c & 0x3F));
+            return index;
+        }
+
+        void varLong(long value) {
+            ensure(10);
+            while ((value & ~0x7FL) != 0) {
+                bytes[size++] = (byte) ((value & 0x7F) | 0x80);
+                value >>>= 7;
+            }
+            bytes[size++] = (byte) value;
+        }
+
+        byte[] toByteArray() {
+            byte[] copy = new byte[size];
+            System.arraycopy(bytes, 0, copy, 0, size);
+            return copy;
+        }
+
+        private void ensure(int extra) {
+            if (size + extra > bytes.length) {
+                byte[] grown = new byte[Math.max(bytes.length * 2, size + extra)];
+                System.arraycopy(bytes, 0, grown, 0, size);
+                bytes = grown;
+            }
+        }
+    }
+}
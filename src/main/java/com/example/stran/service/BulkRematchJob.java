@@ -0,0 +1,436 @@
+package com.example.stran.service;
+
+import com.example.stran.dto.inventory.InventoryEventBody;
+import com.example.stran.entity.Property;
+import com.example.stran.entity.StaySubscription;
+import com.example.stran.repository.PropertyRepository;
+import com.example.stran.repository.StaySubscriptionRepository;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnExpression;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.io.UncheckedIOException;
+import java.io.Writer;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.time.Clock;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Properties;
+import java.util.Set;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Sweeps every ACTIVE PROPERTY subscription against the {@link LatestAvailability}
+ * and notifies the ones that match, so subscriptions missed during an outage or
+ * by a matching bug are caught up without waiting for new inventory events.
+ *
+ * <p>Properties are ordered by ID and cut into batches of {@code batch-size}; a
+ * {@link ForkJoinPool} of {@code parallelism} workers splits the batch range
+ * recursively and loads each batch's subscriptions in one query. Each
+ * subscription is checked against the latest event of every rate plan for its
+ * property and check-in date with the same length-of-stay filter as the live
+ * engines, and matches go through {@link NotificationDispatchService} with the
+ * strategy tag {@code rematch}. The event's source record is reused, so a
+ * subscription already notified for that event gets the same notification ID
+ * and downstream drops the duplicate.
+ *
+ * <p>Dispatch is capped at {@code max-per-second} notifications across all
+ * workers, independently of the live rate governor.
+ *
+ * <p>Once every batch up to a property is done, that property ID is written to the
+ * {@code checkpoint-path} file. A run that is stopped or fails leaves the file in
+ * place and the next run, or the next start with {@code resume-on-startup},
+ * continues after it; a completed run deletes it. The database stays read-only.
+ * Nothing runs while {@link LatestAvailability} is empty, e.g. after a restart
+ * without an availability snapshot, so such a run never counts as completed.
+ *
+ * <p>Runs on {@code cron} (disabled by default) or on demand through
+ * {@code /actuator/rematch}. Not created when transactions are enabled: the
+ * fork-join workers send outside any listener transaction.
+ */
+@Slf4j
+@Component
+@ConditionalOnExpression("${stran.rematch.enabled:false} and !${kafka.transactions.enabled:false}")
+public class BulkRematchJob {
+
+    static final String STRATEGY = "rematch";
+
+    private static final String RUN_ID = "runId";
+    private static final String AFTER_PROPERTY_ID = "afterPropertyId";
+
+    /**
+     * Progress of the current or last run.
+     *
+     * @param running              whether a run is in progress
+     * @param runId                start instant of the run, kept across resumes
+     * @param propertiesTotal      properties this run (or resumed part of it) covers
+     * @param propertiesDone       properties finished so far
+     * @param subscriptionsChecked subscriptions checked against the latest availability
+     * @param notificationsSent    notifications dispatched
+     * @param checkpoint           property ID the run would resume after, or {@code null}
+     * @param lastError            failure of the last run, or {@code null}
+     */
+    public record Status(boolean running, String runId, long propertiesTotal, long propertiesDone,
+                         long subscriptionsChecked, long notificationsSent, Long checkpoint, String lastError) {
+    }
+
+    private final PropertyRepository propertyRepository;
+    private final StaySubscriptionRepository subscriptionRepository;
+    private final LatestAvailability latestAvailability;
+    private final NotificationDispatchService notificationDispatchService;
+    private final Path checkpointPath;
+    private final int parallelism;
+    private final int batchSize;
+    private final NotificationRateGovernor.TokenBucket throughput;
+    private final boolean resumeOnStartup;
+    private final Executor runner;
+    private final Clock clock;
+
+    private final AtomicBoolean running = new AtomicBoolean();
+    private volatile boolean stopping;
+    private volatile String runId;
+    private volatile String lastError;
+    private volatile Long checkpoint;
+    private final AtomicLong propertiesTotal = new AtomicLong();
+    private final AtomicLong propertiesDone = new AtomicLong();
+    private final AtomicLong subscriptionsChecked = new AtomicLong();
+    private final AtomicLong notificationsSent = new AtomicLong();
+
+    private final Counter checkedCounter;
+    private final Counter notifiedCounter;
+
+    @Autowired
+    public BulkRematchJob(
+            PropertyRepository propertyRepository,
+            StaySubscriptionRepository subscriptionRepository,
+            LatestAvailability latestAvailability,
+            NotificationDispatchService notificationDispatchService,
+            @Value("${stran.rematch.checkpoint-path:./data/rematch.checkpoint}") Path checkpointPath,
+            @Value("${stran.rematch.parallelism:4}") int parallelism,
+            @Value("${stran.rematch.batch-size:100}") int batchSize,
+            @Value("${stran.rematch.max-per-second:100}") double maxPerSecond,
+            @Value("${stran.rematch.resume-on-startup:true}") boolean resumeOnStartup,
+            MeterRegistry meterRegistry) {
+        this(propertyRepository, subscriptionRepository, latestAvailability, notificationDispatchService,
+                checkpointPath, parallelism, batchSize, maxPerSecond, resumeOnStartup,
+                command -> {
+                    Thread thread = new Thread(command, "bulk-rematch");
+                    thread.setDaemon(true);
+                    thread.start();
+                },
+                Clock.systemDefaultZone(), meterRegistry);
+    }
+
+    BulkRematchJob(PropertyRepository propertyRepository, StaySubscriptionRepository subscriptionRepository,
+                   LatestAvailability latestAvailability, NotificationDispatchService notificationDispatchService,
+                   Path checkpointPath, int parallelism, int batchSize, double maxPerSecond,
+                   boolean resumeOnStartup, Executor runner, Clock clock, MeterRegistry meterRegistry) {
+        if (parallelism <= 0 || batchSize <= 0 || maxPerSecond <= 0) {
+            throw new IllegalArgumentException("Re-match parallelism, batch size and rate must be positive");
+        }
+        this.propertyRepository = propertyRepository;
+        this.subscriptionRepository = subscriptionRepository;
+        this.latestAvailability = latestAvailability;
+        this.notificationDispatchService = notificationDispatchService;
+        this.checkpointPath = checkpointPath;
+        this.parallelism = parallelism;
+        this.batchSize = batchSize;
+        this.throughput = new NotificationRateGovernor.TokenBucket(maxPerSecond, 1);
+        this.resumeOnStartup = resumeOnStartup;
+        this.runner = runner;
+        this.clock = clock;
+        this.checkedCounter = Counter.builder("stran.rematch.subscriptions")
+                .description("Subscriptions checked by the bulk re-match job")
+                .register(meterRegistry);
+        this.notifiedCounter = Counter.builder("stran.rematch.notifications")
+                .description("Notifications dispatched by the bulk re-match job")
+                .register(meterRegistry);
+        Gauge.builder("stran.rematch.progress", this,
+                        job -> job.propertiesTotal.get() == 0 ? 0 : (double) job.propertiesDone.get() / job.propertiesTotal.get())
+                .description("Share of properties done by the current or last re-match run")
+                .register(meterRegistry);
+        Properties saved = readCheckpoint();
+        this.checkpoint = saved == null ? null : Long.valueOf(saved.getProperty(AFTER_PROPERTY_ID));
+    }
+
+    /**
+     * Start a run in the background, resuming after the checkpoint if one exists.
+     *
+     * @return {@code false} if a run is already in progress
+     */
+    public boolean start() {
+        if (!running.compareAndSet(false, true)) {
+            return false;
+        }
+        stopping = false;
+        runner.execute(() -> {
+            try {
+                run();
+            } finally {
+                running.set(false);
+            }
+        });
+        return true;
+    }
+
+    /**
+     * Ask the current run to stop after its in-flight batches. Its checkpoint is kept.
+     */
+    @PreDestroy
+    public void stop() {
+        stopping = true;
+    }
+
+    public Status status() {
+        return new Status(running.get(), runId, propertiesTotal.get(), propertiesDone.get(),
+                subscriptionsChecked.get(), notificationsSent.get(), checkpoint, lastError);
+    }
+
+    @Scheduled(cron = "${stran.rematch.cron:-}")
+    void scheduledRun() {
+        if (!start()) {
+            log.info("Bulk re-match still running, skipping scheduled run");
+        }
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    void resumeOnStartup() {
+        if (!resumeOnStartup || checkpoint == null) {
+            return;
+        }
+        if (latestAvailability.size() == 0) {
+            log.warn("Not resuming bulk re-match after property {}: no latest availability was restored; "
+                    + "the checkpoint is kept for the next run", checkpoint);
+            return;
+        }
+        log.info("Resuming bulk re-match after property {}", checkpoint);
+        start();
+    }
+
+    /**
+     * Run to completion on the calling thread. A run over an empty latest
+     * availability would match nothing, so it is refused and the checkpoint kept.
+     */
+    void run() {
+        if (latestAvailability.size() == 0) {
+            lastError = "No latest availability recorded yet";
+            log.warn("Bulk re-match not started: no latest availability recorded yet; checkpoint {} kept", checkpoint);
+            return;
+        }
+        Properties saved = readCheckpoint();
+        long after = saved == null ? Long.MIN_VALUE : Long.parseLong(saved.getProperty(AFTER_PROPERTY_ID));
+        runId = saved == null ? Instant.now(clock).toString() : saved.getProperty(RUN_ID);
+        lastError = null;
+
+        List<Property> properties = propertyRepository.findByPropCodeIsNotNull().stream()
+                .filter(property -> property.getPropertyId() > after)
+                .sorted(Comparator.comparing(Property::getPropertyId))
+                .toList();
+        List<List<Property>> batches = new ArrayList<>();
+        for (int from = 0; from < properties.size(); from += batchSize) {
+            batches.add(properties.subList(from, Math.min(from + batchSize, properties.size())));
+        }
+        propertiesTotal.set(properties.size());
+        propertiesDone.set(0);
+        subscriptionsChecked.set(0);
+        notificationsSent.set(0);
+        log.info("Bulk re-match {} started: {} properties in {} batches{}", runId, properties.size(),
+                batches.size(), saved == null ? "" : " (resumed after property " + after + ")");
+
+        Checkpointer checkpointer = new Checkpointer(batches);
+        ForkJoinPool pool = new ForkJoinPool(parallelism);
+        try {
+            pool.invoke(new BatchRange(batches, 0, batches.size(), checkpointer));
+            if (stopping) {
+                log.info("Bulk re-match {} stopped at checkpoint {}", runId, checkpoint);
+                return;
+            }
+            Files.deleteIfExists(checkpointPath);
+            checkpoint = null;
+            log.info("Bulk re-match {} completed: {} subscriptions checked, {} notifications sent",
+                    runId, subscriptionsChecked.get(), notificationsSent.get());
+        } catch (RuntimeException | IOException e) {
+            lastError = e.toString();
+            log.error("Bulk re-match {} failed, will resume after property {}: {}", runId, checkpoint, e.toString(), e);
+        } finally {
+            pool.shutdownNow();
+            awaitTermination(pool);
+        }
+    }
+
+    private void process(List<Property> batch) {
+        Map<Long, String> propCodes = new HashMap<>();
+        batch.forEach(property -> propCodes.put(property.getPropertyId(), property.getPropCode()));
+        LocalDate today = LocalDate.now(clock);
+
+        Map<Long, Map<LocalDate, List<StaySubscription>>> stays = new LinkedHashMap<>();
+        for (StaySubscription sub : subscriptionRepository.findActivePropertySubscriptions(propCodes.keySet())) {
+            if (!sub.getCheckInDate().isBefore(today)) {
+                stays.computeIfAbsent(sub.getPropertyId(), id -> new LinkedHashMap<>())
+                        .computeIfAbsent(sub.getCheckInDate(), date -> new ArrayList<>())
+                        .add(sub);
+            }
+        }
+
+        stays.forEach((propertyId, byDate) -> byDate.forEach((checkInDate, candidates) -> {
+            subscriptionsChecked.addAndGet(candidates.size());
+            checkedCounter.increment(candidates.size());
+            Set<StaySubscription> notified = new LinkedHashSet<>();
+            for (LatestAvailability.Snapshot snapshot : latestAvailability.find(propCodes.get(propertyId), checkInDate)) {
+                InventoryEventBody eventBody = snapshot.eventBody();
+                List<StaySubscription> matched = PropertyAvailabilityMatchingService.matchLengthOfStay(
+                                candidates, eventBody).stream()
+                        .filter(notified::add)
+                        .toList();
+                if (matched.isEmpty()) {
+                    continue;
+                }
+                acquire(matched.size());
+                Map<Long, String> strategies = new HashMap<>();
+                matched.forEach(sub -> strategies.put(sub.getId(), STRATEGY));
+                notificationDispatchService.dispatch(matched, eventBody, snapshot.source(), strategies);
+                notificationsSent.addAndGet(matched.size());
+                notifiedCounter.increment(matched.size());
+            }
+        }));
+        propertiesDone.addAndGet(batch.size());
+    }
+
+    private static void awaitTermination(ForkJoinPool pool) {
+        // Batches already started after another one failed finish before the run is reported
+        try {
+            if (!pool.awaitTermination(1, TimeUnit.MINUTES)) {
+                log.warn("Bulk re-match workers still running after 1 minute");
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private void acquire(int permits) {
+        for (int i = 0; i < permits; i++) {
+            while (!throughput.tryAcquire()) {
+                LockSupport.parkNanos(throughput.nanosUntilToken());
+            }
+        }
+    }
+
+    private Properties readCheckpoint() {
+        if (!Files.exists(checkpointPath)) {
+            return null;
+        }
+        try (Reader reader = Files.newBufferedReader(checkpointPath)) {
+            Properties properties = new Properties();
+            properties.load(reader);
+            return properties.getProperty(RUN_ID) == null || properties.getProperty(AFTER_PROPERTY_ID) == null
+                    ? null : properties;
+        } catch (IOException e) {
+            throw new UncheckedIOException("Cannot read re-match checkpoint " + checkpointPath, e);
+        }
+    }
+
+    private void writeCheckpoint(long afterPropertyId) {
+        Properties properties = new Properties();
+        properties.setProperty(RUN_ID, runId);
+        properties.setProperty(AFTER_PROPERTY_ID, Long.toString(afterPropertyId));
+        try {
+            Path parent = checkpointPath.toAbsolutePath().getParent();
+            Files.createDirectories(parent);
+            Path tmp = Files.createTempFile(parent, "rematch", ".tmp");
+            try (Writer writer = Files.newBufferedWriter(tmp)) {
+                properties.store(writer, "stran bulk re-match");
+            }
+            Files.move(tmp, checkpointPath, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } catch (IOException e) {
+            throw new UncheckedIOException("Cannot write re-match checkpoint " + checkpointPath, e);
+        }
+        checkpoint = afterPropertyId;
+    }
+
+    /**
+     * Advances the checkpoint over the contiguous prefix of finished batches;
+     * batches finish out of order under fork-join.
+     */
+    private final class Checkpointer {
+
+        private final List<List<Property>> batches;
+        private final BitSet done = new BitSet();
+        private int next;
+        private volatile boolean failed;
+
+        Checkpointer(List<List<Property>> batches) {
+            this.batches = batches;
+        }
+
+        synchronized void completed(int batch) {
+            done.set(batch);
+            int before = next;
+            next = done.nextClearBit(next);
+            if (next > before) {
+                List<Property> last = batches.get(next - 1);
+                writeCheckpoint(last.get(last.size() - 1).getPropertyId());
+            }
+        }
+    }
+
+    private final class BatchRange extends RecursiveAction {
+
+        private final List<List<Property>> batches;
+        private final int from;
+        private final int to;
+        private final Checkpointer checkpointer;
+
+        BatchRange(List<List<Property>> batches, int from, int to, Checkpointer checkpointer) {
+            this.batches = batches;
+            this.from = from;
+            this.to = to;
+            this.checkpointer = checkpointer;
+        }
+
+        @Override
+        protected void compute() {
+            if (to - from > 1) {
+                int mid = (from + to) >>> 1;
+                invokeAll(new BatchRange(batches, from, mid, checkpointer),
+                        new BatchRange(batches, mid, to, checkpointer));
+                return;
+            }
+            if (to > from && !stopping && !checkpointer.failed) {
+                try {
+                    process(batches.get(from));
+                } catch (RuntimeException e) {
+                    checkpointer.failed = true;
+                    throw e;
+                }
+                checkpointer.completed(from);
+            }
+        }
+    }
+}
@@ -0,0 +1,39 @@
+package com.example.stran.service;
+
+import java.util.Arrays;
+
+/**
+ * Per-thread accumulator of the stage timings and match counts of the inventory
+ * event currently being processed, fed by {@link PipelineMetrics} between
+ * {@link PipelineMetrics#beginEvent()} and {@link PipelineMetrics#endEvent()}.
+ *
+ * <p>One instance is reused per listener thread, so tracing an event allocates
+ * nothing; {@link SlowEventLog} copies it only when the event is over budget.
+ */
+public final class EventTrace {
+
+    final long[] stageNanos = new long[PipelineMetrics.Stage.values().length];
+    int candidates;
+    int matches;
+    boolean active;
+
+    void reset() {
+        Arrays.fill(stageNanos, 0L);
+        candidates = 0;
+        matches = 0;
+        active = true;
+    }
+
+    void stage(PipelineMetrics.Stage stage, long nanos) {
+        if (active) {
+            stageNanos[stage.ordinal()] += nanos;
+        }
+    }
+
+    void matched(int candidates, int matches) {
+        if (active) {
+            this.candidates += candidates;
+            this.matches += matches;
+        }
+    }
+}
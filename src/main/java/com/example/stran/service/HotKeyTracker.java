@@ -0,0 +1,140 @@
+package com.example.stran.service;
+
+import com.example.stran.sketch.WindowedHeavyHitters;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.time.Clock;
+import java.time.Duration;
+import java.time.LocalDate;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Streaming heavy-hitter tracking for the pipeline's keys, to show whether a few
+ * properties dominate event volume, match fan-out or candidate scans. Off unless
+ * {@code stran.hotkeys.enabled=true}; while off every call returns at once and
+ * neither the sketches nor the gauges are created.
+ *
+ * <ul>
+ *   <li>{@link Dimension#EVENTS} — inventory events per propCode</li>
+ *   <li>{@link Dimension#FAN_OUT} — matched subscriptions per propCode</li>
+ *   <li>{@link Dimension#CANDIDATES} — candidate subscriptions scanned per
+ *       {@code propertyId:checkInDate}</li>
+ * </ul>
+ *
+ * <p>Each dimension is a {@link WindowedHeavyHitters} over {@code stran.hotkeys.window},
+ * so memory stays constant however many keys the stream has. Keys are never used as
+ * metric tags; the gauges {@code stran.hotkeys.top-share} and
+ * {@code stran.hotkeys.max-share} report the share of the window held by the top-K
+ * keys and by the single heaviest key. The keys themselves are on
+ * {@code /actuator/hotkeys}. Each window is striped by key hash over
+ * {@code stran.hotkeys.stripes} locks, so consumer threads recording different keys
+ * rarely contend.
+ */
+@Component
+public class HotKeyTracker {
+
+    public enum Dimension {
+        EVENTS, FAN_OUT, CANDIDATES;
+
+        public String tag() {
+            return name().toLowerCase().replace('_', '-');
+        }
+    }
+
+    private final boolean enabled;
+    private final Map<Dimension, WindowedHeavyHitters> windows = new EnumMap<>(Dimension.class);
+
+    @Autowired
+    public HotKeyTracker(
+            @Value("${stran.hotkeys.enabled:false}") boolean enabled,
+            @Value("${stran.hotkeys.window:PT5M}") Duration window,
+            @Value("${stran.hotkeys.buckets:5}") int buckets,
+            @Value("${stran.hotkeys.top-k:20}") int topK,
+            @Value("${stran.hotkeys.sketch-depth:4}") int depth,
+            @Value("${stran.hotkeys.sketch-width:2048}") int width,
+            @Value("${stran.hotkeys.stripes:16}") int stripes,
+            MeterRegistry meterRegistry) {
+        this(enabled, window, buckets, topK, depth, width, stripes, meterRegistry, Clock.systemUTC());
+    }
+
+    HotKeyTracker(boolean enabled, Duration window, int buckets, int topK, int depth, int width, int stripes,
+                  MeterRegistry meterRegistry, Clock clock) {
+        this.enabled = enabled;
+        if (!enabled) {
+            return;
+        }
+        for (Dimension dimension : Dimension.values()) {
+            WindowedHeavyHitters hitters = new WindowedHeavyHitters(window, buckets, topK, depth, width, stripes, clock);
+            windows.put(dimension, hitters);
+            Gauge.builder("stran.hotkeys.top-share", hitters, h -> share(h, h.top().stream()
+                            .mapToLong(WindowedHeavyHitters.HeavyHitter::count).sum()))
+                    .description("Share of the window held by the top-K keys")
+                    .tag("dimension", dimension.tag())
+                    .register(meterRegistry);
+            Gauge.builder("stran.hotkeys.max-share", hitters, h -> share(h, h.top().stream()
+                            .mapToLong(WindowedHeavyHitters.HeavyHitter::count).max().orElse(0)))
+                    .description("Share of the window held by the heaviest key")
+                    .tag("dimension", dimension.tag())
+                    .register(meterRegistry);
+        }
+    }
+
+    public void event(String propCode) {
+        if (!enabled) {
+            return;
+        }
+        windows.get(Dimension.EVENTS).add(propCode, 1);
+    }
+
+    public void fanOut(String propCode, int matches) {
+        if (!enabled) {
+            return;
+        }
+        windows.get(Dimension.FAN_OUT).add(propCode, matches);
+    }
+
+    public void candidates(long propertyId, LocalDate checkInDate, int candidates) {
+        if (enabled && candidates > 0) {
+            windows.get(Dimension.CANDIDATES).add(propertyId + ":" + checkInDate, candidates);
+        }
+    }
+
+    /**
+     * @return the heaviest keys of a dimension in the window, heaviest first
+     */
+    public List<WindowedHeavyHitters.HeavyHitter> top(Dimension dimension) {
+        if (!enabled) {
+            return List.of();
+        }
+        return windows.get(dimension).top();
+    }
+
+    /**
+     * @return the total count of a dimension in the window
+     */
+    public long total(Dimension dimension) {
+        if (!enabled) {
+            return 0;
+        }
+        return windows.get(dimension).total();
+    }
+
+    public Duration window() {
+        if (!enabled) {
+            return Duration.ZERO;
+        }
+        return windows.get(Dimension.EVENTS).window();
+    }
+
+    private static double share(WindowedHeavyHitters hitters, long count) {
+        long total = hitters.total();
+        // Sketch estimates may overcount, so the share is capped at the whole window
+        return total == 0 ? 0.0 : Math.min(1.0, (double) count / total);
+    }
+}
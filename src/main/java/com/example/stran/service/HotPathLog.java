@@ -0,0 +1,199 @@
+package com.example.stran.service;
+
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.StringJoiner;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.LongSupplier;
+
+/**
+ * Gate for the per-record INFO lines on the event hot path.
+ *
+ * <p>By default every line is logged. With {@code stran.logging.hot-path.sampled=true}
+ * each {@link Site} logs only the first of every {@code sample-every} records, and
+ * at most {@code max-per-second} lines per second. A summary line with the
+ * record count per site replaces the suppressed lines every
+ * {@code summary-interval-ms}.
+ *
+ * <p>Sampling never applies to a propCode whose logger
+ * {@code com.example.stran.hotpath.<propCode>} has DEBUG enabled, e.g.
+ * {@code logging.level.com.example.stran.hotpath.FNLCO=DEBUG} or the same change
+ * through {@code /actuator/loggers}. Every record for that property is logged.
+ *
+ * <p>Call sites check the gate before formatting:
+ * <pre>{@code
+ * if (hotPathLog.shouldLog(HotPathLog.Site.EVENT_RECEIVED, propCode)) {
+ *     log.info(...);
+ * }
+ * }</pre>
+ */
+@Slf4j
+@Component
+public class HotPathLog {
+
+    /** Parent logger of the per-propCode loggers that switch a property to full logging. */
+    public static final String DEBUG_CATEGORY = "com.example.stran.hotpath";
+
+    private static final long NANOS_PER_SECOND = TimeUnit.SECONDS.toNanos(1);
+
+    /**
+     * Per-record log statements on the hot path, in processing order.
+     */
+    public enum Site {
+        EVENT_RECEIVED,
+        EVENT_PROCESSING,
+        NO_MATCH,
+        SUBSCRIPTIONS_MATCHED,
+        NOTIFICATIONS_SUBMITTED,
+        NOTIFICATION_PUBLISHED
+    }
+
+    private final boolean sampled;
+    private final long sampleEvery;
+    private final int maxPerSecond;
+    private final long summaryIntervalMillis;
+    private final LongSupplier nanoClock;
+
+    private final Map<Site, SiteState> sites = new EnumMap<>(Site.class);
+    private final Map<String, Logger> propCodeLoggers = new ConcurrentHashMap<>();
+    private final ScheduledExecutorService summaryScheduler;
+
+    @Autowired
+    public HotPathLog(
+            @Value("${stran.logging.hot-path.sampled:false}") boolean sampled,
+            @Value("${stran.logging.hot-path.sample-every:1000}") long sampleEvery,
+            @Value("${stran.logging.hot-path.max-per-second:5}") int maxPerSecond,
+            @Value("${stran.logging.hot-path.summary-interval-ms:10000}") long summaryIntervalMillis) {
+        this(sampled, sampleEvery, maxPerSecond, summaryIntervalMillis, System::nanoTime, sampled);
+        if (sampled) {
+            log.info("Sampling hot-path logs: 1 in {} record(s), at most {} line(s)/s per site, summary every {}ms",
+                    sampleEvery, maxPerSecond, summaryIntervalMillis);
+        }
+    }
+
+    HotPathLog(boolean sampled, long sampleEvery, int maxPerSecond, long summaryIntervalMillis,
+               LongSupplier nanoClock, boolean scheduleSummary) {
+        if (sampleEvery < 1) {
+            throw new IllegalArgumentException("sample-every must be at least 1");
+        }
+        this.sampled = sampled;
+        this.sampleEvery = sampleEvery;
+        this.maxPerSecond = maxPerSecond;
+        this.summaryIntervalMillis = summaryIntervalMillis;
+        this.nanoClock = nanoClock;
+        for (Site site : Site.values()) {
+            sites.put(site, new SiteState());
+        }
+        if (scheduleSummary) {
+            summaryScheduler = Executors.newSingleThreadScheduledExecutor(r -> {
+                Thread thread = new Thread(r, "hot-path-log-summary");
+                thread.setDaemon(true);
+                return thread;
+            });
+            summaryScheduler.scheduleAtFixedRate(this::logSummary,
+                    summaryIntervalMillis, summaryIntervalMillis, TimeUnit.MILLISECONDS);
+        } else {
+            summaryScheduler = null;
+        }
+    }
+
+    /**
+     * Count a record at a call site and decide whether to log its line.
+     *
+     * @param site     the log statement
+     * @param propCode the record's property, or {@code null} if unknown
+     * @return whether the caller should log the line
+     */
+    public boolean shouldLog(Site site, String propCode) {
+        if (!sampled) {
+            return true;
+        }
+        SiteState state = sites.get(site);
+        long seen = state.seen.incrementAndGet();
+        boolean logged = (propCode != null && debugEnabled(propCode))
+                || ((seen - 1) % sampleEvery == 0 && state.tryAcquire(nanoClock.getAsLong()));
+        if (logged) {
+            state.logged.incrementAndGet();
+        }
+        return logged;
+    }
+
+    @PreDestroy
+    void shutdown() {
+        if (summaryScheduler != null) {
+            summaryScheduler.shutdownNow();
+            logSummary();
+        }
+    }
+
+    /**
+     * @return the summary of records seen since the previous call, or {@code null} if there were none
+     */
+    String summarize() {
+        StringJoiner counts = new StringJoiner(", ");
+        for (Map.Entry<Site, SiteState> entry : sites.entrySet()) {
+            SiteState state = entry.getValue();
+            long seen = state.seen.get();
+            long logged = state.logged.get();
+            long seenDelta = seen - state.summarizedSeen;
+            if (seenDelta > 0) {
+                counts.add(entry.getKey().name().toLowerCase() + "=" + seenDelta
+                        + " (logged " + (logged - state.summarizedLogged) + ")");
+            }
+            state.summarizedSeen = seen;
+            state.summarizedLogged = logged;
+        }
+        return counts.length() == 0 ? null : counts.toString();
+    }
+
+    private void logSummary() {
+        String summary = summarize();
+        if (summary != null) {
+            log.info("Hot-path records in the last {}ms: {}", summaryIntervalMillis, summary);
+        }
+    }
+
+    private boolean debugEnabled(String propCode) {
+        return propCodeLoggers
+                .computeIfAbsent(propCode, code -> LoggerFactory.getLogger(DEBUG_CATEGORY + "." + code))
+                .isDebugEnabled();
+    }
+
+    private final class SiteState {
+
+        private final AtomicLong seen = new AtomicLong();
+        private final AtomicLong logged = new AtomicLong();
+        private final AtomicInteger permits = new AtomicInteger();
+        private volatile long second = Long.MIN_VALUE;
+
+        /** Only touched by the summary thread. */
+        private long summarizedSeen;
+        private long summarizedLogged;
+
+        private boolean tryAcquire(long nowNanos) {
+            long now = Math.floorDiv(nowNanos, NANOS_PER_SECOND);
+            if (now != second) {
+                synchronized (this) {
+                    if (now != second) {
+                        permits.set(0);
+                        second = now;
+                    }
+                }
+            }
+            return permits.incrementAndGet() <= maxPerSecond;
+        }
+    }
+}
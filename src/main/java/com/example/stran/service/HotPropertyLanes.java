@@ -0,0 +1,379 @@
+package com.example.stran.service;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.apache.kafka.clients.consumer.Consumer;
+import org.apache.kafka.clients.consumer.ConsumerRecord;
+import org.apache.kafka.common.TopicPartition;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnExpression;
+import org.springframework.kafka.listener.ConsumerAwareRebalanceListener;
+import org.springframework.kafka.support.Acknowledgment;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.LongSupplier;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+/**
+ * Moves inventory events of hot properties off the partition's consumer thread,
+ * so that one property with a huge subscription base does not stall every other
+ * property on the same partition.
+ *
+ * <p>A propCode is hot when it is listed in {@code stran.hot-lanes.prop-codes}, or
+ * when one of its events matched at least {@code detect.fan-out} subscriptions or
+ * took at least {@code detect.latency-ms} to process. Detected properties stay hot
+ * for {@code detect.ttl} after their last heavy event, and at most
+ * {@code detect.max-properties} are tracked at once.
+ *
+ * <p>Hot events run on {@code concurrency} lane threads, each with a bounded queue of
+ * {@code queue-capacity} events. A propCode always maps to the same lane, and keeps
+ * using it while it has events queued there, so the events of a property are
+ * processed in order. A full lane blocks the consumer thread, and after
+ * {@code queue-wait-ms} the record fails and is redelivered.
+ *
+ * <p>Offsets stay correct because the container runs with manual, asynchronous
+ * acks: every record is acknowledged only after it is processed, on whichever
+ * thread, and the container commits the contiguous acknowledged prefix. A lane
+ * retries a failed event {@code retries} times with backoff, then logs and skips
+ * it, like the container's error handler. On revocation, queued events of the
+ * revoked partitions are drained before offsets are committed.
+ */
+@Slf4j
+@Component
+@ConditionalOnExpression("${stran.hot-lanes.enabled:false} and !${kafka.transactions.enabled:false}")
+public class HotPropertyLanes implements ConsumerAwareRebalanceListener {
+
+    private final Set<String> configured;
+    private final int fanOutThreshold;
+    private final long latencyThresholdNanos;
+    private volatile long ttlMillis;
+    private volatile int maxDetected;
+    private final long queueWaitMillis;
+    private final int retries;
+    private final long retryBackoffMillis;
+    private final long drainTimeoutMillis;
+    private final LongSupplier clock;
+
+    private final Lane[] lanes;
+    private final Map<String, Long> detected = new ConcurrentHashMap<>();
+    private final Map<String, Integer> pendingByProperty = new ConcurrentHashMap<>();
+    private final Map<TopicPartition, AtomicInteger> pendingByPartition = new ConcurrentHashMap<>();
+    private final AtomicInteger pending = new AtomicInteger();
+    private final Counter routed;
+
+    private volatile boolean running = true;
+
+    @Autowired
+    public HotPropertyLanes(
+            @Value("${stran.hot-lanes.prop-codes:}") String[] propCodes,
+            @Value("${stran.hot-lanes.concurrency:2}") int concurrency,
+            @Value("${stran.hot-lanes.queue-capacity:100}") int queueCapacity,
+            @Value("${stran.hot-lanes.queue-wait-ms:30000}") long queueWaitMillis,
+            @Value("${stran.hot-lanes.detect.fan-out:5000}") int fanOutThreshold,
+            @Value("${stran.hot-lanes.detect.latency-ms:500}") long latencyThresholdMillis,
+            @Value("${stran.hot-lanes.detect.ttl:PT10M}") Duration ttl,
+            @Value("${stran.hot-lanes.detect.max-properties:50}") int maxDetected,
+            @Value("${stran.hot-lanes.retries:3}") int retries,
+            @Value("${stran.hot-lanes.retry-backoff-ms:1000}") long retryBackoffMillis,
+            @Value("${stran.hot-lanes.drain-timeout-ms:10000}") long drainTimeoutMillis,
+            MeterRegistry meterRegistry) {
+        this(propCodes, concurrency, queueCapacity, queueWaitMillis, fanOutThreshold, latencyThresholdMillis,
+                ttl, maxDetected, retries, retryBackoffMillis, drainTimeoutMillis, meterRegistry,
+                System::currentTimeMillis);
+    }
+
+    HotPropertyLanes(String[] propCodes, int concurrency, int queueCapacity, long queueWaitMillis,
+                     int fanOutThreshold, long latencyThresholdMillis, Duration ttl, int maxDetected,
+                     int retries, long retryBackoffMillis, long drainTimeoutMillis,
+                     MeterRegistry meterRegistry, LongSupplier clock) {
+        if (concurrency < 1 || queueCapacity < 1) {
+            throw new IllegalArgumentException("stran.hot-lanes.concurrency and queue-capacity must be at least 1");
+        }
+        this.configured = Arrays.stream(propCodes).map(String::trim).filter(code -> !code.isEmpty())
+                .collect(Collectors.toUnmodifiableSet());
+        this.fanOutThreshold = fanOutThreshold;
+        this.latencyThresholdNanos = TimeUnit.MILLISECONDS.toNanos(latencyThresholdMillis);
+        this.ttlMillis = ttl.toMillis();
+        this.maxDetected = maxDetected;
+        this.queueWaitMillis = queueWaitMillis;
+        this.retries = retries;
+        this.retryBackoffMillis = retryBackoffMillis;
+        this.drainTimeoutMillis = drainTimeoutMillis;
+        this.clock = clock;
+
+        this.routed = Counter.builder("stran.hot-lanes.routed")
+                .description("Inventory events processed on a hot-property lane")
+                .register(meterRegistry);
+        Gauge.builder("stran.hot-lanes.queued", pending, AtomicInteger::get)
+                .description("Inventory events queued or running on hot-property lanes")
+                .register(meterRegistry);
+        Gauge.builder("stran.hot-lanes.properties", this, lanes -> lanes.hotProperties().size())
+                .description("Properties currently routed to hot-property lanes")
+                .register(meterRegistry);
+
+        this.lanes = new Lane[concurrency];
+        for (int i = 0; i < concurrency; i++) {
+            lanes[i] = new Lane("hot-property-lane-" + i, queueCapacity);
+            lanes[i].thread.start();
+        }
+        log.info("Hot-property lanes enabled: {} lane(s), configured {}, detecting fan-out >= {} or latency >= {}ms",
+                concurrency, configured, fanOutThreshold, latencyThresholdMillis);
+    }
+
+    /**
+     * @return whether an event of {@code propCode} must be processed on a lane: the
+     * property is hot, or earlier events of it are still queued on its lane
+     */
+    public boolean routes(String propCode) {
+        return configured.contains(propCode) || isDetected(propCode) || pendingByProperty.containsKey(propCode);
+    }
+
+    /**
+     * Queue an event on its property's lane. Called on the consumer thread; blocks
+     * while the lane is full.
+     *
+     * @param task processes the record and acknowledges it once processed
+     * @param ack  acknowledges the record if the lane gives up on it
+     * @throws IllegalStateException if the lane stays full for {@code queue-wait-ms}
+     */
+    public void submit(ConsumerRecord<?, ?> record, String propCode, Runnable task, Acknowledgment ack) {
+        TopicPartition partition = new TopicPartition(record.topic(), record.partition());
+        pendingByProperty.merge(propCode, 1, Integer::sum);
+        pendingByPartition.computeIfAbsent(partition, p -> new AtomicInteger()).incrementAndGet();
+        pending.incrementAndGet();
+
+        Runnable queued = () -> {
+            try {
+                runWithRetries(record, task, ack);
+            } finally {
+                completed(propCode, partition);
+            }
+        };
+        boolean accepted = false;
+        try {
+            accepted = lanes[Math.floorMod(propCode.hashCode(), lanes.length)].queue
+                    .offer(queued, queueWaitMillis, TimeUnit.MILLISECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        if (!accepted) {
+            completed(propCode, partition);
+            throw new IllegalStateException("Hot-property lane for propCode=" + propCode + " full for "
+                    + queueWaitMillis + "ms");
+        }
+        routed.increment();
+    }
+
+    /**
+     * Feed the outcome of a processed event into hot-property detection.
+     *
+     * @param elapsedNanos time spent processing the event
+     * @param matches      subscriptions the event matched
+     */
+    public void observe(String propCode, long elapsedNanos, int matches) {
+        if (matches < fanOutThreshold && elapsedNanos < latencyThresholdNanos) {
+            return;
+        }
+        long now = clock.getAsLong();
+        if (detected.put(propCode, now + ttlMillis) == null) {
+            log.info("Routing propCode={} to hot-property lanes: {} match(es) in {}ms",
+                    propCode, matches, TimeUnit.NANOSECONDS.toMillis(elapsedNanos));
+            evictOverflow(now);
+        }
+    }
+
+    /**
+     * @return configured and currently detected hot properties
+     */
+    public Set<String> hotProperties() {
+        long now = clock.getAsLong();
+        detected.values().removeIf(expiry -> expiry <= now);
+        return Stream.concat(configured.stream(), detected.keySet().stream())
+                .collect(Collectors.toUnmodifiableSet());
+    }
+
+    /**
+     * @return events queued or running on the lanes
+     */
+    public int pending() {
+        return pending.get();
+    }
+
+    public Duration getDetectTtl() {
+        return Duration.ofMillis(ttlMillis);
+    }
+
+    /**
+     * Change how long a detected property stays hot; applies from its next heavy event.
+     */
+    public void setDetectTtl(Duration ttl) {
+        if (ttl.isNegative() || ttl.isZero()) {
+            throw new IllegalArgumentException("detect.ttl must be positive");
+        }
+        this.ttlMillis = ttl.toMillis();
+    }
+
+    public int getMaxDetected() {
+        return maxDetected;
+    }
+
+    /**
+     * Change how many detected properties are tracked; a lower bound evicts the
+     * oldest ones on the next detection.
+     */
+    public void setMaxDetected(int maxDetected) {
+        if (maxDetected < 0) {
+            throw new IllegalArgumentException("detect.max-properties must not be negative");
+        }
+        this.maxDetected = maxDetected;
+    }
+
+    @Override
+    public void onPartitionsRevokedBeforeCommit(Consumer<?, ?> consumer, Collection<TopicPartition> partitions) {
+        long deadline = System.currentTimeMillis() + drainTimeoutMillis;
+        synchronized (this) {
+            int remainingEvents;
+            while ((remainingEvents = pending(partitions)) > 0) {
+                long remaining = deadline - System.currentTimeMillis();
+                if (remaining <= 0) {
+                    log.warn("Timed out draining {} hot-lane event(s) of revoked partitions {}; they will be redelivered",
+                            remainingEvents, partitions);
+                    return;
+                }
+                try {
+                    wait(remaining);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    return;
+                }
+            }
+        }
+    }
+
+    @Override
+    public void onPartitionsLost(Consumer<?, ?> consumer, Collection<TopicPartition> partitions) {
+        // Offsets of lost partitions can no longer be committed; the new owner redelivers them
+    }
+
+    @PreDestroy
+    void shutdown() throws InterruptedException {
+        running = false;
+        for (Lane lane : lanes) {
+            lane.thread.interrupt();
+        }
+        for (Lane lane : lanes) {
+            lane.thread.join(drainTimeoutMillis);
+        }
+        if (pending() > 0) {
+            log.warn("Shutting down with {} unprocessed hot-lane event(s); they will be redelivered", pending());
+        }
+    }
+
+    private boolean isDetected(String propCode) {
+        Long expiry = detected.get(propCode);
+        if (expiry == null) {
+            return false;
+        }
+        if (expiry > clock.getAsLong()) {
+            return true;
+        }
+        detected.remove(propCode, expiry);
+        return false;
+    }
+
+    private void evictOverflow(long now) {
+        if (detected.size() <= maxDetected) {
+            return;
+        }
+        detected.values().removeIf(expiry -> expiry <= now);
+        while (detected.size() > maxDetected) {
+            detected.entrySet().stream()
+                    .min(Map.Entry.comparingByValue())
+                    .ifPresent(oldest -> detected.remove(oldest.getKey(), oldest.getValue()));
+        }
+    }
+
+    private void runWithRetries(ConsumerRecord<?, ?> record, Runnable task, Acknowledgment ack) {
+        for (int attempt = 1; ; attempt++) {
+            try {
+                task.run();
+                return;
+            } catch (RuntimeException e) {
+                if (attempt > retries || !running) {
+                    log.error("Skipping inventory record {}-{}@{} after {} attempt(s) on a hot-property lane",
+                            record.topic(), record.partition(), record.offset(), attempt, e);
+                    if (running) {
+                        ack.acknowledge();
+                    }
+                    return;
+                }
+                log.warn("Hot-property lane failed to process {}-{}@{} (attempt {}), retrying in {}ms: {}",
+                        record.topic(), record.partition(), record.offset(), attempt, retryBackoffMillis,
+                        e.getMessage());
+                try {
+                    Thread.sleep(retryBackoffMillis);
+                } catch (InterruptedException interrupted) {
+                    Thread.currentThread().interrupt();
+                    return;
+                }
+            }
+        }
+    }
+
+    private void completed(String propCode, TopicPartition partition) {
+        pendingByProperty.computeIfPresent(propCode, (code, count) -> count == 1 ? null : count - 1);
+        pendingByPartition.get(partition).decrementAndGet();
+        pending.decrementAndGet();
+        synchronized (this) {
+            notifyAll();
+        }
+    }
+
+    private int pending(Collection<TopicPartition> partitions) {
+        int count = 0;
+        for (TopicPartition partition : partitions) {
+            AtomicInteger pendingEvents = pendingByPartition.get(partition);
+            count += pendingEvents == null ? 0 : pendingEvents.get();
+        }
+        return count;
+    }
+
+    private final class Lane {
+
+        private final BlockingQueue<Runnable> queue;
+        private final Thread thread;
+
+        private Lane(String name, int capacity) {
+            this.queue = new ArrayBlockingQueue<>(capacity);
+            this.thread = new Thread(this::run, name);
+            thread.setDaemon(true);
+        }
+
+        private void run() {
+            while (running) {
+                Runnable task;
+                try {
+                    task = queue.take();
+                } catch (InterruptedException e) {
+                    return;
+                }
+                task.run();
+            }
+        }
+    }
+}
@@ -0,0 +1,101 @@
+package com.example.stran.service;
+
+import com.example.stran.dto.inventory.InventoryEvent;
+import lombok.extern.slf4j.Slf4j;
+import org.apache.kafka.clients.consumer.ConsumerRecord;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnExpression;
+import org.springframework.kafka.annotation.KafkaListener;
+import org.springframework.kafka.listener.AcknowledgingMessageListener;
+import org.springframework.kafka.support.Acknowledgment;
+import org.springframework.stereotype.Component;
+import org.springframework.util.backoff.FixedBackOff;
+
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Inventory listener for exactly-once mode ({@code kafka.transactions.enabled=true}):
+ * receives each poll as one batch, so the container runs one Kafka transaction per
+ * batch instead of one per record. The notifications of every record in the batch
+ * and the batch's offsets commit or abort together.
+ *
+ * <p>Records are handed one at a time to {@link InventoryEventListener}, which is
+ * not started in this mode. A failing record aborts the whole batch, which the
+ * container's after-rollback processor redelivers after the
+ * {@code kafka.consumer.retry} backoff. Failures are counted per record; once a
+ * record has failed more than {@code max-attempts} times, the next delivery skips
+ * it and commits the rest of its batch.
+ *
+ * <p>{@link InventorySourceListeners} use {@link #process} the same way for the
+ * containers of their sources.
+ */
+@Slf4j
+@Component
+@ConditionalOnExpression("${kafka.transactions.enabled:false} and '${stran.matching.engine:db}' != 'streams'")
+public class InventoryBatchListener {
+
+    /** Failures of records on partitions that moved to another instance are never cleared; cap them. */
+    private static final int MAX_TRACKED_FAILURES = 10_000;
+
+    /** The container commits the batch; per-record acks are not used. */
+    private static final Acknowledgment NO_ACK = () -> { };
+
+    private final InventoryEventListener listener;
+    private final FixedBackOff retryBackOff;
+
+    private final Map<String, Integer> failures = new ConcurrentHashMap<>();
+
+    @Autowired
+    public InventoryBatchListener(InventoryEventListener listener, FixedBackOff inventoryRetryBackOff) {
+        this.listener = listener;
+        this.retryBackOff = inventoryRetryBackOff;
+    }
+
+    @KafkaListener(
+            topics = "#{${kafka.repartition.enabled:false} ? '${kafka.topic.inventory-by-property}' : '${kafka.topic.inventory}'}",
+            containerFactory = "inventoryEventListenerContainerFactory",
+            batch = "true",
+            // Not started when InventorySourceListeners consumes the configured inventory sources
+            autoStartup = "#{'${kafka.inventory.sources:}'.isBlank() or ${kafka.repartition.enabled:false}}"
+    )
+    public void onInventoryEvents(List<ConsumerRecord<String, InventoryEvent>> records) {
+        process(records, listener::onInventoryEvent);
+    }
+
+    /**
+     * Process a batch record by record inside the container's transaction.
+     *
+     * @param records the polled records
+     * @param handler processes one record
+     * @throws RuntimeException the failure of a record, aborting the batch
+     */
+    public void process(List<ConsumerRecord<String, InventoryEvent>> records,
+                        AcknowledgingMessageListener<String, InventoryEvent> handler) {
+        for (ConsumerRecord<String, InventoryEvent> record : records) {
+            String key = record.topic() + '-' + record.partition() + '@' + record.offset();
+            Integer failed = failures.isEmpty() ? null : failures.get(key);
+            if (failed != null && failed > retryBackOff.getMaxAttempts()) {
+                failures.remove(key);
+                log.error("Skipping inventory record {} after {} failed attempt(s); committing the rest of its batch",
+                        key, failed);
+                continue;
+            }
+            try {
+                handler.onMessage(record, NO_ACK);
+            } catch (RuntimeException e) {
+                if (failures.size() >= MAX_TRACKED_FAILURES) {
+                    failures.clear();
+                }
+                int attempts = failures.merge(key, 1, Integer::sum);
+                log.warn("Inventory record {} failed (attempt {}), rolling back its batch of {}: {}",
+                        key, attempts, records.size(), e.getMessage());
+                throw e;
+            }
+            if (failed != null) {
+                failures.remove(key);
+            }
+        }
+    }
+}
@@ -2,10 +2,16 @@ package com.example.stran.service;
 
 import com.example.stran.dto.inventory.InventoryEvent;
 import com.example.stran.dto.inventory.InventoryEventBody;
+import com.example.stran.dto.inventory.SourceRecord;
+import com.example.stran.jfr.ListenerEvent;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.apache.kafka.clients.consumer.ConsumerRecord;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnExpression;
 import org.springframework.kafka.annotation.KafkaListener;
+import org.springframework.kafka.support.Acknowledgment;
+import org.springframework.lang.NonNull;
 import org.springframework.stereotype.Component;
 
 /**
@@ -15,33 +21,131 @@ import org.springframework.stereotype.Component;
  * <p>Each event is validated and forwarded to the
  * {@link InventoryEventProcessingService} orchestrator for matching
  * and notification dispatch.
+ *
+ * <p>When {@code kafka.repartition.enabled=true} the listener consumes the
+ * propCode-keyed internal topic written by {@link InventoryRepartitionListener}
+ * instead of the source topic.
+ *
+ * <p>With {@code kafka.transactions.enabled=true} this listener's container is
+ * not started; {@link InventoryBatchListener} receives whole polls and hands
+ * their records to {@link #onInventoryEvent} inside one Kafka transaction per
+ * batch.
+ *
+ * <p>With {@code kafka.consumer.commit-after-ack.enabled=true} the record is
+ * handed to the {@link NotificationAckTracker} and acknowledged only after its
+ * notification sends succeed. In every other mode the container passes a no-op
+ * {@link Acknowledgment}.
+ *
+ * <p>With {@code stran.hot-lanes.enabled=true} events of hot properties are
+ * processed on the {@link HotPropertyLanes} instead of the consumer thread, and
+ * every record is acknowledged once processed so that offsets are committed
+ * only up to the last record processed on either.
+ *
+ * <p>Events slower than {@code stran.slow-events.budget-ms} are kept, with their
+ * per-stage breakdown, in the {@link SlowEventLog}.
+ *
+ * <p>With {@code kafka.inventory.sources} set, this listener's own container is
+ * not started and the {@link InventorySourceListeners} containers deliver the
+ * records of each configured source to {@link #onInventoryEvent} instead.
+ *
+ * <p>Not registered with {@code stran.matching.engine=streams}, where the
+ * {@link com.example.stran.streams.SubscriptionMatchingTopology} consumes the
+ * inventory topic instead.
  */
 @Slf4j
 @Component
+@ConditionalOnExpression("'${stran.matching.engine:db}' != 'streams'")
 @RequiredArgsConstructor
 public class InventoryEventListener {
 
     private final InventoryEventProcessingService processingService;
+    private final ObjectProvider<NotificationAckTracker> ackTracker;
+    private final HotPathLog hotPathLog;
+    private final PipelineMetrics pipelineMetrics;
+    private final SlowEventLog slowEventLog;
+    private final ObjectProvider<HotPropertyLanes> hotLanes;
 
     @KafkaListener(
-            topics = "${kafka.topic.inventory}",
-            containerFactory = "inventoryEventListenerContainerFactory"
+            topics = "#{${kafka.repartition.enabled:false} ? '${kafka.topic.inventory-by-property}' : '${kafka.topic.inventory}'}",
+            containerFactory = "inventoryEventListenerContainerFactory",
+            // Not started when InventorySourceListeners consumes the configured inventory sources, or when
+            // InventoryBatchListener consumes in transactional batches
+            autoStartup = "#{('${kafka.inventory.sources:}'.isBlank() or ${kafka.repartition.enabled:false})"
+                    + " and !${kafka.transactions.enabled:false}}"
     )
-    public void onInventoryEvent(ConsumerRecord<String, InventoryEvent> record) {
+    public void onInventoryEvent(ConsumerRecord<String, InventoryEvent> record, @NonNull Acknowledgment ack) {
         InventoryEvent event = record.value();
 
         if (event == null || event.getValue() == null || event.getValue().getBody() == null) {
             log.warn("Received null or malformed inventory event at offset={}, partition={}",
                     record.offset(), record.partition());
+            ack.acknowledge();
             return;
         }
 
         InventoryEventBody body = event.getValue().getBody();
 
-        log.info("Received inventory event: propCode={}, date={}, key={}, partition={}, offset={}",
-                body.getPropCode(), body.getStartDate(), record.key(),
-                record.partition(), record.offset());
+        if (hotPathLog.shouldLog(HotPathLog.Site.EVENT_RECEIVED, body.getPropCode())) {
+            log.info("Received inventory event: propCode={}, date={}, key={}, partition={}, offset={}",
+                    body.getPropCode(), body.getStartDate(), record.key(),
+                    record.partition(), record.offset());
+        }
 
-        processingService.process(body);
+        HotPropertyLanes lanes = hotLanes.getIfAvailable();
+        if (lanes != null && lanes.routes(body.getPropCode())) {
+            lanes.submit(record, body.getPropCode(), () -> handle(record, body, ack, lanes), ack);
+            return;
+        }
+        handle(record, body, ack, lanes);
+    }
+
+    private void handle(ConsumerRecord<String, InventoryEvent> record, InventoryEventBody body, Acknowledgment ack,
+                        HotPropertyLanes lanes) {
+        ListenerEvent jfr = new ListenerEvent();
+        jfr.begin();
+        long start = System.nanoTime();
+        EventTrace trace = pipelineMetrics.beginEvent();
+        try {
+            process(record, body, ack, lanes != null);
+        } finally {
+            pipelineMetrics.endEvent();
+            long elapsed = System.nanoTime() - start;
+            slowEventLog.offer(trace, elapsed, record.topic(), record.partition(),
+                    record.offset(), body.getPropCode(), body.getStartDate());
+            if (lanes != null && trace != null) {
+                lanes.observe(body.getPropCode(), elapsed, trace.matches);
+            }
+            jfr.end();
+            if (jfr.shouldCommit()) {
+                jfr.topic = record.topic();
+                jfr.partition = record.partition();
+                jfr.offset = record.offset();
+                jfr.propCode = body.getPropCode();
+                jfr.startDate = body.getStartDate();
+                jfr.commit();
+            }
+        }
+    }
+
+    private void process(ConsumerRecord<String, InventoryEvent> record, InventoryEventBody body, Acknowledgment ack,
+                         boolean manualAck) {
+        SourceRecord source = SourceRecord.of(record).withEventTime(record.value().getValue().getContext());
+        NotificationAckTracker tracker = ackTracker.getIfAvailable();
+        if (tracker == null) {
+            processingService.process(body, source);
+            if (manualAck) {
+                ack.acknowledge();
+            }
+            return;
+        }
+
+        tracker.begin(record, ack);
+        boolean processed = false;
+        try {
+            processingService.process(body, source);
+            processed = true;
+        } finally {
+            tracker.end(processed);
+        }
     }
 }
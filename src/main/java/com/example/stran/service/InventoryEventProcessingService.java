@@ -1,12 +1,16 @@
 package com.example.stran.service;
 
 import com.example.stran.dto.inventory.InventoryEventBody;
+import com.example.stran.dto.inventory.SourceRecord;
 import com.example.stran.entity.StaySubscription;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.ObjectProvider;
 import org.springframework.stereotype.Service;
 
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
 
 /**
  * Orchestrator that coordinates the full event processing pipeline:
@@ -17,6 +21,11 @@ import java.util.List;
  *   <li>Collects all matched subscriptions across strategies</li>
  *   <li>Delegates to {@link NotificationDispatchService} for notification publishing</li>
  * </ol>
+ *
+ * <p>With {@code stran.matching.shadow.engine} set, each strategy's result is
+ * also offered to {@link ShadowMatching} for comparison with a candidate engine.
+ * With {@code stran.rematch.enabled}, every matched event is also kept in
+ * {@link LatestAvailability} for the {@link BulkRematchJob}.
  */
 @Slf4j
 @Service
@@ -25,6 +34,10 @@ public class InventoryEventProcessingService {
 
     private final List<SubscriptionMatchingStrategy> matchingStrategies;
     private final NotificationDispatchService notificationDispatchService;
+    private final HotPathLog hotPathLog;
+    private final HotKeyTracker hotKeyTracker;
+    private final ObjectProvider<ShadowMatching> shadowMatching;
+    private final ObjectProvider<LatestAvailability> latestAvailability;
 
     /**
      * Process an incoming inventory event through the full pipeline.
@@ -32,26 +45,52 @@ public class InventoryEventProcessingService {
      * @param eventBody the inventory event body to process
      */
     public void process(InventoryEventBody eventBody) {
-        log.info("Processing inventory event: propCode={}, date={}",
-                eventBody.getPropCode(), eventBody.getStartDate());
+        process(eventBody, null);
+    }
+
+    /**
+     * Process an incoming inventory event through the full pipeline.
+     *
+     * @param eventBody the inventory event body to process
+     * @param source    the record the event was read from, or {@code null} if unknown
+     */
+    public void process(InventoryEventBody eventBody, SourceRecord source) {
+        if (hotPathLog.shouldLog(HotPathLog.Site.EVENT_PROCESSING, eventBody.getPropCode())) {
+            log.info("Processing inventory event: propCode={}, date={}",
+                    eventBody.getPropCode(), eventBody.getStartDate());
+        }
+        hotKeyTracker.event(eventBody.getPropCode());
 
+        // First strategy to match a subscription is credited with it in latency breakdowns
+        Map<Long, String> strategies = new HashMap<>();
+        ShadowMatching shadow = shadowMatching.getIfAvailable();
         List<StaySubscription> allMatches = matchingStrategies.stream()
                 .filter(strategy -> strategy.supports(eventBody))
                 .flatMap(strategy -> {
+                    long start = System.nanoTime();
                     List<StaySubscription> matches = strategy.findMatchingSubscriptions(eventBody);
+                    if (shadow != null) {
+                        shadow.offer(strategy.name(), eventBody, matches, System.nanoTime() - start);
+                    }
                     log.debug("Strategy {} found {} match(es) for propCode={}",
                             strategy.getClass().getSimpleName(), matches.size(), eventBody.getPropCode());
+                    matches.forEach(sub -> strategies.putIfAbsent(sub.getId(), strategy.name()));
                     return matches.stream();
                 })
                 .distinct()
                 .toList();
 
+        latestAvailability.ifAvailable(latest -> latest.record(eventBody, source));
+
         if (allMatches.isEmpty()) {
-            log.info("No matching subscriptions for propCode={} on date={}",
-                    eventBody.getPropCode(), eventBody.getStartDate());
+            if (hotPathLog.shouldLog(HotPathLog.Site.NO_MATCH, eventBody.getPropCode())) {
+                log.info("No matching subscriptions for propCode={} on date={}",
+                        eventBody.getPropCode(), eventBody.getStartDate());
+            }
             return;
         }
+        hotKeyTracker.fanOut(eventBody.getPropCode(), allMatches.size());
 
-        notificationDispatchService.dispatch(allMatches, eventBody);
+        notificationDispatchService.dispatch(allMatches, eventBody, source, strategies);
     }
 }
@@ -0,0 +1,132 @@
+package com.example.stran.service;
+
+import com.example.stran.dto.inventory.InventoryEvent;
+import com.example.stran.dto.inventory.InventoryEventBody;
+import com.example.stran.dto.inventory.SourceRecord;
+import lombok.extern.slf4j.Slf4j;
+import org.apache.kafka.clients.consumer.ConsumerRecord;
+import org.apache.kafka.clients.producer.ProducerRecord;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.kafka.annotation.KafkaListener;
+import org.springframework.kafka.core.KafkaTemplate;
+import org.springframework.kafka.support.Acknowledgment;
+import org.springframework.lang.NonNull;
+import org.springframework.kafka.support.SendResult;
+import org.springframework.stereotype.Component;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+/**
+ * Optional repartition stage: consumes the {@code rate-recomm-prd} topic, whose
+ * key is {@code propCode::ratePlanCode}, and re-publishes each event to an
+ * internal topic keyed by propCode alone.
+ *
+ * <p>Once every event for a property lands on the same partition, each instance
+ * only needs the subscriptions of the properties it owns
+ * (see {@link PropertyPartitionOwnership}). The {@link InventoryEventListener}
+ * then consumes the internal topic instead of the source topic.
+ *
+ * <p>Forwarded records carry the original topic, partition and offset as
+ * {@link SourceRecord} headers, so notification IDs stay tied to the source event.
+ * A source record is acknowledged only once its forwarded copy is acknowledged by
+ * the broker: the listener waits up to {@code send-timeout-ms} for the forward and
+ * fails the record otherwise, so the container's error handler redelivers it. With
+ * commit-after-ack enabled the {@link NotificationAckTracker} tracks the forward
+ * instead and the listener does not wait.
+ *
+ * <p>The listener runs on its own, never-transactional container factory, so
+ * exactly-once mode does not add a transaction commit per forwarded record.
+ */
+@Slf4j
+@Component
+@ConditionalOnProperty(name = "kafka.repartition.enabled", havingValue = "true")
+public class InventoryRepartitionListener {
+
+    private final KafkaTemplate<String, InventoryEvent> repartitionKafkaTemplate;
+    private final String repartitionTopic;
+    private final ObjectProvider<NotificationAckTracker> ackTracker;
+    private final long sendTimeoutMillis;
+
+    public InventoryRepartitionListener(
+            @Qualifier("inventoryRepartitionKafkaTemplate") KafkaTemplate<String, InventoryEvent> repartitionKafkaTemplate,
+            @Value("${kafka.topic.inventory-by-property}") String repartitionTopic,
+            ObjectProvider<NotificationAckTracker> ackTracker,
+            @Value("${kafka.repartition.send-timeout-ms:30000}") long sendTimeoutMillis) {
+        this.repartitionKafkaTemplate = repartitionKafkaTemplate;
+        this.repartitionTopic = repartitionTopic;
+        this.ackTracker = ackTracker;
+        this.sendTimeoutMillis = sendTimeoutMillis;
+    }
+
+    @KafkaListener(
+            topics = "${kafka.topic.inventory}",
+            groupId = "${spring.kafka.consumer.group-id}-repartition",
+            containerFactory = "inventoryRepartitionListenerContainerFactory"
+    )
+    public void onInventoryEvent(ConsumerRecord<String, InventoryEvent> record, @NonNull Acknowledgment ack) {
+        InventoryEvent event = record.value();
+
+        if (event == null || event.getValue() == null || event.getValue().getBody() == null
+                || event.getValue().getBody().getPropCode() == null) {
+            log.warn("Dropping malformed inventory event during repartition at offset={}, partition={}",
+                    record.offset(), record.partition());
+            ack.acknowledge();
+            return;
+        }
+
+        InventoryEventBody body = event.getValue().getBody();
+
+        ProducerRecord<String, InventoryEvent> forwarded =
+                new ProducerRecord<>(repartitionTopic, body.getPropCode(), event);
+        SourceRecord.of(record).writeTo(forwarded.headers());
+
+        NotificationAckTracker tracker = ackTracker.getIfAvailable();
+        if (tracker == null) {
+            awaitForward(forward(forwarded, record), record);
+            ack.acknowledge();
+            return;
+        }
+
+        tracker.begin(record, ack);
+        try {
+            tracker.track(forward(forwarded, record), () -> forward(forwarded, record));
+        } finally {
+            tracker.end(true);
+        }
+    }
+
+    /**
+     * Wait for the broker to acknowledge a forward; a failure or timeout fails the
+     * record so that it is redelivered instead of committed.
+     */
+    private void awaitForward(CompletableFuture<SendResult<String, InventoryEvent>> send,
+                              ConsumerRecord<String, InventoryEvent> record) {
+        try {
+            send.get(sendTimeoutMillis, TimeUnit.MILLISECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted while repartitioning inventory event from partition="
+                    + record.partition() + " offset=" + record.offset(), e);
+        } catch (ExecutionException | TimeoutException e) {
+            throw new IllegalStateException("Failed to repartition inventory event from partition="
+                    + record.partition() + " offset=" + record.offset(), e);
+        }
+    }
+
+    private CompletableFuture<SendResult<String, InventoryEvent>> forward(
+            ProducerRecord<String, InventoryEvent> forwarded, ConsumerRecord<String, InventoryEvent> record) {
+        return repartitionKafkaTemplate.send(forwarded)
+                .whenComplete((result, ex) -> {
+                    if (ex != null) {
+                        log.error("Failed to repartition inventory event propCode={} from partition={} offset={}: {}",
+                                forwarded.key(), record.partition(), record.offset(), ex.getMessage(), ex);
+                    }
+                });
+    }
+}
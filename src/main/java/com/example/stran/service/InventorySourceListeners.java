@@ -0,0 +1,257 @@
+package com.example.stran.service;
+
+import com.example.stran.dto.inventory.InventoryEvent;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import lombok.extern.slf4j.Slf4j;
+import org.apache.kafka.clients.consumer.ConsumerConfig;
+import org.apache.kafka.common.Metric;
+import org.apache.kafka.common.MetricName;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnExpression;
+import org.springframework.context.SmartLifecycle;
+import org.springframework.core.env.Environment;
+import org.springframework.kafka.config.ConcurrentKafkaListenerContainerFactory;
+import org.springframework.kafka.listener.AbstractMessageListenerContainer;
+import org.springframework.kafka.listener.AcknowledgingMessageListener;
+import org.springframework.kafka.listener.BatchMessageListener;
+import org.springframework.kafka.listener.ConcurrentMessageListenerContainer;
+import org.springframework.kafka.listener.ContainerProperties;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Properties;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Consumes several inventory topics (e.g. one per region), each with its own
+ * listener container, so a backlog on one source never holds up the others.
+ *
+ * <p>Enabled by listing source names in {@code kafka.inventory.sources}; the
+ * {@code kafka.topic.inventory} listener is then not started. Each source
+ * {@code <name>} is configured under {@code kafka.inventory.source.<name>.*}:
+ * {@code topic} (required), {@code group-id}, {@code concurrency},
+ * {@code max-poll-records}, {@code fetch-min-bytes}, {@code fetch-max-wait-ms}
+ * and {@code priority-weight}. Each gets its own consumer group (by default
+ * {@code <spring.kafka.consumer.group-id>-<name>}), so sources rebalance
+ * independently, and every container shares the error handling, ack mode and
+ * rebalance listeners of {@code inventoryEventListenerContainerFactory}.
+ *
+ * <p>Records of every source go through the same {@link InventoryEventListener},
+ * and so through the same matching and dispatch services. At most
+ * {@code kafka.inventory.max-in-process} events are processed at once across
+ * sources; beyond that, sources take turns by {@code priority-weight} through a
+ * {@link WeightedAdmission}.
+ *
+ * <p>Per source, {@code stran.inventory.source.records} counts processed records,
+ * {@code stran.inventory.source.lag} is the largest partition lag its consumers
+ * report, and {@code stran.inventory.source.admission-wait} times the wait for a
+ * turn.
+ *
+ * <p>With {@code kafka.transactions.enabled=true} each container receives whole
+ * polls and processes them through {@link InventoryBatchListener#process}, one
+ * transaction per batch.
+ *
+ * <p>Not available with {@code kafka.repartition.enabled=true} or the
+ * {@code streams} matching engine.
+ */
+@Slf4j
+@Component
+@ConditionalOnExpression("!'${kafka.inventory.sources:}'.isBlank() and !${kafka.repartition.enabled:false}"
+        + " and '${stran.matching.engine:db}' != 'streams'")
+public class InventorySourceListeners implements SmartLifecycle {
+
+    private static final String PREFIX = "kafka.inventory.source.";
+
+    private final List<Source> sources;
+    private final ConcurrentKafkaListenerContainerFactory<String, InventoryEvent> containerFactory;
+    private final InventoryEventListener listener;
+    private final InventoryBatchListener batchListener;
+    private final MeterRegistry meterRegistry;
+    private final WeightedAdmission admission;
+
+    private final List<ConcurrentMessageListenerContainer<String, InventoryEvent>> containers = new ArrayList<>();
+    private volatile boolean running;
+
+    @Autowired
+    public InventorySourceListeners(
+            @Value("${kafka.inventory.sources}") String[] names,
+            @Value("${spring.kafka.consumer.group-id}") String groupId,
+            @Value("${kafka.consumer.concurrency:1}") int concurrency,
+            @Value("${kafka.inventory.max-in-process:8}") int maxInProcess,
+            @Value("${kafka.inventory.max-admission-wait-ms:5000}") long maxAdmissionWaitMillis,
+            Environment environment,
+            @Qualifier("inventoryEventListenerContainerFactory")
+            ConcurrentKafkaListenerContainerFactory<String, InventoryEvent> inventoryEventListenerContainerFactory,
+            InventoryEventListener listener,
+            ObjectProvider<InventoryBatchListener> batchListener,
+            MeterRegistry meterRegistry) {
+        this(sources(environment, names, groupId, concurrency), maxInProcess, maxAdmissionWaitMillis,
+                inventoryEventListenerContainerFactory, listener, batchListener.getIfAvailable(), meterRegistry);
+    }
+
+    InventorySourceListeners(List<Source> sources, int maxInProcess, long maxAdmissionWaitMillis,
+                             ConcurrentKafkaListenerContainerFactory<String, InventoryEvent> containerFactory,
+                             InventoryEventListener listener, InventoryBatchListener batchListener,
+                             MeterRegistry meterRegistry) {
+        this.sources = sources;
+        this.containerFactory = containerFactory;
+        this.listener = listener;
+        this.batchListener = batchListener;
+        this.meterRegistry = meterRegistry;
+        this.admission = new WeightedAdmission(sources.stream().mapToInt(Source::priorityWeight).toArray(),
+                maxInProcess, maxAdmissionWaitMillis);
+        for (int i = 0; i < sources.size(); i++) {
+            containers.add(container(sources.get(i), i));
+        }
+    }
+
+    /**
+     * A configured inventory source.
+     *
+     * @param name               source name, used in the client id and metric tags
+     * @param topic              inventory topic
+     * @param groupId            consumer group
+     * @param concurrency        consumers in the source's container
+     * @param maxPollRecords     {@code max.poll.records}, or {@code null} for the consumer default
+     * @param fetchMinBytes      {@code fetch.min.bytes}, or {@code null} for the consumer default
+     * @param fetchMaxWaitMillis {@code fetch.max.wait.ms}, or {@code null} for the consumer default
+     * @param priorityWeight     admission weight once the pipeline is saturated
+     */
+    public record Source(String name, String topic, String groupId, int concurrency, Integer maxPollRecords,
+                         Integer fetchMinBytes, Integer fetchMaxWaitMillis, int priorityWeight) {
+    }
+
+    /**
+     * Read the sources listed in {@code names} from {@code kafka.inventory.source.<name>.*}.
+     */
+    static List<Source> sources(Environment environment, String[] names, String groupId, int concurrency) {
+        List<Source> sources = new ArrayList<>();
+        for (String raw : names) {
+            String name = raw.trim();
+            if (name.isEmpty()) {
+                continue;
+            }
+            String prefix = PREFIX + name + ".";
+            String topic = environment.getProperty(prefix + "topic");
+            if (topic == null || topic.isBlank()) {
+                throw new IllegalStateException("Inventory source '" + name + "' has no " + prefix + "topic");
+            }
+            sources.add(new Source(name, topic,
+                    environment.getProperty(prefix + "group-id", groupId + "-" + name),
+                    environment.getProperty(prefix + "concurrency", Integer.class, concurrency),
+                    environment.getProperty(prefix + "max-poll-records", Integer.class),
+                    environment.getProperty(prefix + "fetch-min-bytes", Integer.class),
+                    environment.getProperty(prefix + "fetch-max-wait-ms", Integer.class),
+                    environment.getProperty(prefix + "priority-weight", Integer.class, 1)));
+        }
+        return sources;
+    }
+
+    @Override
+    public void start() {
+        containers.forEach(ConcurrentMessageListenerContainer::start);
+        running = true;
+        log.info("Started inventory source containers: {}", sources);
+    }
+
+    @Override
+    public void stop() {
+        containers.forEach(ConcurrentMessageListenerContainer::stop);
+        running = false;
+    }
+
+    @Override
+    public boolean isRunning() {
+        return running;
+    }
+
+    @Override
+    public int getPhase() {
+        return AbstractMessageListenerContainer.DEFAULT_PHASE;
+    }
+
+    List<ConcurrentMessageListenerContainer<String, InventoryEvent>> containers() {
+        return containers;
+    }
+
+    private ConcurrentMessageListenerContainer<String, InventoryEvent> container(Source source, int index) {
+        ConcurrentMessageListenerContainer<String, InventoryEvent> container =
+                containerFactory.createContainer(source.topic());
+        container.setBeanName("inventorySource-" + source.name());
+        container.setConcurrency(source.concurrency());
+
+        ContainerProperties properties = container.getContainerProperties();
+        properties.setGroupId(source.groupId());
+        properties.setClientId("stran-inventory-" + source.name());
+        Properties overrides = new Properties();
+        if (source.maxPollRecords() != null) {
+            overrides.put(ConsumerConfig.MAX_POLL_RECORDS_CONFIG, source.maxPollRecords().toString());
+        }
+        if (source.fetchMinBytes() != null) {
+            overrides.put(ConsumerConfig.FETCH_MIN_BYTES_CONFIG, source.fetchMinBytes().toString());
+        }
+        if (source.fetchMaxWaitMillis() != null) {
+            overrides.put(ConsumerConfig.FETCH_MAX_WAIT_MS_CONFIG, source.fetchMaxWaitMillis().toString());
+        }
+        properties.setKafkaConsumerProperties(overrides);
+
+        Counter records = Counter.builder("stran.inventory.source.records")
+                .description("Inventory records processed per source")
+                .tag("source", source.name())
+                .register(meterRegistry);
+        Timer admissionWait = Timer.builder("stran.inventory.source.admission-wait")
+                .description("Time an inventory record waited for its source's turn")
+                .tag("source", source.name())
+                .register(meterRegistry);
+        Gauge.builder("stran.inventory.source.lag", container, InventorySourceListeners::maxLag)
+                .description("Largest partition lag reported by the source's consumers")
+                .tag("source", source.name())
+                .register(meterRegistry);
+
+        AcknowledgingMessageListener<String, InventoryEvent> handler = (record, ack) -> {
+            long start = System.nanoTime();
+            if (!admission.acquire(index)) {
+                log.debug("Inventory source {} admitted over the in-process bound after waiting", source.name());
+            }
+            admissionWait.record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+            try {
+                listener.onInventoryEvent(record, ack);
+            } finally {
+                admission.release();
+                records.increment();
+            }
+        };
+        if (batchListener == null) {
+            properties.setMessageListener(handler);
+        } else {
+            properties.setMessageListener((BatchMessageListener<String, InventoryEvent>) batch ->
+                    batchListener.process(batch, handler));
+        }
+        return container;
+    }
+
+    private static double maxLag(ConcurrentMessageListenerContainer<?, ?> container) {
+        double max = 0;
+        for (Map<MetricName, ? extends Metric> metrics : container.metrics().values()) {
+            for (Map.Entry<MetricName, ? extends Metric> metric : metrics.entrySet()) {
+                MetricName name = metric.getKey();
+                if ("records-lag-max".equals(name.name()) && "consumer-fetch-manager-metrics".equals(name.group())
+                        && !name.tags().containsKey("topic")) {
+                    Object value = metric.getValue().metricValue();
+                    if (value instanceof Double lag && !lag.isNaN()) {
+                        max = Math.max(max, lag);
+                    }
+                }
+            }
+        }
+        return max;
+    }
+}
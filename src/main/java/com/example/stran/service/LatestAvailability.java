@@ -0,0 +1,238 @@
+package com.example.stran.service;
+
+import com.example.stran.dto.inventory.InventoryEventBody;
+import com.example.stran.dto.inventory.SourceRecord;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnExpression;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.kafka.support.JacksonUtils;
+import org.springframework.stereotype.Component;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.Writer;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.time.Clock;
+import java.time.LocalDate;
+import java.time.format.DateTimeParseException;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * The most recent inventory event seen per property, date and rate plan, kept
+ * for {@link BulkRematchJob} to check existing subscriptions against.
+ *
+ * <p>Every processed event overwrites the previous one for its
+ * {@code propCode:startDate:ratePlanCode}, together with the record it was read
+ * from, so a re-match can reuse the event's notification IDs. Dates before today
+ * are evicted hourly, and at most {@code max-entries} property/date pairs are
+ * held; events for further pairs are not recorded. Events whose start date is
+ * not an ISO date can never match a stay and are not recorded.
+ *
+ * <p>The table is in memory. With {@code snapshot-path} set, it is written to that
+ * file every {@code snapshot-interval-ms} and on shutdown (one JSON snapshot per
+ * line, replaced atomically), and restored from it on startup, so a run resumed
+ * after a restart sweeps the availability seen before it. Without a snapshot the
+ * table starts empty and fills as events arrive.
+ */
+@Slf4j
+@Component
+@ConditionalOnExpression("${stran.rematch.enabled:false} and !${kafka.transactions.enabled:false}")
+public class LatestAvailability {
+
+    /**
+     * An event and the record it was read from.
+     *
+     * @param eventBody the inventory event
+     * @param source    its source record, or {@code null} if unknown
+     */
+    public record Snapshot(InventoryEventBody eventBody, SourceRecord source) {
+    }
+
+    private volatile int maxEntries;
+    private final Path snapshotPath;
+    private final Clock clock;
+    private final ObjectMapper objectMapper = JacksonUtils.enhancedObjectMapper();
+    private final Map<String, Map<String, Snapshot>> byStay = new ConcurrentHashMap<>();
+    private final AtomicBoolean fullLogged = new AtomicBoolean();
+
+    @Autowired
+    public LatestAvailability(@Value("${stran.rematch.availability.max-entries:1000000}") int maxEntries,
+                              @Value("${stran.rematch.availability.snapshot-path:}") String snapshotPath) {
+        this(maxEntries, snapshotPath.isBlank() ? null : Path.of(snapshotPath), Clock.systemDefaultZone());
+    }
+
+    LatestAvailability(int maxEntries, Path snapshotPath, Clock clock) {
+        this.maxEntries = maxEntries;
+        this.snapshotPath = snapshotPath;
+        this.clock = clock;
+        restore();
+    }
+
+    /**
+     * Remember {@code eventBody} as the latest availability for its property, date and rate plan.
+     *
+     * @param eventBody the processed event
+     * @param source    the record it was read from, or {@code null} if unknown
+     */
+    public void record(InventoryEventBody eventBody, SourceRecord source) {
+        LocalDate date = parseDate(eventBody.getStartDate());
+        if (eventBody.getPropCode() == null || date == null) {
+            return;
+        }
+        String key = key(eventBody.getPropCode(), date.toString());
+        Map<String, Snapshot> ratePlans = byStay.get(key);
+        if (ratePlans == null) {
+            if (byStay.size() >= maxEntries) {
+                if (fullLogged.compareAndSet(false, true)) {
+                    log.warn("Latest availability holds {} property/date pairs; newer pairs are not recorded "
+                            + "until past dates are evicted", maxEntries);
+                }
+                return;
+            }
+            ratePlans = byStay.computeIfAbsent(key, k -> new ConcurrentHashMap<>(4));
+        }
+        String ratePlan = eventBody.getRatePlanCode() == null ? "" : eventBody.getRatePlanCode();
+        ratePlans.put(ratePlan, new Snapshot(eventBody, source));
+    }
+
+    /**
+     * @return the latest event of every rate plan seen for {@code propCode} on {@code date}
+     */
+    public List<Snapshot> find(String propCode, LocalDate date) {
+        Map<String, Snapshot> ratePlans = byStay.get(key(propCode, date.toString()));
+        return ratePlans == null ? List.of() : List.copyOf(ratePlans.values());
+    }
+
+    /**
+     * @return the number of property/date pairs held
+     */
+    public int size() {
+        return byStay.size();
+    }
+
+    public int getMaxEntries() {
+        return maxEntries;
+    }
+
+    /**
+     * Change how many property/date pairs are held. Pairs beyond a lowered bound
+     * stay until their date passes; no new pairs are recorded meanwhile.
+     */
+    public void setMaxEntries(int maxEntries) {
+        if (maxEntries < 0) {
+            throw new IllegalArgumentException("max-entries must not be negative");
+        }
+        this.maxEntries = maxEntries;
+        fullLogged.set(false);
+    }
+
+    /**
+     * Drop every date before today.
+     */
+    @Scheduled(fixedDelayString = "${stran.rematch.availability.evict-interval-ms:3600000}")
+    public void evictPast() {
+        LocalDate today = LocalDate.now(clock);
+        int before = byStay.size();
+        byStay.keySet().removeIf(key -> {
+            LocalDate date = parseDate(key.substring(key.lastIndexOf(':') + 1));
+            return date == null || date.isBefore(today);
+        });
+        int evicted = before - byStay.size();
+        if (evicted > 0) {
+            fullLogged.set(false);
+            log.debug("Evicted {} past property/date pair(s) from latest availability", evicted);
+        }
+    }
+
+    /**
+     * Write the table to {@code snapshot-path}; a no-op without one.
+     */
+    @PreDestroy
+    @Scheduled(fixedDelayString = "${stran.rematch.availability.snapshot-interval-ms:300000}",
+            initialDelayString = "${stran.rematch.availability.snapshot-interval-ms:300000}")
+    public void saveSnapshot() {
+        if (snapshotPath == null) {
+            return;
+        }
+        int written = 0;
+        try {
+            Path parent = snapshotPath.toAbsolutePath().getParent();
+            Files.createDirectories(parent);
+            Path tmp = Files.createTempFile(parent, "latest-availability", ".tmp");
+            try (Writer writer = Files.newBufferedWriter(tmp)) {
+                for (Map<String, Snapshot> ratePlans : byStay.values()) {
+                    for (Snapshot snapshot : ratePlans.values()) {
+                        writer.write(objectMapper.writeValueAsString(snapshot));
+                        writer.write('\n');
+                        written++;
+                    }
+                }
+            }
+            Files.move(tmp, snapshotPath, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            log.debug("Wrote {} latest availability snapshot(s) to {}", written, snapshotPath);
+        } catch (IOException e) {
+            log.error("Failed to write latest availability snapshot {}: {}", snapshotPath, e.getMessage(), e);
+        }
+    }
+
+    /**
+     * Load the snapshot written before the last shutdown, dropping past dates.
+     * An unreadable snapshot is logged and the table starts empty.
+     */
+    private void restore() {
+        if (snapshotPath == null || !Files.exists(snapshotPath)) {
+            return;
+        }
+        int skipped = 0;
+        try (BufferedReader reader = Files.newBufferedReader(snapshotPath)) {
+            String line;
+            while ((line = reader.readLine()) != null) {
+                if (line.isBlank()) {
+                    continue;
+                }
+                try {
+                    Snapshot snapshot = objectMapper.readValue(line, Snapshot.class);
+                    record(snapshot.eventBody(), snapshot.source());
+                } catch (JsonProcessingException e) {
+                    skipped++;
+                }
+            }
+        } catch (IOException e) {
+            log.error("Failed to read latest availability snapshot {}, starting empty: {}",
+                    snapshotPath, e.getMessage(), e);
+            byStay.clear();
+            return;
+        }
+        evictPast();
+        log.info("Restored {} property/date pair(s) of latest availability from {}{}", byStay.size(), snapshotPath,
+                skipped == 0 ? "" : " (" + skipped + " unreadable line(s) skipped)");
+    }
+
+    /**
+     * @return the ISO date, or {@code null} if {@code value} is missing or not one
+     */
+    private static LocalDate parseDate(String value) {
+        if (value == null) {
+            return null;
+        }
+        try {
+            return LocalDate.parse(value);
+        } catch (DateTimeParseException e) {
+            return null;
+        }
+    }
+
+    private static String key(String propCode, String date) {
+        return propCode + ':' + date;
+    }
+}
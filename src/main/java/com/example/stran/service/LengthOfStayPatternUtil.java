@@ -43,6 +43,40 @@ public final class LengthOfStayPatternUtil {
                 .anyMatch(rec -> hasAvailability(rec.getLengthOfStayPattern(), nights));
     }
 
+    /**
+     * Compute, in one pass over the recommendations, every stay length that is available.
+     *
+     * <p>Bit {@code n} of the result is set when at least one room type supports an
+     * {@code n}-night stay, so callers matching many subscriptions against the same
+     * event can test each one with {@code (mask & (1 << nights)) != 0}.
+     *
+     * @param recommendations list of room recommendations from the inventory event
+     * @return bitmask of available night counts (bits 1-7)
+     */
+    public static int availableNightsMask(List<RoomRecommendation> recommendations) {
+        int mask = 0;
+        if (recommendations == null) {
+            return mask;
+        }
+        for (RoomRecommendation rec : recommendations) {
+            if (rec.getLengthOfStayPattern() == null) {
+                continue;
+            }
+            for (String pattern : rec.getLengthOfStayPattern()) {
+                if (pattern == null) {
+                    continue;
+                }
+                int length = Math.min(pattern.length(), MAX_LOS_LENGTH);
+                for (int i = 0; i < length; i++) {
+                    if (pattern.charAt(i) == 'Y') {
+                        mask |= 1 << (i + 1);
+                    }
+                }
+            }
+        }
+        return mask;
+    }
+
     /**
      * Check if a single LOS pattern list supports the requested number of nights.
      *
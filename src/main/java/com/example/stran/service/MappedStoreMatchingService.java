@@ -0,0 +1,286 @@
+package com.example.stran.service;
+
+import com.example.stran.dto.inventory.InventoryEventBody;
+import com.example.stran.entity.Property;
+import com.example.stran.entity.StaySubscription;
+import com.example.stran.entity.SubscriptionSearchType;
+import com.example.stran.entity.SubscriptionStatus;
+import com.example.stran.jfr.MatchingEvent;
+import com.example.stran.repository.PropertyRepository;
+import com.example.stran.repository.StaySubscriptionRepository;
+import com.example.stran.store.MappedSubscriptionStore;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Slice;
+import org.springframework.data.domain.Sort;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Matching strategy for PROPERTY-type subscriptions backed by the off-heap
+ * {@link MappedSubscriptionStore} instead of a per-event database query.
+ *
+ * <p>Enabled with {@code stran.matching.engine=mmap}, replacing
+ * {@link PropertyAvailabilityMatchingService}. On startup the store file is
+ * reused and only rows whose {@code updated_at} is later than its high-water
+ * mark are synced, so a restart does not reload the whole table. The same
+ * delta sync then runs periodically.
+ *
+ * <p>{@link StaySubscription} objects are materialized only for matched
+ * subscriptions; candidates are filtered by length of stay directly off-heap.
+ *
+ * <p>When the store runs out of capacity, matching falls back to the database
+ * query of {@link PropertyAvailabilityMatchingService} and the
+ * {@code stran.mmap.store.degraded} gauge reads 1 until a later sync has rebuilt
+ * the store from scratch.
+ */
+@Slf4j
+@Service
+@ConditionalOnProperty(name = "stran.matching.engine", havingValue = "mmap")
+public class MappedStoreMatchingService implements SubscriptionMatchingStrategy {
+
+    /** Re-read a small window before the high-water mark to tolerate clock skew between writers. */
+    private static final Duration SYNC_OVERLAP = Duration.ofSeconds(5);
+    private static final long UNKNOWN_PROPERTY = -1L;
+    private static final String STRATEGY = "property-mmap";
+
+    private final PropertyRepository propertyRepository;
+    private final StaySubscriptionRepository subscriptionRepository;
+    private final Path storePath;
+    private final int recordCapacity;
+    private final long guestBytesCapacity;
+    private final int syncPageSize;
+    private final PipelineMetrics pipelineMetrics;
+    private final HotPathLog hotPathLog;
+    private final HotKeyTracker hotKeyTracker;
+
+    private final Map<String, Long> propertyIds = new ConcurrentHashMap<>();
+
+    private MappedSubscriptionStore store;
+    private volatile boolean degraded;
+
+    public MappedStoreMatchingService(
+            PropertyRepository propertyRepository,
+            StaySubscriptionRepository subscriptionRepository,
+            @Value("${stran.matching.mmap.path}") Path storePath,
+            @Value("${stran.matching.mmap.record-capacity:4000000}") int recordCapacity,
+            @Value("${stran.matching.mmap.guest-bytes-capacity:268435456}") long guestBytesCapacity,
+            @Value("${stran.matching.mmap.sync-page-size:5000}") int syncPageSize,
+            PipelineMetrics pipelineMetrics,
+            HotPathLog hotPathLog,
+            HotKeyTracker hotKeyTracker,
+            MeterRegistry meterRegistry) {
+        this.propertyRepository = propertyRepository;
+        this.subscriptionRepository = subscriptionRepository;
+        this.storePath = storePath;
+        this.recordCapacity = recordCapacity;
+        this.guestBytesCapacity = guestBytesCapacity;
+        this.syncPageSize = syncPageSize;
+        this.pipelineMetrics = pipelineMetrics;
+        this.hotPathLog = hotPathLog;
+        this.hotKeyTracker = hotKeyTracker;
+        Gauge.builder("stran.mmap.store.degraded", () -> degraded ? 1 : 0)
+                .description("1 while the off-heap subscription store is full and matching queries the database")
+                .register(meterRegistry);
+    }
+
+    /**
+     * Open the store and catch it up before any listener container starts consuming.
+     */
+    @PostConstruct
+    void open() throws IOException {
+        store = MappedSubscriptionStore.open(storePath, recordCapacity, guestBytesCapacity);
+        sync();
+    }
+
+    @PreDestroy
+    void close() throws IOException {
+        store.close();
+    }
+
+    @Override
+    public String name() {
+        return STRATEGY;
+    }
+
+    @Override
+    public boolean supports(InventoryEventBody eventBody) {
+        return eventBody != null && eventBody.getPropCode() != null;
+    }
+
+    @Override
+    public List<StaySubscription> findMatchingSubscriptions(InventoryEventBody eventBody) {
+        MatchingEvent jfr = new MatchingEvent();
+        jfr.begin();
+        String propCode = eventBody.getPropCode();
+        LocalDate eventDate = LocalDate.parse(eventBody.getStartDate());
+
+        long resolveStart = System.nanoTime();
+        long propertyId = resolvePropertyId(propCode);
+        pipelineMetrics.record(PipelineMetrics.Stage.PROPERTY_RESOLUTION, resolveStart);
+        if (propertyId == UNKNOWN_PROPERTY) {
+            log.debug("No property found for propCode={}, skipping", propCode);
+            jfr.complete(STRATEGY, propCode, eventBody.getStartDate(), 0, 0);
+            return List.of();
+        }
+
+        if (degraded) {
+            return matchFromDatabase(eventBody, propertyId, eventDate, jfr);
+        }
+
+        long filterStart = System.nanoTime();
+        int availableNights = LengthOfStayPatternUtil.availableNightsMask(eventBody.getRoomRecommendations());
+        List<StaySubscription> matched = new ArrayList<>();
+        int[] candidates = new int[1];
+
+        store.forEach(propertyId, (int) eventDate.toEpochDay(), (id, nights, guestRef) -> {
+            candidates[0]++;
+            if (nights >= 1 && nights <= 7 && (availableNights & (1 << nights)) != 0) {
+                matched.add(toSubscription(id, propertyId, eventDate, nights, store.guestId(guestRef)));
+            }
+        });
+        // The store is filtered by length of stay while it is scanned, so the query is part of this stage
+        pipelineMetrics.record(PipelineMetrics.Stage.LOS_FILTER, filterStart);
+        pipelineMetrics.matched(STRATEGY, candidates[0], matched.size());
+        hotKeyTracker.candidates(propertyId, eventDate, candidates[0]);
+        jfr.complete(STRATEGY, propCode, eventBody.getStartDate(), candidates[0], matched.size());
+
+        if (hotPathLog.shouldLog(HotPathLog.Site.SUBSCRIPTIONS_MATCHED, propCode)) {
+            log.info("Matched {} subscriptions for propCode={} on date={} (out of {} candidates, off-heap store)",
+                    matched.size(), propCode, eventDate, candidates[0]);
+        }
+
+        return matched;
+    }
+
+    /**
+     * Same lookup as {@link PropertyAvailabilityMatchingService}, used while the store is full.
+     */
+    private List<StaySubscription> matchFromDatabase(InventoryEventBody eventBody, long propertyId,
+                                                     LocalDate eventDate, MatchingEvent jfr) {
+        long queryStart = System.nanoTime();
+        List<StaySubscription> candidates = subscriptionRepository.findActivePropertySubscriptions(
+                propertyId, eventDate);
+        pipelineMetrics.record(PipelineMetrics.Stage.SUBSCRIPTION_QUERY, queryStart);
+
+        long filterStart = System.nanoTime();
+        List<StaySubscription> matched = PropertyAvailabilityMatchingService.matchLengthOfStay(candidates, eventBody);
+        pipelineMetrics.record(PipelineMetrics.Stage.LOS_FILTER, filterStart);
+        pipelineMetrics.matched(STRATEGY, candidates.size(), matched.size());
+        hotKeyTracker.candidates(propertyId, eventDate, candidates.size());
+        jfr.complete(STRATEGY, eventBody.getPropCode(), eventBody.getStartDate(), candidates.size(), matched.size());
+        return matched;
+    }
+
+    /**
+     * Apply every subscription changed since the store's high-water mark.
+     *
+     * <p>When the store runs out of capacity, matching switches to the database
+     * and the store is cleared, so that the next run rebuilds it from scratch
+     * without the slots of removed records. Matching returns to the store once a
+     * rebuild completes.
+     */
+    @Scheduled(initialDelayString = "${stran.matching.mmap.sync-interval-ms:30000}",
+            fixedDelayString = "${stran.matching.mmap.sync-interval-ms:30000}")
+    public synchronized void sync() {
+        refreshProperties();
+
+        Instant from = store.highWaterMark();
+        Instant to = Instant.now();
+        Instant lowerBound = from.equals(Instant.EPOCH) ? from : from.minus(SYNC_OVERLAP);
+        Instant highWaterMark = from;
+        int applied = 0;
+
+        try {
+            PageRequest page = PageRequest.of(0, syncPageSize, Sort.by("updatedAt", "id"));
+            Slice<StaySubscription> slice;
+            do {
+                slice = subscriptionRepository.findByUpdatedAtGreaterThanAndUpdatedAtLessThanEqual(
+                        lowerBound, to, page);
+                for (StaySubscription sub : slice) {
+                    apply(sub);
+                    if (sub.getUpdatedAt().isAfter(highWaterMark)) {
+                        highWaterMark = sub.getUpdatedAt();
+                    }
+                }
+                applied += slice.getNumberOfElements();
+                page = page.next();
+            } while (slice.hasNext());
+        } catch (MappedSubscriptionStore.StoreFullException e) {
+            if (degraded) {
+                log.error("Rebuild of the subscription store ran out of capacity, still matching from the database; "
+                        + "raise stran.matching.mmap.record-capacity or guest-bytes-capacity: {}", e.getMessage());
+            } else {
+                log.error("Subscription store full, matching from the database until it is rebuilt on next sync: {}",
+                        e.getMessage());
+            }
+            // Readers must leave the store before it is cleared
+            degraded = true;
+            store.clear();
+            return;
+        }
+
+        store.commit(highWaterMark);
+        if (degraded) {
+            degraded = false;
+            log.info("Rebuilt off-heap subscription store with {} live record(s), matching from the store again",
+                    store.size());
+        }
+        if (highWaterMark.isAfter(from)) {
+            log.info("Synced {} subscription change(s) into off-heap store: liveRecords={}, highWaterMark={}",
+                    applied, store.size(), highWaterMark);
+        }
+    }
+
+    private void apply(StaySubscription sub) {
+        if (sub.isActive() && sub.isPropertySubscription()) {
+            store.upsert(sub.getId(), sub.getPropertyId(), (int) sub.getCheckInDate().toEpochDay(),
+                    sub.getNights(), sub.getGuestId());
+        } else {
+            store.remove(sub.getId());
+        }
+    }
+
+    private void refreshProperties() {
+        Map<String, Long> latest = new ConcurrentHashMap<>();
+        propertyRepository.findByPropCodeIsNotNull()
+                .forEach(property -> latest.put(property.getPropCode(), property.getPropertyId()));
+        propertyIds.keySet().retainAll(latest.keySet());
+        propertyIds.putAll(latest);
+    }
+
+    private long resolvePropertyId(String propCode) {
+        return propertyIds.computeIfAbsent(propCode, code -> propertyRepository.findByPropCode(code)
+                .map(Property::getPropertyId)
+                .orElse(UNKNOWN_PROPERTY));
+    }
+
+    private static StaySubscription toSubscription(long id, long propertyId, LocalDate checkIn,
+                                                   int nights, String guestId) {
+        StaySubscription sub = new StaySubscription();
+        sub.setId(id);
+        sub.setGuestId(guestId);
+        sub.setSearchType(SubscriptionSearchType.PROPERTY);
+        sub.setPropertyId(propertyId);
+        sub.setCheckInDate(checkIn);
+        sub.setCheckOutDate(checkIn.plusDays(nights));
+        sub.setStatus(SubscriptionStatus.ACTIVE);
+        return sub;
+    }
+}
@@ -0,0 +1,285 @@
+package com.example.stran.service;
+
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.apache.kafka.clients.consumer.Consumer;
+import org.apache.kafka.clients.consumer.ConsumerRecord;
+import org.apache.kafka.common.TopicPartition;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnExpression;
+import org.springframework.kafka.listener.ConsumerAwareRebalanceListener;
+import org.springframework.kafka.support.Acknowledgment;
+import org.springframework.stereotype.Component;
+
+import java.util.Collection;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+
+/**
+ * Ties each consumed inventory record to the Kafka sends it triggers and
+ * acknowledges the record only once every one of those sends has succeeded.
+ *
+ * <p>The listener container runs with {@code AckMode.MANUAL} and asynchronous
+ * acks, so records are still processed back to back while their notifications
+ * are in flight; offsets are committed as soon as the contiguous prefix of
+ * acknowledged records advances. Failed sends are retried with backoff and are
+ * never acknowledged as delivered, which makes delivery at-least-once.
+ *
+ * <p>The number of unacknowledged records is bounded by {@code max-in-flight};
+ * when the window is full the consumer thread waits, and after
+ * {@code window-wait-ms} the record fails and is redelivered by the error handler.
+ * On partition revocation (including consumer shutdown) in-flight records of the
+ * revoked partitions are drained so their offsets can still be committed.
+ *
+ * <p>Every notification send happens on the record's own thread: per-guest digests,
+ * which would publish later from their own thread, are disabled in this mode.
+ */
+@Slf4j
+@Component
+@ConditionalOnExpression("${kafka.consumer.commit-after-ack.enabled:false} and !${kafka.transactions.enabled:false}")
+public class NotificationAckTracker implements ConsumerAwareRebalanceListener {
+
+    private static final long MAX_RETRY_BACKOFF_MS = 30_000;
+
+    private final Window window;
+    private int maxInFlight;
+    private final long windowWaitMillis;
+    private final long drainTimeoutMillis;
+    private final long retryBackoffMillis;
+
+    private final ThreadLocal<InFlightRecord> current = new ThreadLocal<>();
+    private final Map<TopicPartition, AtomicInteger> inFlightByPartition = new ConcurrentHashMap<>();
+    private final AtomicInteger inFlight = new AtomicInteger();
+    private final ScheduledExecutorService retryScheduler;
+
+    private volatile boolean shuttingDown;
+
+    public NotificationAckTracker(
+            @Value("${kafka.consumer.commit-after-ack.max-in-flight:1000}") int maxInFlight,
+            @Value("${kafka.consumer.commit-after-ack.window-wait-ms:30000}") long windowWaitMillis,
+            @Value("${kafka.consumer.commit-after-ack.drain-timeout-ms:10000}") long drainTimeoutMillis,
+            @Value("${kafka.consumer.commit-after-ack.retry-backoff-ms:1000}") long retryBackoffMillis) {
+        this.window = new Window(maxInFlight);
+        this.maxInFlight = maxInFlight;
+        this.windowWaitMillis = windowWaitMillis;
+        this.drainTimeoutMillis = drainTimeoutMillis;
+        this.retryBackoffMillis = retryBackoffMillis;
+        this.retryScheduler = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread thread = new Thread(r, "notification-ack-retry");
+            thread.setDaemon(true);
+            return thread;
+        });
+        log.info("Committing inventory offsets after notification acks, max {} record(s) in flight", maxInFlight);
+    }
+
+    /**
+     * Start tracking a record on the calling (consumer) thread. Blocks while the
+     * in-flight window is full.
+     *
+     * @throws IllegalStateException if no slot frees up within {@code window-wait-ms}
+     */
+    public void begin(ConsumerRecord<?, ?> record, Acknowledgment acknowledgment) {
+        try {
+            if (!window.tryAcquire(windowWaitMillis, TimeUnit.MILLISECONDS)) {
+                throw new IllegalStateException("In-flight window full for " + windowWaitMillis
+                        + "ms; notification sends are not being acknowledged");
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted waiting for an in-flight slot", e);
+        }
+        TopicPartition partition = new TopicPartition(record.topic(), record.partition());
+        inFlightByPartition.computeIfAbsent(partition, p -> new AtomicInteger()).incrementAndGet();
+        inFlight.incrementAndGet();
+        current.set(new InFlightRecord(partition, record.offset(), acknowledgment));
+    }
+
+    /**
+     * Register a send made while processing the current record. The record is not
+     * acknowledged until the send, or one of its retries, succeeds.
+     *
+     * @param send   the pending send
+     * @param resend issues the same send again after a failure
+     */
+    public <T> void track(CompletableFuture<T> send, Supplier<CompletableFuture<T>> resend) {
+        InFlightRecord record = current.get();
+        if (record == null) {
+            return;
+        }
+        record.outstanding.incrementAndGet();
+        watch(record, send, resend, 1);
+    }
+
+    /**
+     * Finish processing the current record. Once its sends complete it is
+     * acknowledged, unless processing failed, in which case it is left for the
+     * error handler to redeliver.
+     *
+     * @param processed whether the listener processed the record successfully
+     */
+    public void end(boolean processed) {
+        InFlightRecord record = current.get();
+        current.remove();
+        if (record != null) {
+            record.failed = !processed;
+            record.release();
+        }
+    }
+
+    /**
+     * @return records processed but not yet acknowledged
+     */
+    public int inFlight() {
+        return inFlight.get();
+    }
+
+    public synchronized int getMaxInFlight() {
+        return maxInFlight;
+    }
+
+    /**
+     * Resize the in-flight window. Records already in flight beyond a smaller
+     * window stay tracked; new ones wait until enough of them are acknowledged.
+     */
+    public synchronized void setMaxInFlight(int maxInFlight) {
+        if (maxInFlight <= 0) {
+            throw new IllegalArgumentException("max-in-flight must be positive");
+        }
+        int delta = maxInFlight - this.maxInFlight;
+        if (delta > 0) {
+            window.release(delta);
+        } else if (delta < 0) {
+            window.shrink(-delta);
+        }
+        this.maxInFlight = maxInFlight;
+    }
+
+    @Override
+    public void onPartitionsRevokedBeforeCommit(Consumer<?, ?> consumer, Collection<TopicPartition> partitions) {
+        long deadline = System.currentTimeMillis() + drainTimeoutMillis;
+        synchronized (this) {
+            int pending;
+            while ((pending = pending(partitions)) > 0) {
+                long remaining = deadline - System.currentTimeMillis();
+                if (remaining <= 0) {
+                    log.warn("Timed out draining {} in-flight record(s) of revoked partitions {}; they will be redelivered",
+                            pending, partitions);
+                    return;
+                }
+                try {
+                    wait(remaining);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    return;
+                }
+            }
+        }
+    }
+
+    @Override
+    public void onPartitionsLost(Consumer<?, ?> consumer, Collection<TopicPartition> partitions) {
+        // Offsets of lost partitions can no longer be committed; the new owner redelivers them
+    }
+
+    @PreDestroy
+    void shutdown() throws InterruptedException {
+        shuttingDown = true;
+        retryScheduler.shutdownNow();
+        retryScheduler.awaitTermination(drainTimeoutMillis, TimeUnit.MILLISECONDS);
+        if (inFlight() > 0) {
+            log.warn("Shutting down with {} unacknowledged record(s); they will be redelivered", inFlight());
+        }
+    }
+
+    private <T> void watch(InFlightRecord record, CompletableFuture<T> send,
+                           Supplier<CompletableFuture<T>> resend, int attempt) {
+        send.whenComplete((result, ex) -> {
+            if (ex == null) {
+                record.release();
+                return;
+            }
+            if (shuttingDown) {
+                log.warn("Not retrying send for {} offset={} during shutdown; the record will be redelivered",
+                        record.partition, record.offset);
+                record.failed = true;
+                record.release();
+                return;
+            }
+            long backoff = Math.min(retryBackoffMillis << Math.min(attempt - 1, 16), MAX_RETRY_BACKOFF_MS);
+            log.warn("Send for {} offset={} failed (attempt {}), retrying in {}ms: {}",
+                    record.partition, record.offset, attempt, backoff, ex.getMessage());
+            retryScheduler.schedule(() -> watch(record, resendSafely(resend), resend, attempt + 1),
+                    backoff, TimeUnit.MILLISECONDS);
+        });
+    }
+
+    private static <T> CompletableFuture<T> resendSafely(Supplier<CompletableFuture<T>> resend) {
+        try {
+            return resend.get();
+        } catch (RuntimeException e) {
+            return CompletableFuture.failedFuture(e);
+        }
+    }
+
+    private int pending(Collection<TopicPartition> partitions) {
+        int pending = 0;
+        for (TopicPartition partition : partitions) {
+            AtomicInteger count = inFlightByPartition.get(partition);
+            pending += count == null ? 0 : count.get();
+        }
+        return pending;
+    }
+
+    private void completed(InFlightRecord record) {
+        if (!record.failed) {
+            record.acknowledgment.acknowledge();
+        }
+        inFlightByPartition.get(record.partition).decrementAndGet();
+        inFlight.decrementAndGet();
+        window.release();
+        synchronized (this) {
+            notifyAll();
+        }
+    }
+
+    /** Semaphore that exposes {@link #reducePermits} so the window can shrink while in use. */
+    private static final class Window extends Semaphore {
+
+        private Window(int permits) {
+            super(permits);
+        }
+
+        private void shrink(int permits) {
+            reducePermits(permits);
+        }
+    }
+
+    private final class InFlightRecord {
+
+        private final TopicPartition partition;
+        private final long offset;
+        private final Acknowledgment acknowledgment;
+        /** Outstanding sends plus one for the listener until {@link #end(boolean)} is called. */
+        private final AtomicInteger outstanding = new AtomicInteger(1);
+        private volatile boolean failed;
+
+        private InFlightRecord(TopicPartition partition, long offset, Acknowledgment acknowledgment) {
+            this.partition = partition;
+            this.offset = offset;
+            this.acknowledgment = acknowledgment;
+        }
+
+        private void release() {
+            if (outstanding.decrementAndGet() == 0) {
+                completed(this);
+            }
+        }
+    }
+}
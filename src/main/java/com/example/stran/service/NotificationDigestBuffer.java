@@ -0,0 +1,294 @@
+package com.example.stran.service;
+
+import com.example.stran.dto.notification.MatchedStay;
+import com.example.stran.dto.notification.NotificationMessage;
+import lombok.extern.slf4j.Slf4j;
+import org.apache.kafka.common.utils.Utils;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnExpression;
+import org.springframework.context.SmartLifecycle;
+import org.springframework.kafka.core.KafkaTemplate;
+import org.springframework.kafka.listener.AbstractMessageListenerContainer;
+import org.springframework.stereotype.Component;
+
+import java.nio.charset.StandardCharsets;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Optional per-guest digest stage between {@link NotificationDispatchService}
+ * and {@link NotificationProducer}.
+ *
+ * <p>Matches are buffered by guestId for a short window and then emitted as a
+ * single notification listing every matched stay, so a guest holding N
+ * subscriptions receives one message per availability burst instead of N.
+ *
+ * <p>Buckets are keyed by guestId <em>and</em> the notifications-topic partition
+ * each subscription's key maps to. A digest is keyed by one of its subscription
+ * IDs, so it lands on exactly the partition every one of its subscriptions would
+ * have used on its own, and per-subscription ordering is kept. A guest whose
+ * subscriptions map to several partitions gets one digest per partition.
+ * Notifications without a guestId are published immediately.
+ *
+ * <p>Memory is bounded: a bucket is flushed early once it reaches
+ * {@code max-matches-per-guest}, and when {@code max-pending-guests} buckets are
+ * already open new guests bypass the digest and are published immediately.
+ * Pending buckets are flushed on shutdown, in {@link #PHASE}: after the listener
+ * containers have stopped and before the priority lanes and rate governor the
+ * digests are published through. Matches added after that are published at once.
+ *
+ * <p>Not created when transactions or {@code kafka.consumer.commit-after-ack} are
+ * enabled: digests are published from the flusher thread after the offsets of the
+ * records they came from have been committed or acknowledged, so a lost flush could
+ * never be redelivered.
+ */
+@Slf4j
+@Component
+@ConditionalOnExpression("${stran.notification.digest.enabled:false} and !${kafka.transactions.enabled:false}"
+        + " and !${kafka.consumer.commit-after-ack.enabled:false}")
+public class NotificationDigestBuffer implements SmartLifecycle {
+
+    /** Stops after the listener containers and before {@link NotificationPriorityLanes}. */
+    public static final int PHASE = AbstractMessageListenerContainer.DEFAULT_PHASE - 1;
+
+    private final NotificationProducer notificationProducer;
+    private final KafkaTemplate<String, NotificationMessage> notificationKafkaTemplate;
+    private final String notificationsTopic;
+    private final long windowMillis;
+    private final int maxPendingGuests;
+    private final int maxMatchesPerGuest;
+
+    private final Map<BucketKey, Bucket> buckets = new ConcurrentHashMap<>();
+    private final AtomicInteger bufferedMatches = new AtomicInteger();
+    private final ScheduledExecutorService flusher;
+
+    private volatile boolean running = true;
+    private volatile int partitionCount;
+
+    public NotificationDigestBuffer(
+            NotificationProducer notificationProducer,
+            KafkaTemplate<String, NotificationMessage> notificationKafkaTemplate,
+            @Value("${kafka.topic.notifications}") String notificationsTopic,
+            @Value("${stran.notification.digest.window-ms:2000}") long windowMillis,
+            @Value("${stran.notification.digest.max-pending-guests:10000}") int maxPendingGuests,
+            @Value("${stran.notification.digest.max-matches-per-guest:50}") int maxMatchesPerGuest) {
+        this.notificationProducer = notificationProducer;
+        this.notificationKafkaTemplate = notificationKafkaTemplate;
+        this.notificationsTopic = notificationsTopic;
+        this.windowMillis = windowMillis;
+        this.maxPendingGuests = maxPendingGuests;
+        this.maxMatchesPerGuest = maxMatchesPerGuest;
+
+        this.flusher = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread thread = new Thread(r, "notification-digest-flusher");
+            thread.setDaemon(true);
+            return thread;
+        });
+        long tick = Math.max(windowMillis / 4, 10);
+        flusher.scheduleWithFixedDelay(this::flushExpired, tick, tick, TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * Buffer matched notifications for their guests. Notifications that cannot be
+     * buffered (no guestId, or buffer full) are published immediately.
+     *
+     * @param messages per-subscription notifications built by the dispatch service
+     */
+    public void add(List<NotificationMessage> messages) {
+        List<NotificationMessage> bypass = new ArrayList<>();
+        List<List<NotificationMessage>> ready = new ArrayList<>();
+
+        for (NotificationMessage message : messages) {
+            if (message.getGuestId() == null || !running) {
+                bypass.add(message);
+                continue;
+            }
+            BucketKey key = new BucketKey(message.getGuestId(), partitionFor(message.getSubscriptionId()));
+            if (!buckets.containsKey(key) && buckets.size() >= maxPendingGuests) {
+                bypass.add(message);
+                continue;
+            }
+            buckets.compute(key, (k, bucket) -> {
+                Bucket target = bucket == null ? new Bucket(System.currentTimeMillis()) : bucket;
+                target.messages.add(message);
+                bufferedMatches.incrementAndGet();
+                if (target.messages.size() >= maxMatchesPerGuest) {
+                    ready.add(drain(target));
+                    return null;
+                }
+                return target;
+            });
+        }
+
+        if (!bypass.isEmpty()) {
+            log.debug("Publishing {} notification(s) directly: no guestId, or digest buffer full ({} guests)",
+                    bypass.size(), maxPendingGuests);
+            notificationProducer.send(bypass);
+        }
+        ready.forEach(this::publish);
+        if (!running) {
+            // Stopped while buffering: the shutdown flush may already have passed these buckets
+            flushAll();
+        }
+    }
+
+    /**
+     * @return the number of matches currently waiting in the buffer
+     */
+    public int bufferedMatches() {
+        return bufferedMatches.get();
+    }
+
+    /**
+     * Publish every bucket whose window has elapsed.
+     */
+    void flushExpired() {
+        long cutoff = System.currentTimeMillis() - windowMillis;
+        try {
+            buckets.forEach((key, bucket) -> {
+                if (bucket.openedAt <= cutoff) {
+                    flush(key);
+                }
+            });
+        } catch (RuntimeException e) {
+            log.error("Failed to flush notification digests: {}", e.getMessage(), e);
+        }
+    }
+
+    /**
+     * Publish every pending bucket regardless of its window.
+     */
+    public void flushAll() {
+        buckets.keySet().forEach(this::flush);
+    }
+
+    @Override
+    public void start() {
+        // The flusher starts with the bean
+    }
+
+    @Override
+    public void stop() {
+        try {
+            shutdown();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    @Override
+    public boolean isRunning() {
+        return running;
+    }
+
+    @Override
+    public int getPhase() {
+        return PHASE;
+    }
+
+    void shutdown() throws InterruptedException {
+        running = false;
+        flusher.shutdown();
+        flusher.awaitTermination(windowMillis, TimeUnit.MILLISECONDS);
+        int pending = bufferedMatches();
+        flushAll();
+        log.info("Flushed {} buffered match(es) from notification digest on shutdown", pending);
+    }
+
+    private void flush(BucketKey key) {
+        List<List<NotificationMessage>> ready = new ArrayList<>(1);
+        buckets.computeIfPresent(key, (k, bucket) -> {
+            ready.add(drain(bucket));
+            return null;
+        });
+        ready.forEach(this::publish);
+    }
+
+    private List<NotificationMessage> drain(Bucket bucket) {
+        bufferedMatches.addAndGet(-bucket.messages.size());
+        return bucket.messages;
+    }
+
+    private void publish(List<NotificationMessage> messages) {
+        notificationProducer.send(List.of(messages.size() == 1 ? messages.get(0) : toDigest(messages)));
+    }
+
+    /**
+     * Merge several per-subscription notifications of one guest into a digest.
+     */
+    static NotificationMessage toDigest(List<NotificationMessage> messages) {
+        NotificationMessage first = messages.get(0);
+        List<MatchedStay> matches = messages.stream()
+                .map(m -> MatchedStay.builder()
+                        .subscriptionId(m.getSubscriptionId())
+                        .propCode(m.getPropCode())
+                        .checkInDate(m.getCheckInDate())
+                        .nights(m.getNights())
+                        .build())
+                .toList();
+
+        StringBuilder text = new StringBuilder("Availability found for ")
+                .append(matches.size()).append(" of your stays: ");
+        for (int i = 0; i < matches.size(); i++) {
+            MatchedStay stay = matches.get(i);
+            if (i > 0) {
+                text.append("; ");
+            }
+            text.append(stay.getPropCode()).append(" for ").append(stay.getNights())
+                    .append(" night(s) starting ").append(stay.getCheckInDate());
+        }
+
+        return NotificationMessage.builder()
+                .notificationId(NotificationIdGenerator.fromIds(
+                        messages.stream().map(NotificationMessage::getNotificationId).toList()))
+                .subscriptionId(first.getSubscriptionId())
+                .guestId(first.getGuestId())
+                .propCode(first.getPropCode())
+                .checkInDate(first.getCheckInDate())
+                .nights(first.getNights())
+                .message(text.toString())
+                .timestamp(Instant.now())
+                .sourceTimestamp(messages.stream()
+                        .map(NotificationMessage::getSourceTimestamp)
+                        .filter(Objects::nonNull)
+                        .min(Comparator.naturalOrder())
+                        .orElse(null))
+                .sourcePartition(first.getSourcePartition())
+                .strategy(first.getStrategy())
+                .matches(matches)
+                .build();
+    }
+
+    private int partitionFor(Long subscriptionId) {
+        int count = partitionCount;
+        if (count == 0) {
+            count = notificationKafkaTemplate.partitionsFor(notificationsTopic).size();
+            partitionCount = count;
+        }
+        // The producer's default partitioner for a non-null key
+        byte[] key = String.valueOf(subscriptionId).getBytes(StandardCharsets.UTF_8);
+        return Utils.toPositive(Utils.murmur2(key)) % count;
+    }
+
+    private record BucketKey(String guestId, int partition) {
+    }
+
+    private static final class Bucket {
+
+        private final long openedAt;
+        private final List<NotificationMessage> messages = new ArrayList<>();
+
+        private Bucket(long openedAt) {
+            this.openedAt = openedAt;
+        }
+    }
+}
@@ -1,15 +1,17 @@
 package com.example.stran.service;
 
 import com.example.stran.dto.inventory.InventoryEventBody;
+import com.example.stran.dto.inventory.SourceRecord;
 import com.example.stran.dto.notification.NotificationMessage;
 import com.example.stran.entity.StaySubscription;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.ObjectProvider;
 import org.springframework.stereotype.Service;
 
 import java.time.Instant;
 import java.util.List;
-import java.util.UUID;
+import java.util.Map;
 
 /**
  * Builds {@link NotificationMessage} instances for matched subscriptions
@@ -17,13 +19,24 @@ import java.util.UUID;
  *
  * <p>Called after the matching service identifies subscriptions whose
  * criteria align with an incoming inventory event.
+ *
+ * <p>When digest mode is enabled, messages are handed to the
+ * {@link NotificationDigestBuffer} instead, which aggregates them per guest.
  */
 @Slf4j
 @Service
 @RequiredArgsConstructor
 public class NotificationDispatchService {
 
+    /** Guest-facing text, compiled once instead of re-parsing a format string per message. */
+    static final NotificationTextTemplate MESSAGE_TEMPLATE = NotificationTextTemplate.compile(
+            "Availability found at property {propCode} for {nights} night(s) starting {checkInDate}",
+            "propCode", "nights", "checkInDate");
+
     private final NotificationProducer notificationProducer;
+    private final ObjectProvider<NotificationDigestBuffer> digestBuffer;
+    private final PipelineMetrics pipelineMetrics;
+    private final HotPathLog hotPathLog;
 
     /**
      * Build and dispatch notification messages for every matched subscription.
@@ -34,42 +47,98 @@ public class NotificationDispatchService {
      */
     public List<NotificationMessage> dispatch(List<StaySubscription> matchedSubscriptions,
                                               InventoryEventBody eventBody) {
+        return dispatch(matchedSubscriptions, eventBody, null);
+    }
+
+    /**
+     * Build and dispatch notification messages for every matched subscription.
+     *
+     * @param matchedSubscriptions subscriptions that match the inventory event
+     * @param eventBody            the inventory event that triggered the match
+     * @param source               the record the event was read from; when present,
+     *                             notification IDs are derived from it instead of random
+     * @return the list of built notification messages (useful for logging / testing)
+     */
+    public List<NotificationMessage> dispatch(List<StaySubscription> matchedSubscriptions,
+                                              InventoryEventBody eventBody,
+                                              SourceRecord source) {
+        return dispatch(matchedSubscriptions, eventBody, source, Map.of());
+    }
+
+    /**
+     * Build and dispatch notification messages for every matched subscription.
+     *
+     * @param matchedSubscriptions subscriptions that match the inventory event
+     * @param eventBody            the inventory event that triggered the match
+     * @param source               the record the event was read from; when present,
+     *                             notification IDs are derived from it instead of random
+     *                             and its event time is carried for latency tracking
+     * @param strategies           name of the matching strategy per subscription ID
+     * @return the list of built notification messages (useful for logging / testing)
+     */
+    public List<NotificationMessage> dispatch(List<StaySubscription> matchedSubscriptions,
+                                              InventoryEventBody eventBody,
+                                              SourceRecord source,
+                                              Map<Long, String> strategies) {
         if (matchedSubscriptions == null || matchedSubscriptions.isEmpty()) {
             log.debug("No matched subscriptions to dispatch for propCode={}", eventBody.getPropCode());
             return List.of();
         }
 
+        long buildStart = System.nanoTime();
+        Instant now = Instant.now();
         List<NotificationMessage> messages = matchedSubscriptions.stream()
-                .map(sub -> buildNotification(sub, eventBody))
+                .map(sub -> buildNotification(sub, eventBody, source, strategies.get(sub.getId()), now))
                 .toList();
+        pipelineMetrics.record(PipelineMetrics.Stage.NOTIFICATION_BUILD, buildStart);
+
+        NotificationDigestBuffer digest = digestBuffer.getIfAvailable();
+        if (digest != null) {
+            digest.add(messages);
+            if (hotPathLog.shouldLog(HotPathLog.Site.NOTIFICATIONS_SUBMITTED, eventBody.getPropCode())) {
+                log.info("Buffered {} notification(s) for per-guest digest for propCode={} on date={}",
+                        messages.size(), eventBody.getPropCode(), eventBody.getStartDate());
+            }
+            return messages;
+        }
 
         notificationProducer.send(messages);
 
-        log.info("Submitted {} notification(s) for async publishing for propCode={} on date={}",
-                messages.size(), eventBody.getPropCode(), eventBody.getStartDate());
+        if (hotPathLog.shouldLog(HotPathLog.Site.NOTIFICATIONS_SUBMITTED, eventBody.getPropCode())) {
+            log.info("Submitted {} notification(s) for async publishing for propCode={} on date={}",
+                    messages.size(), eventBody.getPropCode(), eventBody.getStartDate());
+        }
 
         return messages;
     }
 
     /**
      * Build a single {@link NotificationMessage} from a matched subscription
-     * and the triggering inventory event.
+     * and the triggering inventory event. Every message of one dispatch shares
+     * the same {@code timestamp}. Shared with the Kafka Streams engine.
      */
-    private NotificationMessage buildNotification(StaySubscription subscription,
-                                                  InventoryEventBody eventBody) {
+    public static NotificationMessage buildNotification(StaySubscription subscription,
+                                                        InventoryEventBody eventBody,
+                                                        SourceRecord source,
+                                                        String strategy,
+                                                        Instant timestamp) {
         int nights = subscription.getNights();
+        String checkInDate = subscription.getCheckInDate().toString();
 
         NotificationMessage notification = NotificationMessage.builder()
-                .notificationId(UUID.randomUUID().toString())
+                .notificationId(source != null
+                        ? NotificationIdGenerator.fromSource(source, subscription.getId())
+                        : NotificationIdGenerator.randomId())
                 .subscriptionId(subscription.getId())
                 .guestId(subscription.getGuestId())
                 .propCode(eventBody.getPropCode())
-                .checkInDate(subscription.getCheckInDate().toString())
+                .checkInDate(checkInDate)
                 .nights(nights)
-                .message(String.format(
-                        "Availability found at property %s for %d night(s) starting %s",
-                        eventBody.getPropCode(), nights, subscription.getCheckInDate()))
-                .timestamp(Instant.now())
+                .message(MESSAGE_TEMPLATE.render(eventBody.getPropCode(), Integer.toString(nights), checkInDate))
+                .timestamp(timestamp)
+                .sourceTimestamp(source != null && source.timestamp() > 0 ? Instant.ofEpochMilli(source.timestamp()) : null)
+                .sourcePartition(source != null ? source.partition() : null)
+                .strategy(strategy)
                 .build();
 
         log.debug("Built notification id={} for subscriptionId={}, guestId={}",
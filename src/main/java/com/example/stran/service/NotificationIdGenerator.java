@@ -0,0 +1,53 @@
+package com.example.stran.service;
+
+import com.example.stran.dto.inventory.SourceRecord;
+
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * Fast, non-blocking generator for notification IDs.
+ *
+ * <p>{@link UUID#randomUUID()} draws from a shared {@code SecureRandom}, which
+ * synchronizes and is far more expensive than needed for identifiers that are
+ * not security tokens. IDs here are version-4 UUIDs built from
+ * {@link ThreadLocalRandom}, so they keep the same format and uniqueness
+ * characteristics downstream relies on without contention between threads.
+ *
+ * <p>When the source record of an event is known, IDs are instead derived
+ * deterministically from it and the subscription, so a redelivered event yields
+ * the same notification IDs and downstream can drop the duplicates.
+ */
+public final class NotificationIdGenerator {
+
+    private NotificationIdGenerator() {
+        // utility class
+    }
+
+    /**
+     * @return a random version-4 UUID string
+     */
+    public static String randomId() {
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        long msb = (random.nextLong() & ~0xF000L) | 0x4000L;                       // version 4
+        long lsb = (random.nextLong() & 0x3FFFFFFFFFFFFFFFL) | 0x8000000000000000L; // IETF variant
+        return new UUID(msb, lsb).toString();
+    }
+
+    /**
+     * @return a name-based UUID for the notification of {@code subscriptionId} triggered by {@code source}
+     */
+    public static String fromSource(SourceRecord source, Long subscriptionId) {
+        String name = source.topic() + '-' + source.partition() + '@' + source.offset() + ':' + subscriptionId;
+        return UUID.nameUUIDFromBytes(name.getBytes(StandardCharsets.UTF_8)).toString();
+    }
+
+    /**
+     * @return a name-based UUID for a message aggregating the given notification IDs
+     */
+    public static String fromIds(List<String> notificationIds) {
+        return UUID.nameUUIDFromBytes(String.join(",", notificationIds).getBytes(StandardCharsets.UTF_8)).toString();
+    }
+}
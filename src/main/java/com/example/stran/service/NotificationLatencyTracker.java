@@ -0,0 +1,141 @@
+package com.example.stran.service;
+
+import com.example.stran.dto.notification.NotificationMessage;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Measures end-to-end latency: from the upstream inventory event time
+ * ({@link NotificationMessage#getSourceTimestamp()}) to the broker acknowledging
+ * the notification on the notifications topic.
+ *
+ * <p>Every acknowledged send is recorded in the {@code stran.notification.e2e.latency}
+ * histogram, tagged by source {@code partition} and matching {@code strategy}.
+ * The slowest notifications of the last one to two {@code offender-window-ms}
+ * windows are kept (at most {@code max-offenders} per window) and can be listed
+ * through the {@code latency} actuator endpoint.
+ */
+@Component
+public class NotificationLatencyTracker {
+
+    private static final String UNKNOWN = "unknown";
+
+    private final MeterRegistry meterRegistry;
+    private final int maxOffenders;
+    private final long windowMillis;
+    private final Clock clock;
+    private final Map<TimerKey, Timer> timers = new ConcurrentHashMap<>();
+
+    private PriorityQueue<Offender> current = new PriorityQueue<>(Comparator.comparing(Offender::latency));
+    private List<Offender> previous = List.of();
+    private long windowStart;
+    /** Latency a send must exceed to enter a full window; read without the lock to skip the common case. */
+    private volatile long thresholdNanos;
+
+    @Autowired
+    public NotificationLatencyTracker(
+            MeterRegistry meterRegistry,
+            @Value("${stran.notification.latency.max-offenders:20}") int maxOffenders,
+            @Value("${stran.notification.latency.offender-window-ms:300000}") long windowMillis) {
+        this(meterRegistry, maxOffenders, windowMillis, Clock.systemUTC());
+    }
+
+    NotificationLatencyTracker(MeterRegistry meterRegistry, int maxOffenders, long windowMillis, Clock clock) {
+        this.meterRegistry = meterRegistry;
+        this.maxOffenders = maxOffenders;
+        this.windowMillis = windowMillis;
+        this.clock = clock;
+        this.windowStart = clock.millis();
+    }
+
+    /**
+     * Record the end-to-end latency of an acknowledged notification. Messages
+     * without a source timestamp are ignored.
+     */
+    public void recordAck(NotificationMessage message) {
+        Instant source = message.getSourceTimestamp();
+        if (source == null) {
+            return;
+        }
+        Instant ackedAt = clock.instant();
+        Duration latency = Duration.between(source, ackedAt);
+        if (latency.isNegative()) {
+            latency = Duration.ZERO;
+        }
+        String partition = message.getSourcePartition() == null ? UNKNOWN : message.getSourcePartition().toString();
+        String strategy = message.getStrategy() == null ? UNKNOWN : message.getStrategy();
+        timers.computeIfAbsent(new TimerKey(partition, strategy), this::timerFor).record(latency);
+
+        long nanos = latency.toNanos();
+        if (nanos > thresholdNanos || ackedAt.toEpochMilli() - windowStart >= windowMillis) {
+            offer(new Offender(message.getNotificationId(), message.getSubscriptionId(), message.getPropCode(),
+                    partition, strategy, source, ackedAt, latency));
+        }
+    }
+
+    /**
+     * @return the slowest recent notifications, slowest first
+     */
+    public synchronized List<Offender> worstOffenders() {
+        rotateIfDue(clock.millis());
+        List<Offender> all = new ArrayList<>(previous);
+        all.addAll(current);
+        all.sort(Comparator.comparing(Offender::latency).reversed());
+        return all.size() > maxOffenders ? List.copyOf(all.subList(0, maxOffenders)) : List.copyOf(all);
+    }
+
+    private synchronized void offer(Offender offender) {
+        rotateIfDue(offender.ackedAt().toEpochMilli());
+        current.add(offender);
+        if (current.size() > maxOffenders) {
+            current.poll();
+        }
+        if (current.size() == maxOffenders) {
+            thresholdNanos = current.peek().latency().toNanos();
+        }
+    }
+
+    private void rotateIfDue(long now) {
+        if (now - windowStart < windowMillis) {
+            return;
+        }
+        // Keep the last full window only if it directly precedes the new one
+        previous = now - windowStart < 2 * windowMillis ? List.copyOf(current) : List.of();
+        current = new PriorityQueue<>(Comparator.comparing(Offender::latency));
+        windowStart = now;
+        thresholdNanos = 0;
+    }
+
+    private Timer timerFor(TimerKey key) {
+        return Timer.builder("stran.notification.e2e.latency")
+                .description("Time from upstream inventory event to notification acknowledged")
+                .tag("partition", key.partition())
+                .tag("strategy", key.strategy())
+                .publishPercentileHistogram()
+                .maximumExpectedValue(Duration.ofMinutes(10))
+                .register(meterRegistry);
+    }
+
+    private record TimerKey(String partition, String strategy) {
+    }
+
+    /**
+     * A slow notification, as listed by the {@code latency} endpoint.
+     */
+    public record Offender(String notificationId, Long subscriptionId, String propCode, String partition,
+                           String strategy, Instant sourceTimestamp, Instant ackedAt, Duration latency) {
+    }
+}
@@ -0,0 +1,250 @@
+package com.example.stran.service;
+
+import com.example.stran.dto.notification.NotificationMessage;
+import com.example.stran.serialization.NotificationMessageDeserializer;
+import com.example.stran.serialization.NotificationMessageSerializer;
+import com.example.stran.store.MappedOutboxLog;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnExpression;
+import org.springframework.context.SmartLifecycle;
+import org.springframework.kafka.core.KafkaTemplate;
+import org.springframework.kafka.support.SendResult;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+/**
+ * Local spill-to-disk outbox for notifications the notifications topic could not
+ * accept.
+ *
+ * <p>When a send fails (broker or topic unavailable, delivery timeout) the
+ * {@link NotificationProducer} appends the notification to a memory-mapped
+ * {@link MappedOutboxLog} instead of failing the inventory event, so consumption
+ * continues at full speed through an outage. While the outbox holds a backlog,
+ * new notifications are appended behind it rather than sent directly, so they
+ * are published in the order they were produced.
+ *
+ * <p>A background drainer replays the backlog in order: it probes with the
+ * oldest entry, and once that is acknowledged sends the next batch and consumes
+ * the acknowledged prefix. Entries are only removed after the broker has
+ * acknowledged them, so a crash during an outage replays (never loses) them.
+ *
+ * <p>On shutdown the outbox is closed in {@link #PHASE}, after the rate governor
+ * has released its queue and before the notifications producer is closed. A spill
+ * after that fails at once rather than writing to a closed log.
+ *
+ * <p>Not available in exactly-once mode: a spilled notification would escape the
+ * listener transaction.
+ */
+@Slf4j
+@Component
+@ConditionalOnExpression("${stran.notification.outbox.enabled:false} and !${kafka.transactions.enabled:false}")
+public class NotificationOutbox implements SmartLifecycle {
+
+    /** Stops after {@link NotificationRateGovernor} and before the notifications producer factory. */
+    public static final int PHASE = NotificationRateGovernor.PHASE - 1;
+
+    private final KafkaTemplate<String, NotificationMessage> notificationKafkaTemplate;
+    private final String notificationsTopic;
+    private final int drainBatchSize;
+    private final long sendTimeoutMs;
+    private final MappedOutboxLog outboxLog;
+    private final NotificationMessageSerializer serializer = new NotificationMessageSerializer(NotificationMessageSerializer.Format.BINARY);
+    private final NotificationMessageDeserializer deserializer = new NotificationMessageDeserializer();
+    private final ScheduledExecutorService drainer;
+
+    private final Counter spilled;
+    private final Counter drained;
+    private final Counter rejected;
+
+    /** Guarded by {@code outboxLog}. */
+    private boolean closed;
+
+    public NotificationOutbox(
+            KafkaTemplate<String, NotificationMessage> notificationKafkaTemplate,
+            @Value("${kafka.topic.notifications}") String notificationsTopic,
+            @Value("${stran.notification.outbox.path:./data/outbox}") String path,
+            @Value("${stran.notification.outbox.segment-bytes:67108864}") int segmentBytes,
+            @Value("${stran.notification.outbox.max-segments:16}") int maxSegments,
+            @Value("${stran.notification.outbox.drain-interval-ms:1000}") long drainIntervalMs,
+            @Value("${stran.notification.outbox.drain-batch-size:500}") int drainBatchSize,
+            @Value("${stran.notification.outbox.send-timeout-ms:30000}") long sendTimeoutMs,
+            MeterRegistry meterRegistry) throws IOException {
+        this.notificationKafkaTemplate = notificationKafkaTemplate;
+        this.notificationsTopic = notificationsTopic;
+        this.drainBatchSize = drainBatchSize;
+        this.sendTimeoutMs = sendTimeoutMs;
+        this.outboxLog = MappedOutboxLog.open(Path.of(path), segmentBytes, maxSegments);
+
+        Gauge.builder("stran.outbox.depth", outboxLog, MappedOutboxLog::pending)
+                .description("Notifications waiting in the local outbox")
+                .register(meterRegistry);
+        Gauge.builder("stran.outbox.bytes", outboxLog, MappedOutboxLog::pendingBytes)
+                .description("Payload bytes waiting in the local outbox")
+                .baseUnit("bytes")
+                .register(meterRegistry);
+        this.spilled = Counter.builder("stran.outbox.spilled")
+                .description("Notifications appended to the local outbox")
+                .register(meterRegistry);
+        this.drained = Counter.builder("stran.outbox.drained")
+                .description("Notifications replayed from the local outbox and acknowledged")
+                .register(meterRegistry);
+        this.rejected = Counter.builder("stran.outbox.rejected")
+                .description("Notifications that could not be spilled because the outbox was full")
+                .register(meterRegistry);
+
+        this.drainer = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread thread = new Thread(r, "notification-outbox-drainer");
+            thread.setDaemon(true);
+            return thread;
+        });
+        drainer.scheduleWithFixedDelay(this::drain, drainIntervalMs, drainIntervalMs, TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * Append a notification to the outbox for later replay.
+     *
+     * @throws MappedOutboxLog.OutboxFullException if the outbox has reached its size limit
+     * @throws IllegalStateException                if the outbox has been closed
+     */
+    public void spill(NotificationMessage message) {
+        try {
+            synchronized (outboxLog) {
+                if (closed) {
+                    throw new IllegalStateException("Outbox closed, cannot spill notification id="
+                            + message.getNotificationId());
+                }
+                outboxLog.append(serializer.serialize(notificationsTopic, message));
+            }
+        } catch (MappedOutboxLog.OutboxFullException e) {
+            rejected.increment();
+            log.error("Outbox full, cannot spill notification id={}: {}", message.getNotificationId(), e.getMessage());
+            throw e;
+        }
+        spilled.increment();
+        log.debug("Spilled notification id={} for subscriptionId={} to outbox ({} pending)",
+                message.getNotificationId(), message.getSubscriptionId(), outboxLog.pending());
+    }
+
+    /**
+     * @return whether notifications are waiting to be replayed; new notifications
+     *         must then be spilled behind them to keep ordering
+     */
+    public boolean hasBacklog() {
+        return outboxLog.pending() > 0;
+    }
+
+    /**
+     * @return notifications waiting to be replayed
+     */
+    public long depth() {
+        return outboxLog.pending();
+    }
+
+    /**
+     * Replay the backlog until it is empty or a send fails.
+     */
+    void drain() {
+        try {
+            while (hasBacklog()) {
+                // Probe with the oldest entry so a still-unavailable topic costs one send, not a batch
+                int sent = replay(outboxLog.peek(1));
+                if (sent == 0) {
+                    return;
+                }
+                outboxLog.advance(sent);
+                drained.increment(sent);
+
+                sent = replay(outboxLog.peek(drainBatchSize));
+                outboxLog.advance(sent);
+                drained.increment(sent);
+                if (!hasBacklog()) {
+                    outboxLog.flush();
+                    log.info("Outbox drained");
+                }
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } catch (RuntimeException e) {
+            log.error("Failed to drain notification outbox: {}", e.getMessage(), e);
+        }
+    }
+
+    /**
+     * Send entries in order and wait for them.
+     *
+     * @return the length of the acknowledged prefix
+     */
+    private int replay(List<byte[]> entries) throws InterruptedException {
+        List<CompletableFuture<SendResult<String, NotificationMessage>>> sends = new ArrayList<>(entries.size());
+        for (byte[] entry : entries) {
+            NotificationMessage message = deserializer.deserialize(notificationsTopic, entry);
+            sends.add(notificationKafkaTemplate.send(notificationsTopic, String.valueOf(message.getSubscriptionId()), message));
+        }
+        int acknowledged = 0;
+        for (CompletableFuture<SendResult<String, NotificationMessage>> send : sends) {
+            try {
+                send.get(sendTimeoutMs, TimeUnit.MILLISECONDS);
+                acknowledged++;
+            } catch (ExecutionException | TimeoutException e) {
+                log.warn("Outbox replay stopped after {} of {} notification(s): {}",
+                        acknowledged, sends.size(), e.getMessage());
+                break;
+            }
+        }
+        return acknowledged;
+    }
+
+    @Override
+    public void start() {
+        // The drainer starts with the bean
+    }
+
+    @Override
+    public void stop() {
+        try {
+            shutdown();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    @Override
+    public boolean isRunning() {
+        synchronized (outboxLog) {
+            return !closed;
+        }
+    }
+
+    @Override
+    public int getPhase() {
+        return PHASE;
+    }
+
+    void shutdown() throws InterruptedException {
+        drainer.shutdown();
+        drainer.awaitTermination(sendTimeoutMs, TimeUnit.MILLISECONDS);
+        long pending;
+        synchronized (outboxLog) {
+            closed = true;
+            pending = outboxLog.pending();
+            outboxLog.close();
+        }
+        if (pending > 0) {
+            log.warn("Closed outbox with {} notification(s) still pending; they are replayed on next start", pending);
+        }
+    }
+}
@@ -0,0 +1,365 @@
+package com.example.stran.service;
+
+import com.example.stran.dto.notification.NotificationMessage;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnExpression;
+import org.springframework.context.SmartLifecycle;
+import org.springframework.stereotype.Component;
+
+import java.time.Clock;
+import java.time.LocalDate;
+import java.time.format.DateTimeParseException;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Supplier;
+
+/**
+ * Priority lanes between {@link NotificationDispatchService} and the producer,
+ * keyed by days until check-in, so near-term stays keep low latency under load
+ * and far-future ones absorb the delay.
+ *
+ * <p>{@code lane-bounds-days} splits notifications into lanes (e.g. {@code 7,30,90}
+ * gives ≤7, ≤30, ≤90 and later). Each lane has its own bounded FIFO queue. A
+ * dispatcher thread releases queued sends onto the producer using smooth
+ * weighted round-robin over the non-empty lanes ({@code lane-weights}), while
+ * keeping at most {@code max-in-flight} sends outstanding; that window is what
+ * makes the lanes compete once Kafka or the rate governor is the bottleneck.
+ *
+ * <p>A full lane blocks the calling consumer thread, and after {@code max-wait-ms}
+ * the record fails and is redelivered. Per-lane queue depth and submit-to-ack
+ * latency are published as {@code stran.notification.lane.queued} and
+ * {@code stran.notification.lane.latency}.
+ *
+ * <p>A subscription normally stays in one lane, so its notifications keep their
+ * order; only a check-in date crossing a lane bound between two sends can reorder.
+ *
+ * <p>On shutdown the lanes stop in {@link #PHASE}, after the per-guest digest has
+ * flushed into them and before the rate governor they release into. Whatever is
+ * still queued is released at once; sends submitted after that go straight to the
+ * producer.
+ *
+ * <p>Not created when transactions are enabled: the dispatcher sends outside the
+ * listener's transaction.
+ */
+@Slf4j
+@Component
+@ConditionalOnExpression("${stran.notification.priority.enabled:false} and !${kafka.transactions.enabled:false}")
+public class NotificationPriorityLanes implements SmartLifecycle {
+
+    /** Stops after {@link NotificationDigestBuffer} and before {@link NotificationRateGovernor}. */
+    public static final int PHASE = NotificationDigestBuffer.PHASE - 1;
+
+    private final int[] boundsDays;
+    private final Lane[] lanes;
+    private final int maxQueuedPerLane;
+    private volatile int maxInFlight;
+    private final long maxWaitMillis;
+    private final Clock clock;
+
+    private final ReentrantLock lock = new ReentrantLock();
+    private final Condition notFull = lock.newCondition();
+    private final Condition ready = lock.newCondition();
+    private int inFlight;
+
+    private final Thread dispatcher;
+    private volatile boolean running = true;
+
+    @Autowired
+    public NotificationPriorityLanes(
+            @Value("${stran.notification.priority.lane-bounds-days:7,30,90}") int[] boundsDays,
+            @Value("${stran.notification.priority.lane-weights:8,4,2,1}") int[] weights,
+            @Value("${stran.notification.priority.max-queued-per-lane:5000}") int maxQueuedPerLane,
+            @Value("${stran.notification.priority.max-in-flight:500}") int maxInFlight,
+            @Value("${stran.notification.priority.max-wait-ms:30000}") long maxWaitMillis,
+            MeterRegistry meterRegistry) {
+        this(boundsDays, weights, maxQueuedPerLane, maxInFlight, maxWaitMillis, meterRegistry, Clock.systemUTC());
+    }
+
+    NotificationPriorityLanes(int[] boundsDays, int[] weights, int maxQueuedPerLane, int maxInFlight,
+                              long maxWaitMillis, MeterRegistry meterRegistry, Clock clock) {
+        if (weights.length != boundsDays.length + 1) {
+            throw new IllegalArgumentException("Expected " + (boundsDays.length + 1) + " lane weights for "
+                    + boundsDays.length + " lane bound(s), got " + weights.length);
+        }
+        for (int i = 1; i < boundsDays.length; i++) {
+            if (boundsDays[i] <= boundsDays[i - 1]) {
+                throw new IllegalArgumentException("Lane bounds must be increasing");
+            }
+        }
+        this.boundsDays = boundsDays.clone();
+        this.maxQueuedPerLane = maxQueuedPerLane;
+        this.maxInFlight = maxInFlight;
+        this.maxWaitMillis = maxWaitMillis;
+        this.clock = clock;
+
+        this.lanes = new Lane[weights.length];
+        for (int i = 0; i < weights.length; i++) {
+            if (weights[i] <= 0) {
+                throw new IllegalArgumentException("Lane weights must be positive");
+            }
+            String name = i < boundsDays.length ? "le" + boundsDays[i] + "d" : "gt" + boundsDays[i - 1] + "d";
+            Lane lane = new Lane(name, weights[i], Timer.builder("stran.notification.lane.latency")
+                    .description("Time from dispatch to publish ack per priority lane")
+                    .tag("lane", name)
+                    .publishPercentiles(0.5, 0.99)
+                    .register(meterRegistry));
+            Gauge.builder("stran.notification.lane.queued", lane, l -> l.queue.size())
+                    .description("Notifications waiting in a priority lane")
+                    .tag("lane", name)
+                    .register(meterRegistry);
+            lanes[i] = lane;
+        }
+
+        this.dispatcher = new Thread(this::dispatchLoop, "notification-priority-lanes");
+        dispatcher.setDaemon(true);
+        dispatcher.start();
+        log.info("Notification priority lanes enabled: bounds {} day(s), weights {}",
+                Arrays.toString(boundsDays), Arrays.toString(weights));
+    }
+
+    /**
+     * Queue {@code send} in the lane for the message's check-in date.
+     *
+     * @return completes with the send's outcome once it has been released and completed
+     * @throws IllegalStateException if the lane stays full for {@code max-wait-ms}
+     */
+    public <T> CompletableFuture<T> submit(NotificationMessage message, Supplier<CompletableFuture<T>> send) {
+        Lane lane = lanes[laneFor(message.getCheckInDate())];
+        long submittedAt = System.nanoTime();
+        CompletableFuture<T> result = new CompletableFuture<>();
+        Runnable release = () -> {
+            CompletableFuture<T> sent;
+            try {
+                sent = send.get();
+            } catch (RuntimeException e) {
+                sent = CompletableFuture.failedFuture(e);
+            }
+            sent.whenComplete((value, ex) -> {
+                lane.latency.record(System.nanoTime() - submittedAt, TimeUnit.NANOSECONDS);
+                releaseSlot();
+                if (ex != null) {
+                    result.completeExceptionally(ex);
+                } else {
+                    result.complete(value);
+                }
+            });
+        };
+
+        // Once stopped, nothing would release a queued send; it goes straight to the producer instead
+        boolean direct;
+        lock.lock();
+        try {
+            long remaining = TimeUnit.MILLISECONDS.toNanos(maxWaitMillis);
+            while (running && lane.queue.size() >= maxQueuedPerLane) {
+                if (remaining <= 0) {
+                    throw new IllegalStateException("Priority lane " + lane.name + " full (" + maxQueuedPerLane
+                            + ") for " + maxWaitMillis + "ms");
+                }
+                remaining = notFull.awaitNanos(remaining);
+            }
+            direct = !running;
+            if (direct) {
+                inFlight++;
+            } else {
+                lane.queue.add(release);
+                ready.signal();
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted waiting for priority lane space", e);
+        } finally {
+            lock.unlock();
+        }
+        if (direct) {
+            release.run();
+        }
+        return result;
+    }
+
+    /**
+     * @return the lane index for a check-in date; unparseable dates go to the last lane
+     */
+    int laneFor(String checkInDate) {
+        long days;
+        try {
+            days = LocalDate.parse(checkInDate).toEpochDay() - LocalDate.now(clock).toEpochDay();
+        } catch (DateTimeParseException | NullPointerException e) {
+            return lanes.length - 1;
+        }
+        for (int i = 0; i < boundsDays.length; i++) {
+            if (days <= boundsDays[i]) {
+                return i;
+            }
+        }
+        return lanes.length - 1;
+    }
+
+    /**
+     * @return notifications waiting in the given lane
+     */
+    int queued(int lane) {
+        lock.lock();
+        try {
+            return lanes[lane].queue.size();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    public int getMaxInFlight() {
+        return maxInFlight;
+    }
+
+    /**
+     * Change how many released sends may await their ack; sends already in flight
+     * beyond a lowered bound complete normally.
+     */
+    public void setMaxInFlight(int maxInFlight) {
+        if (maxInFlight <= 0) {
+            throw new IllegalArgumentException("max-in-flight must be positive");
+        }
+        lock.lock();
+        try {
+            this.maxInFlight = maxInFlight;
+            ready.signal();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    @Override
+    public void start() {
+        // The dispatcher starts with the bean
+    }
+
+    @Override
+    public void stop() {
+        try {
+            shutdown();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    @Override
+    public boolean isRunning() {
+        return running;
+    }
+
+    @Override
+    public int getPhase() {
+        return PHASE;
+    }
+
+    void shutdown() throws InterruptedException {
+        lock.lock();
+        try {
+            running = false;
+            ready.signal();
+            notFull.signalAll();
+        } finally {
+            lock.unlock();
+        }
+        dispatcher.join(maxWaitMillis);
+        // Release whatever is left, highest priority first, so nothing is lost on shutdown
+        List<Runnable> pending = new ArrayList<>();
+        lock.lock();
+        try {
+            for (Lane lane : lanes) {
+                pending.addAll(lane.queue);
+                lane.queue.clear();
+            }
+            inFlight += pending.size();
+        } finally {
+            lock.unlock();
+        }
+        pending.forEach(Runnable::run);
+        if (!pending.isEmpty()) {
+            log.info("Released {} queued notification(s) from priority lanes on shutdown", pending.size());
+        }
+    }
+
+    private void dispatchLoop() {
+        lock.lock();
+        try {
+            while (running) {
+                Lane next = inFlight < maxInFlight ? nextLane() : null;
+                if (next == null) {
+                    ready.await();
+                    continue;
+                }
+                inFlight++;
+                Runnable release = next.queue.poll();
+                notFull.signalAll();
+                lock.unlock();
+                try {
+                    release.run();
+                } finally {
+                    lock.lock();
+                }
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Smooth weighted round-robin over the non-empty lanes. Called with the lock held.
+     */
+    private Lane nextLane() {
+        Lane best = null;
+        int total = 0;
+        for (Lane lane : lanes) {
+            if (lane.queue.isEmpty()) {
+                continue;
+            }
+            lane.current += lane.weight;
+            total += lane.weight;
+            if (best == null || lane.current > best.current) {
+                best = lane;
+            }
+        }
+        if (best != null) {
+            best.current -= total;
+        }
+        return best;
+    }
+
+    private void releaseSlot() {
+        lock.lock();
+        try {
+            inFlight--;
+            ready.signal();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private static final class Lane {
+
+        private final String name;
+        private final int weight;
+        private final Timer latency;
+        private final ArrayDeque<Runnable> queue = new ArrayDeque<>();
+        private int current;
+
+        private Lane(String name, int weight, Timer latency) {
+            this.name = name;
+            this.weight = weight;
+            this.latency = latency;
+        }
+    }
+}
@@ -1,12 +1,16 @@
 package com.example.stran.service;
 
 import com.example.stran.dto.notification.NotificationMessage;
+import com.example.stran.jfr.PublishEvent;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.ObjectProvider;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.kafka.core.KafkaTemplate;
+import org.springframework.kafka.support.SendResult;
 import org.springframework.stereotype.Component;
 
 import java.util.List;
+import java.util.concurrent.CompletableFuture;
 
 /**
  * Publishes {@link NotificationMessage} instances to the notifications MSK topic.
@@ -14,6 +18,20 @@ import java.util.List;
  * <p>Uses the subscription ID as the Kafka message key so that all notifications
  * for the same subscription land on the same partition, preserving ordering
  * per subscription.
+ *
+ * <p>When commit-after-ack is enabled, every send is registered with the
+ * {@link NotificationAckTracker}, which holds back the inventory offset until
+ * the send is acknowledged and re-issues failed sends through the same lanes,
+ * rate governor and outbox as the first attempt.
+ *
+ * <p>When the local outbox is enabled, failed sends are spilled to the
+ * {@link NotificationOutbox} and reported as successful; while it holds a
+ * backlog, new notifications are queued behind it instead of being sent.
+ *
+ * <p>When the rate limit is enabled, sends are released through the
+ * {@link NotificationRateGovernor}; the returned future completes once the
+ * throttled send does. With priority lanes enabled, sends first wait in the
+ * {@link NotificationPriorityLanes} lane for their check-in date.
  */
 @Slf4j
 @Component
@@ -21,12 +39,33 @@ public class NotificationProducer {
 
     private final KafkaTemplate<String, NotificationMessage> notificationKafkaTemplate;
     private final String notificationsTopic;
+    private final ObjectProvider<NotificationAckTracker> ackTracker;
+    private final ObjectProvider<NotificationOutbox> outbox;
+    private final ObjectProvider<NotificationRateGovernor> rateGovernor;
+    private final ObjectProvider<NotificationPriorityLanes> priorityLanes;
+    private final PipelineMetrics pipelineMetrics;
+    private final NotificationLatencyTracker latencyTracker;
+    private final HotPathLog hotPathLog;
 
     public NotificationProducer(
             KafkaTemplate<String, NotificationMessage> notificationKafkaTemplate,
-            @Value("${kafka.topic.notifications}") String notificationsTopic) {
+            @Value("${kafka.topic.notifications}") String notificationsTopic,
+            ObjectProvider<NotificationAckTracker> ackTracker,
+            ObjectProvider<NotificationOutbox> outbox,
+            ObjectProvider<NotificationRateGovernor> rateGovernor,
+            ObjectProvider<NotificationPriorityLanes> priorityLanes,
+            PipelineMetrics pipelineMetrics,
+            NotificationLatencyTracker latencyTracker,
+            HotPathLog hotPathLog) {
         this.notificationKafkaTemplate = notificationKafkaTemplate;
         this.notificationsTopic = notificationsTopic;
+        this.ackTracker = ackTracker;
+        this.outbox = outbox;
+        this.rateGovernor = rateGovernor;
+        this.priorityLanes = priorityLanes;
+        this.pipelineMetrics = pipelineMetrics;
+        this.latencyTracker = latencyTracker;
+        this.hotPathLog = hotPathLog;
     }
 
     /**
@@ -43,23 +82,101 @@ public class NotificationProducer {
      * Success and failure are logged internally via the completion callback.
      *
      * @param message the notification message to publish
+     * @return the pending send
      */
-    public void sendSingle(NotificationMessage message) {
+    public CompletableFuture<SendResult<String, NotificationMessage>> sendSingle(NotificationMessage message) {
+        CompletableFuture<SendResult<String, NotificationMessage>> send = route(message);
+        NotificationAckTracker tracker = ackTracker.getIfAvailable();
+        if (tracker != null) {
+            // Re-issued sends take the same lanes, governor and outbox as the first attempt
+            tracker.track(send, () -> route(message));
+        }
+        return send;
+    }
+
+    private CompletableFuture<SendResult<String, NotificationMessage>> route(NotificationMessage message) {
+        NotificationPriorityLanes lanes = priorityLanes.getIfAvailable();
+        return lanes == null ? govern(message) : lanes.submit(message, () -> govern(message));
+    }
+
+    private CompletableFuture<SendResult<String, NotificationMessage>> govern(NotificationMessage message) {
+        NotificationRateGovernor governor = rateGovernor.getIfAvailable();
+        return governor == null ? deliver(message) : governor.submit(message.getPropCode(), () -> deliver(message));
+    }
+
+    private CompletableFuture<SendResult<String, NotificationMessage>> deliver(NotificationMessage message) {
+        NotificationOutbox spillover = outbox.getIfAvailable();
+        return spillover == null ? publish(message) : publishOrSpill(message, spillover);
+    }
+
+    /**
+     * Send directly unless the outbox has a backlog; a failed send is spilled.
+     * A spilled notification completes the returned future with a {@code null} result.
+     */
+    private CompletableFuture<SendResult<String, NotificationMessage>> publishOrSpill(
+            NotificationMessage message, NotificationOutbox spillover) {
+        if (spillover.hasBacklog()) {
+            try {
+                spillover.spill(message);
+                return CompletableFuture.completedFuture(null);
+            } catch (RuntimeException e) {
+                return CompletableFuture.failedFuture(e);
+            }
+        }
+        return publish(message).exceptionally(ex -> {
+            spillover.spill(message);
+            return null;
+        });
+    }
+
+    private CompletableFuture<SendResult<String, NotificationMessage>> publish(NotificationMessage message) {
         String key = String.valueOf(message.getSubscriptionId());
+        long sendStart = System.nanoTime();
+        PublishEvent jfr = PublishEvent.start();
+        pipelineMetrics.sendStarted();
+        CompletableFuture<SendResult<String, NotificationMessage>> send;
+        try {
+            send = notificationKafkaTemplate.send(notificationsTopic, key, message);
+        } catch (RuntimeException e) {
+            pipelineMetrics.sendCompleted();
+            throw e;
+        }
+
+        return send.whenComplete((result, ex) -> {
+            pipelineMetrics.sendCompleted();
+            pipelineMetrics.record(PipelineMetrics.Stage.PUBLISH_ACK, sendStart);
+            if (jfr != null) {
+                commit(jfr, message, ex == null ? result : null);
+            }
+            if (ex != null) {
+                log.error("Failed to publish notification id={} for subscriptionId={}: {}",
+                        message.getNotificationId(), message.getSubscriptionId(), ex.getMessage(), ex);
+            } else {
+                latencyTracker.recordAck(message);
+                if (hotPathLog.shouldLog(HotPathLog.Site.NOTIFICATION_PUBLISHED, message.getPropCode())) {
+                    log.info("Published notification id={} for subscriptionId={} to topic={} partition={} offset={}",
+                            message.getNotificationId(),
+                            message.getSubscriptionId(),
+                            result.getRecordMetadata().topic(),
+                            result.getRecordMetadata().partition(),
+                            result.getRecordMetadata().offset());
+                }
+            }
+        });
+    }
 
-        notificationKafkaTemplate.send(notificationsTopic, key, message)
-                .whenComplete((result, ex) -> {
-                    if (ex != null) {
-                        log.error("Failed to publish notification id={} for subscriptionId={}: {}",
-                                message.getNotificationId(), message.getSubscriptionId(), ex.getMessage(), ex);
-                    } else {
-                        log.info("Published notification id={} for subscriptionId={} to topic={} partition={} offset={}",
-                                message.getNotificationId(),
-                                message.getSubscriptionId(),
-                                result.getRecordMetadata().topic(),
-                                result.getRecordMetadata().partition(),
-                                result.getRecordMetadata().offset());
-                    }
-                });
+    private static void commit(PublishEvent jfr, NotificationMessage message,
+                               SendResult<String, NotificationMessage> result) {
+        jfr.end();
+        if (jfr.shouldCommit()) {
+            jfr.notificationId = message.getNotificationId();
+            jfr.subscriptionId = message.getSubscriptionId() == null ? -1 : message.getSubscriptionId();
+            jfr.propCode = message.getPropCode();
+            jfr.sourcePartition = message.getSourcePartition() == null ? -1 : message.getSourcePartition();
+            jfr.succeeded = result != null;
+            jfr.partition = result == null ? -1 : result.getRecordMetadata().partition();
+            jfr.offset = result == null ? -1 : result.getRecordMetadata().offset();
+            jfr.commit();
+        }
     }
 }
@@ -0,0 +1,415 @@
+package com.example.stran.service;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnExpression;
+import org.springframework.context.SmartLifecycle;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Supplier;
+
+/**
+ * Token-bucket governor in front of {@link NotificationProducer} that caps how
+ * fast notifications are handed to Kafka, so a large availability release does
+ * not overwhelm stran-notification-service and its email provider.
+ *
+ * <p>Two limits apply to every send: a global rate and a per-property rate
+ * (keyed by propCode, with optional per-property overrides). Both buckets hold up
+ * to {@code burst-seconds} worth of tokens. A send that finds tokens in both
+ * buckets, and no queue ahead of it for its property, goes out immediately on the
+ * calling thread.
+ *
+ * <p>Anything else is queued per property (FIFO, so per-property order is kept)
+ * and released by a dispatcher thread that round-robins across properties as
+ * tokens refill; one hot property cannot starve the others. The queue is bounded
+ * by {@code max-queued}: when it is full the calling consumer thread blocks,
+ * which slows polling of the inventory topic, and after {@code max-wait-ms} the
+ * record fails and is redelivered. Notifications are never dropped.
+ *
+ * <p>Rates can be changed at runtime via {@link #setGlobalRate},
+ * {@link #setPropertyRate(double)} and {@link #setPropertyRate(String, Double)}.
+ *
+ * <p>On shutdown the governor stops in {@link #PHASE}, after the priority lanes
+ * have released into it and before the outbox. Whatever is still queued is released
+ * unthrottled; sends submitted after that go straight to the producer.
+ *
+ * <p>Not created when transactions are enabled: queued sends are released by the
+ * dispatcher thread, outside the listener's transaction.
+ */
+@Slf4j
+@Component
+@ConditionalOnExpression("${stran.notification.rate-limit.enabled:false} and !${kafka.transactions.enabled:false}")
+public class NotificationRateGovernor implements SmartLifecycle {
+
+    /** Stops after {@link NotificationPriorityLanes} and before {@link NotificationOutbox}. */
+    public static final int PHASE = NotificationPriorityLanes.PHASE - 1;
+
+    private final int maxQueued;
+    private final long maxWaitMillis;
+    private final double burstSeconds;
+
+    private final TokenBucket global;
+    private final Map<String, TokenBucket> propertyBuckets = new ConcurrentHashMap<>();
+    private final Map<String, Double> propertyOverrides = new ConcurrentHashMap<>();
+    private volatile double propertyRate;
+
+    private final ReentrantLock lock = new ReentrantLock();
+    private final Condition notFull = lock.newCondition();
+    private final Condition ready = lock.newCondition();
+    private final LinkedHashMap<String, ArrayDeque<Runnable>> queues = new LinkedHashMap<>();
+    private int queued;
+
+    private final Thread dispatcher;
+    private volatile boolean running = true;
+
+    public NotificationRateGovernor(
+            @Value("${stran.notification.rate-limit.global-per-second:500}") double globalRate,
+            @Value("${stran.notification.rate-limit.per-property-per-second:50}") double propertyRate,
+            @Value("${stran.notification.rate-limit.burst-seconds:1}") double burstSeconds,
+            @Value("${stran.notification.rate-limit.max-queued:10000}") int maxQueued,
+            @Value("${stran.notification.rate-limit.max-wait-ms:30000}") long maxWaitMillis) {
+        if (globalRate <= 0 || propertyRate <= 0 || burstSeconds <= 0 || maxQueued <= 0) {
+            throw new IllegalArgumentException("Rate limits, burst and queue size must be positive");
+        }
+        this.maxQueued = maxQueued;
+        this.maxWaitMillis = maxWaitMillis;
+        this.burstSeconds = burstSeconds;
+        this.global = new TokenBucket(globalRate, burstSeconds);
+        this.propertyRate = propertyRate;
+
+        this.dispatcher = new Thread(this::dispatchLoop, "notification-rate-governor");
+        dispatcher.setDaemon(true);
+        dispatcher.start();
+        log.info("Notification rate governor enabled: {}/s global, {}/s per property, up to {} queued",
+                globalRate, propertyRate, maxQueued);
+    }
+
+    /**
+     * Run {@code send} once both the global and the property bucket allow it.
+     *
+     * @param propCode the property the notification is for
+     * @param send     performs the actual send
+     * @return completes with the send's outcome once it has been released and completed
+     * @throws IllegalStateException if the queue stays full for {@code max-wait-ms}
+     */
+    public <T> CompletableFuture<T> submit(String propCode, Supplier<CompletableFuture<T>> send) {
+        CompletableFuture<T> result = new CompletableFuture<>();
+        Runnable release = () -> {
+            try {
+                send.get().whenComplete((value, ex) -> {
+                    if (ex != null) {
+                        result.completeExceptionally(ex);
+                    } else {
+                        result.complete(value);
+                    }
+                });
+            } catch (RuntimeException e) {
+                result.completeExceptionally(e);
+            }
+        };
+        String key = propCode == null ? "" : propCode;
+
+        // The permit is taken under the lock; the send itself runs after it is released.
+        // Once stopped, nothing would release a queued send; it goes out unthrottled instead.
+        boolean immediate;
+        lock.lock();
+        try {
+            immediate = !running || !queues.containsKey(key) && tryAcquire(key);
+            if (!immediate) {
+                immediate = !enqueue(key, release);
+            }
+        } finally {
+            lock.unlock();
+        }
+        if (immediate) {
+            release.run();
+        }
+        return result;
+    }
+
+    /**
+     * Queue a send behind its property, waiting up to {@code max-wait-ms} for room.
+     * Called with the lock held.
+     *
+     * @return false if the governor stopped while waiting, and the send was not queued
+     */
+    private boolean enqueue(String key, Runnable release) {
+        long remaining = TimeUnit.MILLISECONDS.toNanos(maxWaitMillis);
+        try {
+            while (running && queued >= maxQueued) {
+                if (remaining <= 0) {
+                    throw new IllegalStateException("Notification rate governor queue full (" + maxQueued
+                            + ") for " + maxWaitMillis + "ms; downstream is slower than the inventory feed");
+                }
+                remaining = notFull.awaitNanos(remaining);
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted waiting for rate governor queue space", e);
+        }
+        if (!running) {
+            return false;
+        }
+        queues.computeIfAbsent(key, k -> new ArrayDeque<>()).add(release);
+        queued++;
+        ready.signal();
+        return true;
+    }
+
+    /**
+     * @return notifications waiting for tokens
+     */
+    public int queued() {
+        lock.lock();
+        try {
+            return queued;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    public double getGlobalRate() {
+        return global.rate();
+    }
+
+    public void setGlobalRate(double rate) {
+        global.setRate(requirePositive(rate), burstSeconds);
+        log.info("Global notification rate set to {}/s", rate);
+        signalDispatcher();
+    }
+
+    public double getPropertyRate() {
+        return propertyRate;
+    }
+
+    /**
+     * Change the default per-property rate; properties with an override keep it.
+     */
+    public void setPropertyRate(double rate) {
+        propertyRate = requirePositive(rate);
+        propertyBuckets.forEach((propCode, bucket) -> bucket.setRate(rateFor(propCode), burstSeconds));
+        log.info("Per-property notification rate set to {}/s", rate);
+        signalDispatcher();
+    }
+
+    public Map<String, Double> getPropertyOverrides() {
+        return Map.copyOf(propertyOverrides);
+    }
+
+    /**
+     * Set or, with {@code null}, clear the rate for a single property.
+     */
+    public void setPropertyRate(String propCode, Double rate) {
+        if (rate == null) {
+            propertyOverrides.remove(propCode);
+        } else {
+            propertyOverrides.put(propCode, requirePositive(rate));
+        }
+        TokenBucket bucket = propertyBuckets.get(propCode);
+        if (bucket != null) {
+            bucket.setRate(rateFor(propCode), burstSeconds);
+        }
+        log.info("Notification rate for property {} set to {}", propCode, rate == null ? "default" : rate + "/s");
+        signalDispatcher();
+    }
+
+    @Override
+    public void start() {
+        // The dispatcher starts with the bean
+    }
+
+    @Override
+    public void stop() {
+        try {
+            shutdown();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    @Override
+    public boolean isRunning() {
+        return running;
+    }
+
+    @Override
+    public int getPhase() {
+        return PHASE;
+    }
+
+    void shutdown() throws InterruptedException {
+        lock.lock();
+        try {
+            running = false;
+            ready.signal();
+            notFull.signalAll();
+        } finally {
+            lock.unlock();
+        }
+        dispatcher.join(maxWaitMillis);
+        // Release whatever is left unthrottled so nothing is lost on shutdown
+        List<Runnable> pending = new ArrayList<>();
+        lock.lock();
+        try {
+            queues.values().forEach(pending::addAll);
+            queues.clear();
+            queued = 0;
+        } finally {
+            lock.unlock();
+        }
+        pending.forEach(Runnable::run);
+        if (!pending.isEmpty()) {
+            log.info("Released {} throttled notification(s) on shutdown", pending.size());
+        }
+    }
+
+    private void dispatchLoop() {
+        List<Runnable> released = new ArrayList<>();
+        try {
+            while (running) {
+                lock.lock();
+                try {
+                    long waitNanos = releaseReady(released);
+                    if (waitNanos > 0) {
+                        ready.awaitNanos(waitNanos);
+                    }
+                } finally {
+                    lock.unlock();
+                }
+                released.forEach(Runnable::run);
+                released.clear();
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    /**
+     * One round-robin pass over the property queues, taking at most one
+     * notification per property into {@code released}; the caller sends them
+     * after releasing the lock. Called with the lock held.
+     *
+     * <p>A drained queue is only removed on the next pass, once its last send has
+     * run, so a new send for that property cannot overtake it on the fast path.
+     *
+     * @return how long to wait before the next pass; 0 to run again immediately
+     */
+    private long releaseReady(List<Runnable> released) {
+        queues.values().removeIf(ArrayDeque::isEmpty);
+        if (queues.isEmpty()) {
+            return Long.MAX_VALUE;
+        }
+        long waitNanos = Long.MAX_VALUE;
+        for (Map.Entry<String, ArrayDeque<Runnable>> entry : queues.entrySet()) {
+            if (tryAcquire(entry.getKey())) {
+                released.add(entry.getValue().poll());
+                queued--;
+            } else {
+                waitNanos = Math.min(waitNanos, Math.max(global.nanosUntilToken(),
+                        propertyBucket(entry.getKey()).nanosUntilToken()));
+            }
+        }
+        if (!released.isEmpty()) {
+            notFull.signalAll();
+            return 0;
+        }
+        return Math.max(waitNanos, 1);
+    }
+
+    private boolean tryAcquire(String propCode) {
+        TokenBucket property = propertyBucket(propCode);
+        if (!property.tryAcquire()) {
+            return false;
+        }
+        if (!global.tryAcquire()) {
+            property.refund();
+            return false;
+        }
+        return true;
+    }
+
+    private TokenBucket propertyBucket(String propCode) {
+        return propertyBuckets.computeIfAbsent(propCode, p -> new TokenBucket(rateFor(p), burstSeconds));
+    }
+
+    private double rateFor(String propCode) {
+        return propertyOverrides.getOrDefault(propCode, propertyRate);
+    }
+
+    private void signalDispatcher() {
+        lock.lock();
+        try {
+            ready.signal();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private static double requirePositive(double rate) {
+        if (rate <= 0) {
+            throw new IllegalArgumentException("Rate must be positive: " + rate);
+        }
+        return rate;
+    }
+
+    /**
+     * Classic token bucket refilled continuously at {@code rate} tokens per second.
+     */
+    static final class TokenBucket {
+
+        private double rate;
+        private double capacity;
+        private double tokens;
+        private long refilledAt = System.nanoTime();
+
+        TokenBucket(double rate, double burstSeconds) {
+            setRate(rate, burstSeconds);
+            this.tokens = capacity;
+        }
+
+        synchronized double rate() {
+            return rate;
+        }
+
+        synchronized void setRate(double rate, double burstSeconds) {
+            refill();
+            this.rate = rate;
+            this.capacity = Math.max(1, rate * burstSeconds);
+            this.tokens = Math.min(tokens, capacity);
+        }
+
+        synchronized boolean tryAcquire() {
+            refill();
+            if (tokens >= 1) {
+                tokens--;
+                return true;
+            }
+            return false;
+        }
+
+        synchronized void refund() {
+            tokens = Math.min(capacity, tokens + 1);
+        }
+
+        synchronized long nanosUntilToken() {
+            refill();
+            return tokens >= 1 ? 0 : (long) Math.ceil((1 - tokens) / rate * 1e9);
+        }
+
+        private void refill() {
+            long now = System.nanoTime();
+            tokens = Math.min(capacity, tokens + (now - refilledAt) * rate / 1e9);
+            refilledAt = now;
+        }
+    }
+}
@@ -0,0 +1,88 @@
+package com.example.stran.service;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * A message template compiled once into literal segments and placeholder slots.
+ *
+ * <p>Rendering appends the pre-split literals and the supplied values into a
+ * builder sized from the previous render, avoiding the format-string parsing
+ * that {@link String#format} repeats on every call.
+ *
+ * <p>Placeholders use {@code {name}} syntax; values are passed to
+ * {@link #render(String...)} in the order the names were given to
+ * {@link #compile(String, String...)}.
+ */
+public final class NotificationTextTemplate {
+
+    private final String[] literals;
+    private final int[] slots;
+    private final int literalLength;
+
+    private NotificationTextTemplate(String[] literals, int[] slots) {
+        this.literals = literals;
+        this.slots = slots;
+        int length = 0;
+        for (String literal : literals) {
+            length += literal.length();
+        }
+        this.literalLength = length;
+    }
+
+    /**
+     * Compile a template.
+     *
+     * @param pattern the template text, e.g. {@code "Found {propCode} for {nights} night(s)"}
+     * @param names   the placeholder names, in the order values will be passed to {@code render}
+     * @return the compiled template
+     * @throws IllegalArgumentException if the pattern references an unknown or unterminated placeholder
+     */
+    public static NotificationTextTemplate compile(String pattern, String... names) {
+        List<String> literals = new ArrayList<>();
+        List<Integer> slots = new ArrayList<>();
+        List<String> nameList = List.of(names);
+
+        int pos = 0;
+        while (true) {
+            int open = pattern.indexOf('{', pos);
+            if (open < 0) {
+                literals.add(pattern.substring(pos));
+                break;
+            }
+            int close = pattern.indexOf('}', open);
+            if (close < 0) {
+                throw new IllegalArgumentException("Unterminated placeholder in template: " + pattern);
+            }
+            int slot = nameList.indexOf(pattern.substring(open + 1, close));
+            if (slot < 0) {
+                throw new IllegalArgumentException("Unknown placeholder '" + pattern.substring(open + 1, close)
+                        + "' in template: " + pattern);
+            }
+            literals.add(pattern.substring(pos, open));
+            slots.add(slot);
+            pos = close + 1;
+        }
+
+        return new NotificationTextTemplate(literals.toArray(String[]::new),
+                slots.stream().mapToInt(Integer::intValue).toArray());
+    }
+
+    /**
+     * Render the template with the given placeholder values.
+     *
+     * @param values one value per placeholder name, in compile order
+     * @return the rendered text
+     */
+    public String render(String... values) {
+        int length = literalLength;
+        for (int slot : slots) {
+            length += values[slot].length();
+        }
+        StringBuilder text = new StringBuilder(length);
+        for (int i = 0; i < slots.length; i++) {
+            text.append(literals[i]).append(values[slots[i]]);
+        }
+        return text.append(literals[slots.length]).toString();
+    }
+}
@@ -0,0 +1,137 @@
+package com.example.stran.service;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.springframework.stereotype.Component;
+
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Micrometer instrumentation for the matching pipeline, exported through the
+ * Actuator Prometheus endpoint.
+ *
+ * <ul>
+ *   <li>{@code stran.pipeline.stage} — timer (with histogram buckets) per
+ *       {@link Stage}, tagged {@code stage}</li>
+ *   <li>{@code stran.matching.candidates} / {@code stran.matching.matches} —
+ *       counters per matching strategy, tagged {@code strategy}</li>
+ *   <li>{@code stran.notification.sends.in-flight} — gauge of sends handed to
+ *       Kafka and not yet acknowledged</li>
+ * </ul>
+ *
+ * <p>Consumer lag per partition comes from the Kafka client metrics bound in
+ * {@link com.example.stran.config.KafkaConsumerConfig}
+ * ({@code kafka.consumer.fetch.manager.records.lag}).
+ *
+ * <p>Between {@link #beginEvent()} and {@link #endEvent()} the stages and match
+ * counts recorded on the calling thread are also added to its {@link EventTrace},
+ * which {@link SlowEventLog} uses for per-event breakdowns.
+ */
+@Component
+public class PipelineMetrics {
+
+    /**
+     * Timed stages of the pipeline, in processing order.
+     */
+    public enum Stage {
+        DESERIALIZATION,
+        PROPERTY_RESOLUTION,
+        SUBSCRIPTION_QUERY,
+        LOS_FILTER,
+        NOTIFICATION_BUILD,
+        PUBLISH_ACK
+    }
+
+    private final MeterRegistry meterRegistry;
+    private final Map<Stage, Timer> stageTimers = new EnumMap<>(Stage.class);
+    private final Map<String, StrategyCounters> strategyCounters = new ConcurrentHashMap<>();
+    private final AtomicInteger inFlightSends = new AtomicInteger();
+    private final ThreadLocal<EventTrace> traces = ThreadLocal.withInitial(EventTrace::new);
+
+    public PipelineMetrics(MeterRegistry meterRegistry) {
+        this.meterRegistry = meterRegistry;
+        for (Stage stage : Stage.values()) {
+            stageTimers.put(stage, Timer.builder("stran.pipeline.stage")
+                    .description("Time spent in each stage of the matching pipeline")
+                    .tag("stage", stage.name().toLowerCase())
+                    .publishPercentileHistogram()
+                    .register(meterRegistry));
+        }
+        Gauge.builder("stran.notification.sends.in-flight", inFlightSends, AtomicInteger::get)
+                .description("Notification sends awaiting a broker acknowledgment")
+                .register(meterRegistry);
+    }
+
+    /**
+     * @return the timer for a stage
+     */
+    public Timer timer(Stage stage) {
+        return stageTimers.get(stage);
+    }
+
+    /**
+     * Record a stage that started at {@code startNanos} ({@link System#nanoTime()}) and ends now.
+     */
+    public void record(Stage stage, long startNanos) {
+        long nanos = System.nanoTime() - startNanos;
+        stageTimers.get(stage).record(nanos, TimeUnit.NANOSECONDS);
+        traces.get().stage(stage, nanos);
+    }
+
+    /**
+     * Count the candidates a strategy examined and how many of them matched.
+     */
+    public void matched(String strategy, int candidates, int matches) {
+        StrategyCounters counters = strategyCounters.computeIfAbsent(strategy, this::countersFor);
+        counters.candidates.increment(candidates);
+        counters.matches.increment(matches);
+        traces.get().matched(candidates, matches);
+    }
+
+    /**
+     * Start tracing the event processed on the calling thread.
+     *
+     * @return the thread's trace, reset; valid until the next {@code beginEvent} on this thread
+     */
+    public EventTrace beginEvent() {
+        EventTrace trace = traces.get();
+        trace.reset();
+        return trace;
+    }
+
+    /**
+     * Stop adding stages on the calling thread to its trace.
+     */
+    public void endEvent() {
+        traces.get().active = false;
+    }
+
+    public void sendStarted() {
+        inFlightSends.incrementAndGet();
+    }
+
+    public void sendCompleted() {
+        inFlightSends.decrementAndGet();
+    }
+
+    private StrategyCounters countersFor(String strategy) {
+        return new StrategyCounters(
+                Counter.builder("stran.matching.candidates")
+                        .description("Subscriptions examined by a matching strategy")
+                        .tag("strategy", strategy)
+                        .register(meterRegistry),
+                Counter.builder("stran.matching.matches")
+                        .description("Subscriptions matched by a matching strategy")
+                        .tag("strategy", strategy)
+                        .register(meterRegistry));
+    }
+
+    private record StrategyCounters(Counter candidates, Counter matches) {
+    }
+}
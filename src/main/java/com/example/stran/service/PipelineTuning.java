@@ -0,0 +1,300 @@
+package com.example.stran.service;
+
+import com.example.stran.dto.inventory.InventoryEvent;
+import com.example.stran.dto.notification.NotificationMessage;
+import lombok.extern.slf4j.Slf4j;
+import org.apache.kafka.clients.consumer.ConsumerConfig;
+import org.apache.kafka.clients.producer.ProducerConfig;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnExpression;
+import org.springframework.kafka.config.KafkaListenerEndpointRegistry;
+import org.springframework.kafka.core.ConsumerFactory;
+import org.springframework.kafka.core.ProducerFactory;
+import org.springframework.kafka.listener.ConcurrentMessageListenerContainer;
+import org.springframework.kafka.listener.MessageListenerContainer;
+import org.springframework.stereotype.Component;
+import org.springframework.util.backoff.FixedBackOff;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Adjusts pipeline concurrency, batching, in-flight limits and cache bounds at
+ * runtime, without restarting the application context. Exposed through the
+ * authenticated {@code /actuator/tuning} endpoint.
+ *
+ * <p>Each knob is applied the least disruptive way it allows:
+ * <ul>
+ *   <li>Listener concurrency and {@code max.poll.records} only take effect for new
+ *       consumers, so every {@code @KafkaListener} container is stopped and started
+ *       again. Stopping revokes its partitions through the usual rebalance listeners,
+ *       which drain in-flight records before offsets are committed; with the
+ *       cooperative assignor only this instance's partitions move.</li>
+ *   <li>The inventory retry backoff is a shared {@link FixedBackOff} read on every
+ *       failure and changes in place.</li>
+ *   <li>Notification producer settings replace the factory's configuration and
+ *       {@linkplain ProducerFactory#reset() reset} it: the current producer is closed
+ *       after its pending sends complete and the next send creates a new one.
+ *       Refused for a transactional producer, where a reset would abort open
+ *       transactions.</li>
+ *   <li>In-flight windows and cache bounds are resized on their components, if
+ *       those are enabled.</li>
+ * </ul>
+ *
+ * <p>All values of a request are validated before any of them is applied.
+ * Containers created by {@link InventorySourceListeners} keep their per-source
+ * settings.
+ */
+@Slf4j
+@Component
+@ConditionalOnExpression("!'${stran.tuning.token:}'.isBlank()")
+public class PipelineTuning {
+
+    /**
+     * Requested changes; {@code null} leaves a value unchanged.
+     *
+     * @param concurrency                   consumers per listener container
+     * @param maxPollRecords                {@code max.poll.records} of the listener consumers
+     * @param retryIntervalMs               backoff between redeliveries of a failed record
+     * @param retryMaxAttempts              redeliveries before a failed record is skipped
+     * @param lingerMs                      notification producer {@code linger.ms}
+     * @param batchSize                     notification producer {@code batch.size}
+     * @param maxInFlightRequests           notification producer {@code max.in.flight.requests.per.connection}
+     * @param commitAfterAckMaxInFlight     records awaiting notification acks (commit after ack)
+     * @param priorityMaxInFlight           released sends awaiting acks (priority lanes)
+     * @param hotLanesDetectTtl             how long a detected hot property stays hot
+     * @param hotLanesMaxProperties         detected hot properties tracked at once
+     * @param rematchAvailabilityMaxEntries property/date pairs held for bulk re-match
+     */
+    public record Changes(Integer concurrency, Integer maxPollRecords, Long retryIntervalMs, Long retryMaxAttempts,
+                          Integer lingerMs, Integer batchSize, Integer maxInFlightRequests,
+                          Integer commitAfterAckMaxInFlight, Integer priorityMaxInFlight,
+                          Duration hotLanesDetectTtl, Integer hotLanesMaxProperties,
+                          Integer rematchAvailabilityMaxEntries) {
+    }
+
+    private final KafkaListenerEndpointRegistry listenerRegistry;
+    private final ConsumerFactory<String, InventoryEvent> inventoryEventConsumerFactory;
+    private final ProducerFactory<String, NotificationMessage> notificationProducerFactory;
+    private final FixedBackOff inventoryRetryBackOff;
+    private final ObjectProvider<NotificationAckTracker> ackTracker;
+    private final ObjectProvider<NotificationPriorityLanes> priorityLanes;
+    private final ObjectProvider<HotPropertyLanes> hotLanes;
+    private final ObjectProvider<LatestAvailability> latestAvailability;
+
+    public PipelineTuning(KafkaListenerEndpointRegistry listenerRegistry,
+                          ConsumerFactory<String, InventoryEvent> inventoryEventConsumerFactory,
+                          ProducerFactory<String, NotificationMessage> notificationProducerFactory,
+                          FixedBackOff inventoryRetryBackOff,
+                          ObjectProvider<NotificationAckTracker> ackTracker,
+                          ObjectProvider<NotificationPriorityLanes> priorityLanes,
+                          ObjectProvider<HotPropertyLanes> hotLanes,
+                          ObjectProvider<LatestAvailability> latestAvailability) {
+        this.listenerRegistry = listenerRegistry;
+        this.inventoryEventConsumerFactory = inventoryEventConsumerFactory;
+        this.notificationProducerFactory = notificationProducerFactory;
+        this.inventoryRetryBackOff = inventoryRetryBackOff;
+        this.ackTracker = ackTracker;
+        this.priorityLanes = priorityLanes;
+        this.hotLanes = hotLanes;
+        this.latestAvailability = latestAvailability;
+    }
+
+    /**
+     * Validate and apply {@code changes}.
+     *
+     * @throws IllegalArgumentException if a value is out of range or targets a disabled component;
+     *                                  nothing is applied then
+     */
+    public synchronized void apply(Changes changes) {
+        validate(changes);
+
+        if (changes.retryIntervalMs() != null) {
+            inventoryRetryBackOff.setInterval(changes.retryIntervalMs());
+        }
+        if (changes.retryMaxAttempts() != null) {
+            inventoryRetryBackOff.setMaxAttempts(changes.retryMaxAttempts());
+        }
+        if (changes.commitAfterAckMaxInFlight() != null) {
+            ackTracker.ifAvailable(tracker -> tracker.setMaxInFlight(changes.commitAfterAckMaxInFlight()));
+        }
+        if (changes.priorityMaxInFlight() != null) {
+            priorityLanes.ifAvailable(lanes -> lanes.setMaxInFlight(changes.priorityMaxInFlight()));
+        }
+        if (changes.hotLanesDetectTtl() != null) {
+            hotLanes.ifAvailable(lanes -> lanes.setDetectTtl(changes.hotLanesDetectTtl()));
+        }
+        if (changes.hotLanesMaxProperties() != null) {
+            hotLanes.ifAvailable(lanes -> lanes.setMaxDetected(changes.hotLanesMaxProperties()));
+        }
+        if (changes.rematchAvailabilityMaxEntries() != null) {
+            latestAvailability.ifAvailable(latest -> latest.setMaxEntries(changes.rematchAvailabilityMaxEntries()));
+        }
+        applyProducer(changes);
+        applyConsumers(changes);
+        log.info("Applied runtime tuning {}", changes);
+    }
+
+    /**
+     * @return the effective value of every knob, grouped as {@code consumer},
+     *         {@code producer}, {@code inFlight} and {@code caches}
+     */
+    public synchronized Map<String, Object> effective() {
+        Map<String, Object> result = new LinkedHashMap<>();
+
+        Map<String, Object> consumer = new LinkedHashMap<>();
+        consumer.put("retryIntervalMs", inventoryRetryBackOff.getInterval());
+        consumer.put("retryMaxAttempts", inventoryRetryBackOff.getMaxAttempts());
+        List<Map<String, Object>> containers = new ArrayList<>();
+        for (ConcurrentMessageListenerContainer<?, ?> container : containers()) {
+            Map<String, Object> state = new LinkedHashMap<>();
+            state.put("id", container.getListenerId());
+            state.put("running", container.isRunning());
+            state.put("concurrency", container.getConcurrency());
+            state.put("maxPollRecords", maxPollRecords(container));
+            containers.add(state);
+        }
+        consumer.put("containers", containers);
+        result.put("consumer", consumer);
+
+        Map<String, Object> producer = new LinkedHashMap<>();
+        producer.put("transactional", notificationProducerFactory.transactionCapable());
+        producer.put("lingerMs", producerConfig(ProducerConfig.LINGER_MS_CONFIG));
+        producer.put("batchSize", producerConfig(ProducerConfig.BATCH_SIZE_CONFIG));
+        producer.put("maxInFlightRequests", producerConfig(ProducerConfig.MAX_IN_FLIGHT_REQUESTS_PER_CONNECTION));
+        result.put("producer", producer);
+
+        Map<String, Object> inFlight = new LinkedHashMap<>();
+        ackTracker.ifAvailable(tracker -> inFlight.put("commitAfterAckMaxInFlight", tracker.getMaxInFlight()));
+        priorityLanes.ifAvailable(lanes -> inFlight.put("priorityMaxInFlight", lanes.getMaxInFlight()));
+        result.put("inFlight", inFlight);
+
+        Map<String, Object> caches = new LinkedHashMap<>();
+        hotLanes.ifAvailable(lanes -> {
+            caches.put("hotLanesDetectTtl", lanes.getDetectTtl().toString());
+            caches.put("hotLanesMaxProperties", lanes.getMaxDetected());
+        });
+        latestAvailability.ifAvailable(latest ->
+                caches.put("rematchAvailabilityMaxEntries", latest.getMaxEntries()));
+        result.put("caches", caches);
+        return result;
+    }
+
+    private void validate(Changes changes) {
+        atLeast("concurrency", changes.concurrency(), 1);
+        atLeast("maxPollRecords", changes.maxPollRecords(), 1);
+        atLeast("retryIntervalMs", changes.retryIntervalMs(), 0);
+        atLeast("retryMaxAttempts", changes.retryMaxAttempts(), 0);
+        atLeast("lingerMs", changes.lingerMs(), 0);
+        atLeast("batchSize", changes.batchSize(), 0);
+        atLeast("maxInFlightRequests", changes.maxInFlightRequests(), 1);
+        // The producer is idempotent, which keeps ordering only up to 5 requests in flight
+        if (changes.maxInFlightRequests() != null && changes.maxInFlightRequests() > 5) {
+            throw new IllegalArgumentException("maxInFlightRequests must be at most 5 with idempotence");
+        }
+        atLeast("commitAfterAckMaxInFlight", changes.commitAfterAckMaxInFlight(), 1);
+        atLeast("priorityMaxInFlight", changes.priorityMaxInFlight(), 1);
+        atLeast("hotLanesMaxProperties", changes.hotLanesMaxProperties(), 0);
+        atLeast("rematchAvailabilityMaxEntries", changes.rematchAvailabilityMaxEntries(), 0);
+        if (changes.hotLanesDetectTtl() != null
+                && (changes.hotLanesDetectTtl().isNegative() || changes.hotLanesDetectTtl().isZero())) {
+            throw new IllegalArgumentException("hotLanesDetectTtl must be positive");
+        }
+
+        if (hasProducerChanges(changes) && notificationProducerFactory.transactionCapable()) {
+            throw new IllegalArgumentException("Producer settings cannot be changed while kafka.transactions.enabled");
+        }
+        enabled(changes.commitAfterAckMaxInFlight(), ackTracker, "kafka.consumer.commit-after-ack");
+        enabled(changes.priorityMaxInFlight(), priorityLanes, "stran.notification.priority");
+        enabled(changes.hotLanesDetectTtl(), hotLanes, "stran.hot-lanes");
+        enabled(changes.hotLanesMaxProperties(), hotLanes, "stran.hot-lanes");
+        enabled(changes.rematchAvailabilityMaxEntries(), latestAvailability, "stran.rematch");
+    }
+
+    private void applyProducer(Changes changes) {
+        if (!hasProducerChanges(changes)) {
+            return;
+        }
+        Map<String, Object> updates = new HashMap<>();
+        if (changes.lingerMs() != null) {
+            updates.put(ProducerConfig.LINGER_MS_CONFIG, changes.lingerMs());
+        }
+        if (changes.batchSize() != null) {
+            updates.put(ProducerConfig.BATCH_SIZE_CONFIG, changes.batchSize());
+        }
+        if (changes.maxInFlightRequests() != null) {
+            updates.put(ProducerConfig.MAX_IN_FLIGHT_REQUESTS_PER_CONNECTION, changes.maxInFlightRequests());
+        }
+        notificationProducerFactory.updateConfigs(updates);
+        notificationProducerFactory.reset();
+    }
+
+    private void applyConsumers(Changes changes) {
+        if (changes.concurrency() == null && changes.maxPollRecords() == null) {
+            return;
+        }
+        for (ConcurrentMessageListenerContainer<?, ?> container : containers()) {
+            boolean running = container.isRunning();
+            if (running) {
+                container.stop();
+            }
+            if (changes.concurrency() != null) {
+                container.setConcurrency(changes.concurrency());
+            }
+            if (changes.maxPollRecords() != null) {
+                container.getContainerProperties().getKafkaConsumerProperties().setProperty(
+                        ConsumerConfig.MAX_POLL_RECORDS_CONFIG, changes.maxPollRecords().toString());
+            }
+            if (running) {
+                container.start();
+            }
+            log.info("Restarted listener container {} with concurrency={}, max.poll.records={}",
+                    container.getListenerId(), container.getConcurrency(), maxPollRecords(container));
+        }
+    }
+
+    private List<ConcurrentMessageListenerContainer<?, ?>> containers() {
+        List<ConcurrentMessageListenerContainer<?, ?>> containers = new ArrayList<>();
+        for (MessageListenerContainer container : listenerRegistry.getListenerContainers()) {
+            if (container instanceof ConcurrentMessageListenerContainer<?, ?> concurrent) {
+                containers.add(concurrent);
+            }
+        }
+        return containers;
+    }
+
+    private Object maxPollRecords(ConcurrentMessageListenerContainer<?, ?> container) {
+        String override = container.getContainerProperties().getKafkaConsumerProperties()
+                .getProperty(ConsumerConfig.MAX_POLL_RECORDS_CONFIG);
+        if (override != null) {
+            return Integer.valueOf(override);
+        }
+        return inventoryEventConsumerFactory.getConfigurationProperties().getOrDefault(
+                ConsumerConfig.MAX_POLL_RECORDS_CONFIG, ConsumerConfig.DEFAULT_MAX_POLL_RECORDS);
+    }
+
+    private Object producerConfig(String name) {
+        Object value = notificationProducerFactory.getConfigurationProperties().get(name);
+        return value != null ? value : ProducerConfig.configDef().defaultValues().get(name);
+    }
+
+    private static boolean hasProducerChanges(Changes changes) {
+        return changes.lingerMs() != null || changes.batchSize() != null || changes.maxInFlightRequests() != null;
+    }
+
+    private static void atLeast(String name, Number value, long min) {
+        if (value != null && value.longValue() < min) {
+            throw new IllegalArgumentException(name + " must be at least " + min);
+        }
+    }
+
+    private static void enabled(Object value, ObjectProvider<?> component, String prefix) {
+        if (value != null && component.getIfAvailable() == null) {
+            throw new IllegalArgumentException(prefix + " is not enabled");
+        }
+    }
+}
@@ -3,10 +3,13 @@ package com.example.stran.service;
 import com.example.stran.dto.inventory.InventoryEventBody;
 import com.example.stran.entity.Property;
 import com.example.stran.entity.StaySubscription;
+import com.example.stran.jfr.MatchingEvent;
 import com.example.stran.repository.PropertyRepository;
 import com.example.stran.repository.StaySubscriptionRepository;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
 import org.springframework.stereotype.Service;
 
 import java.time.LocalDate;
@@ -21,14 +24,33 @@ import java.util.stream.Collectors;
  * <p>Resolves the event's propCode to a propertyId, queries for active
  * PROPERTY subscriptions matching that property and check-in date,
  * then filters by length-of-stay pattern availability.
+ *
+ * <p>Candidates are served from the {@link SubscriptionCache}, if enabled, when
+ * the property is cached locally (e.g., owned by this shard); otherwise the
+ * database is queried.
+ *
+ * <p>This is the default engine ({@code stran.matching.engine=db}); see
+ * {@link MappedStoreMatchingService} for the off-heap alternative.
  */
 @Slf4j
 @Service
+@ConditionalOnProperty(name = "stran.matching.engine", havingValue = "db", matchIfMissing = true)
 @RequiredArgsConstructor
 public class PropertyAvailabilityMatchingService implements SubscriptionMatchingStrategy {
 
+    private static final String STRATEGY = "property-db";
+
     private final PropertyRepository propertyRepository;
     private final StaySubscriptionRepository subscriptionRepository;
+    private final ObjectProvider<SubscriptionCache> subscriptionCache;
+    private final PipelineMetrics pipelineMetrics;
+    private final HotPathLog hotPathLog;
+    private final HotKeyTracker hotKeyTracker;
+
+    @Override
+    public String name() {
+        return STRATEGY;
+    }
 
     @Override
     public boolean supports(InventoryEventBody eventBody) {
@@ -39,44 +61,85 @@ public class PropertyAvailabilityMatchingService implements SubscriptionMatching
 
     @Override
     public List<StaySubscription> findMatchingSubscriptions(InventoryEventBody eventBody) {
+        MatchingEvent jfr = new MatchingEvent();
+        jfr.begin();
         String propCode = eventBody.getPropCode();
         LocalDate eventDate = LocalDate.parse(eventBody.getStartDate());
 
-        // Step 1: Resolve propCode → propertyId
-        Optional<Property> propertyOpt = propertyRepository.findByPropCode(propCode);
-        if (propertyOpt.isEmpty()) {
-            log.debug("No property found for propCode={}, skipping", propCode);
+        // Steps 1-2: Resolve candidates from the local cache, or from the DB on a cache miss
+        long queryStart = System.nanoTime();
+        SubscriptionCache cache = subscriptionCache.getIfAvailable();
+        Optional<List<StaySubscription>> cached = cache == null ? Optional.empty() : cache.find(propCode, eventDate);
+        List<StaySubscription> candidates = cached
+                .map(subscriptions -> {
+                    pipelineMetrics.record(PipelineMetrics.Stage.SUBSCRIPTION_QUERY, queryStart);
+                    return subscriptions;
+                })
+                .orElseGet(() -> queryCandidates(propCode, eventDate));
+
+        if (candidates.isEmpty()) {
+            log.debug("No active subscriptions for propCode={} on date={}", propCode, eventDate);
+            pipelineMetrics.matched(STRATEGY, 0, 0);
+            jfr.complete(STRATEGY, propCode, eventBody.getStartDate(), 0, 0);
             return Collections.emptyList();
         }
 
-        Long propertyId = propertyOpt.get().getPropertyId();
+        hotKeyTracker.candidates(candidates.get(0).getPropertyId(), eventDate, candidates.size());
 
-        // Step 2: Query active PROPERTY subscriptions for this property + date
-        List<StaySubscription> candidates = subscriptionRepository
-                .findActivePropertySubscriptions(propertyId, eventDate);
+        // Step 3: Filter by length-of-stay pattern
+        long filterStart = System.nanoTime();
+        List<StaySubscription> matched = matchLengthOfStay(candidates, eventBody);
+        pipelineMetrics.record(PipelineMetrics.Stage.LOS_FILTER, filterStart);
+        pipelineMetrics.matched(STRATEGY, candidates.size(), matched.size());
+        jfr.complete(STRATEGY, propCode, eventBody.getStartDate(), candidates.size(), matched.size());
 
-        if (candidates.isEmpty()) {
-            log.debug("No active subscriptions for propertyId={} on date={}", propertyId, eventDate);
-            return Collections.emptyList();
+        if (hotPathLog.shouldLog(HotPathLog.Site.SUBSCRIPTIONS_MATCHED, propCode)) {
+            log.info("Matched {} subscriptions for propCode={} on date={} (out of {} candidates)",
+                    matched.size(), propCode, eventDate, candidates.size());
         }
 
-        // Step 3: Filter by length-of-stay pattern
-        List<StaySubscription> matched = candidates.stream()
+        return matched;
+    }
+
+    /**
+     * Keep the candidates whose number of nights is available in the event's
+     * length-of-stay patterns. Shared with the Kafka Streams engine.
+     *
+     * @param candidates active subscriptions for the event's property and check-in date
+     * @param eventBody  the inventory event
+     * @return the matching subscriptions, in candidate order
+     */
+    public static List<StaySubscription> matchLengthOfStay(List<StaySubscription> candidates,
+                                                           InventoryEventBody eventBody) {
+        return candidates.stream()
                 .filter(sub -> {
                     int nights = sub.getNights();
                     boolean available = LengthOfStayPatternUtil.isAvailableForNights(
                             eventBody.getRoomRecommendations(), nights);
                     if (!available) {
                         log.debug("Subscription id={} wants {} nights but not available at propCode={}",
-                                sub.getId(), nights, propCode);
+                                sub.getId(), nights, eventBody.getPropCode());
                     }
                     return available;
                 })
                 .collect(Collectors.toList());
+    }
 
-        log.info("Matched {} subscriptions for propCode={} on date={} (out of {} candidates)",
-                matched.size(), propCode, eventDate, candidates.size());
+    private List<StaySubscription> queryCandidates(String propCode, LocalDate eventDate) {
+        // Step 1: Resolve propCode → propertyId
+        long resolveStart = System.nanoTime();
+        Optional<Property> propertyOpt = propertyRepository.findByPropCode(propCode);
+        pipelineMetrics.record(PipelineMetrics.Stage.PROPERTY_RESOLUTION, resolveStart);
+        if (propertyOpt.isEmpty()) {
+            log.debug("No property found for propCode={}, skipping", propCode);
+            return Collections.emptyList();
+        }
 
-        return matched;
+        // Step 2: Query active PROPERTY subscriptions for this property + date
+        long queryStart = System.nanoTime();
+        List<StaySubscription> candidates =
+                subscriptionRepository.findActivePropertySubscriptions(propertyOpt.get().getPropertyId(), eventDate);
+        pipelineMetrics.record(PipelineMetrics.Stage.SUBSCRIPTION_QUERY, queryStart);
+        return candidates;
     }
 }
@@ -0,0 +1,134 @@
+package com.example.stran.service;
+
+import com.example.stran.entity.Property;
+import com.example.stran.repository.PropertyRepository;
+import lombok.extern.slf4j.Slf4j;
+import org.apache.kafka.clients.consumer.Consumer;
+import org.apache.kafka.common.TopicPartition;
+import org.apache.kafka.common.utils.Utils;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.kafka.listener.ConsumerAwareRebalanceListener;
+import org.springframework.stereotype.Component;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Collection;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.stream.Collectors;
+
+/**
+ * Tracks which partitions of the propCode-keyed repartition topic this instance
+ * owns and keeps the {@link SubscriptionCache} limited to the matching properties.
+ *
+ * <p>Events on the repartition topic are keyed by propCode, so the partition a
+ * property's events land on is fully determined by the key hash. On every
+ * rebalance the set of owned properties is recomputed with the same hash the
+ * producer's default partitioner uses; newly owned properties are loaded and
+ * properties that moved to another instance are evicted. Memory per instance
+ * therefore shrinks as instances are added.
+ */
+@Slf4j
+@Component
+@ConditionalOnProperty(name = "kafka.repartition.enabled", havingValue = "true")
+public class PropertyPartitionOwnership implements ConsumerAwareRebalanceListener {
+
+    private final PropertyRepository propertyRepository;
+    private final SubscriptionCache subscriptionCache;
+    private final String repartitionTopic;
+
+    private final Set<Integer> ownedPartitions = ConcurrentHashMap.newKeySet();
+    private volatile int partitionCount;
+    private volatile boolean ownershipChanged;
+
+    public PropertyPartitionOwnership(
+            PropertyRepository propertyRepository,
+            SubscriptionCache subscriptionCache,
+            @Value("${kafka.topic.inventory-by-property}") String repartitionTopic) {
+        this.propertyRepository = propertyRepository;
+        this.subscriptionCache = subscriptionCache;
+        this.repartitionTopic = repartitionTopic;
+    }
+
+    @Override
+    public void onPartitionsAssigned(Consumer<?, ?> consumer, Collection<TopicPartition> partitions) {
+        List<Integer> assigned = repartitionPartitions(partitions);
+        if (!assigned.isEmpty()) {
+            partitionCount = consumer.partitionsFor(repartitionTopic).size();
+            ownedPartitions.addAll(assigned);
+            ownershipChanged = true;
+        }
+        if (ownershipChanged && partitionCount > 0) {
+            reconcile();
+        }
+    }
+
+    @Override
+    public void onPartitionsRevokedAfterCommit(Consumer<?, ?> consumer, Collection<TopicPartition> partitions) {
+        // Eviction is deferred to the next assignment so an eager revoke-all / reassign
+        // of the same partitions does not drop and reload the whole cache.
+        release(partitions);
+    }
+
+    @Override
+    public void onPartitionsLost(Consumer<?, ?> consumer, Collection<TopicPartition> partitions) {
+        release(partitions);
+    }
+
+    /**
+     * Whether the given property hashes to a partition this instance owns.
+     *
+     * @param propCode the property code
+     * @return true if this instance is responsible for the property
+     */
+    public boolean owns(String propCode) {
+        int count = partitionCount;
+        return count > 0 && ownedPartitions.contains(partitionFor(propCode, count));
+    }
+
+    /**
+     * Compute the partition the default Kafka partitioner assigns to a
+     * String-serialized propCode key.
+     *
+     * @param propCode      the property code used as the message key
+     * @param numPartitions the partition count of the repartition topic
+     * @return the target partition
+     */
+    static int partitionFor(String propCode, int numPartitions) {
+        return Utils.toPositive(Utils.murmur2(propCode.getBytes(StandardCharsets.UTF_8))) % numPartitions;
+    }
+
+    private void release(Collection<TopicPartition> partitions) {
+        List<Integer> revoked = repartitionPartitions(partitions);
+        if (!revoked.isEmpty()) {
+            revoked.forEach(ownedPartitions::remove);
+            ownershipChanged = true;
+        }
+    }
+
+    private synchronized void reconcile() {
+        ownershipChanged = false;
+        List<Property> owned = propertyRepository.findByPropCodeIsNotNull().stream()
+                .filter(property -> owns(property.getPropCode()))
+                .toList();
+        Set<String> ownedCodes = owned.stream().map(Property::getPropCode).collect(Collectors.toSet());
+        Set<String> cachedCodes = subscriptionCache.cachedPropCodes();
+
+        List<String> toEvict = cachedCodes.stream().filter(code -> !ownedCodes.contains(code)).toList();
+        List<Property> toLoad = owned.stream().filter(p -> !cachedCodes.contains(p.getPropCode())).toList();
+
+        subscriptionCache.evict(toEvict);
+        subscriptionCache.load(toLoad);
+
+        log.info("Shard ownership updated: partitions={} of {}, ownedProperties={}, loaded={}, evicted={}",
+                ownedPartitions, partitionCount, ownedCodes.size(), toLoad.size(), toEvict.size());
+    }
+
+    private List<Integer> repartitionPartitions(Collection<TopicPartition> partitions) {
+        return partitions.stream()
+                .filter(tp -> repartitionTopic.equals(tp.topic()))
+                .map(TopicPartition::partition)
+                .toList();
+    }
+}
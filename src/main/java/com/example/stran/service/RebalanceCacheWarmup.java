@@ -0,0 +1,217 @@
+package com.example.stran.service;
+
+import com.example.stran.entity.Property;
+import com.example.stran.repository.PropertyRepository;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.apache.kafka.clients.consumer.Consumer;
+import org.apache.kafka.clients.consumer.ConsumerConfig;
+import org.apache.kafka.clients.consumer.ConsumerRecord;
+import org.apache.kafka.clients.consumer.KafkaConsumer;
+import org.apache.kafka.common.TopicPartition;
+import org.apache.kafka.common.serialization.ByteArrayDeserializer;
+import org.apache.kafka.common.serialization.StringDeserializer;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnExpression;
+import org.springframework.kafka.listener.ConsumerAwareRebalanceListener;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.function.Supplier;
+
+/**
+ * Warms the {@link SubscriptionCache} for partitions of the inventory topic this
+ * instance is assigned, so that an instance inheriting partitions after a
+ * rebalance does not take the cold database path for every property in them.
+ *
+ * <p>On assignment the last {@code tail-records} records of each new partition are
+ * read by a short-lived, group-less consumer. Only keys are read; the source key is
+ * {@code propCode::ratePlanCode}. The properties recently seen there and their
+ * active subscriptions are then loaded into the cache. This runs on a background
+ * thread, and events processed before it finishes take the database path as before.
+ *
+ * <p>When partitions are revoked or lost, the properties warmed for them are
+ * evicted, unless they were also seen on a partition this instance still owns.
+ *
+ * <p>With {@code kafka.repartition.enabled=true} the cache already follows
+ * partition ownership through {@link PropertyPartitionOwnership}, so this
+ * listener is not registered.
+ */
+@Slf4j
+@Component
+@ConditionalOnExpression("${stran.rebalance-warmup.enabled:false} and !${kafka.repartition.enabled:false}")
+public class RebalanceCacheWarmup implements ConsumerAwareRebalanceListener {
+
+    private static final String KEY_SEPARATOR = "::";
+
+    private final PropertyRepository propertyRepository;
+    private final SubscriptionCache subscriptionCache;
+    private final String topic;
+    private final int tailRecords;
+    private final long timeoutMillis;
+    private final Supplier<Consumer<String, byte[]>> tailConsumers;
+    private final Executor executor;
+
+    private final Set<TopicPartition> owned = ConcurrentHashMap.newKeySet();
+    private final Map<TopicPartition, Set<String>> warmed = new HashMap<>();
+
+    @Autowired
+    public RebalanceCacheWarmup(
+            PropertyRepository propertyRepository,
+            SubscriptionCache subscriptionCache,
+            @Value("${kafka.topic.inventory}") String topic,
+            @Value("${spring.kafka.bootstrap-servers}") String bootstrapServers,
+            @Value("${stran.rebalance-warmup.tail-records:5000}") int tailRecords,
+            @Value("${stran.rebalance-warmup.timeout-ms:10000}") long timeoutMillis) {
+        this(propertyRepository, subscriptionCache, topic, tailRecords, timeoutMillis,
+                () -> new KafkaConsumer<>(Map.of(
+                        ConsumerConfig.BOOTSTRAP_SERVERS_CONFIG, bootstrapServers,
+                        ConsumerConfig.CLIENT_ID_CONFIG, "stran-rebalance-warmup",
+                        ConsumerConfig.ENABLE_AUTO_COMMIT_CONFIG, false),
+                        new StringDeserializer(), new ByteArrayDeserializer()),
+                Executors.newSingleThreadExecutor(r -> {
+                    Thread thread = new Thread(r, "rebalance-warmup");
+                    thread.setDaemon(true);
+                    return thread;
+                }));
+    }
+
+    RebalanceCacheWarmup(PropertyRepository propertyRepository, SubscriptionCache subscriptionCache, String topic,
+                         int tailRecords, long timeoutMillis,
+                         Supplier<Consumer<String, byte[]>> tailConsumers, Executor executor) {
+        this.propertyRepository = propertyRepository;
+        this.subscriptionCache = subscriptionCache;
+        this.topic = topic;
+        this.tailRecords = tailRecords;
+        this.timeoutMillis = timeoutMillis;
+        this.tailConsumers = tailConsumers;
+        this.executor = executor;
+    }
+
+    @Override
+    public void onPartitionsAssigned(Consumer<?, ?> consumer, Collection<TopicPartition> partitions) {
+        List<TopicPartition> assigned = partitions.stream().filter(tp -> topic.equals(tp.topic())).toList();
+        if (assigned.isEmpty()) {
+            return;
+        }
+        owned.addAll(assigned);
+        executor.execute(() -> {
+            try {
+                warm(assigned);
+            } catch (RuntimeException e) {
+                log.warn("Subscription cache warmup failed for partitions {}: {}", assigned, e.getMessage(), e);
+            }
+        });
+    }
+
+    @Override
+    public void onPartitionsRevokedAfterCommit(Consumer<?, ?> consumer, Collection<TopicPartition> partitions) {
+        release(partitions);
+    }
+
+    @Override
+    public void onPartitionsLost(Consumer<?, ?> consumer, Collection<TopicPartition> partitions) {
+        release(partitions);
+    }
+
+    @PreDestroy
+    void shutdown() {
+        if (executor instanceof ExecutorService service) {
+            service.shutdownNow();
+        }
+    }
+
+    /**
+     * @return the property code of a source record key, or {@code null} if the key has none
+     */
+    static String propCode(String key) {
+        if (key == null) {
+            return null;
+        }
+        int separator = key.indexOf(KEY_SEPARATOR);
+        String propCode = separator < 0 ? key : key.substring(0, separator);
+        return propCode.isBlank() ? null : propCode;
+    }
+
+    private void warm(List<TopicPartition> partitions) {
+        long start = System.currentTimeMillis();
+        Map<TopicPartition, Set<String>> seen = readTails(partitions);
+
+        int loaded;
+        synchronized (this) {
+            // Partitions revoked while their tails were read are not warmed
+            seen.keySet().retainAll(owned);
+            Set<String> cached = subscriptionCache.cachedPropCodes();
+            Set<String> toLoad = new HashSet<>();
+            seen.values().forEach(codes -> codes.stream().filter(code -> !cached.contains(code)).forEach(toLoad::add));
+            List<Property> properties = toLoad.isEmpty() ? List.of() : propertyRepository.findByPropCodeIn(toLoad);
+            subscriptionCache.load(properties);
+            warmed.putAll(seen);
+            loaded = properties.size();
+        }
+
+        log.info("Warmed subscription cache for partitions {}: {} recently seen propert(ies), {} loaded in {}ms",
+                seen.keySet(), seen.values().stream().mapToInt(Set::size).sum(), loaded,
+                System.currentTimeMillis() - start);
+    }
+
+    private Map<TopicPartition, Set<String>> readTails(List<TopicPartition> partitions) {
+        Map<TopicPartition, Set<String>> seen = new HashMap<>();
+        try (Consumer<String, byte[]> tail = tailConsumers.get()) {
+            tail.assign(partitions);
+            Map<TopicPartition, Long> beginning = tail.beginningOffsets(partitions);
+            Map<TopicPartition, Long> end = tail.endOffsets(partitions);
+            Set<TopicPartition> remaining = new HashSet<>();
+            for (TopicPartition partition : partitions) {
+                long from = Math.max(beginning.get(partition), end.get(partition) - tailRecords);
+                tail.seek(partition, from);
+                seen.put(partition, new HashSet<>());
+                if (from < end.get(partition)) {
+                    remaining.add(partition);
+                }
+            }
+
+            long deadline = System.currentTimeMillis() + timeoutMillis;
+            while (!remaining.isEmpty() && System.currentTimeMillis() < deadline) {
+                for (ConsumerRecord<String, byte[]> record : tail.poll(Duration.ofMillis(200))) {
+                    String propCode = propCode(record.key());
+                    if (propCode != null) {
+                        seen.get(new TopicPartition(record.topic(), record.partition())).add(propCode);
+                    }
+                }
+                remaining.removeIf(partition -> tail.position(partition) >= end.get(partition));
+            }
+            if (!remaining.isEmpty()) {
+                log.warn("Timed out after {}ms reading the tail of partitions {}; warming what was read",
+                        timeoutMillis, remaining);
+            }
+        }
+        return seen;
+    }
+
+    private synchronized void release(Collection<TopicPartition> partitions) {
+        Set<String> released = new HashSet<>();
+        for (TopicPartition partition : partitions) {
+            owned.remove(partition);
+            Set<String> codes = warmed.remove(partition);
+            if (codes != null) {
+                released.addAll(codes);
+            }
+        }
+        warmed.values().forEach(released::removeAll);
+        if (!released.isEmpty()) {
+            subscriptionCache.evict(released);
+        }
+    }
+}
@@ -0,0 +1,218 @@
+package com.example.stran.service;
+
+import com.example.stran.config.ShadowMatchingConfig;
+import com.example.stran.dto.inventory.InventoryEventBody;
+import com.example.stran.entity.StaySubscription;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.BeanFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnExpression;
+import org.springframework.stereotype.Component;
+
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.DoubleSupplier;
+import java.util.function.LongSupplier;
+import java.util.stream.Collectors;
+
+/**
+ * Shadow mode: runs a candidate {@link SubscriptionMatchingStrategy} on a sampled
+ * fraction of live events and compares the subscription IDs it matches with the
+ * primary strategy's, so a new matching engine can be validated under production
+ * traffic before it replaces the current one.
+ *
+ * <p>Enabled with {@code stran.matching.shadow.engine} ({@code db} or {@code mmap},
+ * different from {@code stran.matching.engine}); see {@link ShadowMatchingConfig}.
+ * After the primary strategy named by {@code stran.matching.shadow.primary} has
+ * matched an event, {@link InventoryEventProcessingService} offers the result here.
+ * A {@code sample-rate} fraction of events is re-matched by the candidate on a
+ * small pool of its own threads; a full queue drops the comparison instead of
+ * slowing the consumer. Shadow matches are only compared, never dispatched.
+ *
+ * <p>Published as {@code stran.shadow.comparisons} (tagged {@code outcome}:
+ * {@code match}, {@code mismatch}, {@code error} or {@code dropped}) and
+ * {@code stran.shadow.latency} (tagged {@code engine}: {@code primary} or
+ * {@code candidate}). At most one mismatch per {@code mismatch-log-interval-ms}
+ * is logged with the missing and extra subscription IDs.
+ *
+ * <p>The candidate runs shortly after the primary, so subscriptions changed in
+ * between, or not yet synced into an off-heap store, show up as mismatches too.
+ */
+@Slf4j
+@Component
+@ConditionalOnExpression("!'${stran.matching.shadow.engine:}'.isBlank()")
+public class ShadowMatching {
+
+    /** IDs logged per side of a mismatch; the counts are always logged in full. */
+    private static final int MAX_LOGGED_IDS = 20;
+
+    private final SubscriptionMatchingStrategy candidate;
+    private final String primary;
+    private final double sampleRate;
+    private final long mismatchLogIntervalNanos;
+    private final ExecutorService executor;
+    private final DoubleSupplier random;
+    private final LongSupplier nanoClock;
+
+    private final Counter matches;
+    private final Counter mismatches;
+    private final Counter errors;
+    private final Counter dropped;
+    private final Timer primaryLatency;
+    private final Timer candidateLatency;
+    private final AtomicLong lastMismatchLog;
+
+    @Autowired
+    public ShadowMatching(
+            BeanFactory beanFactory,
+            @Value("${stran.matching.shadow.primary:property-${stran.matching.engine:db}}") String primary,
+            @Value("${stran.matching.shadow.sample-rate:0.01}") double sampleRate,
+            @Value("${stran.matching.shadow.threads:1}") int threads,
+            @Value("${stran.matching.shadow.queue-capacity:1000}") int queueCapacity,
+            @Value("${stran.matching.shadow.mismatch-log-interval-ms:1000}") long mismatchLogIntervalMillis,
+            MeterRegistry meterRegistry) {
+        // The candidate is not an autowire candidate, so that it never joins the primary strategies
+        this(beanFactory.getBean(ShadowMatchingConfig.SHADOW_STRATEGY_BEAN, SubscriptionMatchingStrategy.class),
+                primary, sampleRate, mismatchLogIntervalMillis, shadowExecutor(threads, queueCapacity),
+                meterRegistry, () -> ThreadLocalRandom.current().nextDouble(), System::nanoTime);
+    }
+
+    ShadowMatching(SubscriptionMatchingStrategy candidate, String primary, double sampleRate,
+                   long mismatchLogIntervalMillis, ExecutorService executor, MeterRegistry meterRegistry,
+                   DoubleSupplier random, LongSupplier nanoClock) {
+        if (candidate.name().equals(primary)) {
+            throw new IllegalStateException("Shadow strategy " + candidate.name() + " is the primary strategy");
+        }
+        this.candidate = candidate;
+        this.primary = primary;
+        this.sampleRate = sampleRate;
+        this.mismatchLogIntervalNanos = TimeUnit.MILLISECONDS.toNanos(mismatchLogIntervalMillis);
+        this.executor = executor;
+        this.random = random;
+        this.nanoClock = nanoClock;
+        this.matches = comparisons(meterRegistry, "match");
+        this.mismatches = comparisons(meterRegistry, "mismatch");
+        this.errors = comparisons(meterRegistry, "error");
+        this.dropped = comparisons(meterRegistry, "dropped");
+        this.primaryLatency = latency(meterRegistry, "primary");
+        this.candidateLatency = latency(meterRegistry, "candidate");
+        this.lastMismatchLog = new AtomicLong(nanoClock.getAsLong() - mismatchLogIntervalNanos);
+        log.info("Shadow matching {} against {} on {}% of events", candidate.name(), primary, sampleRate * 100);
+    }
+
+    /**
+     * Offer a strategy's result for comparison. Ignored unless {@code strategy} is
+     * the primary and the event is sampled.
+     *
+     * @param strategy       name of the strategy that produced {@code primaryMatches}
+     * @param eventBody      the event it matched
+     * @param primaryMatches its matches
+     * @param primaryNanos   time it took to match
+     */
+    public void offer(String strategy, InventoryEventBody eventBody, List<StaySubscription> primaryMatches,
+                      long primaryNanos) {
+        if (!primary.equals(strategy) || random.getAsDouble() >= sampleRate) {
+            return;
+        }
+        Set<Long> expected = ids(primaryMatches);
+        try {
+            executor.execute(() -> compare(eventBody, expected, primaryNanos));
+        } catch (RejectedExecutionException e) {
+            dropped.increment();
+        }
+    }
+
+    @PreDestroy
+    void shutdown() {
+        executor.shutdownNow();
+    }
+
+    private void compare(InventoryEventBody eventBody, Set<Long> expected, long primaryNanos) {
+        Set<Long> actual;
+        long start = nanoClock.getAsLong();
+        try {
+            actual = candidate.supports(eventBody) ? ids(candidate.findMatchingSubscriptions(eventBody)) : Set.of();
+        } catch (RuntimeException e) {
+            errors.increment();
+            log.warn("Shadow strategy {} failed for propCode={}, date={}: {}",
+                    candidate.name(), eventBody.getPropCode(), eventBody.getStartDate(), e.getMessage());
+            return;
+        }
+        candidateLatency.record(nanoClock.getAsLong() - start, TimeUnit.NANOSECONDS);
+        primaryLatency.record(primaryNanos, TimeUnit.NANOSECONDS);
+
+        if (actual.equals(expected)) {
+            matches.increment();
+            return;
+        }
+        mismatches.increment();
+        if (shouldLogMismatch()) {
+            Set<Long> missing = difference(expected, actual);
+            Set<Long> extra = difference(actual, expected);
+            log.warn("Shadow mismatch for propCode={}, date={}: {} matched {}, {} matched {}; "
+                            + "missing {} {}, extra {} {}",
+                    eventBody.getPropCode(), eventBody.getStartDate(), primary, expected.size(),
+                    candidate.name(), actual.size(), missing.size(), head(missing), extra.size(), head(extra));
+        }
+    }
+
+    private boolean shouldLogMismatch() {
+        long now = nanoClock.getAsLong();
+        long last = lastMismatchLog.get();
+        return now - last >= mismatchLogIntervalNanos && lastMismatchLog.compareAndSet(last, now);
+    }
+
+    private static Set<Long> ids(List<StaySubscription> subscriptions) {
+        Set<Long> ids = new HashSet<>(subscriptions.size() * 2);
+        subscriptions.forEach(sub -> ids.add(sub.getId()));
+        return ids;
+    }
+
+    private static Set<Long> difference(Set<Long> left, Set<Long> right) {
+        return left.stream().filter(id -> !right.contains(id)).collect(Collectors.toCollection(TreeSet::new));
+    }
+
+    private static List<Long> head(Set<Long> ids) {
+        return ids.stream().limit(MAX_LOGGED_IDS).toList();
+    }
+
+    private static Counter comparisons(MeterRegistry meterRegistry, String outcome) {
+        return Counter.builder("stran.shadow.comparisons")
+                .description("Shadow matching comparisons by outcome")
+                .tag("outcome", outcome)
+                .register(meterRegistry);
+    }
+
+    private static Timer latency(MeterRegistry meterRegistry, String engine) {
+        return Timer.builder("stran.shadow.latency")
+                .description("Matching time of the primary and candidate strategies on shadowed events")
+                .tag("engine", engine)
+                .publishPercentileHistogram()
+                .register(meterRegistry);
+    }
+
+    private static ExecutorService shadowExecutor(int threads, int queueCapacity) {
+        AtomicInteger count = new AtomicInteger();
+        return new ThreadPoolExecutor(threads, threads, 0L, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(queueCapacity), r -> {
+                    Thread thread = new Thread(r, "shadow-matching-" + count.incrementAndGet());
+                    thread.setDaemon(true);
+                    return thread;
+                }, new ThreadPoolExecutor.AbortPolicy());
+    }
+}
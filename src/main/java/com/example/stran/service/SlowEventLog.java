@@ -0,0 +1,154 @@
+package com.example.stran.service;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Flight recorder for inventory events that take longer than
+ * {@code stran.slow-events.budget-ms} in the listener.
+ *
+ * <p>The {@code stran.slow-events.capacity} slowest events of the last
+ * {@code stran.slow-events.window} are kept in a min-heap on elapsed time: a new
+ * slow event replaces the fastest entry once the heap is full, and is dropped if it
+ * is faster than all of them. Entries older than the window are evicted first, so
+ * an old outlier cannot hide recent ones forever. Events under budget cost one
+ * comparison and take no lock; only slow events copy their {@link EventTrace} into
+ * an entry.
+ *
+ * <p>Each entry has the per-stage breakdown recorded on the listener thread.
+ * {@code other} is the time not covered by a stage, e.g. waiting in priority lanes,
+ * the rate governor or the ack tracker window. Publish acks complete on the
+ * producer thread and are not part of the breakdown.
+ */
+@Slf4j
+@Component
+public class SlowEventLog {
+
+    private final long budgetNanos;
+    private final int capacity;
+    private final Duration window;
+    private final Clock clock;
+    /** Fastest entry at the head; guarded by {@code this}. */
+    private final PriorityQueue<SlowEvent> heap;
+    private final AtomicLong recorded = new AtomicLong();
+    private final Counter slowEvents;
+
+    @Autowired
+    public SlowEventLog(
+            @Value("${stran.slow-events.budget-ms:1000}") long budgetMillis,
+            @Value("${stran.slow-events.capacity:64}") int capacity,
+            @Value("${stran.slow-events.window:PT15M}") Duration window,
+            MeterRegistry meterRegistry) {
+        this(budgetMillis, capacity, window, meterRegistry, Clock.systemUTC());
+    }
+
+    SlowEventLog(long budgetMillis, int capacity, Duration window, MeterRegistry meterRegistry, Clock clock) {
+        if (capacity < 1) {
+            throw new IllegalArgumentException("stran.slow-events.capacity must be at least 1");
+        }
+        this.budgetNanos = TimeUnit.MILLISECONDS.toNanos(budgetMillis);
+        this.capacity = capacity;
+        this.window = window;
+        this.clock = clock;
+        this.heap = new PriorityQueue<>(capacity, Comparator.comparing(SlowEvent::elapsed));
+        this.slowEvents = Counter.builder("stran.pipeline.slow-events")
+                .description("Inventory events processed over the latency budget")
+                .register(meterRegistry);
+    }
+
+    /**
+     * Record a processed event if it took longer than the budget.
+     *
+     * @param trace        the event's stage timings, from {@link PipelineMetrics#beginEvent()}
+     * @param elapsedNanos time the listener spent on the event
+     */
+    public void offer(EventTrace trace, long elapsedNanos, String topic, int partition, long offset,
+                      String propCode, String date) {
+        if (elapsedNanos <= budgetNanos || trace == null) {
+            return;
+        }
+        Map<PipelineMetrics.Stage, Duration> stages = new EnumMap<>(PipelineMetrics.Stage.class);
+        long staged = 0;
+        for (PipelineMetrics.Stage stage : PipelineMetrics.Stage.values()) {
+            long nanos = trace.stageNanos[stage.ordinal()];
+            if (nanos > 0) {
+                stages.put(stage, Duration.ofNanos(nanos));
+                staged += nanos;
+            }
+        }
+        SlowEvent event = new SlowEvent(clock.instant(), topic, partition, offset, propCode, date,
+                Duration.ofNanos(elapsedNanos), stages, Duration.ofNanos(Math.max(elapsedNanos - staged, 0)),
+                trace.candidates, trace.matches);
+        synchronized (this) {
+            evictExpired(event.recordedAt());
+            if (heap.size() < capacity) {
+                heap.add(event);
+            } else if (heap.peek().elapsed().compareTo(event.elapsed()) < 0) {
+                heap.poll();
+                heap.add(event);
+            }
+        }
+        recorded.incrementAndGet();
+        slowEvents.increment();
+        log.debug("Slow inventory event: {}", event);
+    }
+
+    /**
+     * @return the slowest events of the window, slowest first
+     */
+    public List<SlowEvent> slowest() {
+        List<SlowEvent> events;
+        synchronized (this) {
+            evictExpired(clock.instant());
+            events = new ArrayList<>(heap);
+        }
+        events.sort(Comparator.comparing(SlowEvent::elapsed).reversed());
+        return events;
+    }
+
+    public Duration budget() {
+        return Duration.ofNanos(budgetNanos);
+    }
+
+    public Duration window() {
+        return window;
+    }
+
+    /**
+     * @return slow events recorded since startup, including those evicted since
+     */
+    public long recorded() {
+        return recorded.get();
+    }
+
+    public synchronized void clear() {
+        heap.clear();
+    }
+
+    private void evictExpired(Instant now) {
+        Instant cutoff = now.minus(window);
+        heap.removeIf(event -> event.recordedAt().isBefore(cutoff));
+    }
+
+    public record SlowEvent(Instant recordedAt, String topic, int partition, long offset,
+                            String propCode, String date, Duration elapsed,
+                            Map<PipelineMetrics.Stage, Duration> stages, Duration other,
+                            int candidates, int matches) {
+    }
+}
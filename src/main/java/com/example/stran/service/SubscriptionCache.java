@@ -0,0 +1,199 @@
+package com.example.stran.service;
+
+import com.example.stran.entity.Property;
+import com.example.stran.entity.StaySubscription;
+import com.example.stran.repository.StaySubscriptionRepository;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnExpression;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.stream.Collectors;
+
+/**
+ * In-memory cache of active PROPERTY subscriptions, grouped by property and check-in date.
+ *
+ * <p>The cache holds only the properties that were explicitly {@link #load loaded}
+ * (e.g., the properties a shard-local instance owns). Lookups for any other
+ * property return {@link Optional#empty()} so callers fall back to the database.
+ *
+ * <p>Loaded properties are kept fresh by polling {@code updated_at} for rows
+ * changed since the last refresh; inserts, updates and status changes made by
+ * stran-subscription-service are applied in place.
+ *
+ * <p>Only registered when something loads it: {@link PropertyPartitionOwnership}
+ * ({@code kafka.repartition.enabled}) or {@link RebalanceCacheWarmup}
+ * ({@code stran.rebalance-warmup.enabled}).
+ */
+@Slf4j
+@Component
+@ConditionalOnExpression("${kafka.repartition.enabled:false} or ${stran.rebalance-warmup.enabled:false}")
+@RequiredArgsConstructor
+public class SubscriptionCache {
+
+    /** Re-read a small window before the high-water mark to tolerate clock skew between writers. */
+    private static final Duration REFRESH_OVERLAP = Duration.ofSeconds(5);
+
+    private final StaySubscriptionRepository subscriptionRepository;
+
+    private final Map<String, CachedProperty> byPropCode = new ConcurrentHashMap<>();
+    private final Map<Long, CachedProperty> byPropertyId = new ConcurrentHashMap<>();
+
+    private volatile Instant highWaterMark = Instant.EPOCH;
+
+    /**
+     * Look up cached candidates for a property and check-in date.
+     *
+     * @param propCode    the property code from the inventory event
+     * @param checkInDate the date from the inventory event
+     * @return the cached ACTIVE PROPERTY subscriptions, or empty if the property is not cached
+     */
+    public Optional<List<StaySubscription>> find(String propCode, LocalDate checkInDate) {
+        CachedProperty cached = byPropCode.get(propCode);
+        if (cached == null) {
+            return Optional.empty();
+        }
+        return Optional.of(cached.byDate.getOrDefault(checkInDate, List.of()));
+    }
+
+    /**
+     * Load all ACTIVE PROPERTY subscriptions for the given properties into the cache.
+     *
+     * @param properties the properties to cache
+     */
+    public void load(Collection<Property> properties) {
+        if (properties.isEmpty()) {
+            return;
+        }
+        if (byPropCode.isEmpty()) {
+            highWaterMark = Instant.now();
+        }
+
+        Map<Long, Property> propertiesById = properties.stream()
+                .collect(Collectors.toMap(Property::getPropertyId, p -> p, (a, b) -> a));
+        Map<Long, List<StaySubscription>> subscriptionsByProperty = subscriptionRepository
+                .findActivePropertySubscriptions(propertiesById.keySet()).stream()
+                .collect(Collectors.groupingBy(StaySubscription::getPropertyId));
+
+        propertiesById.values().forEach(property -> {
+            CachedProperty cached = new CachedProperty(property.getPropertyId(), property.getPropCode());
+            subscriptionsByProperty.getOrDefault(property.getPropertyId(), List.of())
+                    .forEach(sub -> cached.byId.put(sub.getId(), sub));
+            cached.rebuildIndex();
+            byPropCode.put(cached.propCode, cached);
+            byPropertyId.put(cached.propertyId, cached);
+        });
+
+        log.info("Loaded {} propert(ies) with {} subscription(s) into subscription cache",
+                propertiesById.size(), subscriptionsByProperty.values().stream().mapToInt(List::size).sum());
+    }
+
+    /**
+     * Drop the given properties from the cache.
+     *
+     * @param propCodes the property codes to evict
+     */
+    public void evict(Collection<String> propCodes) {
+        propCodes.forEach(propCode -> {
+            CachedProperty removed = byPropCode.remove(propCode);
+            if (removed != null) {
+                byPropertyId.remove(removed.propertyId);
+            }
+        });
+        if (!propCodes.isEmpty()) {
+            log.info("Evicted {} propert(ies) from subscription cache", propCodes.size());
+        }
+    }
+
+    /**
+     * @return the property codes currently held in the cache
+     */
+    public Set<String> cachedPropCodes() {
+        return Set.copyOf(byPropCode.keySet());
+    }
+
+    /**
+     * @return the total number of subscriptions held in the cache
+     */
+    public int size() {
+        return byPropCode.values().stream().mapToInt(cached -> cached.byId.size()).sum();
+    }
+
+    /**
+     * Apply subscription changes made since the last refresh to the cached properties.
+     */
+    @Scheduled(fixedDelayString = "${stran.subscription-cache.refresh-interval-ms:30000}")
+    public void refresh() {
+        if (byPropCode.isEmpty()) {
+            highWaterMark = Instant.now();
+            return;
+        }
+
+        List<StaySubscription> changes = subscriptionRepository
+                .findByUpdatedAtAfterOrderByUpdatedAtAsc(highWaterMark.minus(REFRESH_OVERLAP));
+
+        int applied = 0;
+        for (StaySubscription sub : changes) {
+            CachedProperty cached = sub.getPropertyId() == null ? null : byPropertyId.get(sub.getPropertyId());
+            if (cached != null) {
+                cached.apply(sub);
+                applied++;
+            }
+            if (sub.getUpdatedAt().isAfter(highWaterMark)) {
+                highWaterMark = sub.getUpdatedAt();
+            }
+        }
+
+        if (applied > 0) {
+            log.debug("Applied {} subscription change(s) to subscription cache, highWaterMark={}",
+                    applied, highWaterMark);
+        }
+    }
+
+    /**
+     * Subscriptions for a single cached property. Writers rebuild the date index
+     * under the instance lock and publish it as an immutable map.
+     */
+    private static final class CachedProperty {
+
+        private final Long propertyId;
+        private final String propCode;
+        private final Map<Long, StaySubscription> byId = new ConcurrentHashMap<>();
+        private volatile Map<LocalDate, List<StaySubscription>> byDate = Map.of();
+
+        private CachedProperty(Long propertyId, String propCode) {
+            this.propertyId = propertyId;
+            this.propCode = propCode;
+        }
+
+        private synchronized void apply(StaySubscription sub) {
+            if (sub.isActive() && sub.isPropertySubscription()) {
+                byId.put(sub.getId(), sub);
+            } else {
+                byId.remove(sub.getId());
+            }
+            rebuildIndex();
+        }
+
+        private synchronized void rebuildIndex() {
+            Map<LocalDate, List<StaySubscription>> index = new HashMap<>();
+            byId.values().forEach(sub ->
+                    index.computeIfAbsent(sub.getCheckInDate(), d -> new ArrayList<>()).add(sub));
+            Map<LocalDate, List<StaySubscription>> frozen = new HashMap<>();
+            index.forEach((date, subs) -> frozen.put(date, List.copyOf(subs)));
+            byDate = Map.copyOf(frozen);
+        }
+    }
+}
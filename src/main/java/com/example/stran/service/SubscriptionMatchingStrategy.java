@@ -30,4 +30,13 @@ public interface SubscriptionMatchingStrategy {
      * @return true if this strategy can handle the event
      */
     boolean supports(InventoryEventBody eventBody);
+
+    /**
+     * Short name used to tag metrics and latency breakdowns.
+     *
+     * @return the strategy name
+     */
+    default String name() {
+        return getClass().getSimpleName();
+    }
 }
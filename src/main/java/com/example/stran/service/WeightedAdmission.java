@@ -0,0 +1,160 @@
+package com.example.stran.service;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Bounds the number of inventory events in process across several sources and,
+ * once that bound is reached, admits waiting sources by smooth weighted
+ * round-robin on their weights, the same scheme {@link NotificationPriorityLanes}
+ * uses for its lanes.
+ *
+ * <p>A source waits at most {@code maxWaitMillis} and is then admitted over the
+ * bound, so a starved consumer thread never exceeds its poll interval.
+ */
+public class WeightedAdmission {
+
+    private final int[] weights;
+    private final int maxInProcess;
+    private final long maxWaitNanos;
+
+    private final ReentrantLock lock = new ReentrantLock();
+    private final Condition[] turns;
+    private final int[] waiting;
+    private final int[] granted;
+    private final long[] current;
+    private int inProcess;
+
+    /**
+     * @param weights       admission weight per source, indexed by source
+     * @param maxInProcess  events in process across all sources before sources take turns
+     * @param maxWaitMillis longest a source waits for its turn before it is admitted anyway
+     */
+    public WeightedAdmission(int[] weights, int maxInProcess, long maxWaitMillis) {
+        for (int weight : weights) {
+            if (weight < 1) {
+                throw new IllegalArgumentException("Source weights must be positive, got " + weight);
+            }
+        }
+        this.weights = weights.clone();
+        this.maxInProcess = maxInProcess;
+        this.maxWaitNanos = TimeUnit.MILLISECONDS.toNanos(maxWaitMillis);
+        this.turns = new Condition[weights.length];
+        for (int i = 0; i < weights.length; i++) {
+            turns[i] = lock.newCondition();
+        }
+        this.waiting = new int[weights.length];
+        this.granted = new int[weights.length];
+        this.current = new long[weights.length];
+    }
+
+    /**
+     * Wait for the turn of {@code source}; always pair with {@link #release()}.
+     *
+     * @return {@code false} if the source was admitted over the bound after waiting {@code maxWaitMillis}
+     */
+    public boolean acquire(int source) {
+        lock.lock();
+        try {
+            if (inProcess < maxInProcess && queued() == 0) {
+                inProcess++;
+                return true;
+            }
+            waiting[source]++;
+            try {
+                long remaining = maxWaitNanos;
+                while (granted[source] == 0) {
+                    if (remaining <= 0) {
+                        inProcess++;
+                        return false;
+                    }
+                    try {
+                        remaining = turns[source].awaitNanos(remaining);
+                    } catch (InterruptedException e) {
+                        Thread.currentThread().interrupt();
+                        remaining = 0;
+                    }
+                }
+                // Counted in process when granted
+                granted[source]--;
+                return true;
+            } finally {
+                waiting[source]--;
+            }
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Finish an event admitted by {@link #acquire(int)} and hand its slot to the next source in turn.
+     */
+    public void release() {
+        lock.lock();
+        try {
+            inProcess--;
+            while (inProcess < maxInProcess) {
+                int next = next();
+                if (next < 0) {
+                    return;
+                }
+                granted[next]++;
+                inProcess++;
+                turns[next].signal();
+            }
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * @return events currently in process
+     */
+    public int inProcess() {
+        lock.lock();
+        try {
+            return inProcess;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * @return threads waiting for a turn that has not been granted yet
+     */
+    int waiting() {
+        lock.lock();
+        try {
+            return queued();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private int queued() {
+        int queued = 0;
+        for (int i = 0; i < waiting.length; i++) {
+            queued += waiting[i] - granted[i];
+        }
+        return queued;
+    }
+
+    private int next() {
+        int total = 0;
+        int best = -1;
+        for (int i = 0; i < weights.length; i++) {
+            if (waiting[i] - granted[i] > 0) {
+                current[i] += weights[i];
+                total += weights[i];
+                if (best < 0 || current[i] > current[best]) {
+                    best = i;
+                }
+            }
+        }
+        if (best >= 0) {
+            current[best] -= total;
+        }
+        return best;
+    }
+}
@@ -0,0 +1,76 @@
+package com.example.stran.sketch;
+
+import java.util.Arrays;
+
+/**
+ * Count-min sketch over string keys: {@code depth} rows of {@code width} counters,
+ * one counter per row incremented per key. An estimate is the minimum over the
+ * rows, which never undercounts and overcounts by at most {@code 2/width} of the
+ * total with probability {@code 1 - 2^-depth}.
+ *
+ * <p>Row indexes come from double hashing ({@code h1 + i * h2}) of the key's
+ * {@link String#hashCode()}, mixed with the MurmurHash3 finalizer.
+ *
+ * <p>Not thread-safe.
+ */
+public final class CountMinSketch {
+
+    private final int depth;
+    private final int mask;
+    private final long[] counters;
+
+    /**
+     * @param depth rows (independent hash functions), at least 1
+     * @param width counters per row, a power of two
+     */
+    public CountMinSketch(int depth, int width) {
+        if (depth < 1 || width < 1 || Integer.bitCount(width) != 1) {
+            throw new IllegalArgumentException("depth must be at least 1 and width a power of two");
+        }
+        this.depth = depth;
+        this.mask = width - 1;
+        this.counters = new long[depth * width];
+    }
+
+    /**
+     * Add {@code count} occurrences of a key.
+     *
+     * @return the key's estimated count after the update
+     */
+    public long add(String key, long count) {
+        int h1 = mix(key.hashCode());
+        int h2 = mix(h1 ^ 0x9E3779B9) | 1;
+        long estimate = Long.MAX_VALUE;
+        for (int row = 0; row < depth; row++) {
+            int index = row * (mask + 1) + ((h1 + row * h2) & mask);
+            estimate = Math.min(estimate, counters[index] += count);
+        }
+        return estimate;
+    }
+
+    /**
+     * @return the key's estimated count, never lower than the true count
+     */
+    public long estimate(String key) {
+        int h1 = mix(key.hashCode());
+        int h2 = mix(h1 ^ 0x9E3779B9) | 1;
+        long estimate = Long.MAX_VALUE;
+        for (int row = 0; row < depth; row++) {
+            estimate = Math.min(estimate, counters[row * (mask + 1) + ((h1 + row * h2) & mask)]);
+        }
+        return estimate;
+    }
+
+    public void clear() {
+        Arrays.fill(counters, 0L);
+    }
+
+    private static int mix(int h) {
+        h ^= h >>> 16;
+        h *= 0x85EBCA6B;
+        h ^= h >>> 13;
+        h *= 0xC2B2AE35;
+        h ^= h >>> 16;
+        return h;
+    }
+}
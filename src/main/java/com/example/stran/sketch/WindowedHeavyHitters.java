@@ -0,0 +1,215 @@
+package com.example.stran.sketch;
+
+import java.time.Clock;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * The heaviest keys of a stream over a sliding window, in constant memory.
+ *
+ * <p>The window is split into {@code buckets} time slices. Each slice has a
+ * {@link CountMinSketch} for counts and a candidate set of at most
+ * {@code 2 * topK} keys with the highest estimates seen in that slice. A query
+ * merges the live slices: every candidate is re-estimated as the sum of its
+ * per-slice sketch estimates. The oldest slice is dropped as the window slides, so
+ * the window is accurate to one slice.
+ *
+ * <p>Keys are spread by hash over {@code stripes} independent copies of that
+ * structure, each with its own lock and {@code width / stripes} counters per row,
+ * so concurrent writers of different keys rarely contend. A key always lands in the
+ * same stripe, and a stripe sees only its share of the stream, so while keys spread
+ * evenly the error bound stays about that of a single sketch of {@code width}.
+ * Queries merge the stripes.
+ *
+ * <p>Memory is {@code buckets * (depth * width + stripes * 2 * topK)} entries,
+ * independent of the number of distinct keys. Thread-safe.
+ */
+public final class WindowedHeavyHitters {
+
+    private final Stripe[] stripes;
+    private final int stripeShift;
+    private final long bucketMillis;
+    private final int topK;
+    private final Clock clock;
+
+    /**
+     * @param window  length of the sliding window
+     * @param buckets slices the window is divided into
+     * @param topK    keys reported by {@link #top()}
+     * @param depth   sketch rows
+     * @param width   sketch counters per row across all stripes, a power of two
+     * @param stripes independently locked stripes, a power of two no larger than {@code width}
+     */
+    public WindowedHeavyHitters(Duration window, int buckets, int topK, int depth, int width, int stripes,
+                                Clock clock) {
+        if (buckets < 1 || topK < 1 || window.toMillis() < buckets) {
+            throw new IllegalArgumentException("buckets and topK must be at least 1, window at least 1ms per bucket");
+        }
+        if (stripes < 1 || Integer.bitCount(stripes) != 1 || stripes > width) {
+            throw new IllegalArgumentException("stripes must be a power of two no larger than width");
+        }
+        this.bucketMillis = window.toMillis() / buckets;
+        this.stripes = new Stripe[stripes];
+        for (int i = 0; i < stripes; i++) {
+            this.stripes[i] = new Stripe(buckets, 2 * topK, depth, width / stripes);
+        }
+        this.stripeShift = Integer.SIZE - Integer.numberOfTrailingZeros(stripes);
+        this.topK = topK;
+        this.clock = clock;
+    }
+
+    /**
+     * Add {@code count} occurrences of a key at the current time.
+     */
+    public void add(String key, long count) {
+        if (count <= 0) {
+            return;
+        }
+        stripe(key).add(key, count, clock.millis() / bucketMillis);
+    }
+
+    /**
+     * @return the heaviest keys in the window with their estimated counts, heaviest first
+     */
+    public List<HeavyHitter> top() {
+        long current = clock.millis() / bucketMillis;
+        List<HeavyHitter> hitters = new ArrayList<>();
+        for (Stripe stripe : stripes) {
+            stripe.collect(current, hitters);
+        }
+        hitters.sort(Comparator.comparingLong(HeavyHitter::count).reversed().thenComparing(HeavyHitter::key));
+        return hitters.size() > topK ? List.copyOf(hitters.subList(0, topK)) : hitters;
+    }
+
+    /**
+     * @return the total count added in the window
+     */
+    public long total() {
+        long current = clock.millis() / bucketMillis;
+        long total = 0;
+        for (Stripe stripe : stripes) {
+            total += stripe.total(current);
+        }
+        return total;
+    }
+
+    public Duration window() {
+        return Duration.ofMillis(bucketMillis * stripes[0].buckets.length);
+    }
+
+    private Stripe stripe(String key) {
+        // Top bits of a Fibonacci hash: independent of the low bits the sketch rows use
+        return stripes.length == 1 ? stripes[0] : stripes[(key.hashCode() * 0x9E3779B9) >>> stripeShift];
+    }
+
+    public record HeavyHitter(String key, long count) {
+    }
+
+    /**
+     * The sliding window of the keys hashed to one stripe.
+     */
+    private static final class Stripe {
+
+        private final Bucket[] buckets;
+
+        private Stripe(int buckets, int capacity, int depth, int width) {
+            this.buckets = new Bucket[buckets];
+            for (int i = 0; i < buckets; i++) {
+                this.buckets[i] = new Bucket(new CountMinSketch(depth, width), capacity);
+            }
+        }
+
+        private synchronized void add(String key, long count, long slice) {
+            Bucket bucket = buckets[(int) (slice % buckets.length)];
+            if (bucket.slice != slice) {
+                bucket.reset(slice);
+            }
+            bucket.total += count;
+            bucket.offer(key, bucket.sketch.add(key, count));
+        }
+
+        private synchronized void collect(long current, List<HeavyHitter> hitters) {
+            long oldest = current - buckets.length + 1;
+            Set<String> candidates = new HashSet<>();
+            for (Bucket bucket : buckets) {
+                if (bucket.slice >= oldest) {
+                    candidates.addAll(bucket.candidates.keySet());
+                }
+            }
+            for (String key : candidates) {
+                long estimate = 0;
+                for (Bucket bucket : buckets) {
+                    if (bucket.slice >= oldest) {
+                        estimate += bucket.sketch.estimate(key);
+                    }
+                }
+                hitters.add(new HeavyHitter(key, estimate));
+            }
+        }
+
+        private synchronized long total(long current) {
+            long oldest = current - buckets.length + 1;
+            long total = 0;
+            for (Bucket bucket : buckets) {
+                if (bucket.slice >= oldest) {
+                    total += bucket.total;
+                }
+            }
+            return total;
+        }
+    }
+
+    private static final class Bucket {
+
+        private final CountMinSketch sketch;
+        private final int capacity;
+        private final Map<String, Long> candidates;
+        private long slice = Long.MIN_VALUE;
+        private long total;
+        /** Lower bound of the smallest candidate estimate; recomputed only when it may be exceeded. */
+        private long floor;
+
+        private Bucket(CountMinSketch sketch, int capacity) {
+            this.sketch = sketch;
+            this.capacity = capacity;
+            this.candidates = new HashMap<>(capacity * 2);
+        }
+
+        private void reset(long slice) {
+            this.slice = slice;
+            sketch.clear();
+            candidates.clear();
+            total = 0;
+            floor = 0;
+        }
+
+        private void offer(String key, long estimate) {
+            if (candidates.containsKey(key) || candidates.size() < capacity) {
+                candidates.put(key, estimate);
+                return;
+            }
+            if (estimate <= floor) {
+                return;
+            }
+            String smallest = null;
+            long smallestEstimate = Long.MAX_VALUE;
+            for (Map.Entry<String, Long> candidate : candidates.entrySet()) {
+                if (candidate.getValue() < smallestEstimate) {
+                    smallest = candidate.getKey();
+                    smallestEstimate = candidate.getValue();
+                }
+            }
+            floor = smallestEstimate;
+            if (estimate > smallestEstimate) {
+                candidates.remove(smallest);
+                candidates.put(key, estimate);
+            }
+        }
+    }
+}
@@ -0,0 +1,325 @@
+package com.example.stran.store;
+
+import lombok.extern.slf4j.Slf4j;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.VarHandle;
+import java.nio.ByteOrder;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.TreeMap;
+import java.util.zip.CRC32;
+
+/**
+ * Append-only local log of opaque entries, stored in fixed-size memory-mapped
+ * segment files and consumed in order by a single reader.
+ *
+ * <p>Directory layout:
+ * <ul>
+ *   <li>{@code segment-<seq>.log} — entries framed as {@code [int length][int crc32][payload]},
+ *       padded to 8 bytes;
+ *       a zero length marks the end of written data and {@code -1} a segment that
+ *       was rolled before it was full</li>
+ *   <li>{@code cursor} — the read position, packed as {@code segment << 32 | offset}
+ *       into one 8-byte word so it is updated atomically</li>
+ * </ul>
+ *
+ * <p>An entry's length is published last (release store), so an entry is either
+ * fully visible or not at all; on open, the write position is recovered by
+ * scanning the last segment up to the first unwritten or corrupt frame. Segments
+ * are deleted once the reader has moved past them. Writes go to the page cache
+ * and survive a process crash; {@link #flush()} forces them to disk.
+ *
+ * <p>All methods are {@code synchronized}; the log is written only while the
+ * downstream it buffers for is unavailable, so contention is not a concern.
+ */
+@Slf4j
+public final class MappedOutboxLog implements Closeable {
+
+    private static final int FRAME_HEADER = 8;
+    private static final int ROLLED = -1;
+    private static final String SEGMENT_PREFIX = "segment-";
+    private static final String SEGMENT_SUFFIX = ".log";
+
+    private static final VarHandle INT = MethodHandles.byteBufferViewVarHandle(int[].class, ByteOrder.BIG_ENDIAN);
+    private static final VarHandle LONG = MethodHandles.byteBufferViewVarHandle(long[].class, ByteOrder.BIG_ENDIAN);
+
+    private final Path directory;
+    private final int segmentBytes;
+    private final int maxSegments;
+    private final TreeMap<Long, MappedByteBuffer> segments = new TreeMap<>();
+    private final MappedByteBuffer cursor;
+
+    private long writeSegment;
+    private int writeOffset;
+    private long readSegment;
+    private int readOffset;
+    private long pending;
+    private long pendingBytes;
+
+    private MappedOutboxLog(Path directory, int segmentBytes, int maxSegments, MappedByteBuffer cursor) {
+        this.directory = directory;
+        this.segmentBytes = segmentBytes;
+        this.maxSegments = maxSegments;
+        this.cursor = cursor;
+    }
+
+    /**
+     * Open (or create) a log directory, recovering the read and write positions.
+     *
+     * @param directory    directory holding the segment files
+     * @param segmentBytes size of each segment file; bounds the size of a single entry
+     * @param maxSegments  maximum number of segments on disk before appends are rejected
+     * @return the opened log
+     * @throws IOException if the directory or files cannot be created or mapped
+     */
+    public static MappedOutboxLog open(Path directory, int segmentBytes, int maxSegments) throws IOException {
+        if (segmentBytes < 64 || segmentBytes % 8 != 0 || maxSegments < 2) {
+            throw new IllegalArgumentException("Segments must be a multiple of 8 bytes, at least 64, and at least 2 segments allowed");
+        }
+        Files.createDirectories(directory);
+        MappedByteBuffer cursor;
+        try (FileChannel channel = FileChannel.open(directory.resolve("cursor"),
+                StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE)) {
+            cursor = channel.map(FileChannel.MapMode.READ_WRITE, 0, Long.BYTES);
+        }
+        MappedOutboxLog outbox = new MappedOutboxLog(directory, segmentBytes, maxSegments, cursor);
+        outbox.recover();
+        log.info("Opened outbox log at {}: {} pending entr(ies) in {} segment(s)",
+                directory, outbox.pending, outbox.segments.size());
+        return outbox;
+    }
+
+    /**
+     * Append an entry.
+     *
+     * @throws OutboxFullException      if {@code maxSegments} segments are already in use
+     * @throws IllegalArgumentException if the entry cannot fit in a segment
+     */
+    public synchronized void append(byte[] payload) {
+        int frame = frameSize(payload.length);
+        if (frame > segmentBytes - Integer.BYTES) {
+            throw new IllegalArgumentException("Entry of " + payload.length + " bytes exceeds segment size " + segmentBytes);
+        }
+        if (writeOffset + frame > segmentBytes - Integer.BYTES) {
+            roll();
+        }
+
+        MappedByteBuffer segment = segment(writeSegment);
+        CRC32 crc = new CRC32();
+        crc.update(payload);
+        segment.putInt(writeOffset + Integer.BYTES, (int) crc.getValue());
+        segment.put(writeOffset + FRAME_HEADER, payload);
+        // Terminate the next frame before publishing this one so a reader never runs past the end
+        INT.setRelease(segment, writeOffset + frame, 0);
+        INT.setRelease(segment, writeOffset, payload.length);
+
+        writeOffset += frame;
+        pending++;
+        pendingBytes += payload.length;
+    }
+
+    /**
+     * Read up to {@code max} entries from the read position without consuming them.
+     */
+    public synchronized List<byte[]> peek(int max) {
+        List<byte[]> entries = new ArrayList<>(Math.min(max, 256));
+        long seq = readSegment;
+        int offset = readOffset;
+        while (entries.size() < max) {
+            MappedByteBuffer segment = segment(seq);
+            int length = (int) INT.getAcquire(segment, offset);
+            if (length == ROLLED) {
+                seq++;
+                offset = 0;
+                continue;
+            }
+            if (length <= 0) {
+                break;
+            }
+            byte[] payload = new byte[length];
+            segment.get(offset + FRAME_HEADER, payload);
+            entries.add(payload);
+            offset += frameSize(length);
+        }
+        return entries;
+    }
+
+    /**
+     * Consume {@code count} entries from the read position, deleting segments the
+     * reader has fully passed.
+     */
+    public synchronized void advance(int count) {
+        for (int i = 0; i < count; i++) {
+            skipRolledSegments();
+            int length = (int) INT.getAcquire(segment(readSegment), readOffset);
+            if (length <= 0) {
+                throw new IllegalStateException("Advanced past the end of the outbox log");
+            }
+            readOffset += frameSize(length);
+            pending--;
+            pendingBytes -= length;
+        }
+        skipRolledSegments();
+        LONG.setRelease(cursor, 0, (readSegment << 32) | readOffset);
+    }
+
+    private void skipRolledSegments() {
+        while ((int) INT.getAcquire(segment(readSegment), readOffset) == ROLLED) {
+            deleteSegment(readSegment);
+            readSegment++;
+            readOffset = 0;
+        }
+    }
+
+    /**
+     * @return entries appended but not yet consumed
+     */
+    public synchronized long pending() {
+        return pending;
+    }
+
+    /**
+     * @return payload bytes appended but not yet consumed
+     */
+    public synchronized long pendingBytes() {
+        return pendingBytes;
+    }
+
+    /**
+     * Force written entries and the read position to disk.
+     */
+    public synchronized void flush() {
+        segments.values().forEach(MappedByteBuffer::force);
+        cursor.force();
+    }
+
+    @Override
+    public synchronized void close() {
+        flush();
+        segments.clear();
+    }
+
+    private void recover() throws IOException {
+        List<Long> existing = new ArrayList<>();
+        try (DirectoryStream<Path> files = Files.newDirectoryStream(directory, SEGMENT_PREFIX + "*" + SEGMENT_SUFFIX)) {
+            for (Path file : files) {
+                String name = file.getFileName().toString();
+                existing.add(Long.parseLong(name.substring(SEGMENT_PREFIX.length(), name.length() - SEGMENT_SUFFIX.length())));
+            }
+        }
+        existing.sort(null);
+
+        long position = (long) LONG.getAcquire(cursor, 0);
+        readSegment = position >>> 32;
+        readOffset = (int) position;
+        if (existing.isEmpty() || readSegment < existing.get(0) || readSegment > existing.get(existing.size() - 1)) {
+            readSegment = existing.isEmpty() ? 0 : existing.get(0);
+            readOffset = 0;
+        }
+        for (long seq : existing) {
+            if (seq < readSegment) {
+                Files.deleteIfExists(segmentPath(seq));
+            }
+        }
+
+        // Scan from the read position, counting entries and finding the end of valid data
+        long seq = readSegment;
+        int offset = readOffset;
+        while (true) {
+            MappedByteBuffer segment = segment(seq);
+            int length = offset + FRAME_HEADER <= segmentBytes ? segment.getInt(offset) : 0;
+            if (length == ROLLED && Files.exists(segmentPath(seq + 1))) {
+                seq++;
+                offset = 0;
+                continue;
+            }
+            if (length <= 0 || length > segmentBytes || offset + frameSize(length) > segmentBytes - Integer.BYTES
+                    || !validCrc(segment, offset, length)) {
+                segment.putInt(offset, 0);
+                break;
+            }
+            offset += frameSize(length);
+            pending++;
+            pendingBytes += length;
+        }
+        writeSegment = seq;
+        writeOffset = offset;
+        for (long stale : existing) {
+            if (stale > writeSegment) {
+                Files.deleteIfExists(segmentPath(stale));
+            }
+        }
+    }
+
+    /**
+     * Frames are padded to 8 bytes so every length word is aligned for atomic access.
+     */
+    private static int frameSize(int length) {
+        return (FRAME_HEADER + length + 7) & ~7;
+    }
+
+    private boolean validCrc(MappedByteBuffer segment, int offset, int length) {
+        byte[] payload = new byte[length];
+        segment.get(offset + FRAME_HEADER, payload);
+        CRC32 crc = new CRC32();
+        crc.update(payload);
+        return segment.getInt(offset + Integer.BYTES) == (int) crc.getValue();
+    }
+
+    private void roll() {
+        if (writeSegment - readSegment + 1 >= maxSegments) {
+            throw new OutboxFullException("Outbox log full: " + maxSegments + " segments of " + segmentBytes + " bytes");
+        }
+        MappedByteBuffer current = segment(writeSegment);
+        int end = writeOffset;
+        current.force();
+        writeSegment++;
+        writeOffset = 0;
+        // Map (and so create) the next segment before the reader is pointed at it
+        segment(writeSegment);
+        INT.setRelease(current, end, ROLLED);
+    }
+
+    private MappedByteBuffer segment(long seq) {
+        return segments.computeIfAbsent(seq, s -> {
+            try (FileChannel channel = FileChannel.open(segmentPath(s),
+                    StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE)) {
+                return channel.map(FileChannel.MapMode.READ_WRITE, 0, segmentBytes);
+            } catch (IOException e) {
+                throw new IllegalStateException("Cannot map outbox segment " + s, e);
+            }
+        });
+    }
+
+    private void deleteSegment(long seq) {
+        segments.remove(seq);
+        try {
+            Files.deleteIfExists(segmentPath(seq));
+        } catch (IOException e) {
+            log.warn("Could not delete drained outbox segment {}: {}", seq, e.getMessage());
+        }
+    }
+
+    private Path segmentPath(long seq) {
+        return directory.resolve(String.format("%s%020d%s", SEGMENT_PREFIX, seq, SEGMENT_SUFFIX));
+    }
+
+    /**
+     * Thrown when the log has reached its segment limit.
+     */
+    public static class OutboxFullException extends IllegalStateException {
+
+        public OutboxFullException(String message) {
+            super(message);
+        }
+    }
+}
@@ -0,0 +1,437 @@
+package com.example.stran.store;
+
+import lombok.extern.slf4j.Slf4j;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.VarHandle;
+import java.nio.ByteOrder;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.Instant;
+
+/**
+ * Off-heap subscription store backed by a memory-mapped file of fixed-width records.
+ *
+ * <p>Only the fields needed for PROPERTY matching are kept: subscription id,
+ * propertyId, check-in epoch day, nights and a reference into an append-only
+ * guest-ID string region. Two open-addressing hash indexes live in the same file:
+ * <ul>
+ *   <li>(propertyId, epochDay) → head of a singly-linked chain of records</li>
+ *   <li>subscription id → record slot, used to apply updates and removals</li>
+ * </ul>
+ *
+ * <p>The store survives restarts: the header records a {@code updated_at}
+ * high-water mark, so only rows changed after it need to be re-synced. A dirty
+ * flag is set while a batch of writes is in progress; a store opened with the
+ * flag still set (crash mid-batch) or with a different layout is rebuilt empty.
+ *
+ * <p>Concurrency: a single writer (all mutators are {@code synchronized}) and any
+ * number of lock-free readers. Chain heads, index slots and record flags are
+ * published with release/acquire semantics so readers never observe a
+ * partially written record.
+ *
+ * <p>Slots of removed or re-keyed records are not reused; when the record or
+ * guest region is exhausted {@link StoreFullException} is thrown and the
+ * owner is expected to {@link #clear()} and reload.
+ */
+@Slf4j
+public final class MappedSubscriptionStore implements Closeable {
+
+    private static final int MAGIC = 0x5354524E; // "STRN"
+    private static final int VERSION = 1;
+
+    /* ---- Header layout ---- */
+    private static final int HEADER_SIZE = 4096;
+    private static final int H_MAGIC = 0;
+    private static final int H_VERSION = 4;
+    private static final int H_RECORD_CAPACITY = 8;
+    private static final int H_INDEX_CAPACITY = 12;
+    private static final int H_RECORD_COUNT = 16;
+    private static final int H_LIVE_COUNT = 20;
+    private static final int H_GUEST_BYTES_USED = 24;
+    private static final int H_GUEST_CAPACITY = 32;
+    private static final int H_HWM_SECONDS = 40;
+    private static final int H_HWM_NANOS = 48;
+    private static final int H_DIRTY = 52;
+
+    /* ---- Record layout (40 bytes) ---- */
+    private static final int RECORD_SIZE = 40;
+    private static final int R_ID = 0;
+    private static final int R_PROPERTY_ID = 8;
+    private static final int R_EPOCH_DAY = 16;
+    private static final int R_NIGHTS = 20;
+    private static final int R_GUEST_REF = 24;
+    private static final int R_NEXT = 32;
+    private static final int R_FLAGS = 36;
+    private static final int FLAG_LIVE = 1;
+
+    /* ---- Index slot layout (16 bytes); slot references are stored +1 so 0 means empty ---- */
+    private static final int SLOT_SIZE = 16;
+    private static final int K_PROPERTY_ID = 0;
+    private static final int K_EPOCH_DAY = 8;
+    private static final int K_HEAD = 12;
+    private static final int I_ID = 0;
+    private static final int I_RECORD = 8;
+
+    private static final VarHandle INT = MethodHandles.byteBufferViewVarHandle(int[].class, ByteOrder.BIG_ENDIAN);
+
+    private final FileChannel channel;
+    private final MappedByteBuffer header;
+    private final MappedByteBuffer records;
+    private final MappedByteBuffer keyIndex;
+    private final MappedByteBuffer idIndex;
+    private final MappedByteBuffer guests;
+
+    private final int recordCapacity;
+    private final int indexCapacity;
+    private final long guestCapacity;
+
+    private MappedSubscriptionStore(FileChannel channel, int recordCapacity, long guestCapacity) throws IOException {
+        this.channel = channel;
+        this.recordCapacity = recordCapacity;
+        this.indexCapacity = Integer.highestOneBit(Math.max(recordCapacity, 8) * 2 - 1) << 1;
+        this.guestCapacity = guestCapacity;
+
+        long recordsOffset = HEADER_SIZE;
+        long keyIndexOffset = recordsOffset + (long) recordCapacity * RECORD_SIZE;
+        long idIndexOffset = keyIndexOffset + (long) indexCapacity * SLOT_SIZE;
+        long guestsOffset = idIndexOffset + (long) indexCapacity * SLOT_SIZE;
+
+        this.header = channel.map(FileChannel.MapMode.READ_WRITE, 0, HEADER_SIZE);
+        this.records = channel.map(FileChannel.MapMode.READ_WRITE, recordsOffset, (long) recordCapacity * RECORD_SIZE);
+        this.keyIndex = channel.map(FileChannel.MapMode.READ_WRITE, keyIndexOffset, (long) indexCapacity * SLOT_SIZE);
+        this.idIndex = channel.map(FileChannel.MapMode.READ_WRITE, idIndexOffset, (long) indexCapacity * SLOT_SIZE);
+        this.guests = channel.map(FileChannel.MapMode.READ_WRITE, guestsOffset, guestCapacity);
+    }
+
+    /**
+     * Open (or create) a store file. An existing file is reused if its layout
+     * matches and it was closed cleanly; otherwise it is reset to empty.
+     *
+     * @param file           the backing file
+     * @param recordCapacity maximum number of records (live + dead)
+     * @param guestCapacity  size in bytes of the guest-ID string region
+     * @return the opened store
+     * @throws IOException if the file cannot be mapped
+     */
+    public static MappedSubscriptionStore open(Path file, int recordCapacity, long guestCapacity) throws IOException {
+        if (recordCapacity <= 0 || (long) recordCapacity * RECORD_SIZE > Integer.MAX_VALUE
+                || guestCapacity <= 0 || guestCapacity > Integer.MAX_VALUE) {
+            throw new IllegalArgumentException("Store regions must be between 1 byte and 2 GiB each");
+        }
+        if (file.getParent() != null) {
+            Files.createDirectories(file.getParent());
+        }
+        FileChannel channel = FileChannel.open(file,
+                StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE);
+        MappedSubscriptionStore store = new MappedSubscriptionStore(channel, recordCapacity, guestCapacity);
+
+        if (!store.isReusable()) {
+            log.info("Initializing subscription store at {} (capacity={} records)", file, recordCapacity);
+            store.clear();
+        } else {
+            log.info("Reusing subscription store at {}: {} live record(s), highWaterMark={}",
+                    file, store.size(), store.highWaterMark());
+        }
+        return store;
+    }
+
+    /**
+     * Visit every live record for a property and check-in date.
+     *
+     * @param propertyId the property ID
+     * @param epochDay   the check-in date as {@link java.time.LocalDate#toEpochDay()}
+     * @param visitor    callback receiving each live record
+     */
+    public void forEach(long propertyId, int epochDay, RecordVisitor visitor) {
+        int slot = findKeySlot(propertyId, epochDay);
+        if (slot < 0) {
+            return;
+        }
+        int ref = (int) INT.getAcquire(keyIndex, slot * SLOT_SIZE + K_HEAD);
+        while (ref != 0) {
+            int offset = (ref - 1) * RECORD_SIZE;
+            if (((int) INT.getAcquire(records, offset + R_FLAGS) & FLAG_LIVE) != 0) {
+                visitor.visit(records.getLong(offset + R_ID), records.getInt(offset + R_NIGHTS),
+                        records.getLong(offset + R_GUEST_REF));
+            }
+            ref = records.getInt(offset + R_NEXT);
+        }
+    }
+
+    /**
+     * Resolve a guest reference handed to a {@link RecordVisitor}.
+     *
+     * @param guestRef the reference stored in the record
+     * @return the guest ID
+     */
+    public String guestId(long guestRef) {
+        int offset = (int) guestRef;
+        int length = guests.getShort(offset) & 0xFFFF;
+        byte[] bytes = new byte[length];
+        guests.get(offset + 2, bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    /**
+     * Insert or update a subscription. A change of property or check-in date
+     * retires the old record and appends a new one.
+     */
+    public synchronized void upsert(long id, long propertyId, int epochDay, int nights, String guestId) {
+        markDirty();
+        int existing = findRecord(id);
+        if (existing >= 0) {
+            int offset = existing * RECORD_SIZE;
+            boolean live = (records.getInt(offset + R_FLAGS) & FLAG_LIVE) != 0;
+            if (records.getLong(offset + R_PROPERTY_ID) == propertyId
+                    && records.getInt(offset + R_EPOCH_DAY) == epochDay) {
+                records.putInt(offset + R_NIGHTS, nights);
+                if (!guestId.equals(guestId(records.getLong(offset + R_GUEST_REF)))) {
+                    records.putLong(offset + R_GUEST_REF, appendGuest(guestId));
+                }
+                if (!live) {
+                    INT.setRelease(records, offset + R_FLAGS, FLAG_LIVE);
+                    header.putInt(H_LIVE_COUNT, size() + 1);
+                }
+                return;
+            }
+            retire(existing);
+        }
+        append(id, propertyId, epochDay, nights, appendGuest(guestId));
+    }
+
+    /**
+     * Remove a subscription (e.g., it is no longer ACTIVE). Unknown ids are ignored.
+     */
+    public synchronized void remove(long id) {
+        int existing = findRecord(id);
+        if (existing >= 0) {
+            markDirty();
+            retire(existing);
+        }
+    }
+
+    /**
+     * Persist the sync high-water mark, clear the dirty flag and flush to disk.
+     *
+     * @param highWaterMark the latest {@code updated_at} applied to the store
+     */
+    public synchronized void commit(Instant highWaterMark) {
+        records.force();
+        keyIndex.force();
+        idIndex.force();
+        guests.force();
+        header.putLong(H_HWM_SECONDS, highWaterMark.getEpochSecond());
+        header.putInt(H_HWM_NANOS, highWaterMark.getNano());
+        header.putInt(H_DIRTY, 0);
+        header.force();
+    }
+
+    /**
+     * Reset the store to empty with a high-water mark of {@link Instant#EPOCH}.
+     */
+    public synchronized void clear() {
+        zero(keyIndex, (long) indexCapacity * SLOT_SIZE);
+        zero(idIndex, (long) indexCapacity * SLOT_SIZE);
+        header.putInt(H_MAGIC, MAGIC);
+        header.putInt(H_VERSION, VERSION);
+        header.putInt(H_RECORD_CAPACITY, recordCapacity);
+        header.putInt(H_INDEX_CAPACITY, indexCapacity);
+        header.putInt(H_RECORD_COUNT, 0);
+        header.putInt(H_LIVE_COUNT, 0);
+        header.putLong(H_GUEST_BYTES_USED, 0);
+        header.putLong(H_GUEST_CAPACITY, guestCapacity);
+        commit(Instant.EPOCH);
+    }
+
+    /**
+     * @return the {@code updated_at} high-water mark of the last committed sync
+     */
+    public Instant highWaterMark() {
+        return Instant.ofEpochSecond(header.getLong(H_HWM_SECONDS), header.getInt(H_HWM_NANOS));
+    }
+
+    /**
+     * @return the number of live subscriptions
+     */
+    public int size() {
+        return header.getInt(H_LIVE_COUNT);
+    }
+
+    @Override
+    public synchronized void close() throws IOException {
+        header.force();
+        channel.close();
+    }
+
+    /* ---- internals ---- */
+
+    private boolean isReusable() {
+        return header.getInt(H_MAGIC) == MAGIC
+                && header.getInt(H_VERSION) == VERSION
+                && header.getInt(H_RECORD_CAPACITY) == recordCapacity
+                && header.getInt(H_INDEX_CAPACITY) == indexCapacity
+                && header.getLong(H_GUEST_CAPACITY) == guestCapacity
+                && header.getInt(H_DIRTY) == 0;
+    }
+
+    private void markDirty() {
+        if (header.getInt(H_DIRTY) == 0) {
+            header.putInt(H_DIRTY, 1);
+            header.force();
+        }
+    }
+
+    private void append(long id, long propertyId, int epochDay, int nights, long guestRef) {
+        int count = header.getInt(H_RECORD_COUNT);
+        if (count >= recordCapacity) {
+            throw new StoreFullException("Record region full (" + recordCapacity + " records)");
+        }
+        int offset = count * RECORD_SIZE;
+        int keySlot = findOrClaimKeySlot(propertyId, epochDay);
+        int head = (int) INT.getAcquire(keyIndex, keySlot * SLOT_SIZE + K_HEAD);
+
+        records.putLong(offset + R_ID, id);
+        records.putLong(offset + R_PROPERTY_ID, propertyId);
+        records.putInt(offset + R_EPOCH_DAY, epochDay);
+        records.putInt(offset + R_NIGHTS, nights);
+        records.putLong(offset + R_GUEST_REF, guestRef);
+        records.putInt(offset + R_NEXT, head);
+        INT.setRelease(records, offset + R_FLAGS, FLAG_LIVE);
+
+        // Publish: the chain head becomes visible only after the record is fully written
+        INT.setRelease(keyIndex, keySlot * SLOT_SIZE + K_HEAD, count + 1);
+        putRecordSlot(id, count);
+
+        header.putInt(H_RECORD_COUNT, count + 1);
+        header.putInt(H_LIVE_COUNT, size() + 1);
+    }
+
+    private void retire(int recordSlot) {
+        int offset = recordSlot * RECORD_SIZE;
+        if ((records.getInt(offset + R_FLAGS) & FLAG_LIVE) != 0) {
+            INT.setRelease(records, offset + R_FLAGS, 0);
+            header.putInt(H_LIVE_COUNT, size() - 1);
+        }
+    }
+
+    private long appendGuest(String guestId) {
+        byte[] bytes = guestId.getBytes(StandardCharsets.UTF_8);
+        long used = header.getLong(H_GUEST_BYTES_USED);
+        if (bytes.length > 0xFFFF || used + 2 + bytes.length > guestCapacity) {
+            throw new StoreFullException("Guest region full (" + guestCapacity + " bytes)");
+        }
+        guests.putShort((int) used, (short) bytes.length);
+        guests.put((int) used + 2, bytes);
+        header.putLong(H_GUEST_BYTES_USED, used + 2 + bytes.length);
+        return used;
+    }
+
+    private int findKeySlot(long propertyId, int epochDay) {
+        int mask = indexCapacity - 1;
+        for (int i = (int) hash(propertyId, epochDay) & mask, probes = 0; probes < indexCapacity;
+                i = (i + 1) & mask, probes++) {
+            int base = i * SLOT_SIZE;
+            if ((int) INT.getAcquire(keyIndex, base + K_HEAD) == 0) {
+                return -1;
+            }
+            if (keyIndex.getLong(base + K_PROPERTY_ID) == propertyId && keyIndex.getInt(base + K_EPOCH_DAY) == epochDay) {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    private int findOrClaimKeySlot(long propertyId, int epochDay) {
+        int mask = indexCapacity - 1;
+        for (int i = (int) hash(propertyId, epochDay) & mask, probes = 0; probes < indexCapacity;
+                i = (i + 1) & mask, probes++) {
+            int base = i * SLOT_SIZE;
+            if ((int) INT.getAcquire(keyIndex, base + K_HEAD) == 0) {
+                // Key fields are written before the head is released in append()
+                keyIndex.putLong(base + K_PROPERTY_ID, propertyId);
+                keyIndex.putInt(base + K_EPOCH_DAY, epochDay);
+                return i;
+            }
+            if (keyIndex.getLong(base + K_PROPERTY_ID) == propertyId && keyIndex.getInt(base + K_EPOCH_DAY) == epochDay) {
+                return i;
+            }
+        }
+        throw new StoreFullException("Key index full (" + indexCapacity + " slots)");
+    }
+
+    private int findRecord(long id) {
+        int mask = indexCapacity - 1;
+        for (int i = (int) hash(id, 0) & mask, probes = 0; probes < indexCapacity; i = (i + 1) & mask, probes++) {
+            int base = i * SLOT_SIZE;
+            int ref = idIndex.getInt(base + I_RECORD);
+            if (ref == 0) {
+                return -1;
+            }
+            if (idIndex.getLong(base + I_ID) == id) {
+                return ref - 1;
+            }
+        }
+        return -1;
+    }
+
+    private void putRecordSlot(long id, int recordSlot) {
+        int mask = indexCapacity - 1;
+        for (int i = (int) hash(id, 0) & mask, probes = 0; probes < indexCapacity; i = (i + 1) & mask, probes++) {
+            int base = i * SLOT_SIZE;
+            int ref = idIndex.getInt(base + I_RECORD);
+            if (ref == 0 || idIndex.getLong(base + I_ID) == id) {
+                idIndex.putLong(base + I_ID, id);
+                idIndex.putInt(base + I_RECORD, recordSlot + 1);
+                return;
+            }
+        }
+        throw new StoreFullException("Id index full (" + indexCapacity + " slots)");
+    }
+
+    private static long hash(long a, int b) {
+        long h = a * 0x9E3779B97F4A7C15L + b;
+        h ^= h >>> 33;
+        h *= 0xFF51AFD7ED558CCDL;
+        h ^= h >>> 33;
+        return h;
+    }
+
+    private static void zero(MappedByteBuffer buffer, long length) {
+        byte[] zeros = new byte[8192];
+        for (long pos = 0; pos < length; pos += zeros.length) {
+            buffer.put((int) pos, zeros, 0, (int) Math.min(zeros.length, length - pos));
+        }
+    }
+
+    /**
+     * Callback for records found by {@link #forEach}.
+     */
+    @FunctionalInterface
+    public interface RecordVisitor {
+
+        /**
+         * @param id       the subscription id
+         * @param nights   the number of nights the guest wants
+         * @param guestRef reference resolvable through {@link #guestId(long)}
+         */
+        void visit(long id, int nights, long guestRef);
+    }
+
+    /**
+     * Thrown when a region of the store has no room left; the owner should
+     * {@link #clear()} and reload, or raise the configured capacity.
+     */
+    public static class StoreFullException extends IllegalStateException {
+
+        public StoreFullException(String message) {
+            super(message);
+        }
+    }
+}
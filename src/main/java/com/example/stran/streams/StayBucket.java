@@ -0,0 +1,47 @@
+package com.example.stran.streams;
+
+import com.example.stran.entity.StaySubscription;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Active PROPERTY subscriptions of one property and check-in date, as kept in
+ * the {@link SubscriptionMatchingTopology#SUBSCRIPTIONS_BY_STAY} store.
+ *
+ * @param subscriptions the subscriptions, in the order they were added
+ */
+public record StayBucket(List<StaySubscription> subscriptions) {
+
+    /**
+     * @return the store key of a property and check-in date: {@code propertyId:checkInDate}
+     */
+    public static String key(long propertyId, LocalDate checkInDate) {
+        return propertyId + ":" + checkInDate;
+    }
+
+    /**
+     * @return the check-in date of a store key
+     */
+    static LocalDate checkInDate(String key) {
+        return LocalDate.parse(key.substring(key.indexOf(':') + 1));
+    }
+
+    /**
+     * @return a copy with the given subscription added, replacing any previous version of it
+     */
+    StayBucket with(StaySubscription subscription) {
+        List<StaySubscription> updated = new ArrayList<>(subscriptions.size() + 1);
+        subscriptions.stream().filter(sub -> !sub.getId().equals(subscription.getId())).forEach(updated::add);
+        updated.add(subscription);
+        return new StayBucket(updated);
+    }
+
+    /**
+     * @return a copy without the given subscription
+     */
+    StayBucket without(long subscriptionId) {
+        return new StayBucket(subscriptions.stream().filter(sub -> sub.getId() != subscriptionId).toList());
+    }
+}
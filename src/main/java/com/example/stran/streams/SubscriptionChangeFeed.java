@@ -0,0 +1,113 @@
+package com.example.stran.streams;
+
+import com.example.stran.entity.StaySubscription;
+import com.example.stran.repository.StaySubscriptionRepository;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnExpression;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Slice;
+import org.springframework.data.domain.Sort;
+import org.springframework.kafka.core.KafkaTemplate;
+import org.springframework.kafka.support.SendResult;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * Publishes changed subscriptions to the subscription changes topic consumed by
+ * the {@link SubscriptionMatchingTopology}, keyed by subscription id.
+ *
+ * <p>Polls {@code stay_subscriptions} by {@code updated_at} the same way
+ * {@link com.example.stran.service.MappedStoreMatchingService} syncs its store.
+ * The high-water mark is held in memory, so the first run after startup
+ * republishes every subscription; the topology applies versions idempotently and
+ * drops older ones, so this only costs throughput. Deployments where the
+ * subscription-service publishes the topic itself (e.g. change data capture)
+ * disable this with {@code stran.streams.change-feed.enabled=false}.
+ */
+@Slf4j
+@Component
+@ConditionalOnExpression("'${stran.matching.engine:db}' == 'streams' and ${stran.streams.change-feed.enabled:true}")
+public class SubscriptionChangeFeed {
+
+    /** Re-read a small window before the high-water mark to tolerate clock skew between writers. */
+    private static final Duration SYNC_OVERLAP = Duration.ofSeconds(5);
+
+    private final StaySubscriptionRepository subscriptionRepository;
+    private final KafkaTemplate<String, StaySubscription> kafkaTemplate;
+    private final String topic;
+    private final int pageSize;
+    private final Clock clock;
+
+    private Instant highWaterMark = Instant.EPOCH;
+
+    @Autowired
+    public SubscriptionChangeFeed(
+            StaySubscriptionRepository subscriptionRepository,
+            KafkaTemplate<String, StaySubscription> subscriptionChangeKafkaTemplate,
+            @Value("${kafka.topic.subscription-changes:stran-subscription-changes}") String topic,
+            @Value("${stran.streams.change-feed.page-size:5000}") int pageSize) {
+        this(subscriptionRepository, subscriptionChangeKafkaTemplate, topic, pageSize, Clock.systemUTC());
+    }
+
+    SubscriptionChangeFeed(StaySubscriptionRepository subscriptionRepository,
+                           KafkaTemplate<String, StaySubscription> kafkaTemplate,
+                           String topic, int pageSize, Clock clock) {
+        this.subscriptionRepository = subscriptionRepository;
+        this.kafkaTemplate = kafkaTemplate;
+        this.topic = topic;
+        this.pageSize = pageSize;
+        this.clock = clock;
+    }
+
+    /**
+     * Publish every subscription changed since the high-water mark. The mark only
+     * advances once all of a run's sends are acknowledged.
+     */
+    @Scheduled(fixedDelayString = "${stran.streams.change-feed.interval-ms:30000}")
+    public synchronized void publish() {
+        Instant from = highWaterMark;
+        Instant to = clock.instant();
+        Instant lowerBound = from.equals(Instant.EPOCH) ? from : from.minus(SYNC_OVERLAP);
+        Instant latest = from;
+        List<CompletableFuture<SendResult<String, StaySubscription>>> sends = new ArrayList<>();
+
+        PageRequest page = PageRequest.of(0, pageSize, Sort.by("updatedAt", "id"));
+        Slice<StaySubscription> slice;
+        do {
+            slice = subscriptionRepository.findByUpdatedAtGreaterThanAndUpdatedAtLessThanEqual(lowerBound, to, page);
+            for (StaySubscription sub : slice) {
+                sends.add(kafkaTemplate.send(topic, String.valueOf(sub.getId()), sub));
+                if (sub.getUpdatedAt().isAfter(latest)) {
+                    latest = sub.getUpdatedAt();
+                }
+            }
+            page = page.next();
+        } while (slice.hasNext());
+
+        try {
+            CompletableFuture.allOf(sends.toArray(CompletableFuture[]::new)).join();
+        } catch (RuntimeException e) {
+            log.warn("Failed to publish {} subscription change(s), retrying from {} on next run: {}",
+                    sends.size(), from, e.getMessage());
+            return;
+        }
+
+        highWaterMark = latest;
+        if (latest.isAfter(from)) {
+            log.info("Published {} subscription change(s) to {}: highWaterMark={}", sends.size(), topic, latest);
+        }
+    }
+
+    Instant highWaterMark() {
+        return highWaterMark;
+    }
+}
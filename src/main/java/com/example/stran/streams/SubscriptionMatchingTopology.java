@@ -0,0 +1,399 @@
+package com.example.stran.streams;
+
+import com.example.stran.dto.inventory.InventoryEvent;
+import com.example.stran.dto.inventory.InventoryEventBody;
+import com.example.stran.dto.inventory.SourceRecord;
+import com.example.stran.dto.notification.NotificationMessage;
+import com.example.stran.entity.StaySubscription;
+import com.example.stran.serialization.NotificationMessageDeserializer;
+import com.example.stran.serialization.NotificationMessageSerializer;
+import com.example.stran.service.NotificationDispatchService;
+import com.example.stran.service.PipelineMetrics;
+import com.example.stran.service.PropertyAvailabilityMatchingService;
+import lombok.extern.slf4j.Slf4j;
+import org.apache.kafka.common.header.internals.RecordHeaders;
+import org.apache.kafka.common.serialization.Serde;
+import org.apache.kafka.common.serialization.Serdes;
+import org.apache.kafka.streams.StreamsBuilder;
+import org.apache.kafka.streams.Topology;
+import org.apache.kafka.streams.kstream.Consumed;
+import org.apache.kafka.streams.kstream.Named;
+import org.apache.kafka.streams.kstream.Produced;
+import org.apache.kafka.streams.kstream.Repartitioned;
+import org.apache.kafka.streams.processor.PunctuationType;
+import org.apache.kafka.streams.processor.api.Processor;
+import org.apache.kafka.streams.processor.api.ProcessorContext;
+import org.apache.kafka.streams.processor.api.Record;
+import org.apache.kafka.streams.state.KeyValueIterator;
+import org.apache.kafka.streams.state.KeyValueStore;
+import org.apache.kafka.streams.state.Stores;
+import org.springframework.kafka.support.serializer.JsonSerde;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.ZoneOffset;
+import java.time.format.DateTimeParseException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Function;
+
+/**
+ * Kafka Streams topology matching inventory events against a local,
+ * changelog-backed copy of the subscriptions instead of querying the database
+ * per event. Enabled with {@code stran.matching.engine=streams}.
+ *
+ * <ol>
+ *   <li>Subscription changes are read from the changes topic, keyed by
+ *       subscription id. The last version of every subscription is kept in
+ *       {@link #SUBSCRIPTIONS_BY_ID}; out-of-order versions (older
+ *       {@code updatedAt}) are dropped, and each accepted version is turned
+ *       into a removal from its previous stay and an addition to its new one.
+ *       A tombstone (null value) deletes the subscription of its key from both
+ *       stores.</li>
+ *   <li>Those stay changes are repartitioned by propertyId and applied to
+ *       {@link #SUBSCRIPTIONS_BY_STAY}, keyed by {@code propertyId:checkInDate}.</li>
+ *   <li>Inventory events are re-keyed by propertyId onto a repartition topic with
+ *       the same partition count, so every event is matched by the task owning
+ *       its property's subscriptions. The source coordinates travel in
+ *       {@code stran-source-*} headers, so notification IDs are the same as the
+ *       listener-based engines produce.</li>
+ *   <li>Candidates are filtered by length of stay and turned into
+ *       {@link NotificationMessage}s keyed by subscription id, exactly as
+ *       {@link PropertyAvailabilityMatchingService} and
+ *       {@link NotificationDispatchService} do.</li>
+ * </ol>
+ *
+ * <p>Both stores are persistent (RocksDB) and logged to changelog topics, so a
+ * restarted or migrated task restores them from Kafka rather than the database.
+ * Stays whose check-in date has passed are evicted hourly.
+ *
+ * <p>Notifications are written straight to the notifications topic by the Streams
+ * producer, not through {@code NotificationProducer}. The outbox, rate governor,
+ * priority lanes, latency tracker and per-guest digest do not apply to this engine;
+ * Kafka Streams retries and its processing guarantee cover delivery instead.
+ */
+@Slf4j
+public class SubscriptionMatchingTopology {
+
+    public static final String SUBSCRIPTIONS_BY_ID = "subscriptions-by-id";
+    public static final String SUBSCRIPTIONS_BY_STAY = "subscriptions-by-stay";
+
+    static final String STRATEGY = "property-streams";
+
+    private static final Duration EVICTION_INTERVAL = Duration.ofHours(1);
+
+    private final String inventoryTopic;
+    private final String changesTopic;
+    private final String notificationsTopic;
+    private final int partitions;
+    private final Function<String, Long> propertyIds;
+    private final PipelineMetrics pipelineMetrics;
+
+    private final Serde<InventoryEvent> inventorySerde =
+            new JsonSerde<>(InventoryEvent.class).noTypeInfo().ignoreTypeHeaders();
+    private final Serde<StaySubscription> subscriptionSerde =
+            new JsonSerde<>(StaySubscription.class).noTypeInfo().ignoreTypeHeaders();
+    private final Serde<StayChange> stayChangeSerde =
+            new JsonSerde<>(StayChange.class).noTypeInfo().ignoreTypeHeaders();
+    private final Serde<StayBucket> bucketSerde =
+            new JsonSerde<>(StayBucket.class).noTypeInfo().ignoreTypeHeaders();
+    private final Serde<NotificationMessage> notificationSerde;
+
+    /**
+     * @param inventoryTopic     topic of the inventory events
+     * @param changesTopic       topic of the subscription changes, keyed by subscription id
+     * @param notificationsTopic topic the notifications are published to
+     * @param partitions         partitions of both repartition topics; they must match to be co-partitioned
+     * @param notificationFormat wire format of the notifications, see {@link NotificationMessageSerializer}
+     * @param propertyIds        resolves a propCode to its propertyId, or {@code null} if unknown
+     * @param pipelineMetrics    metrics the matched candidates are counted in
+     */
+    public SubscriptionMatchingTopology(String inventoryTopic, String changesTopic, String notificationsTopic,
+                                        int partitions, String notificationFormat,
+                                        Function<String, Long> propertyIds, PipelineMetrics pipelineMetrics) {
+        this.inventoryTopic = inventoryTopic;
+        this.changesTopic = changesTopic;
+        this.notificationsTopic = notificationsTopic;
+        this.partitions = partitions;
+        this.propertyIds = propertyIds;
+        this.pipelineMetrics = pipelineMetrics;
+
+        NotificationMessageSerializer serializer = new NotificationMessageSerializer();
+        serializer.configure(Map.of(NotificationMessageSerializer.FORMAT_CONFIG, notificationFormat), false);
+        this.notificationSerde = Serdes.serdeFrom(serializer, new NotificationMessageDeserializer());
+    }
+
+    /**
+     * @return a standalone topology, e.g. for {@code TopologyTestDriver}
+     */
+    public Topology build() {
+        StreamsBuilder builder = new StreamsBuilder();
+        build(builder);
+        return builder.build();
+    }
+
+    /**
+     * Add the stores and streams of this topology to {@code builder}.
+     */
+    public void build(StreamsBuilder builder) {
+        // Stores are logged to changelog topics by default
+        builder.addStateStore(Stores.keyValueStoreBuilder(
+                Stores.persistentKeyValueStore(SUBSCRIPTIONS_BY_ID), Serdes.Long(), subscriptionSerde));
+        builder.addStateStore(Stores.keyValueStoreBuilder(
+                Stores.persistentKeyValueStore(SUBSCRIPTIONS_BY_STAY), Serdes.String(), bucketSerde));
+
+        builder.stream(changesTopic, Consumed.with(Serdes.String(), subscriptionSerde)
+                        .withName("subscription-changes"))
+                .filter((key, sub) -> sub == null ? key != null : sub.getId() != null, Named.as("valid-subscriptions"))
+                .process(SubscriptionVersions::new, Named.as("subscription-versions"), SUBSCRIPTIONS_BY_ID)
+                .repartition(Repartitioned.<String, StayChange>as("stay-changes-by-property")
+                        .withKeySerde(Serdes.String())
+                        .withValueSerde(stayChangeSerde)
+                        .withNumberOfPartitions(partitions))
+                .process(StayIndexWriter::new, Named.as("stay-index-writer"), SUBSCRIPTIONS_BY_STAY);
+
+        builder.stream(inventoryTopic, Consumed.with(Serdes.String(), inventorySerde)
+                        .withName("inventory-events"))
+                .process(InventoryKeyer::new, Named.as("inventory-keyer"))
+                .repartition(Repartitioned.<String, InventoryEvent>as("inventory-by-property")
+                        .withKeySerde(Serdes.String())
+                        .withValueSerde(inventorySerde)
+                        .withNumberOfPartitions(partitions))
+                .process(InventoryMatcher::new, Named.as("inventory-matcher"), SUBSCRIPTIONS_BY_STAY)
+                .to(notificationsTopic, Produced.with(Serdes.String(), notificationSerde).withName("notifications"));
+    }
+
+    private static boolean indexed(StaySubscription sub) {
+        return sub.isActive() && sub.isPropertySubscription()
+                && sub.getCheckInDate() != null && sub.getCheckOutDate() != null;
+    }
+
+    private static LocalDate today(ProcessorContext<?, ?> context) {
+        return LocalDate.ofInstant(Instant.ofEpochMilli(context.currentSystemTimeMs()), ZoneOffset.UTC);
+    }
+
+    /**
+     * Removal of a subscription from, or its addition to, one stay.
+     *
+     * @param propertyId     the stay's property
+     * @param checkInDate    the stay's check-in date
+     * @param subscriptionId the subscription
+     * @param subscription   the subscription to add, or {@code null} to remove it
+     */
+    public record StayChange(long propertyId, LocalDate checkInDate, long subscriptionId,
+                             StaySubscription subscription) {
+    }
+
+    /**
+     * Keeps the last version of each subscription and emits the stay changes a new version implies.
+     */
+    private static final class SubscriptionVersions implements Processor<String, StaySubscription, String, StayChange> {
+
+        private ProcessorContext<String, StayChange> context;
+        private KeyValueStore<Long, StaySubscription> versions;
+
+        @Override
+        public void init(ProcessorContext<String, StayChange> context) {
+            this.context = context;
+            this.versions = context.getStateStore(SUBSCRIPTIONS_BY_ID);
+            context.schedule(EVICTION_INTERVAL, PunctuationType.WALL_CLOCK_TIME, now -> evictPastStays());
+        }
+
+        @Override
+        public void process(Record<String, StaySubscription> record) {
+            StaySubscription sub = record.value();
+            if (sub == null) {
+                delete(record);
+                return;
+            }
+            StaySubscription previous = versions.get(sub.getId());
+            if (previous != null && previous.getUpdatedAt() != null && sub.getUpdatedAt() != null
+                    && sub.getUpdatedAt().isBefore(previous.getUpdatedAt())) {
+                log.debug("Dropping stale version of subscription id={}: updatedAt={} before {}",
+                        sub.getId(), sub.getUpdatedAt(), previous.getUpdatedAt());
+                return;
+            }
+
+            if (previous != null && indexed(previous)) {
+                forward(record, new StayChange(previous.getPropertyId(), previous.getCheckInDate(),
+                        previous.getId(), null));
+            }
+            if (indexed(sub)) {
+                forward(record, new StayChange(sub.getPropertyId(), sub.getCheckInDate(), sub.getId(), sub));
+            }
+            versions.put(sub.getId(), sub);
+        }
+
+        private void delete(Record<String, StaySubscription> record) {
+            long id;
+            try {
+                id = Long.parseLong(record.key());
+            } catch (NumberFormatException e) {
+                log.warn("Skipping subscription tombstone with non-numeric key={}", record.key());
+                return;
+            }
+            StaySubscription previous = versions.get(id);
+            if (previous == null) {
+                return;
+            }
+            if (indexed(previous)) {
+                forward(record, new StayChange(previous.getPropertyId(), previous.getCheckInDate(), id, null));
+            }
+            versions.delete(id);
+        }
+
+        private void forward(Record<String, StaySubscription> record, StayChange change) {
+            context.forward(record.withKey(String.valueOf(change.propertyId())).withValue(change));
+        }
+
+        private void evictPastStays() {
+            LocalDate today = today(context);
+            List<Long> past = new ArrayList<>();
+            try (KeyValueIterator<Long, StaySubscription> all = versions.all()) {
+                all.forEachRemaining(entry -> {
+                    LocalDate checkIn = entry.value.getCheckInDate();
+                    if (checkIn != null && checkIn.isBefore(today)) {
+                        past.add(entry.key);
+                    }
+                });
+            }
+            past.forEach(versions::delete);
+        }
+    }
+
+    /**
+     * Applies stay changes to the per-stay subscription buckets.
+     */
+    private static final class StayIndexWriter implements Processor<String, StayChange, Void, Void> {
+
+        private ProcessorContext<Void, Void> context;
+        private KeyValueStore<String, StayBucket> stays;
+
+        @Override
+        public void init(ProcessorContext<Void, Void> context) {
+            this.context = context;
+            this.stays = context.getStateStore(SUBSCRIPTIONS_BY_STAY);
+            context.schedule(EVICTION_INTERVAL, PunctuationType.WALL_CLOCK_TIME, now -> evictPastStays());
+        }
+
+        @Override
+        public void process(Record<String, StayChange> record) {
+            StayChange change = record.value();
+            String key = StayBucket.key(change.propertyId(), change.checkInDate());
+            StayBucket bucket = stays.get(key);
+            if (change.subscription() != null) {
+                stays.put(key, (bucket == null ? new StayBucket(List.of()) : bucket).with(change.subscription()));
+            } else if (bucket != null) {
+                StayBucket remaining = bucket.without(change.subscriptionId());
+                if (remaining.subscriptions().isEmpty()) {
+                    stays.delete(key);
+                } else {
+                    stays.put(key, remaining);
+                }
+            }
+        }
+
+        private void evictPastStays() {
+            LocalDate today = today(context);
+            List<String> past = new ArrayList<>();
+            try (KeyValueIterator<String, StayBucket> all = stays.all()) {
+                all.forEachRemaining(entry -> {
+                    if (StayBucket.checkInDate(entry.key).isBefore(today)) {
+                        past.add(entry.key);
+                    }
+                });
+            }
+            past.forEach(stays::delete);
+        }
+    }
+
+    /**
+     * Re-keys valid inventory events by propertyId, carrying their source coordinates in headers.
+     */
+    private final class InventoryKeyer implements Processor<String, InventoryEvent, String, InventoryEvent> {
+
+        private ProcessorContext<String, InventoryEvent> context;
+
+        @Override
+        public void init(ProcessorContext<String, InventoryEvent> context) {
+            this.context = context;
+        }
+
+        @Override
+        public void process(Record<String, InventoryEvent> record) {
+            InventoryEvent event = record.value();
+            if (event == null || event.getValue() == null || event.getValue().getBody() == null
+                    || event.getValue().getBody().getPropCode() == null) {
+                log.warn("Skipping null or malformed inventory event with key={}", record.key());
+                return;
+            }
+            InventoryEventBody body = event.getValue().getBody();
+            try {
+                LocalDate.parse(body.getStartDate());
+            } catch (DateTimeParseException | NullPointerException e) {
+                log.warn("Skipping inventory event with invalid startDate={} for propCode={}",
+                        body.getStartDate(), body.getPropCode());
+                return;
+            }
+
+            Long propertyId = propertyIds.apply(body.getPropCode());
+            if (propertyId == null) {
+                log.debug("No property found for propCode={}, skipping", body.getPropCode());
+                return;
+            }
+
+            RecordHeaders headers = new RecordHeaders();
+            context.recordMetadata().ifPresent(metadata -> new SourceRecord(metadata.topic(),
+                    metadata.partition(), metadata.offset(), record.timestamp()).writeTo(headers));
+            context.forward(record.withKey(String.valueOf(propertyId)).withHeaders(headers));
+        }
+    }
+
+    /**
+     * Matches inventory events against the subscriptions of their stay.
+     */
+    private final class InventoryMatcher
+            implements Processor<String, InventoryEvent, String, NotificationMessage> {
+
+        private ProcessorContext<String, NotificationMessage> context;
+        private KeyValueStore<String, StayBucket> stays;
+
+        @Override
+        public void init(ProcessorContext<String, NotificationMessage> context) {
+            this.context = context;
+            this.stays = context.getStateStore(SUBSCRIPTIONS_BY_STAY);
+        }
+
+        @Override
+        public void process(Record<String, InventoryEvent> record) {
+            InventoryEventBody body = record.value().getValue().getBody();
+            StayBucket bucket = stays.get(StayBucket.key(Long.parseLong(record.key()),
+                    LocalDate.parse(body.getStartDate())));
+            List<StaySubscription> candidates = bucket == null ? List.of() : bucket.subscriptions();
+            List<StaySubscription> matched = candidates.isEmpty()
+                    ? List.of()
+                    : PropertyAvailabilityMatchingService.matchLengthOfStay(candidates, body);
+            pipelineMetrics.matched(STRATEGY, candidates.size(), matched.size());
+            if (matched.isEmpty()) {
+                return;
+            }
+
+            SourceRecord source = SourceRecord.fromHeaders(record.headers());
+            if (source != null) {
+                source = source.withEventTime(record.value().getValue().getContext());
+            }
+            Instant now = Instant.ofEpochMilli(context.currentSystemTimeMs());
+            for (StaySubscription sub : matched) {
+                NotificationMessage message = NotificationDispatchService.buildNotification(
+                        sub, body, source, STRATEGY, now);
+                context.forward(record.withKey(String.valueOf(sub.getId()))
+                        .withValue(message)
+                        .withHeaders(new RecordHeaders()));
+            }
+            log.debug("Matched {} subscriptions for propCode={} on date={} (out of {} candidates, streams)",
+                    matched.size(), body.getPropCode(), body.getStartDate(), candidates.size());
+        }
+    }
+}
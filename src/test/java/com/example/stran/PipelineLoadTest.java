@@ -0,0 +1,466 @@
+package com.example.stran;
+
+import com.example.stran.dto.inventory.*;
+import com.example.stran.dto.notification.NotificationMessage;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import lombok.extern.slf4j.Slf4j;
+import org.apache.kafka.clients.admin.Admin;
+import org.apache.kafka.clients.admin.AdminClientConfig;
+import org.apache.kafka.clients.consumer.Consumer;
+import org.apache.kafka.clients.consumer.ConsumerConfig;
+import org.apache.kafka.clients.consumer.ConsumerRecord;
+import org.apache.kafka.clients.consumer.OffsetAndMetadata;
+import org.apache.kafka.common.serialization.StringDeserializer;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.kafka.core.DefaultKafkaConsumerFactory;
+import org.springframework.kafka.core.KafkaTemplate;
+import org.springframework.kafka.support.serializer.JsonDeserializer;
+import org.springframework.kafka.test.EmbeddedKafkaBroker;
+import org.springframework.kafka.test.context.EmbeddedKafka;
+import org.springframework.kafka.test.utils.KafkaTestUtils;
+import org.springframework.test.annotation.DirtiesContext;
+import org.springframework.test.context.ActiveProfiles;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.SplittableRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.locks.LockSupport;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Load harness for one stran instance on the {@link FullPipelineIntegrationTest}
+ * setup (embedded Kafka + H2).
+ *
+ * <p>Seeds {@code stran.load.properties} properties and {@code stran.load.subscriptions}
+ * subscriptions, both Zipf-distributed over properties with exponent
+ * {@code stran.load.skew}, then publishes {@code stran.load.events} synthetic
+ * rate-recomm events at {@code stran.load.rate} events/sec ({@code 0} = as fast as
+ * possible). It reports:
+ * <ul>
+ *   <li>events/sec, overall and sustained (median over one-second windows of events
+ *       processed, counted by the {@code subscription_query} stage timer)</li>
+ *   <li>latency percentiles from event publish to notification consumed</li>
+ *   <li>match fan-out per event, computed from the seeded data</li>
+ *   <li>notifications/sec</li>
+ * </ul>
+ * The report is written as JSON to {@code stran.load.report}.
+ *
+ * <p>Tagged {@code load} and excluded from the default build; run with
+ * {@code mvn -Pload test}.
+ */
+@Slf4j
+@Tag("load")
+@SpringBootTest(properties = {
+        "kafka.consumer.concurrency=${stran.load.concurrency:4}",
+        "logging.level.com.example.stran=WARN"
+})
+@ActiveProfiles("test")
+@EmbeddedKafka(
+        partitions = 4,
+        topics = {"test-rate-recomm", "test-stran-notifications"},
+        brokerProperties = {"listeners=PLAINTEXT://localhost:0"}
+)
+@DirtiesContext
+@org.springframework.context.annotation.Import(TestKafkaProducerConfig.class)
+class PipelineLoadTest {
+
+    private static final String INVENTORY_TOPIC = "test-rate-recomm";
+    private static final String NOTIFICATIONS_TOPIC = "test-stran-notifications";
+    private static final LocalDate FIRST_CHECK_IN = LocalDate.of(2026, 3, 1);
+    private static final String[] PATTERNS = {"YYYYYYY", "YYYNNNN", "YNNNNNN", "YYYYYNN", "NNYYYYY"};
+
+    private static final int PROPERTIES = Integer.getInteger("stran.load.properties", 500);
+    private static final int SUBSCRIPTIONS = Integer.getInteger("stran.load.subscriptions", 50_000);
+    private static final int DAYS = Integer.getInteger("stran.load.days", 30);
+    private static final double SKEW = Double.parseDouble(System.getProperty("stran.load.skew", "1.1"));
+    private static final int EVENTS = Integer.getInteger("stran.load.events", 20_000);
+    private static final int RATE = Integer.getInteger("stran.load.rate", 0);
+    private static final long SEED = Long.getLong("stran.load.seed", 42L);
+    private static final long IDLE_TIMEOUT_MS = Long.getLong("stran.load.idle-timeout-ms", 30_000L);
+    private static final Path REPORT = Path.of(System.getProperty("stran.load.report", "target/load-report.json"));
+
+    @Autowired
+    private KafkaTemplate<String, InventoryEvent> inventoryKafkaTemplate;
+
+    @Autowired
+    private EmbeddedKafkaBroker embeddedKafkaBroker;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    @Value("${spring.kafka.consumer.group-id}")
+    private String groupId;
+
+    @Test
+    @DisplayName("Load: sustained throughput, latency and fan-out of one instance")
+    void load() throws Exception {
+        SplittableRandom random = new SplittableRandom(SEED);
+        double[] propertyWeights = zipfCumulative(PROPERTIES, SKEW);
+        // expected[property][day][nights] = subscriptions wanting that stay
+        int[][][] expected = seed(random, propertyWeights);
+
+        NotificationCollector collector = new NotificationCollector(createNotificationConsumer());
+        Thread collectorThread = new Thread(collector, "load-notification-collector");
+        collectorThread.start();
+
+        long[] fanOut = new long[EVENTS];
+        long expectedNotifications = 0;
+        long intervalNanos = RATE > 0 ? TimeUnit.SECONDS.toNanos(1) / RATE : 0;
+        long startNanos = System.nanoTime();
+        Instant startedAt = Instant.now();
+        for (int i = 0; i < EVENTS; i++) {
+            if (intervalNanos > 0) {
+                long due = startNanos + i * intervalNanos;
+                long wait;
+                while ((wait = due - System.nanoTime()) > 0) {
+                    LockSupport.parkNanos(wait);
+                }
+            }
+            int property = sample(propertyWeights, random);
+            int day = random.nextInt(DAYS);
+            String pattern = PATTERNS[random.nextInt(PATTERNS.length)];
+            fanOut[i] = expectedMatches(expected[property][day], pattern);
+            expectedNotifications += fanOut[i];
+            InventoryEvent event = event(i, property, day, pattern);
+            inventoryKafkaTemplate.send(INVENTORY_TOPIC, event.getKey(), event);
+        }
+        inventoryKafkaTemplate.flush();
+        double publishSeconds = (System.nanoTime() - startNanos) / 1e9;
+
+        List<long[]> progress = awaitCompletion(collector, expectedNotifications, startNanos);
+        long lastProgressNanos = progress.isEmpty() ? startNanos : progress.get(progress.size() - 1)[0];
+        long endNanos = Math.max(lastProgressNanos, collector.lastReceivedNanos);
+        collector.stop();
+        collectorThread.join();
+
+        double seconds = (endNanos - startNanos) / 1e9;
+        long committed = progress.isEmpty() ? 0 : progress.get(progress.size() - 1)[1];
+        long processed = progress.isEmpty() ? 0 : progress.get(progress.size() - 1)[2];
+        Map<String, Object> report = new LinkedHashMap<>();
+        report.put("startedAt", startedAt.toString());
+        report.put("config", config());
+        report.put("publishSeconds", round(publishSeconds));
+        report.put("durationSeconds", round(seconds));
+        report.put("eventsCommitted", committed);
+        report.put("eventsProcessed", processed);
+        report.put("eventsPerSecond", round(processed / seconds));
+        report.put("sustainedEventsPerSecond", round(sustainedRate(progress, startNanos)));
+        report.put("notificationsExpected", expectedNotifications);
+        report.put("notificationsReceived", collector.received);
+        report.put("notificationsPerSecond", round(collector.received / seconds));
+        report.put("fanOut", fanOutSummary(fanOut));
+        report.put("latencyMs", percentiles(collector.latencies()));
+        report.put("progress", progress.stream()
+                .map(sample -> Map.of("seconds", round((sample[0] - startNanos) / 1e9),
+                        "eventsCommitted", sample[1], "eventsProcessed", sample[2]))
+                .toList());
+
+        Files.createDirectories(REPORT.toAbsolutePath().getParent());
+        new ObjectMapper().enable(SerializationFeature.INDENT_OUTPUT).writeValue(REPORT.toFile(), report);
+        log.warn("Load report written to {}: {} events/s sustained, {} notifications/s, latency {}",
+                REPORT.toAbsolutePath(), report.get("sustainedEventsPerSecond"),
+                report.get("notificationsPerSecond"), report.get("latencyMs"));
+
+        assertThat(committed).isEqualTo(EVENTS);
+        assertThat(collector.received).isGreaterThanOrEqualTo(expectedNotifications);
+    }
+
+    /**
+     * Insert properties and subscriptions in batches.
+     *
+     * @return subscription counts per property, check-in day and stay length
+     */
+    private int[][][] seed(SplittableRandom random, double[] propertyWeights) {
+        jdbcTemplate.execute("CREATE SCHEMA IF NOT EXISTS hmstst");
+        List<Object[]> properties = new ArrayList<>(PROPERTIES);
+        for (int p = 0; p < PROPERTIES; p++) {
+            properties.add(new Object[]{1_000L + p, "Load Hotel " + p, propCode(p) + "HF", propCode(p)});
+        }
+        jdbcTemplate.batchUpdate(
+                "MERGE INTO hmstst.property (property_id, title, ctyhocn, latitude, longitude, brand, prop_code, created_date, updated_date, persistence_version) " +
+                "VALUES (?, ?, ?, 40.0, -74.0, 'HF', ?, CURRENT_TIMESTAMP, CURRENT_TIMESTAMP, 0)", properties);
+
+        int[][][] expected = new int[PROPERTIES][DAYS][8];
+        List<Object[]> batch = new ArrayList<>(5_000);
+        for (int s = 0; s < SUBSCRIPTIONS; s++) {
+            int property = sample(propertyWeights, random);
+            int day = random.nextInt(DAYS);
+            int nights = 1 + random.nextInt(7);
+            expected[property][day][nights]++;
+            LocalDate checkIn = FIRST_CHECK_IN.plusDays(day);
+            batch.add(new Object[]{1_000_000L + s, "load-guest-" + s, 1_000L + property,
+                    checkIn, checkIn.plusDays(nights)});
+            if (batch.size() == 5_000 || s == SUBSCRIPTIONS - 1) {
+                jdbcTemplate.batchUpdate(
+                        "MERGE INTO stay_subscriptions (id, guest_id, search_type, property_id, check_in_date, check_out_date, " +
+                        "max_price_per_night, currency_code, num_adults, num_rooms, status, created_at, updated_at, check_count) " +
+                        "VALUES (?, ?, 'PROPERTY', ?, ?, ?, 200.00, 'USD', 2, 1, 'ACTIVE', CURRENT_TIMESTAMP, CURRENT_TIMESTAMP, 0)",
+                        batch);
+                batch.clear();
+            }
+        }
+        return expected;
+    }
+
+    /**
+     * Wait until every event's offset is committed and every expected notification
+     * has arrived, or nothing progresses for {@code stran.load.idle-timeout-ms}.
+     *
+     * @return {@code [nanoTime, committed events, processed events]} samples, one per poll
+     */
+    private List<long[]> awaitCompletion(NotificationCollector collector, long expectedNotifications,
+                                         long startNanos) throws Exception {
+        List<long[]> progress = new ArrayList<>();
+        try (Admin admin = Admin.create(Map.of(AdminClientConfig.BOOTSTRAP_SERVERS_CONFIG,
+                embeddedKafkaBroker.getBrokersAsString()))) {
+            long lastCommitted = -1;
+            long lastReceived = -1;
+            long lastChange = System.nanoTime();
+            while (true) {
+                long committed = admin.listConsumerGroupOffsets(groupId).partitionsToOffsetAndMetadata().get()
+                        .values().stream().mapToLong(OffsetAndMetadata::offset).sum();
+                long now = System.nanoTime();
+                progress.add(new long[]{now, committed, processedEvents()});
+                if (committed >= EVENTS && collector.received >= expectedNotifications) {
+                    return progress;
+                }
+                if (committed != lastCommitted || collector.received != lastReceived) {
+                    lastCommitted = committed;
+                    lastReceived = collector.received;
+                    lastChange = now;
+                } else if (now - lastChange > TimeUnit.MILLISECONDS.toNanos(IDLE_TIMEOUT_MS)) {
+                    log.warn("No progress for {}ms after {}s: {}/{} events committed, {}/{} notifications received",
+                            IDLE_TIMEOUT_MS, (now - startNanos) / 1_000_000_000L, committed, EVENTS,
+                            collector.received, expectedNotifications);
+                    return progress;
+                }
+                Thread.sleep(250);
+            }
+        }
+    }
+
+    /**
+     * Events that reached the subscription lookup; the default matching engine times
+     * exactly one {@code subscription_query} per event of a known property.
+     */
+    private long processedEvents() {
+        Timer timer = meterRegistry.find("stran.pipeline.stage").tag("stage", "subscription_query").timer();
+        return timer == null ? 0 : timer.count();
+    }
+
+    private Consumer<String, NotificationMessage> createNotificationConsumer() {
+        Map<String, Object> consumerProps = KafkaTestUtils.consumerProps(
+                "load-notification-consumer", "true", embeddedKafkaBroker);
+        consumerProps.put(ConsumerConfig.AUTO_OFFSET_RESET_CONFIG, "earliest");
+        consumerProps.put(ConsumerConfig.MAX_POLL_RECORDS_CONFIG, 2_000);
+        Consumer<String, NotificationMessage> consumer = new DefaultKafkaConsumerFactory<>(
+                consumerProps, new StringDeserializer(),
+                new JsonDeserializer<>(NotificationMessage.class, false)).createConsumer();
+        embeddedKafkaBroker.consumeFromAnEmbeddedTopic(consumer, NOTIFICATIONS_TOPIC);
+        return consumer;
+    }
+
+    private static InventoryEvent event(int sequence, int property, int day, String pattern) {
+        String date = FIRST_CHECK_IN.plusDays(day).toString();
+        return InventoryEvent.builder()
+                .key(propCode(property) + "::LOAD")
+                .value(InventoryEventValue.builder()
+                        .context(EventContext.builder()
+                                .timestamp(Instant.now().toString())
+                                .publisher("load-harness")
+                                .messageId("load-" + sequence)
+                                .build())
+                        .body(InventoryEventBody.builder()
+                                .recommendationId((long) sequence)
+                                .propCode(propCode(property))
+                                .startDate(date)
+                                .endDate(date)
+                                .ratePlanCode("LOAD")
+                                .roomRecommendations(List.of(RoomRecommendation.builder()
+                                        .roomTypeCode("KING")
+                                        .lengthOfStayPattern(List.of(pattern))
+                                        .build()))
+                                .build())
+                        .build())
+                .build();
+    }
+
+    private static String propCode(int property) {
+        return "L" + String.format("%04d", property);
+    }
+
+    private static long expectedMatches(int[] subscriptionsByNights, String pattern) {
+        long matches = 0;
+        for (int nights = 1; nights <= 7; nights++) {
+            if (pattern.charAt(nights - 1) == 'Y') {
+                matches += subscriptionsByNights[nights];
+            }
+        }
+        return matches;
+    }
+
+    private static double[] zipfCumulative(int n, double exponent) {
+        double[] cumulative = new double[n];
+        double total = 0;
+        for (int rank = 1; rank <= n; rank++) {
+            total += 1.0 / Math.pow(rank, exponent);
+            cumulative[rank - 1] = total;
+        }
+        for (int i = 0; i < n; i++) {
+            cumulative[i] /= total;
+        }
+        return cumulative;
+    }
+
+    private static int sample(double[] cumulative, SplittableRandom random) {
+        int index = Arrays.binarySearch(cumulative, random.nextDouble());
+        return Math.min(index >= 0 ? index : -index - 1, cumulative.length - 1);
+    }
+
+    /**
+     * Median events/sec over one-second windows of processed events, ignoring the
+     * first and last windows (ramp-up and drain).
+     */
+    private static double sustainedRate(List<long[]> progress, long startNanos) {
+        List<Double> rates = new ArrayList<>();
+        long windowStart = startNanos;
+        long windowProcessed = 0;
+        for (long[] sample : progress) {
+            if (sample[0] - windowStart >= TimeUnit.SECONDS.toNanos(1)) {
+                rates.add((sample[2] - windowProcessed) / ((sample[0] - windowStart) / 1e9));
+                windowStart = sample[0];
+                windowProcessed = sample[2];
+            }
+        }
+        if (rates.size() > 2) {
+            rates = new ArrayList<>(rates.subList(1, rates.size() - 1));
+        }
+        if (rates.isEmpty()) {
+            return 0;
+        }
+        rates.sort(null);
+        return rates.get(rates.size() / 2);
+    }
+
+    private static Map<String, Object> fanOutSummary(long[] fanOut) {
+        long[] sorted = fanOut.clone();
+        Arrays.sort(sorted);
+        Map<String, Object> summary = new LinkedHashMap<>();
+        summary.put("mean", round(Arrays.stream(sorted).average().orElse(0)));
+        summary.put("p50", percentile(sorted, 0.50));
+        summary.put("p99", percentile(sorted, 0.99));
+        summary.put("max", sorted.length == 0 ? 0 : sorted[sorted.length - 1]);
+        summary.put("eventsWithoutMatches", Arrays.stream(sorted).filter(f -> f == 0).count());
+        return summary;
+    }
+
+    private static Map<String, Object> percentiles(long[] sorted) {
+        Map<String, Object> summary = new LinkedHashMap<>();
+        summary.put("count", sorted.length);
+        summary.put("p50", percentile(sorted, 0.50));
+        summary.put("p90", percentile(sorted, 0.90));
+        summary.put("p99", percentile(sorted, 0.99));
+        summary.put("p999", percentile(sorted, 0.999));
+        summary.put("max", sorted.length == 0 ? 0 : sorted[sorted.length - 1]);
+        return summary;
+    }
+
+    private static long percentile(long[] sorted, double quantile) {
+        if (sorted.length == 0) {
+            return 0;
+        }
+        return sorted[Math.min(sorted.length - 1, (int) Math.ceil(quantile * sorted.length) - 1)];
+    }
+
+    private static double round(double value) {
+        return Math.round(value * 100) / 100.0;
+    }
+
+    private static Map<String, Object> config() {
+        Map<String, Object> config = new LinkedHashMap<>();
+        config.put("properties", PROPERTIES);
+        config.put("subscriptions", SUBSCRIPTIONS);
+        config.put("days", DAYS);
+        config.put("skew", SKEW);
+        config.put("events", EVENTS);
+        config.put("targetRate", RATE);
+        config.put("seed", SEED);
+        config.put("concurrency", Integer.getInteger("stran.load.concurrency", 4));
+        return config;
+    }
+
+    /**
+     * Polls the notifications topic and records the publish-to-consume latency of
+     * each notification from its {@code sourceTimestamp}.
+     */
+    private static final class NotificationCollector implements Runnable {
+
+        private final Consumer<String, NotificationMessage> consumer;
+        private final AtomicBoolean running = new AtomicBoolean(true);
+        private long[] latencies = new long[1 << 16];
+        private volatile long received;
+        private volatile long lastReceivedNanos;
+
+        private NotificationCollector(Consumer<String, NotificationMessage> consumer) {
+            this.consumer = consumer;
+        }
+
+        @Override
+        public void run() {
+            try {
+                while (running.get()) {
+                    for (ConsumerRecord<String, NotificationMessage> record : consumer.poll(Duration.ofMillis(100))) {
+                        long now = System.currentTimeMillis();
+                        Instant source = record.value() == null ? null : record.value().getSourceTimestamp();
+                        if (source == null) {
+                            continue;
+                        }
+                        int index = (int) received;
+                        if (index == latencies.length) {
+                            latencies = Arrays.copyOf(latencies, index * 2);
+                        }
+                        latencies[index] = now - source.toEpochMilli();
+                        lastReceivedNanos = System.nanoTime();
+                        received = index + 1L;
+                    }
+                }
+            } finally {
+                consumer.close();
+            }
+        }
+
+        private void stop() {
+            running.set(false);
+        }
+
+        /** Call after the collector thread has stopped. */
+        private long[] latencies() {
+            long[] sorted = Arrays.copyOf(latencies, (int) received);
+            Arrays.sort(sorted);
+            return sorted;
+        }
+    }
+}
@@ -0,0 +1,141 @@
+package com.example.stran;
+
+import com.example.stran.dto.inventory.*;
+import com.example.stran.dto.notification.NotificationMessage;
+import com.example.stran.service.NotificationIdGenerator;
+import org.apache.kafka.clients.consumer.Consumer;
+import org.apache.kafka.clients.consumer.ConsumerConfig;
+import org.apache.kafka.clients.consumer.ConsumerRecord;
+import org.apache.kafka.common.serialization.StringDeserializer;
+import org.apache.kafka.clients.producer.RecordMetadata;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.kafka.core.DefaultKafkaConsumerFactory;
+import org.springframework.kafka.core.KafkaTemplate;
+import org.springframework.kafka.support.serializer.JsonDeserializer;
+import org.springframework.kafka.test.EmbeddedKafkaBroker;
+import org.springframework.kafka.test.context.EmbeddedKafka;
+import org.springframework.kafka.test.utils.KafkaTestUtils;
+import org.springframework.test.annotation.DirtiesContext;
+import org.springframework.test.context.ActiveProfiles;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.awaitility.Awaitility.await;
+
+/**
+ * End-to-end test of the exactly-once mode: notifications are produced in a
+ * Kafka transaction together with the consumed inventory offset.
+ */
+@SpringBootTest(properties = "kafka.transactions.enabled=true")
+@ActiveProfiles("test")
+@EmbeddedKafka(
+        partitions = 1,
+        topics = {"test-rate-recomm", "test-stran-notifications"},
+        brokerProperties = {
+                "listeners=PLAINTEXT://localhost:0",
+                "transaction.state.log.replication.factor=1",
+                "transaction.state.log.min.isr=1"
+        }
+)
+@DirtiesContext
+@org.springframework.context.annotation.Import(TestKafkaProducerConfig.class)
+class TransactionalPipelineIntegrationTest {
+
+    private static final String GROUP_ID = "stran-matching-engine";
+
+    @Autowired
+    private KafkaTemplate<String, InventoryEvent> inventoryKafkaTemplate;
+
+    @Autowired
+    private EmbeddedKafkaBroker embeddedKafkaBroker;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @BeforeEach
+    void seedDatabase() {
+        jdbcTemplate.execute("CREATE SCHEMA IF NOT EXISTS hmstst");
+        jdbcTemplate.execute(
+                "MERGE INTO hmstst.property (property_id, title, ctyhocn, latitude, longitude, brand, prop_code, created_date, updated_date, persistence_version) " +
+                "VALUES (1, 'Test Hotel', 'FNLCOHF', 40.0, -74.0, 'HF', 'FNLCO', CURRENT_TIMESTAMP, CURRENT_TIMESTAMP, 0)");
+        jdbcTemplate.execute(
+                "MERGE INTO stay_subscriptions (id, guest_id, search_type, property_id, check_in_date, check_out_date, " +
+                "max_price_per_night, currency_code, num_adults, num_rooms, status, created_at, updated_at, check_count) " +
+                "VALUES (100, 'guest-123', 'PROPERTY', 1, '2026-03-09', '2026-03-12', 200.00, 'USD', 2, 1, 'ACTIVE', " +
+                "CURRENT_TIMESTAMP, CURRENT_TIMESTAMP, 0)");
+    }
+
+    @Test
+    @DisplayName("Transactional pipeline: notification is committed with the inventory offset and has a deterministic ID")
+    void transactionalPipeline_commitsNotificationAndOffsetTogether() throws Exception {
+        Consumer<String, NotificationMessage> consumer = createReadCommittedConsumer();
+
+        RecordMetadata sent = inventoryKafkaTemplate.send("test-rate-recomm", "FNLCO::NG7BCD", event())
+                .get().getRecordMetadata();
+
+        ConsumerRecord<String, NotificationMessage> record =
+                KafkaTestUtils.getSingleRecord(consumer, "test-stran-notifications", Duration.ofSeconds(15));
+
+        String expectedId = NotificationIdGenerator.fromSource(
+                new SourceRecord(sent.topic(), sent.partition(), sent.offset(), sent.timestamp()), 100L);
+        assertThat(record.value().getSubscriptionId()).isEqualTo(100L);
+        assertThat(record.value().getNotificationId()).isEqualTo(expectedId);
+
+        await().atMost(Duration.ofSeconds(10)).untilAsserted(() ->
+                assertThat(KafkaTestUtils.getCurrentOffset(embeddedKafkaBroker.getBrokersAsString(),
+                        GROUP_ID, "test-rate-recomm", 0))
+                        .isNotNull()
+                        .satisfies(offset -> assertThat(offset.offset()).isEqualTo(sent.offset() + 1)));
+
+        consumer.close();
+    }
+
+    private InventoryEvent event() {
+        RoomRecommendation room = RoomRecommendation.builder()
+                .roomTypeCode("KING")
+                .lengthOfStayPattern(List.of("YYYNNNN"))
+                .build();
+
+        InventoryEventBody body = InventoryEventBody.builder()
+                .recommendationId(1L)
+                .propCode("FNLCO")
+                .startDate("2026-03-09")
+                .endDate("2026-03-09")
+                .ratePlanCode("NG7BCD")
+                .roomRecommendations(List.of(room))
+                .build();
+
+        return InventoryEvent.builder()
+                .key("FNLCO::NG7BCD")
+                .value(InventoryEventValue.builder()
+                        .context(EventContext.builder()
+                                .timestamp("2026-03-09T10:00:00Z")
+                                .publisher("test")
+                                .messageId("msg-tx-001")
+                                .build())
+                        .body(body)
+                        .build())
+                .build();
+    }
+
+    private Consumer<String, NotificationMessage> createReadCommittedConsumer() {
+        Map<String, Object> consumerProps = KafkaTestUtils.consumerProps(
+                "test-tx-notification-consumer", "true", embeddedKafkaBroker);
+        consumerProps.put(ConsumerConfig.AUTO_OFFSET_RESET_CONFIG, "earliest");
+        consumerProps.put(ConsumerConfig.ISOLATION_LEVEL_CONFIG, "read_committed");
+
+        Consumer<String, NotificationMessage> consumer = new DefaultKafkaConsumerFactory<>(
+                consumerProps, new StringDeserializer(),
+                new JsonDeserializer<>(NotificationMessage.class, false)).createConsumer();
+        embeddedKafkaBroker.consumeFromAnEmbeddedTopic(consumer, "test-stran-notifications");
+        return consumer;
+    }
+}
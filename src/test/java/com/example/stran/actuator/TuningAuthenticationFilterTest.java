@@ -0,0 +1,78 @@
+package com.example.stran.actuator;
+
+import jakarta.servlet.FilterChain;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.mock.web.MockFilterChain;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class TuningAuthenticationFilterTest {
+
+    private final TuningAuthenticationFilter filter = new TuningAuthenticationFilter("s3cret", "/actuator");
+
+    @Test
+    @DisplayName("passes tuning requests carrying the bearer token")
+    void allowsValidToken() throws Exception {
+        MockHttpServletRequest request = new MockHttpServletRequest("POST", "/actuator/tuning");
+        request.addHeader("Authorization", "Bearer s3cret");
+        MockHttpServletResponse response = new MockHttpServletResponse();
+        MockFilterChain chain = new MockFilterChain();
+
+        filter.doFilter(request, response, chain);
+
+        assertThat(response.getStatus()).isEqualTo(200);
+        assertThat(chain.getRequest()).isSameAs(request);
+    }
+
+    @Test
+    @DisplayName("rejects tuning requests with a missing or wrong token, and leaves other endpoints alone")
+    void rejectsOtherwise() throws Exception {
+        MockHttpServletRequest missing = new MockHttpServletRequest("GET", "/actuator/tuning");
+        MockHttpServletRequest wrong = new MockHttpServletRequest("GET", "/actuator/tuning");
+        wrong.addHeader("Authorization", "Bearer s3cre");
+        MockHttpServletRequest other = new MockHttpServletRequest("GET", "/actuator/health");
+
+        assertThat(status(missing)).isEqualTo(401);
+        assertThat(status(wrong)).isEqualTo(401);
+        assertThat(status(other)).isEqualTo(200);
+    }
+
+    @Test
+    @DisplayName("rejects tuning requests disguised with path parameters, encoding or extra slashes")
+    void rejectsNonNormalizedPaths() throws Exception {
+        assertThat(status(request("/actuator/tuning;x=1"))).isEqualTo(401);
+        assertThat(status(request("/actuator;x=1/tuning"))).isEqualTo(401);
+        assertThat(status(request("/actuator/tunin%67"))).isEqualTo(401);
+        assertThat(status(request("/actuator//tuning"))).isEqualTo(401);
+        assertThat(status(request("/actuator/tuning/"))).isEqualTo(401);
+    }
+
+    @Test
+    @DisplayName("guards the rate limit, JFR and re-match endpoints with the same token")
+    void guardsRateLimit() throws Exception {
+        MockHttpServletRequest authorized = request("/actuator/ratelimit/FNLCO");
+        authorized.addHeader("Authorization", "Bearer s3cret");
+
+        assertThat(status(request("/actuator/ratelimit"))).isEqualTo(401);
+        assertThat(status(request("/actuator/ratelimit/FNLCO"))).isEqualTo(401);
+        assertThat(status(request("/actuator/jfr"))).isEqualTo(401);
+        assertThat(status(request("/actuator/rematch"))).isEqualTo(401);
+        assertThat(status(authorized)).isEqualTo(200);
+    }
+
+    private static MockHttpServletRequest request(String uri) {
+        MockHttpServletRequest request = new MockHttpServletRequest("POST", uri);
+        request.setRequestURI(uri);
+        return request;
+    }
+
+    private int status(MockHttpServletRequest request) throws Exception {
+        MockHttpServletResponse response = new MockHttpServletResponse();
+        FilterChain chain = new MockFilterChain();
+        filter.doFilter(request, response, chain);
+        return response.getStatus();
+    }
+}
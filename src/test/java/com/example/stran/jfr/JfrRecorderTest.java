@@ -0,0 +1,93 @@
+package com.example.stran.jfr;
+
+import jdk.jfr.consumer.RecordedEvent;
+import jdk.jfr.consumer.RecordingFile;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class JfrRecorderTest {
+
+    @TempDir
+    Path directory;
+
+    private JfrRecorder recorder;
+
+    @BeforeEach
+    void setUp() {
+        recorder = new JfrRecorder(directory, Duration.ofMinutes(5), 10, 2);
+    }
+
+    @AfterEach
+    void tearDown() {
+        recorder.shutdown();
+    }
+
+    @Test
+    @DisplayName("records pipeline events with their fields and writes the file on stop")
+    void stop_writesPipelineEvents() throws Exception {
+        recorder.start(Duration.ofMinutes(1), null);
+
+        MatchingEvent matching = new MatchingEvent();
+        matching.begin();
+        matching.complete("property-db", "FNLCO", "2026-03-09", 120, 7);
+
+        JfrRecorder.Status stopped = recorder.stop();
+
+        assertThat(stopped.file()).exists();
+        List<RecordedEvent> events = RecordingFile.readAllEvents(stopped.file()).stream()
+                .filter(event -> event.getEventType().getName().equals("com.example.stran.Matching"))
+                .toList();
+        assertThat(events).hasSize(1);
+        assertThat(events.get(0).getString("propCode")).isEqualTo("FNLCO");
+        assertThat(events.get(0).getInt("candidates")).isEqualTo(120);
+        assertThat(events.get(0).getInt("matches")).isEqualTo(7);
+    }
+
+    @Test
+    @DisplayName("caps the duration and allows only one running recording")
+    void start_isBounded() {
+        JfrRecorder.Status started = recorder.start(Duration.ofHours(1), "default");
+
+        assertThat(started.duration()).isEqualTo(Duration.ofMinutes(5));
+        assertThat(started.maxSizeBytes()).isEqualTo(10L * 1024 * 1024);
+        assertThatThrownBy(() -> recorder.start(null, null)).isInstanceOf(IllegalStateException.class);
+    }
+
+    @Test
+    @DisplayName("keeps only the newest recordings")
+    void start_prunesOldRecordings() throws Exception {
+        Files.createFile(directory.resolve("stran-20260101-000000.jfr"));
+        Files.createFile(directory.resolve("stran-20260102-000000.jfr"));
+
+        recorder.start(null, null);
+        recorder.stop();
+
+        try (var files = Files.list(directory)) {
+            assertThat(files.map(path -> path.getFileName().toString()))
+                    .hasSize(2)
+                    .contains("stran-20260102-000000.jfr")
+                    .doesNotContain("stran-20260101-000000.jfr");
+        }
+    }
+
+    @Test
+    @DisplayName("publish events are only created while a recording enables them")
+    void publishEvent_startsOnlyWhenEnabled() {
+        assertThat(PublishEvent.start()).isNull();
+
+        recorder.start(null, null);
+
+        assertThat(PublishEvent.start()).isNotNull();
+    }
+}
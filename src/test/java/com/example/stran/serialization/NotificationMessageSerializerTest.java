@@ -0,0 +1,163 @@
+package com.example.stran.serialization;
+
+import com.example.stran.dto.notification.MatchedStay;
+import com.example.stran.dto.notification.NotificationMessage;
+import org.apache.kafka.common.header.internals.RecordHeaders;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.kafka.support.serializer.JsonDeserializer;
+import org.springframework.kafka.support.serializer.JsonSerializer;
+
+import java.nio.ByteBuffer;
+import java.time.Instant;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class NotificationMessageSerializerTest {
+
+    private static final String TOPIC = "stran-notifications";
+
+    @Test
+    @DisplayName("JSON output is readable by Spring Kafka's JsonDeserializer")
+    void json_readableByJsonDeserializer() {
+        NotificationMessage message = message("Availability found at \"FNLCO\" \\ café 🏨\n");
+
+        byte[] bytes = new NotificationMessageSerializer().serialize(TOPIC, message);
+
+        try (JsonDeserializer<NotificationMessage> deserializer =
+                     new JsonDeserializer<>(NotificationMessage.class, false)) {
+            assertThat(deserializer.deserialize(TOPIC, bytes)).isEqualTo(message);
+        }
+    }
+
+    @Test
+    @DisplayName("JSON output matches JsonSerializer byte for byte")
+    void json_matchesJsonSerializer() {
+        NotificationMessage message = message("Availability found at property FNLCO for 3 night(s)");
+        message.setMatches(List.of(stay(100L), stay(101L)));
+
+        try (JsonSerializer<NotificationMessage> jackson = new JsonSerializer<>()) {
+            assertThat(new String(new NotificationMessageSerializer().serialize(TOPIC, message)))
+                    .isEqualTo(new String(jackson.serialize(TOPIC, message)));
+        }
+    }
+
+    @Test
+    @DisplayName("JSON string escapes match JsonSerializer byte for byte")
+    void json_escapesMatchJsonSerializer() {
+        StringBuilder ascii = new StringBuilder();
+        for (char c = 0; c < 0x80; c++) {
+            ascii.append(c);
+        }
+        String text = ascii + " café ü € 🏨 \uD800 x\uDC00";
+        NotificationMessage message = message(text);
+        message.setGuestId("tab\there");
+        message.setPropCode("line\r\nbreak");
+        message.setMatches(List.of(MatchedStay.builder()
+                .subscriptionId(100L)
+                .propCode("\b\f\u0000\u001f\u007f")
+                .checkInDate("\"2026-03-09\"")
+                .nights(3)
+                .build()));
+
+        try (JsonSerializer<NotificationMessage> jackson = new JsonSerializer<>()) {
+            assertThat(new NotificationMessageSerializer().serialize(TOPIC, message))
+                    .isEqualTo(jackson.serialize(TOPIC, message));
+        }
+    }
+
+    @Test
+    @DisplayName("JSON records carry the same type header JsonSerializer adds")
+    void json_addsTypeHeader() {
+        RecordHeaders headers = new RecordHeaders();
+
+        new NotificationMessageSerializer().serialize(TOPIC, headers, message("text"));
+
+        assertThat(new String(headers.lastHeader("__TypeId__").value()))
+                .isEqualTo(NotificationMessage.class.getName());
+    }
+
+    @Test
+    @DisplayName("binary output round-trips through NotificationMessageDeserializer and is smaller")
+    void binary_roundTrips() {
+        NotificationMessage message = message("Availability found at property FNLCO café 🏨");
+        message.setMatches(List.of(stay(100L), stay(101L)));
+        NotificationMessage sparse = NotificationMessage.builder().notificationId("n-2").build();
+        NotificationMessageSerializer binary = new NotificationMessageSerializer(NotificationMessageSerializer.Format.BINARY);
+        NotificationMessageDeserializer deserializer = new NotificationMessageDeserializer();
+
+        byte[] bytes = binary.serialize(TOPIC, message);
+
+        assertThat(bytes[0]).isEqualTo(NotificationMessageSerializer.BINARY_MAGIC);
+        assertThat(bytes[1]).isEqualTo(NotificationMessageSerializer.BINARY_VERSION);
+        assertThat(deserializer.deserialize(TOPIC, bytes)).isEqualTo(message);
+        assertThat(deserializer.deserialize(TOPIC, binary.serialize(TOPIC, sparse))).isEqualTo(sparse);
+        assertThat(bytes.length).isLessThan(new NotificationMessageSerializer().serialize(TOPIC, message).length);
+    }
+
+    @Test
+    @DisplayName("the source timestamp is written to the body and an event-time header in both formats")
+    void sourceTimestamp_writtenToBodyAndHeader() {
+        NotificationMessage message = message("text");
+        message.setSourceTimestamp(Instant.parse("2026-03-01T10:15:29.500Z"));
+        RecordHeaders headers = new RecordHeaders();
+
+        byte[] json = new NotificationMessageSerializer().serialize(TOPIC, headers, message);
+        byte[] binary = new NotificationMessageSerializer(NotificationMessageSerializer.Format.BINARY)
+                .serialize(TOPIC, message);
+
+        try (JsonSerializer<NotificationMessage> jackson = new JsonSerializer<>()) {
+            assertThat(new String(json)).isEqualTo(new String(jackson.serialize(TOPIC, message)));
+        }
+        assertThat(ByteBuffer.wrap(headers.lastHeader(NotificationMessageSerializer.EVENT_TIME_HEADER).value()).getLong())
+                .isEqualTo(message.getSourceTimestamp().toEpochMilli());
+        assertThat(new NotificationMessageDeserializer().deserialize(TOPIC, binary)).isEqualTo(message);
+    }
+
+    @Test
+    @DisplayName("the deserializer still reads version 1 binary records")
+    void deserializer_readsBinaryVersion1() {
+        NotificationMessage message = message("text");
+        byte[] current = new NotificationMessageSerializer(NotificationMessageSerializer.Format.BINARY)
+                .serialize(TOPIC, message);
+        // Version 1 is version 2 without the trailing source-timestamp presence byte
+        byte[] version1 = Arrays.copyOf(current, current.length - 1);
+        version1[1] = 1;
+
+        assertThat(new NotificationMessageDeserializer().deserialize(TOPIC, version1)).isEqualTo(message);
+    }
+
+    @Test
+    @DisplayName("the deserializer also reads the JSON format")
+    void deserializer_readsJson() {
+        NotificationMessage message = message("text");
+
+        byte[] bytes = new NotificationMessageSerializer().serialize(TOPIC, message);
+
+        assertThat(new NotificationMessageDeserializer().deserialize(TOPIC, bytes)).isEqualTo(message);
+    }
+
+    private static NotificationMessage message(String text) {
+        return NotificationMessage.builder()
+                .notificationId("a4b1c2d3-0000-4000-8000-000000000001")
+                .subscriptionId(100L)
+                .guestId("guest-1")
+                .propCode("FNLCO")
+                .checkInDate("2026-03-09")
+                .nights(3)
+                .message(text)
+                .timestamp(Instant.parse("2026-03-01T10:15:30.000120Z"))
+                .build();
+    }
+
+    private static MatchedStay stay(Long subscriptionId) {
+        return MatchedStay.builder()
+                .subscriptionId(subscriptionId)
+                .propCode("FNLCO")
+                .checkInDate("2026-03-09")
+                .nights(3)
+                .build();
+    }
+}
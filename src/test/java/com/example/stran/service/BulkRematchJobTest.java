@@ -0,0 +1,193 @@
+package com.example.stran.service;
+
+import com.example.stran.dto.inventory.InventoryEventBody;
+import com.example.stran.dto.inventory.RoomRecommendation;
+import com.example.stran.dto.inventory.SourceRecord;
+import com.example.stran.entity.Property;
+import com.example.stran.entity.StaySubscription;
+import com.example.stran.entity.SubscriptionSearchType;
+import com.example.stran.entity.SubscriptionStatus;
+import com.example.stran.repository.PropertyRepository;
+import com.example.stran.repository.StaySubscriptionRepository;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.junit.jupiter.api.io.TempDir;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Clock;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.LongStream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.anyCollection;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class BulkRematchJobTest {
+
+    private static final LocalDate STAY = LocalDate.of(2026, 3, 12);
+
+    @Mock
+    private PropertyRepository propertyRepository;
+
+    @Mock
+    private StaySubscriptionRepository subscriptionRepository;
+
+    @Mock
+    private NotificationDispatchService notificationDispatchService;
+
+    @TempDir
+    Path dir;
+
+    private final Clock clock = Clock.fixed(Instant.parse("2026-03-10T12:00:00Z"), ZoneOffset.UTC);
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+    private final LatestAvailability latestAvailability = new LatestAvailability(100, null, clock);
+    private final List<StaySubscription> subscriptions = new ArrayList<>();
+    private final List<Collection<Long>> queried = new ArrayList<>();
+    private Path checkpoint;
+    private volatile Long failOnProperty;
+
+    @BeforeEach
+    void setUp() {
+        checkpoint = dir.resolve("rematch.checkpoint");
+        lenient().when(propertyRepository.findByPropCodeIsNotNull()).thenReturn(LongStream.rangeClosed(1, 5)
+                .mapToObj(id -> new Property(id, "Hotel " + id, "P" + id + "HF", 0.0, 0.0, "HF", "P" + id,
+                        Instant.EPOCH, Instant.EPOCH, 0))
+                .toList());
+        lenient().when(subscriptionRepository.findActivePropertySubscriptions(anyCollection())).thenAnswer(invocation -> {
+            Collection<Long> ids = invocation.getArgument(0);
+            if (ids.contains(failOnProperty)) {
+                failOnProperty = null;
+                throw new IllegalStateException("connection reset");
+            }
+            synchronized (queried) {
+                queried.add(List.copyOf(ids));
+            }
+            return subscriptions.stream().filter(sub -> ids.contains(sub.getPropertyId())).toList();
+        });
+    }
+
+    @Test
+    @DisplayName("notifies subscriptions matching the latest availability, once each, with the event's source record")
+    void run_dispatchesMatches() {
+        StaySubscription threeNights = subscription(100L, 1L, STAY, 3);
+        StaySubscription fiveNights = subscription(101L, 1L, STAY, 5);
+        StaySubscription past = subscription(102L, 3L, LocalDate.of(2026, 3, 9), 1);
+        StaySubscription twoRatePlans = subscription(103L, 5L, STAY, 2);
+        subscriptions.addAll(List.of(threeNights, fiveNights, past, twoRatePlans));
+        SourceRecord source = new SourceRecord("rate-recomm-prd", 2, 77L, 0L);
+        InventoryEventBody p1 = event("P1", STAY, "NG7BCD", "YYYNNNN");
+        latestAvailability.record(p1, source);
+        latestAvailability.record(event("P3", LocalDate.of(2026, 3, 9), "NG7BCD", "YYYYYYY"), null);
+        InventoryEventBody p5 = event("P5", STAY, "NG7BCD", "YYNNNNN");
+        latestAvailability.record(p5, null);
+        latestAvailability.record(event("P5", STAY, "BAR", "YYYNNNN"), null);
+
+        BulkRematchJob job = job(2);
+        job.run();
+
+        verify(notificationDispatchService).dispatch(List.of(threeNights), p1, source, Map.of(100L, "rematch"));
+        verify(notificationDispatchService).dispatch(eq(List.of(twoRatePlans)), any(), isNull(),
+                eq(Map.of(103L, "rematch")));
+        verifyNoMoreInteractions(notificationDispatchService);
+        assertThat(job.status()).satisfies(status -> {
+            assertThat(status.running()).isFalse();
+            assertThat(status.propertiesDone()).isEqualTo(5);
+            assertThat(status.subscriptionsChecked()).isEqualTo(3);
+            assertThat(status.notificationsSent()).isEqualTo(2);
+            assertThat(status.checkpoint()).isNull();
+        });
+        assertThat(queried).hasSize(3);
+        assertThat(checkpoint).doesNotExist();
+        assertThat(meterRegistry.get("stran.rematch.notifications").counter().count()).isEqualTo(2.0);
+    }
+
+    @Test
+    @DisplayName("keeps the checkpoint of the last contiguous finished batch on failure and resumes after it")
+    void run_checkpointsAndResumes() throws Exception {
+        subscriptions.add(subscription(104L, 4L, STAY, 1));
+        latestAvailability.record(event("P4", STAY, "NG7BCD", "YNNNNNN"), null);
+        failOnProperty = 3L;
+
+        BulkRematchJob job = job(1);
+        job.run();
+
+        assertThat(job.status().lastError()).contains("connection reset");
+        assertThat(job.status().checkpoint()).isEqualTo(2L);
+        assertThat(Files.readString(checkpoint)).contains("afterPropertyId=2");
+        String runId = job.status().runId();
+        verifyNoInteractions(notificationDispatchService);
+
+        queried.clear();
+        BulkRematchJob restarted = job(1);
+        assertThat(restarted.status().checkpoint()).isEqualTo(2L);
+        restarted.run();
+
+        assertThat(queried).containsExactly(List.of(3L, 4L), List.of(5L));
+        assertThat(restarted.status().runId()).isEqualTo(runId);
+        assertThat(restarted.status().propertiesTotal()).isEqualTo(3);
+        verify(notificationDispatchService).dispatch(eq(List.of(subscriptions.get(0))), any(), isNull(), anyMap());
+        assertThat(checkpoint).doesNotExist();
+    }
+
+    @Test
+    @DisplayName("keeps the checkpoint instead of completing when latest availability is empty")
+    void run_emptyAvailabilityKeepsCheckpoint() throws Exception {
+        Files.writeString(checkpoint, "runId=2026-03-10T00:00:00Z\nafterPropertyId=2\n");
+        BulkRematchJob job = new BulkRematchJob(propertyRepository, subscriptionRepository, latestAvailability,
+                notificationDispatchService, checkpoint, 1, 2, 1_000_000, true, Runnable::run, clock,
+                meterRegistry);
+
+        job.resumeOnStartup();
+        job.run();
+
+        assertThat(queried).isEmpty();
+        assertThat(job.status().checkpoint()).isEqualTo(2L);
+        assertThat(job.status().lastError()).contains("No latest availability");
+        assertThat(Files.readString(checkpoint)).contains("afterPropertyId=2");
+        verifyNoInteractions(notificationDispatchService);
+    }
+
+    private BulkRematchJob job(int parallelism) {
+        return new BulkRematchJob(propertyRepository, subscriptionRepository, latestAvailability,
+                notificationDispatchService, checkpoint, parallelism, 2, 1_000_000, false, Runnable::run, clock,
+                meterRegistry);
+    }
+
+    private static StaySubscription subscription(long id, long propertyId, LocalDate checkIn, int nights) {
+        StaySubscription sub = new StaySubscription();
+        sub.setId(id);
+        sub.setGuestId("guest-" + id);
+        sub.setSearchType(SubscriptionSearchType.PROPERTY);
+        sub.setPropertyId(propertyId);
+        sub.setCheckInDate(checkIn);
+        sub.setCheckOutDate(checkIn.plusDays(nights));
+        sub.setStatus(SubscriptionStatus.ACTIVE);
+        return sub;
+    }
+
+    private static InventoryEventBody event(String propCode, LocalDate date, String ratePlan, String losPattern) {
+        return InventoryEventBody.builder()
+                .propCode(propCode)
+                .startDate(date.toString())
+                .endDate(date.toString())
+                .ratePlanCode(ratePlan)
+                .roomRecommendations(List.of(RoomRecommendation.builder()
+                        .roomTypeCode("KING")
+                        .lengthOfStayPattern(List.of(losPattern))
+                        .build()))
+                .build();
+    }
+}
@@ -0,0 +1,88 @@
+package com.example.stran.service;
+
+import ch.qos.logback.classic.Level;
+import ch.qos.logback.classic.Logger;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.slf4j.LoggerFactory;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class HotPathLogTest {
+
+    private final AtomicLong nanos = new AtomicLong();
+
+    private final Logger hotPathLogger = (Logger) LoggerFactory.getLogger(HotPathLog.DEBUG_CATEGORY);
+
+    private final Logger propCodeLogger = (Logger) LoggerFactory.getLogger(HotPathLog.DEBUG_CATEGORY + ".FNLCO");
+
+    @BeforeEach
+    void setLevel() {
+        hotPathLogger.setLevel(Level.INFO);
+    }
+
+    @AfterEach
+    void resetLevels() {
+        hotPathLogger.setLevel(null);
+        propCodeLogger.setLevel(null);
+    }
+
+    @Test
+    @DisplayName("logs every record when sampling is off")
+    void shouldLog_logsEverythingWhenNotSampled() {
+        HotPathLog hotPathLog = new HotPathLog(false, 100, 1, 10_000, nanos::get, false);
+
+        for (int i = 0; i < 10; i++) {
+            assertThat(hotPathLog.shouldLog(HotPathLog.Site.EVENT_RECEIVED, "FNLCO")).isTrue();
+        }
+        assertThat(hotPathLog.summarize()).isNull();
+    }
+
+    @Test
+    @DisplayName("samples one in N records per site and caps lines per second")
+    void shouldLog_samplesAndRateLimitsPerSite() {
+        HotPathLog hotPathLog = new HotPathLog(true, 10, 2, 10_000, nanos::get, false);
+
+        int logged = 0;
+        for (int i = 0; i < 100; i++) {
+            if (hotPathLog.shouldLog(HotPathLog.Site.EVENT_RECEIVED, "NYCHH")) {
+                logged++;
+            }
+        }
+        assertThat(logged).isEqualTo(2);
+        assertThat(hotPathLog.shouldLog(HotPathLog.Site.SUBSCRIPTIONS_MATCHED, "NYCHH")).isTrue();
+
+        nanos.addAndGet(TimeUnit.SECONDS.toNanos(1));
+        assertThat(hotPathLog.shouldLog(HotPathLog.Site.EVENT_RECEIVED, "NYCHH")).isTrue();
+    }
+
+    @Test
+    @DisplayName("logs every record of a propCode whose hot-path logger is at DEBUG")
+    void shouldLog_logsEverythingForDebugPropCode() {
+        HotPathLog hotPathLog = new HotPathLog(true, 1000, 1, 10_000, nanos::get, false);
+        propCodeLogger.setLevel(Level.DEBUG);
+
+        for (int i = 0; i < 10; i++) {
+            assertThat(hotPathLog.shouldLog(HotPathLog.Site.NOTIFICATION_PUBLISHED, "FNLCO")).isTrue();
+        }
+        assertThat(hotPathLog.shouldLog(HotPathLog.Site.NOTIFICATION_PUBLISHED, "NYCHH")).isFalse();
+    }
+
+    @Test
+    @DisplayName("summarizes the records seen per site since the previous summary")
+    void summarize_reportsCountsSinceLastSummary() {
+        HotPathLog hotPathLog = new HotPathLog(true, 1000, 5, 10_000, nanos::get, false);
+        for (int i = 0; i < 50; i++) {
+            hotPathLog.shouldLog(HotPathLog.Site.EVENT_RECEIVED, "NYCHH");
+        }
+        hotPathLog.shouldLog(HotPathLog.Site.NO_MATCH, "NYCHH");
+
+        assertThat(hotPathLog.summarize()).isEqualTo("event_received=50 (logged 1), no_match=1 (logged 1)");
+        assertThat(hotPathLog.summarize()).isNull();
+    }
+}
@@ -0,0 +1,146 @@
+package com.example.stran.service;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.apache.kafka.clients.consumer.ConsumerRecord;
+import org.apache.kafka.common.TopicPartition;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.kafka.support.Acknowledgment;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.timeout;
+import static org.mockito.Mockito.verify;
+
+class HotPropertyLanesTest {
+
+    private static final long MS = TimeUnit.MILLISECONDS.toNanos(1);
+
+    private final AtomicLong now = new AtomicLong(1_000_000L);
+    private HotPropertyLanes lanes;
+
+    @AfterEach
+    void tearDown() throws InterruptedException {
+        if (lanes != null) {
+            lanes.shutdown();
+        }
+    }
+
+    @Test
+    @DisplayName("routes configured properties and properties detected from fan-out or latency until the TTL expires")
+    void routes_configuredAndDetected() {
+        lanes = lanes(new String[]{"HOTCO", " "}, 1, 10);
+
+        assertThat(lanes.routes("HOTCO")).isTrue();
+        assertThat(lanes.routes("FNLCO")).isFalse();
+
+        lanes.observe("FNLCO", 10 * MS, 99);
+        assertThat(lanes.routes("FNLCO")).isFalse();
+        lanes.observe("FNLCO", 10 * MS, 100);
+        lanes.observe("SLOWCO", 500 * MS, 0);
+        assertThat(lanes.routes("FNLCO")).isTrue();
+        assertThat(lanes.hotProperties()).containsExactlyInAnyOrder("HOTCO", "FNLCO", "SLOWCO");
+
+        now.addAndGet(Duration.ofMinutes(10).toMillis());
+        assertThat(lanes.routes("FNLCO")).isFalse();
+        assertThat(lanes.hotProperties()).containsExactly("HOTCO");
+    }
+
+    @Test
+    @DisplayName("keeps at most max-properties detected properties, dropping the one expiring first")
+    void observe_boundsDetectedProperties() {
+        lanes = lanes(new String[0], 1, 10);
+
+        for (int i = 0; i < 3; i++) {
+            lanes.observe("P" + i, 0, 1_000);
+            now.incrementAndGet();
+        }
+
+        assertThat(lanes.hotProperties()).containsExactlyInAnyOrder("P1", "P2");
+    }
+
+    @Test
+    @DisplayName("processes a property's events in order off the caller thread and keeps routing it while they are queued")
+    void submit_processesInOrderOnLane() throws InterruptedException {
+        lanes = lanes(new String[]{"HOTCO"}, 2, 10);
+        CountDownLatch release = new CountDownLatch(1);
+        List<Long> processed = new CopyOnWriteArrayList<>();
+        List<String> threads = new CopyOnWriteArrayList<>();
+
+        for (long offset = 0; offset < 5; offset++) {
+            long current = offset;
+            lanes.submit(record(0, offset), "HOTCO", () -> {
+                await(release);
+                threads.add(Thread.currentThread().getName());
+                processed.add(current);
+            }, mock(Acknowledgment.class));
+        }
+
+        assertThat(lanes.pending()).isEqualTo(5);
+        assertThat(lanes.routes("HOTCO")).isTrue();
+        release.countDown();
+        lanes.onPartitionsRevokedBeforeCommit(null, List.of(new TopicPartition("rate-recomm-prd", 0)));
+
+        assertThat(lanes.pending()).isZero();
+        assertThat(processed).containsExactly(0L, 1L, 2L, 3L, 4L);
+        assertThat(threads).allMatch(name -> name.startsWith("hot-property-lane-")).hasSize(5);
+    }
+
+    @Test
+    @DisplayName("retries a failing event, then acknowledges it so the partition's offsets keep advancing")
+    void submit_skipsEventAfterRetries() {
+        lanes = lanes(new String[]{"HOTCO"}, 1, 10);
+        Acknowledgment ack = mock(Acknowledgment.class);
+        AtomicInteger attempts = new AtomicInteger();
+
+        lanes.submit(record(0, 7L), "HOTCO", () -> {
+            attempts.incrementAndGet();
+            throw new IllegalStateException("boom");
+        }, ack);
+
+        verify(ack, timeout(5_000)).acknowledge();
+        assertThat(attempts).hasValue(3);
+    }
+
+    @Test
+    @DisplayName("fails the record when the lane stays full")
+    void submit_failsWhenLaneFull() {
+        lanes = lanes(new String[]{"HOTCO"}, 1, 1);
+        CountDownLatch release = new CountDownLatch(1);
+        Acknowledgment ack = mock(Acknowledgment.class);
+
+        lanes.submit(record(0, 0L), "HOTCO", () -> await(release), ack);
+        lanes.submit(record(0, 1L), "HOTCO", () -> { }, ack);
+
+        assertThatThrownBy(() -> lanes.submit(record(0, 2L), "HOTCO", () -> { }, ack))
+                .isInstanceOf(IllegalStateException.class);
+        release.countDown();
+    }
+
+    private HotPropertyLanes lanes(String[] propCodes, int concurrency, int queueCapacity) {
+        return new HotPropertyLanes(propCodes, concurrency, queueCapacity, 50, 100, 500,
+                Duration.ofMinutes(10), 2, 2, 10, 5_000, new SimpleMeterRegistry(), now::get);
+    }
+
+    private static ConsumerRecord<String, String> record(int partition, long offset) {
+        return new ConsumerRecord<>("rate-recomm-prd", partition, offset, "key", "value");
+    }
+
+    private static void await(CountDownLatch latch) {
+        try {
+            latch.await(5, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
@@ -0,0 +1,78 @@
+package com.example.stran.service;
+
+import com.example.stran.dto.inventory.InventoryEvent;
+import org.apache.kafka.clients.consumer.ConsumerRecord;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InOrder;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.kafka.listener.AcknowledgingMessageListener;
+import org.springframework.util.backoff.FixedBackOff;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.inOrder;
+
+@ExtendWith(MockitoExtension.class)
+class InventoryBatchListenerTest {
+
+    @Mock
+    private InventoryEventListener listener;
+
+    private InventoryBatchListener batchListener;
+
+    private final ConsumerRecord<String, InventoryEvent> first = record(10L);
+    private final ConsumerRecord<String, InventoryEvent> poison = record(11L);
+    private final ConsumerRecord<String, InventoryEvent> last = record(12L);
+
+    @BeforeEach
+    void setUp() {
+        batchListener = new InventoryBatchListener(listener, new FixedBackOff(0, 2));
+    }
+
+    @Test
+    @DisplayName("hands every record of the batch to the record listener in order")
+    void onInventoryEvents_delegatesEachRecord() {
+        batchListener.onInventoryEvents(List.of(first, last));
+
+        InOrder inOrder = inOrder(listener);
+        inOrder.verify(listener).onInventoryEvent(eq(first), any());
+        inOrder.verify(listener).onInventoryEvent(eq(last), any());
+    }
+
+    @Test
+    @DisplayName("fails the batch until a record has used its retries, then skips only that record")
+    void process_skipsRecordAfterMaxAttempts() {
+        List<Long> handled = new ArrayList<>();
+        AcknowledgingMessageListener<String, InventoryEvent> handler = (record, ack) -> {
+            handled.add(record.offset());
+            if (record == poison) {
+                throw new IllegalStateException("connection reset");
+            }
+        };
+        List<ConsumerRecord<String, InventoryEvent>> batch = List.of(first, poison, last);
+
+        // One delivery plus two retries, each rolled back
+        for (int attempt = 0; attempt < 3; attempt++) {
+            assertThatThrownBy(() -> batchListener.process(batch, handler))
+                    .isInstanceOf(IllegalStateException.class);
+        }
+        assertThat(handled).containsExactly(10L, 11L, 10L, 11L, 10L, 11L);
+
+        batchListener.process(batch, handler);
+
+        assertThat(handled).containsExactly(10L, 11L, 10L, 11L, 10L, 11L, 10L, 12L);
+    }
+
+    private static ConsumerRecord<String, InventoryEvent> record(long offset) {
+        return new ConsumerRecord<>("rate-recomm-prd", 0, offset, "FNLCO::NG7BCD", new InventoryEvent());
+    }
+}
@@ -1,18 +1,25 @@
 package com.example.stran.service;
 
+import com.example.stran.dto.inventory.EventContext;
 import com.example.stran.dto.inventory.InventoryEvent;
 import com.example.stran.dto.inventory.InventoryEventBody;
 import com.example.stran.dto.inventory.InventoryEventValue;
+import com.example.stran.dto.inventory.SourceRecord;
 import org.apache.kafka.clients.consumer.ConsumerRecord;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.DisplayName;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
-import org.mockito.InjectMocks;
+import org.mockito.ArgumentCaptor;
 import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.kafka.support.Acknowledgment;
+
+import java.time.Instant;
 
 import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
 import static org.mockito.Mockito.*;
 
 @ExtendWith(MockitoExtension.class)
@@ -21,7 +28,27 @@ class InventoryEventListenerTest {
     @Mock
     private InventoryEventProcessingService processingService;
 
-    @InjectMocks
+    @Mock
+    private ObjectProvider<NotificationAckTracker> ackTracker;
+
+    @Mock
+    private HotPathLog hotPathLog;
+
+    @Mock
+    private PipelineMetrics pipelineMetrics;
+
+    @Mock
+    private SlowEventLog slowEventLog;
+
+    @Mock
+    private ObjectProvider<HotPropertyLanes> hotLanes;
+
+    @Mock
+    private HotPropertyLanes lanes;
+
+    @Mock
+    private Acknowledgment ack;
+
     private InventoryEventListener listener;
 
     private InventoryEventBody testBody;
@@ -29,6 +56,9 @@ class InventoryEventListenerTest {
 
     @BeforeEach
     void setUp() {
+        listener = new InventoryEventListener(processingService, ackTracker, hotPathLog, pipelineMetrics,
+                slowEventLog, hotLanes);
+
         testBody = InventoryEventBody.builder()
                 .propCode("FNLCO")
                 .startDate("2026-03-09")
@@ -51,9 +81,23 @@ class InventoryEventListenerTest {
         ConsumerRecord<String, InventoryEvent> record =
                 new ConsumerRecord<>("rate-recomm-prd", 0, 42L, "FNLCO::NG7BCD", testEvent);
 
-        listener.onInventoryEvent(record);
+        listener.onInventoryEvent(record, ack);
 
-        verify(processingService).process(testBody);
+        verify(processingService).process(testBody,
+                new SourceRecord("rate-recomm-prd", 0, 42L, ConsumerRecord.NO_TIMESTAMP));
+    }
+
+    @Test
+    @DisplayName("carries the event context timestamp as the source event time")
+    void onInventoryEvent_usesEventContextTimestamp() {
+        testEvent.getValue().setContext(EventContext.builder().timestamp("2026-03-01T10:15:30.250Z").build());
+        ConsumerRecord<String, InventoryEvent> record =
+                new ConsumerRecord<>("rate-recomm-prd", 0, 42L, "FNLCO::NG7BCD", testEvent);
+
+        listener.onInventoryEvent(record, ack);
+
+        verify(processingService).process(testBody, new SourceRecord("rate-recomm-prd", 0, 42L,
+                Instant.parse("2026-03-01T10:15:30.250Z").toEpochMilli()));
     }
 
     @Test
@@ -62,9 +106,9 @@ class InventoryEventListenerTest {
         ConsumerRecord<String, InventoryEvent> record =
                 new ConsumerRecord<>("rate-recomm-prd", 0, 42L, "key", null);
 
-        listener.onInventoryEvent(record);
+        listener.onInventoryEvent(record, ack);
 
-        verify(processingService, never()).process(any());
+        verify(processingService, never()).process(any(), any());
     }
 
     @Test
@@ -74,9 +118,9 @@ class InventoryEventListenerTest {
         ConsumerRecord<String, InventoryEvent> record =
                 new ConsumerRecord<>("rate-recomm-prd", 0, 42L, "key", event);
 
-        listener.onInventoryEvent(record);
+        listener.onInventoryEvent(record, ack);
 
-        verify(processingService, never()).process(any());
+        verify(processingService, never()).process(any(), any());
     }
 
     @Test
@@ -87,8 +131,42 @@ class InventoryEventListenerTest {
         ConsumerRecord<String, InventoryEvent> record =
                 new ConsumerRecord<>("rate-recomm-prd", 0, 42L, "key", event);
 
-        listener.onInventoryEvent(record);
+        listener.onInventoryEvent(record, ack);
+
+        verify(processingService, never()).process(any(), any());
+    }
+
+    @Test
+    @DisplayName("hands events of hot properties to the hot-property lanes")
+    void onInventoryEvent_routesHotPropertyToLanes() {
+        when(hotLanes.getIfAvailable()).thenReturn(lanes);
+        when(lanes.routes("FNLCO")).thenReturn(true);
+        ConsumerRecord<String, InventoryEvent> record =
+                new ConsumerRecord<>("rate-recomm-prd", 0, 42L, "FNLCO::NG7BCD", testEvent);
+
+        listener.onInventoryEvent(record, ack);
+
+        ArgumentCaptor<Runnable> task = ArgumentCaptor.forClass(Runnable.class);
+        verify(lanes).submit(eq(record), eq("FNLCO"), task.capture(), eq(ack));
+        verifyNoInteractions(processingService, ack);
+
+        task.getValue().run();
+
+        verify(processingService).process(eq(testBody), any());
+        verify(ack).acknowledge();
+    }
+
+    @Test
+    @DisplayName("acknowledges events processed on the consumer thread when hot-property lanes are enabled")
+    void onInventoryEvent_acknowledgesWhenLanesEnabled() {
+        when(hotLanes.getIfAvailable()).thenReturn(lanes);
+        ConsumerRecord<String, InventoryEvent> record =
+                new ConsumerRecord<>("rate-recomm-prd", 0, 42L, "FNLCO::NG7BCD", testEvent);
+
+        listener.onInventoryEvent(record, ack);
 
-        verify(processingService, never()).process(any());
+        verify(processingService).process(eq(testBody), any());
+        verify(ack).acknowledge();
+        verify(lanes, never()).submit(any(), any(), any(), any());
     }
 }
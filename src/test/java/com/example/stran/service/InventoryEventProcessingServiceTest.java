@@ -11,11 +11,14 @@ import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
 import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.beans.factory.ObjectProvider;
 
 import java.math.BigDecimal;
 import java.time.Instant;
 import java.time.LocalDate;
 import java.util.List;
+import java.util.Map;
+import java.util.function.Consumer;
 
 import static org.mockito.ArgumentMatchers.anyList;
 import static org.mockito.ArgumentMatchers.eq;
@@ -33,6 +36,18 @@ class InventoryEventProcessingServiceTest {
     @Mock
     private NotificationDispatchService notificationDispatchService;
 
+    @Mock
+    private HotPathLog hotPathLog;
+
+    @Mock
+    private HotKeyTracker hotKeyTracker;
+
+    @Mock
+    private ObjectProvider<ShadowMatching> shadowMatching;
+
+    @Mock
+    private ObjectProvider<LatestAvailability> latestAvailability;
+
     private InventoryEventProcessingService service;
 
     private InventoryEventBody testEventBody;
@@ -41,7 +56,8 @@ class InventoryEventProcessingServiceTest {
     @BeforeEach
     void setUp() {
         service = new InventoryEventProcessingService(
-                List.of(strategy1, strategy2), notificationDispatchService);
+                List.of(strategy1, strategy2), notificationDispatchService, hotPathLog, hotKeyTracker,
+                shadowMatching, latestAvailability);
 
         testEventBody = InventoryEventBody.builder()
                 .propCode("FNLCO")
@@ -84,7 +100,7 @@ class InventoryEventProcessingServiceTest {
         verify(strategy2, never()).findMatchingSubscriptions(any());
         verify(notificationDispatchService).dispatch(
                 argThat(list -> list.size() == 1 && list.get(0).getId().equals(100L)),
-                eq(testEventBody));
+                eq(testEventBody), isNull(), anyMap());
     }
 
     @Test
@@ -97,7 +113,7 @@ class InventoryEventProcessingServiceTest {
 
         service.process(testEventBody);
 
-        verify(notificationDispatchService, never()).dispatch(anyList(), any());
+        verify(notificationDispatchService, never()).dispatch(anyList(), any(), any(), anyMap());
     }
 
     @Test
@@ -108,12 +124,14 @@ class InventoryEventProcessingServiceTest {
         when(strategy2.supports(testEventBody)).thenReturn(true);
         // Same subscription returned by both strategies
         when(strategy2.findMatchingSubscriptions(testEventBody)).thenReturn(List.of(testSubscription));
+        when(strategy1.name()).thenReturn("first");
+        when(strategy2.name()).thenReturn("second");
 
         service.process(testEventBody);
 
         verify(notificationDispatchService).dispatch(
                 argThat(list -> list.size() == 1), // deduplicated
-                eq(testEventBody));
+                eq(testEventBody), isNull(), eq(Map.of(100L, "first")));
     }
 
     @Test
@@ -142,7 +160,40 @@ class InventoryEventProcessingServiceTest {
 
         verify(notificationDispatchService).dispatch(
                 argThat(list -> list.size() == 2),
-                eq(testEventBody));
+                eq(testEventBody), isNull(), anyMap());
+    }
+
+    @Test
+    @DisplayName("offers each strategy's matches to shadow matching when enabled")
+    void process_offersMatchesToShadow() {
+        ShadowMatching shadow = mock(ShadowMatching.class);
+        when(shadowMatching.getIfAvailable()).thenReturn(shadow);
+        when(strategy1.supports(testEventBody)).thenReturn(true);
+        when(strategy1.findMatchingSubscriptions(testEventBody)).thenReturn(List.of(testSubscription));
+        when(strategy1.name()).thenReturn("property-db");
+        when(strategy2.supports(testEventBody)).thenReturn(false);
+
+        service.process(testEventBody);
+
+        verify(shadow).offer(eq("property-db"), eq(testEventBody), eq(List.of(testSubscription)), anyLong());
+        verify(notificationDispatchService).dispatch(anyList(), eq(testEventBody), isNull(), anyMap());
+    }
+
+    @Test
+    @DisplayName("records the event as the latest availability when bulk re-match is enabled")
+    @SuppressWarnings("unchecked")
+    void process_recordsLatestAvailability() {
+        LatestAvailability latest = mock(LatestAvailability.class);
+        doAnswer(invocation -> {
+            invocation.<Consumer<LatestAvailability>>getArgument(0).accept(latest);
+            return null;
+        }).when(latestAvailability).ifAvailable(any(Consumer.class));
+        when(strategy1.supports(testEventBody)).thenReturn(false);
+        when(strategy2.supports(testEventBody)).thenReturn(false);
+
+        service.process(testEventBody);
+
+        verify(latest).record(testEventBody, null);
     }
 
     @Test
@@ -155,6 +206,6 @@ class InventoryEventProcessingServiceTest {
 
         verify(strategy1, never()).findMatchingSubscriptions(any());
         verify(strategy2, never()).findMatchingSubscriptions(any());
-        verify(notificationDispatchService, never()).dispatch(anyList(), any());
+        verify(notificationDispatchService, never()).dispatch(anyList(), any(), any(), anyMap());
     }
 }
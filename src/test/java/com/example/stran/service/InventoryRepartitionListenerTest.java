@@ -0,0 +1,84 @@
+package com.example.stran.service;
+
+import com.example.stran.dto.inventory.InventoryEvent;
+import com.example.stran.dto.inventory.InventoryEventBody;
+import com.example.stran.dto.inventory.InventoryEventValue;
+import org.apache.kafka.clients.consumer.ConsumerRecord;
+import org.apache.kafka.clients.producer.ProducerRecord;
+import org.apache.kafka.common.KafkaException;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.kafka.core.KafkaTemplate;
+import org.springframework.kafka.support.Acknowledgment;
+import org.springframework.kafka.support.SendResult;
+
+import java.util.concurrent.CompletableFuture;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class InventoryRepartitionListenerTest {
+
+    @Mock
+    private KafkaTemplate<String, InventoryEvent> repartitionKafkaTemplate;
+
+    @Mock
+    private ObjectProvider<NotificationAckTracker> ackTracker;
+
+    @Mock
+    private Acknowledgment ack;
+
+    private InventoryRepartitionListener listener;
+    private ConsumerRecord<String, InventoryEvent> record;
+
+    @BeforeEach
+    void setUp() {
+        listener = new InventoryRepartitionListener(repartitionKafkaTemplate, "inventory-by-property", ackTracker,
+                1_000);
+        InventoryEvent event = InventoryEvent.builder()
+                .key("FNLCO::NG7BCD")
+                .value(InventoryEventValue.builder()
+                        .body(InventoryEventBody.builder().propCode("FNLCO").startDate("2026-03-09").build())
+                        .build())
+                .build();
+        record = new ConsumerRecord<>("rate-recomm-prd", 2, 41L, "FNLCO::NG7BCD", event);
+    }
+
+    @Test
+    @DisplayName("re-keys the event by propCode and acknowledges it once the forward is acknowledged")
+    @SuppressWarnings("unchecked")
+    void onInventoryEvent_acksAfterForward() {
+        when(repartitionKafkaTemplate.send(any(ProducerRecord.class)))
+                .thenReturn(CompletableFuture.completedFuture(mock(SendResult.class)));
+
+        listener.onInventoryEvent(record, ack);
+
+        ArgumentCaptor<ProducerRecord<String, InventoryEvent>> forwarded = ArgumentCaptor.forClass(ProducerRecord.class);
+        verify(repartitionKafkaTemplate).send(forwarded.capture());
+        assertThat(forwarded.getValue().topic()).isEqualTo("inventory-by-property");
+        assertThat(forwarded.getValue().key()).isEqualTo("FNLCO");
+        verify(ack).acknowledge();
+    }
+
+    @Test
+    @DisplayName("fails the record without acknowledging it when the forward fails")
+    @SuppressWarnings("unchecked")
+    void onInventoryEvent_failedForwardIsRedelivered() {
+        when(repartitionKafkaTemplate.send(any(ProducerRecord.class)))
+                .thenReturn(CompletableFuture.failedFuture(new KafkaException("broker unavailable")));
+
+        assertThatThrownBy(() -> listener.onInventoryEvent(record, ack))
+                .isInstanceOf(IllegalStateException.class)
+                .hasRootCauseInstanceOf(KafkaException.class);
+        verify(ack, never()).acknowledge();
+    }
+}
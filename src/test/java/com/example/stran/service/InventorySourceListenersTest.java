@@ -0,0 +1,117 @@
+package com.example.stran.service;
+
+import com.example.stran.dto.inventory.InventoryEvent;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.apache.kafka.clients.consumer.ConsumerConfig;
+import org.apache.kafka.clients.consumer.ConsumerRecord;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.kafka.config.ConcurrentKafkaListenerContainerFactory;
+import org.springframework.kafka.core.ConsumerFactory;
+import org.springframework.kafka.listener.AcknowledgingMessageListener;
+import org.springframework.kafka.listener.ConcurrentMessageListenerContainer;
+import org.springframework.kafka.listener.ContainerProperties;
+import org.springframework.kafka.support.Acknowledgment;
+import org.springframework.mock.env.MockEnvironment;
+
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.verify;
+
+@ExtendWith(MockitoExtension.class)
+class InventorySourceListenersTest {
+
+    @Mock
+    private ConsumerFactory<String, InventoryEvent> consumerFactory;
+
+    @Mock
+    private InventoryEventListener listener;
+
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+    private final MockEnvironment environment = new MockEnvironment()
+            .withProperty("kafka.inventory.source.us.topic", "rate-recomm-us")
+            .withProperty("kafka.inventory.source.us.concurrency", "3")
+            .withProperty("kafka.inventory.source.us.max-poll-records", "200")
+            .withProperty("kafka.inventory.source.us.fetch-max-wait-ms", "100")
+            .withProperty("kafka.inventory.source.us.priority-weight", "4")
+            .withProperty("kafka.inventory.source.eu.topic", "rate-recomm-eu")
+            .withProperty("kafka.inventory.source.eu.group-id", "stran-eu");
+
+    private ConcurrentKafkaListenerContainerFactory<String, InventoryEvent> containerFactory;
+
+    @BeforeEach
+    void setUp() {
+        containerFactory = new ConcurrentKafkaListenerContainerFactory<>();
+        containerFactory.setConsumerFactory(consumerFactory);
+        containerFactory.getContainerProperties().setAckMode(ContainerProperties.AckMode.MANUAL);
+    }
+
+    @Test
+    @DisplayName("reads each listed source with its overrides and defaults, and requires a topic")
+    void sources_readFromEnvironment() {
+        List<InventorySourceListeners.Source> sources = InventorySourceListeners.sources(environment,
+                new String[]{"us", " eu", ""}, "stran-matching-engine", 1);
+
+        assertThat(sources).containsExactly(
+                new InventorySourceListeners.Source("us", "rate-recomm-us", "stran-matching-engine-us",
+                        3, 200, null, 100, 4),
+                new InventorySourceListeners.Source("eu", "rate-recomm-eu", "stran-eu", 1, null, null, null, 1));
+        assertThatThrownBy(() -> InventorySourceListeners.sources(environment, new String[]{"apac"}, "g", 1))
+                .isInstanceOf(IllegalStateException.class)
+                .hasMessageContaining("kafka.inventory.source.apac.topic");
+    }
+
+    @Test
+    @DisplayName("creates one container per source with its own group, client id, concurrency and fetch settings")
+    void containers_isolatedPerSource() {
+        InventorySourceListeners listeners = listeners();
+
+        List<ConcurrentMessageListenerContainer<String, InventoryEvent>> containers = listeners.containers();
+        assertThat(containers).hasSize(2);
+        ContainerProperties us = containers.get(0).getContainerProperties();
+        assertThat(us.getTopics()).containsExactly("rate-recomm-us");
+        assertThat(us.getGroupId()).isEqualTo("stran-matching-engine-us");
+        assertThat(us.getClientId()).isEqualTo("stran-inventory-us");
+        assertThat(us.getAckMode()).isEqualTo(ContainerProperties.AckMode.MANUAL);
+        assertThat(us.getKafkaConsumerProperties())
+                .containsEntry(ConsumerConfig.MAX_POLL_RECORDS_CONFIG, "200")
+                .containsEntry(ConsumerConfig.FETCH_MAX_WAIT_MS_CONFIG, "100")
+                .doesNotContainKey(ConsumerConfig.FETCH_MIN_BYTES_CONFIG);
+        assertThat(containers.get(0).getConcurrency()).isEqualTo(3);
+        assertThat(containers.get(1).getContainerProperties().getGroupId()).isEqualTo("stran-eu");
+    }
+
+    @Test
+    @DisplayName("delivers each source's records to the shared listener and counts them per source")
+    @SuppressWarnings("unchecked")
+    void messageListener_delegatesAndCounts() {
+        InventorySourceListeners listeners = listeners();
+        AcknowledgingMessageListener<String, InventoryEvent> eu = (AcknowledgingMessageListener<String, InventoryEvent>)
+                listeners.containers().get(1).getContainerProperties().getMessageListener();
+        ConsumerRecord<String, InventoryEvent> record =
+                new ConsumerRecord<>("rate-recomm-eu", 0, 5L, "FNLCO::NG7BCD", new InventoryEvent());
+        Acknowledgment ack = mock(Acknowledgment.class);
+
+        eu.onMessage(record, ack);
+
+        verify(listener).onInventoryEvent(record, ack);
+        assertThat(meterRegistry.get("stran.inventory.source.records").tag("source", "eu").counter().count())
+                .isEqualTo(1.0);
+        assertThat(meterRegistry.get("stran.inventory.source.records").tag("source", "us").counter().count())
+                .isZero();
+        assertThat(meterRegistry.get("stran.inventory.source.lag").tag("source", "eu").gauge().value()).isZero();
+    }
+
+    private InventorySourceListeners listeners() {
+        return new InventorySourceListeners(
+                InventorySourceListeners.sources(environment, new String[]{"us", "eu"}, "stran-matching-engine", 1),
+                8, 1_000, containerFactory, listener, null, meterRegistry);
+    }
+}
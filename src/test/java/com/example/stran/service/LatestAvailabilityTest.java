@@ -0,0 +1,101 @@
+package com.example.stran.service;
+
+import com.example.stran.dto.inventory.InventoryEventBody;
+import com.example.stran.dto.inventory.SourceRecord;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.file.Path;
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.ZoneOffset;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.tuple;
+
+class LatestAvailabilityTest {
+
+    private final Clock clock = Clock.fixed(Instant.parse("2026-03-10T12:00:00Z"), ZoneOffset.UTC);
+
+    @Test
+    @DisplayName("keeps the latest event per property, date and rate plan")
+    void record_keepsLatestPerRatePlan() {
+        LatestAvailability latest = new LatestAvailability(10, null, clock);
+        SourceRecord source = new SourceRecord("rate-recomm-prd", 3, 42L, 0L);
+
+        latest.record(event("FNLCO", "2026-03-12", "NG7BCD", 1L), null);
+        latest.record(event("FNLCO", "2026-03-12", "NG7BCD", 2L), source);
+        latest.record(event("FNLCO", "2026-03-12", "BAR", 3L), null);
+
+        assertThat(latest.find("FNLCO", LocalDate.of(2026, 3, 12)))
+                .extracting(snapshot -> snapshot.eventBody().getRecommendationId(), LatestAvailability.Snapshot::source)
+                .containsExactlyInAnyOrder(
+                        tuple(2L, source),
+                        tuple(3L, null));
+        assertThat(latest.find("FNLCO", LocalDate.of(2026, 3, 13))).isEmpty();
+    }
+
+    @Test
+    @DisplayName("stops recording new property/date pairs when full and evicts past dates")
+    void record_boundedAndEvictsPast() {
+        LatestAvailability latest = new LatestAvailability(2, null, clock);
+
+        latest.record(event("FNLCO", "2026-03-09", "NG7BCD", 1L), null);
+        latest.record(event("FNLCO", "2026-03-10", "NG7BCD", 2L), null);
+        latest.record(event("FNLCO", "2026-03-11", "NG7BCD", 3L), null);
+        assertThat(latest.size()).isEqualTo(2);
+        assertThat(latest.find("FNLCO", LocalDate.of(2026, 3, 11))).isEmpty();
+
+        latest.evictPast();
+        assertThat(latest.size()).isEqualTo(1);
+        assertThat(latest.find("FNLCO", LocalDate.of(2026, 3, 10))).hasSize(1);
+    }
+
+    @Test
+    @DisplayName("ignores events whose start date is not an ISO date")
+    void record_ignoresUnparseableDate() {
+        LatestAvailability latest = new LatestAvailability(10, null, clock);
+
+        latest.record(event("FNLCO", "03/12/2026", "NG7BCD", 1L), null);
+        latest.record(event("FNLCO", "2026-03-12", "NG7BCD", 2L), null);
+        latest.evictPast();
+
+        assertThat(latest.size()).isEqualTo(1);
+        assertThat(latest.find("FNLCO", LocalDate.of(2026, 3, 12))).hasSize(1);
+    }
+
+    @Test
+    @DisplayName("restores the snapshot written before a restart, without past dates")
+    void saveSnapshot_restoredOnStartup(@TempDir Path dir) {
+        Path snapshot = dir.resolve("latest-availability.snapshot");
+        LatestAvailability latest = new LatestAvailability(10, snapshot, clock);
+        SourceRecord source = new SourceRecord("rate-recomm-prd", 3, 42L, 1_700_000_000_000L);
+        latest.record(event("FNLCO", "2026-03-12", "NG7BCD", 1L), source);
+        latest.record(event("FNLCO", "2026-03-12", "BAR", 2L), null);
+        latest.record(event("NYCMQ", "2026-03-11", "NG7BCD", 3L), null);
+        latest.saveSnapshot();
+
+        Clock twoDaysLater = Clock.offset(clock, Duration.ofDays(2));
+        LatestAvailability restarted = new LatestAvailability(10, snapshot, twoDaysLater);
+
+        assertThat(restarted.size()).isEqualTo(1);
+        assertThat(restarted.find("FNLCO", LocalDate.of(2026, 3, 12)))
+                .extracting(s -> s.eventBody().getRecommendationId(), LatestAvailability.Snapshot::source)
+                .containsExactlyInAnyOrder(
+                        tuple(1L, source),
+                        tuple(2L, null));
+    }
+
+    private static InventoryEventBody event(String propCode, String date, String ratePlan, long recommendationId) {
+        return InventoryEventBody.builder()
+                .recommendationId(recommendationId)
+                .propCode(propCode)
+                .startDate(date)
+                .endDate(date)
+                .ratePlanCode(ratePlan)
+                .build();
+    }
+}
@@ -130,4 +130,45 @@ class LengthOfStayPatternUtilTest {
             assertThat(LengthOfStayPatternUtil.hasAvailability(List.of("NNNNNNN", "YNNNNNN"), 1)).isTrue();
         }
     }
+
+    @Nested
+    @DisplayName("availableNightsMask")
+    class AvailableNightsMask {
+
+        @Test
+        void setsBitForEveryAvailableStayLength() {
+            RoomRecommendation king = RoomRecommendation.builder()
+                    .roomTypeCode("KING")
+                    .lengthOfStayPattern(List.of("YYNNNNN"))
+                    .build();
+            RoomRecommendation queen = RoomRecommendation.builder()
+                    .roomTypeCode("QUEEN")
+                    .lengthOfStayPattern(List.of("NNNNYNN"))
+                    .build();
+
+            int mask = LengthOfStayPatternUtil.availableNightsMask(List.of(king, queen));
+
+            assertThat(mask).isEqualTo((1 << 1) | (1 << 2) | (1 << 5));
+        }
+
+        @Test
+        void agreesWithIsAvailableForNights() {
+            List<RoomRecommendation> rooms = List.of(RoomRecommendation.builder()
+                    .roomTypeCode("KING")
+                    .lengthOfStayPattern(List.of("NYNYNYY"))
+                    .build());
+
+            int mask = LengthOfStayPatternUtil.availableNightsMask(rooms);
+
+            for (int nights = 1; nights <= 7; nights++) {
+                assertThat((mask & (1 << nights)) != 0)
+                        .isEqualTo(LengthOfStayPatternUtil.isAvailableForNights(rooms, nights));
+            }
+        }
+
+        @Test
+        void returnsZero_whenRecommendationsIsNull() {
+            assertThat(LengthOfStayPatternUtil.availableNightsMask(null)).isZero();
+        }
+    }
 }
@@ -0,0 +1,117 @@
+package com.example.stran.service;
+
+import com.example.stran.dto.inventory.InventoryEventBody;
+import com.example.stran.dto.inventory.RoomRecommendation;
+import com.example.stran.entity.Property;
+import com.example.stran.entity.StaySubscription;
+import com.example.stran.entity.SubscriptionSearchType;
+import com.example.stran.entity.SubscriptionStatus;
+import com.example.stran.repository.PropertyRepository;
+import com.example.stran.repository.StaySubscriptionRepository;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.junit.jupiter.api.io.TempDir;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.data.domain.SliceImpl;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class MappedStoreMatchingServiceTest {
+
+    private static final LocalDate CHECK_IN = LocalDate.of(2026, 3, 9);
+
+    @Mock
+    private PropertyRepository propertyRepository;
+
+    @Mock
+    private StaySubscriptionRepository subscriptionRepository;
+
+    @TempDir
+    Path dir;
+
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+    private MappedStoreMatchingService service;
+    private InventoryEventBody event;
+
+    @BeforeEach
+    void setUp() {
+        when(propertyRepository.findByPropCodeIsNotNull()).thenReturn(List.of(
+                new Property(1L, "Test Hotel", "FNLCOHF", 40.0, -74.0, "HF", "FNLCO", Instant.now(), Instant.now(), 0)));
+        service = new MappedStoreMatchingService(propertyRepository, subscriptionRepository,
+                dir.resolve("subscriptions.store"), 2, 1024, 100,
+                new PipelineMetrics(meterRegistry), new HotPathLog(false, 1, 1, 10_000),
+                new HotKeyTracker(false, Duration.ofMinutes(1), 1, 1, 1, 16, 1, meterRegistry), meterRegistry);
+        event = InventoryEventBody.builder()
+                .propCode("FNLCO")
+                .startDate(CHECK_IN.toString())
+                .roomRecommendations(List.of(RoomRecommendation.builder()
+                        .roomTypeCode("KING")
+                        .lengthOfStayPattern(List.of("YYYNNNN"))
+                        .build()))
+                .build();
+    }
+
+    @AfterEach
+    void tearDown() throws IOException {
+        service.close();
+    }
+
+    @Test
+    @DisplayName("matches from the database while the store is full, and from the store again once it is rebuilt")
+    void sync_fallsBackToDatabaseWhileStoreFull() throws IOException {
+        when(subscriptionRepository.findByUpdatedAtGreaterThanAndUpdatedAtLessThanEqual(any(), any(), any()))
+                .thenReturn(new SliceImpl<>(List.of(subscription(1L), subscription(2L), subscription(3L))));
+        when(subscriptionRepository.findActivePropertySubscriptions(1L, CHECK_IN))
+                .thenReturn(List.of(subscription(1L), subscription(2L), subscription(3L)));
+
+        service.open();
+
+        assertThat(degraded()).isEqualTo(1.0);
+        assertThat(service.findMatchingSubscriptions(event)).extracting(StaySubscription::getId)
+                .containsExactly(1L, 2L, 3L);
+
+        // Only subscription 3 is still active by the next sync, so the rebuild fits
+        StaySubscription cancelled = subscription(2L);
+        cancelled.setStatus(SubscriptionStatus.CANCELLED);
+        when(subscriptionRepository.findByUpdatedAtGreaterThanAndUpdatedAtLessThanEqual(any(), any(), any()))
+                .thenReturn(new SliceImpl<>(List.of(cancelled, subscription(3L))));
+        service.sync();
+
+        assertThat(degraded()).isZero();
+        assertThat(service.findMatchingSubscriptions(event)).extracting(StaySubscription::getId)
+                .containsExactly(3L);
+        verify(subscriptionRepository, times(1)).findActivePropertySubscriptions(1L, CHECK_IN);
+    }
+
+    private double degraded() {
+        return meterRegistry.get("stran.mmap.store.degraded").gauge().value();
+    }
+
+    private static StaySubscription subscription(long id) {
+        StaySubscription sub = new StaySubscription();
+        sub.setId(id);
+        sub.setGuestId("guest-" + id);
+        sub.setSearchType(SubscriptionSearchType.PROPERTY);
+        sub.setPropertyId(1L);
+        sub.setCheckInDate(CHECK_IN);
+        sub.setCheckOutDate(CHECK_IN.plusDays(2));
+        sub.setStatus(SubscriptionStatus.ACTIVE);
+        sub.setUpdatedAt(Instant.parse("2026-03-01T00:00:00Z").plusSeconds(id));
+        return sub;
+    }
+}
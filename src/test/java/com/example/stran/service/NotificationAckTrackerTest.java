@@ -0,0 +1,163 @@
+package com.example.stran.service;
+
+import org.apache.kafka.clients.consumer.Consumer;
+import org.apache.kafka.clients.consumer.ConsumerRecord;
+import org.apache.kafka.common.TopicPartition;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.kafka.support.Acknowledgment;
+
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatIllegalStateException;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class NotificationAckTrackerTest {
+
+    private static final String TOPIC = "rate-recomm-prd";
+
+    @Mock
+    private Acknowledgment ack;
+
+    @Mock
+    private Consumer<String, Object> consumer;
+
+    private NotificationAckTracker tracker;
+
+    @BeforeEach
+    void setUp() {
+        tracker = new NotificationAckTracker(2, 50, 2_000, 10);
+    }
+
+    @AfterEach
+    void tearDown() throws InterruptedException {
+        tracker.shutdown();
+    }
+
+    @Test
+    @DisplayName("acknowledges a record only after every send it triggered succeeds")
+    void acknowledgesAfterAllSends() {
+        CompletableFuture<String> first = new CompletableFuture<>();
+        CompletableFuture<String> second = new CompletableFuture<>();
+
+        tracker.begin(record(0), ack);
+        tracker.track(first, CompletableFuture::new);
+        tracker.track(second, CompletableFuture::new);
+        tracker.end(true);
+
+        first.complete("ok");
+        verify(ack, never()).acknowledge();
+        assertThat(tracker.inFlight()).isEqualTo(1);
+
+        second.complete("ok");
+        verify(ack).acknowledge();
+        assertThat(tracker.inFlight()).isZero();
+    }
+
+    @Test
+    @DisplayName("acknowledges immediately when processing produced no sends")
+    void acknowledgesRecordWithoutSends() {
+        tracker.begin(record(0), ack);
+        tracker.end(true);
+
+        verify(ack).acknowledge();
+    }
+
+    @Test
+    @DisplayName("retries a failed send and acknowledges once the retry succeeds")
+    void retriesFailedSends() {
+        AtomicInteger resends = new AtomicInteger();
+
+        tracker.begin(record(0), ack);
+        tracker.track(CompletableFuture.failedFuture(new CompletionException(new RuntimeException("timeout"))),
+                () -> resends.incrementAndGet() < 2
+                        ? CompletableFuture.failedFuture(new RuntimeException("timeout"))
+                        : CompletableFuture.completedFuture("ok"));
+        tracker.end(true);
+
+        verify(ack, timeout(2_000)).acknowledge();
+        assertThat(resends).hasValue(2);
+    }
+
+    @Test
+    @DisplayName("never acknowledges a record whose processing failed")
+    void doesNotAcknowledgeFailedRecords() {
+        tracker.begin(record(0), ack);
+        tracker.end(false);
+
+        verify(ack, never()).acknowledge();
+        assertThat(tracker.inFlight()).isZero();
+    }
+
+    @Test
+    @DisplayName("fails the record when the in-flight window stays full")
+    void boundsInFlightWindow() {
+        tracker.begin(record(0), ack);
+        tracker.track(new CompletableFuture<>(), CompletableFuture::new);
+        tracker.end(true);
+        tracker.begin(record(1), ack);
+        tracker.track(new CompletableFuture<>(), CompletableFuture::new);
+        tracker.end(true);
+
+        assertThatIllegalStateException().isThrownBy(() -> tracker.begin(record(2), ack));
+        assertThat(tracker.inFlight()).isEqualTo(2);
+    }
+
+    @Test
+    @DisplayName("resizes the in-flight window at runtime")
+    void resizesInFlightWindow() {
+        CompletableFuture<String> first = new CompletableFuture<>();
+        tracker.setMaxInFlight(1);
+        tracker.begin(record(0), ack);
+        tracker.track(first, CompletableFuture::new);
+        tracker.end(true);
+        assertThatIllegalStateException().isThrownBy(() -> tracker.begin(record(1), ack));
+
+        tracker.setMaxInFlight(3);
+        tracker.begin(record(1), ack);
+        tracker.track(new CompletableFuture<>(), CompletableFuture::new);
+        tracker.end(true);
+        tracker.begin(record(2), ack);
+        tracker.track(new CompletableFuture<>(), CompletableFuture::new);
+        tracker.end(true);
+
+        tracker.setMaxInFlight(2);
+        first.complete("ok");
+        assertThatIllegalStateException().isThrownBy(() -> tracker.begin(record(3), ack));
+        assertThat(tracker.getMaxInFlight()).isEqualTo(2);
+        assertThat(tracker.inFlight()).isEqualTo(2);
+    }
+
+    @Test
+    @DisplayName("drains in-flight records of revoked partitions before their offsets are committed")
+    void drainsOnRevocation() {
+        CompletableFuture<String> send = new CompletableFuture<>();
+        tracker.begin(record(0), ack);
+        tracker.track(send, CompletableFuture::new);
+        tracker.end(true);
+
+        ScheduledExecutorService broker = Executors.newSingleThreadScheduledExecutor();
+        broker.schedule(() -> send.complete("ok"), 100, TimeUnit.MILLISECONDS);
+        tracker.onPartitionsRevokedBeforeCommit(consumer, List.of(new TopicPartition(TOPIC, 0)));
+        broker.shutdown();
+
+        verify(ack).acknowledge();
+    }
+
+    private static ConsumerRecord<String, Object> record(long offset) {
+        return new ConsumerRecord<>(TOPIC, 0, offset, "FNLCO::NG7BCD", null);
+    }
+}
@@ -0,0 +1,174 @@
+package com.example.stran.service;
+
+import com.example.stran.dto.notification.MatchedStay;
+import com.example.stran.dto.notification.NotificationMessage;
+import org.apache.kafka.common.PartitionInfo;
+import org.apache.kafka.common.utils.Utils;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Captor;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.kafka.core.KafkaTemplate;
+
+import java.nio.charset.StandardCharsets;
+import java.time.Instant;
+import java.util.List;
+import java.util.stream.IntStream;
+import java.util.stream.LongStream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class NotificationDigestBufferTest {
+
+    private static final String TOPIC = "stran-notifications";
+
+    @Mock
+    private KafkaTemplate<String, NotificationMessage> kafkaTemplate;
+
+    @Mock
+    private NotificationProducer notificationProducer;
+
+    @Captor
+    private ArgumentCaptor<List<NotificationMessage>> sentCaptor;
+
+    private NotificationDigestBuffer buffer;
+
+    @AfterEach
+    void tearDown() throws InterruptedException {
+        if (buffer != null) {
+            buffer.shutdown();
+        }
+    }
+
+    @Test
+    @DisplayName("emits one digest per guest carrying every matched subscription")
+    void flushAll_emitsOneDigestPerGuest() {
+        buffer = newBuffer(1, 100, 50);
+
+        buffer.add(List.of(message(100L, "guest-1"), message(101L, "guest-1"), message(102L, "guest-2")));
+        buffer.add(List.of(message(103L, "guest-1")));
+        buffer.flushAll();
+
+        verify(notificationProducer, times(2)).send(sentCaptor.capture());
+        List<NotificationMessage> sent = sentCaptor.getAllValues().stream().flatMap(List::stream).toList();
+
+        NotificationMessage digest = sent.stream().filter(m -> "guest-1".equals(m.getGuestId())).findFirst().orElseThrow();
+        assertThat(digest.getMatches()).extracting(MatchedStay::getSubscriptionId)
+                .containsExactly(100L, 101L, 103L);
+        assertThat(digest.getMessage()).contains("3 of your stays");
+
+        NotificationMessage single = sent.stream().filter(m -> "guest-2".equals(m.getGuestId())).findFirst().orElseThrow();
+        assertThat(single.getSubscriptionId()).isEqualTo(102L);
+        assertThat(single.getMatches()).isNull();
+        assertThat(buffer.bufferedMatches()).isZero();
+    }
+
+    @Test
+    @DisplayName("keeps one guest's subscriptions on different partitions in separate digests")
+    void add_keepsPartitionsSeparate() {
+        buffer = newBuffer(4, 100, 50);
+        long other = LongStream.rangeClosed(101, 200)
+                .filter(id -> partition(id, 4) != partition(100L, 4))
+                .findFirst().orElseThrow();
+
+        buffer.add(List.of(message(100L, "guest-1"), message(other, "guest-1")));
+        buffer.flushAll();
+
+        verify(notificationProducer, times(2)).send(sentCaptor.capture());
+        assertThat(sentCaptor.getAllValues()).allSatisfy(sent -> assertThat(sent).singleElement()
+                .satisfies(m -> assertThat(m.getMatches()).isNull()));
+        assertThat(sentCaptor.getAllValues()).flatExtracting(sent -> sent)
+                .extracting(NotificationMessage::getSubscriptionId)
+                .containsExactlyInAnyOrder(100L, other);
+    }
+
+    @Test
+    @DisplayName("publishes notifications without a guestId directly")
+    void add_bypassesMissingGuest() {
+        buffer = newBuffer(1, 100, 50);
+
+        buffer.add(List.of(message(100L, null)));
+
+        verify(notificationProducer).send(List.of(message(100L, null)));
+        assertThat(buffer.bufferedMatches()).isZero();
+    }
+
+    @Test
+    @DisplayName("flushes a guest early once it reaches the per-guest bound")
+    void add_flushesFullBucket() {
+        buffer = newBuffer(1, 100, 2);
+
+        buffer.add(List.of(message(100L, "guest-1"), message(101L, "guest-1")));
+
+        verify(notificationProducer).send(sentCaptor.capture());
+        assertThat(sentCaptor.getValue()).singleElement()
+                .satisfies(m -> assertThat(m.getMatches()).hasSize(2));
+    }
+
+    @Test
+    @DisplayName("publishes directly when the pending-guest bound is reached")
+    void add_bypassesWhenBufferFull() {
+        buffer = newBuffer(1, 1, 50);
+
+        buffer.add(List.of(message(100L, "guest-1"), message(101L, "guest-2")));
+
+        verify(notificationProducer).send(List.of(message(101L, "guest-2")));
+        assertThat(buffer.bufferedMatches()).isEqualTo(1);
+    }
+
+    @Test
+    @DisplayName("flushes pending digests on shutdown")
+    void shutdown_flushesPending() throws InterruptedException {
+        buffer = newBuffer(1, 100, 50);
+        buffer.add(List.of(message(100L, "guest-1")));
+
+        buffer.shutdown();
+        buffer = null;
+
+        verify(notificationProducer).send(anyList());
+    }
+
+    @Test
+    @DisplayName("publishes directly once stopped instead of buffering")
+    void add_afterShutdownPublishesDirectly() throws InterruptedException {
+        buffer = newBuffer(1, 100, 50);
+        buffer.shutdown();
+
+        buffer.add(List.of(message(100L, "guest-1")));
+
+        verify(notificationProducer).send(List.of(message(100L, "guest-1")));
+        assertThat(buffer.bufferedMatches()).isZero();
+        buffer = null;
+    }
+
+    private NotificationDigestBuffer newBuffer(int partitions, int maxGuests, int maxPerGuest) {
+        lenient().when(kafkaTemplate.partitionsFor(TOPIC)).thenReturn(IntStream.range(0, partitions)
+                .mapToObj(p -> new PartitionInfo(TOPIC, p, null, null, null))
+                .toList());
+        return new NotificationDigestBuffer(notificationProducer, kafkaTemplate, TOPIC, 60_000, maxGuests, maxPerGuest);
+    }
+
+    private static int partition(long subscriptionId, int partitions) {
+        byte[] key = String.valueOf(subscriptionId).getBytes(StandardCharsets.UTF_8);
+        return Utils.toPositive(Utils.murmur2(key)) % partitions;
+    }
+
+    private static NotificationMessage message(Long subscriptionId, String guestId) {
+        return NotificationMessage.builder()
+                .notificationId("notif-" + subscriptionId)
+                .subscriptionId(subscriptionId)
+                .guestId(guestId)
+                .propCode("FNLCO")
+                .checkInDate("2026-03-09")
+                .nights(3)
+                .message("Availability found at property FNLCO for 3 night(s) starting 2026-03-09")
+                .timestamp(Instant.parse("2026-03-01T00:00:00Z"))
+                .build();
+    }
+}
@@ -2,6 +2,7 @@ package com.example.stran.service;
 
 import com.example.stran.dto.inventory.InventoryEventBody;
 import com.example.stran.dto.inventory.RoomRecommendation;
+import com.example.stran.dto.inventory.SourceRecord;
 import com.example.stran.dto.notification.NotificationMessage;
 import com.example.stran.entity.StaySubscription;
 import com.example.stran.entity.SubscriptionSearchType;
@@ -13,6 +14,7 @@ import org.junit.jupiter.api.extension.ExtendWith;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.beans.factory.ObjectProvider;
 
 import java.math.BigDecimal;
 import java.time.Instant;
@@ -30,6 +32,15 @@ class NotificationDispatchServiceTest {
     @Mock
     private NotificationProducer notificationProducer;
 
+    @Mock
+    private ObjectProvider<NotificationDigestBuffer> digestBuffer;
+
+    @Mock
+    private PipelineMetrics pipelineMetrics;
+
+    @Mock
+    private HotPathLog hotPathLog;
+
     @InjectMocks
     private NotificationDispatchService service;
 
@@ -155,4 +166,30 @@ class NotificationDispatchServiceTest {
         assertThat(result.get(0).getNotificationId())
                 .isNotEqualTo(result.get(1).getNotificationId());
     }
+
+    @Test
+    @DisplayName("hands notifications to the digest buffer instead of the producer when digest mode is on")
+    void dispatch_usesDigestBufferWhenEnabled() {
+        NotificationDigestBuffer buffer = mock(NotificationDigestBuffer.class);
+        when(digestBuffer.getIfAvailable()).thenReturn(buffer);
+
+        List<NotificationMessage> result = service.dispatch(List.of(testSubscription), testEventBody);
+
+        verify(buffer).add(result);
+        verify(notificationProducer, never()).send(anyList());
+    }
+
+    @Test
+    @DisplayName("derives the same notification IDs when the same source record is redelivered")
+    void dispatch_derivesIdsFromSourceRecord() {
+        SourceRecord source = new SourceRecord("rate-recomm-prd", 3, 42L, 0L);
+
+        String first = service.dispatch(List.of(testSubscription), testEventBody, source).get(0).getNotificationId();
+        String redelivered = service.dispatch(List.of(testSubscription), testEventBody, source).get(0).getNotificationId();
+        String nextOffset = service.dispatch(List.of(testSubscription), testEventBody,
+                new SourceRecord("rate-recomm-prd", 3, 43L, 0L)).get(0).getNotificationId();
+
+        assertThat(redelivered).isEqualTo(first);
+        assertThat(nextOffset).isNotEqualTo(first);
+    }
 }
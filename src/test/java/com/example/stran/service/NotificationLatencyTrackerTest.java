@@ -0,0 +1,126 @@
+package com.example.stran.service;
+
+import com.example.stran.dto.notification.NotificationMessage;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.ZoneOffset;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class NotificationLatencyTrackerTest {
+
+    private static final Instant NOW = Instant.parse("2026-03-01T12:00:00Z");
+
+    private final MeterRegistry meterRegistry = new SimpleMeterRegistry();
+
+    @Test
+    @DisplayName("records latency from the source timestamp by partition and strategy")
+    void recordAck_recordsByPartitionAndStrategy() {
+        NotificationLatencyTracker tracker = tracker(Clock.fixed(NOW, ZoneOffset.UTC), 10);
+
+        tracker.recordAck(message("n-1", 3, "property-db", Duration.ofMillis(250)));
+        tracker.recordAck(message("n-2", 3, "property-db", Duration.ofMillis(750)));
+        tracker.recordAck(message("n-3", 5, "property-mmap", Duration.ofSeconds(2)));
+
+        Timer partition3 = meterRegistry.get("stran.notification.e2e.latency")
+                .tags("partition", "3", "strategy", "property-db").timer();
+        assertThat(partition3.count()).isEqualTo(2);
+        assertThat(partition3.totalTime(TimeUnit.MILLISECONDS)).isEqualTo(1000.0);
+        assertThat(meterRegistry.get("stran.notification.e2e.latency")
+                .tags("partition", "5", "strategy", "property-mmap").timer().count()).isEqualTo(1);
+    }
+
+    @Test
+    @DisplayName("ignores notifications without a source timestamp")
+    void recordAck_ignoresMissingSourceTimestamp() {
+        NotificationLatencyTracker tracker = tracker(Clock.fixed(NOW, ZoneOffset.UTC), 10);
+        NotificationMessage message = message("n-1", 3, "property-db", Duration.ZERO);
+        message.setSourceTimestamp(null);
+
+        tracker.recordAck(message);
+
+        assertThat(meterRegistry.find("stran.notification.e2e.latency").timers()).isEmpty();
+        assertThat(tracker.worstOffenders()).isEmpty();
+    }
+
+    @Test
+    @DisplayName("keeps only the slowest notifications, slowest first")
+    void worstOffenders_keepsSlowest() {
+        NotificationLatencyTracker tracker = tracker(Clock.fixed(NOW, ZoneOffset.UTC), 2);
+
+        tracker.recordAck(message("n-1", 0, "property-db", Duration.ofMillis(100)));
+        tracker.recordAck(message("n-2", 0, "property-db", Duration.ofMillis(900)));
+        tracker.recordAck(message("n-3", 0, "property-db", Duration.ofMillis(500)));
+        tracker.recordAck(message("n-4", 0, "property-db", Duration.ofMillis(200)));
+
+        assertThat(tracker.worstOffenders())
+                .extracting(NotificationLatencyTracker.Offender::notificationId)
+                .containsExactly("n-2", "n-3");
+    }
+
+    @Test
+    @DisplayName("forgets offenders older than two windows")
+    void worstOffenders_expiresOldWindows() {
+        MutableClock clock = new MutableClock(NOW);
+        NotificationLatencyTracker tracker = tracker(clock, 10);
+        tracker.recordAck(message("old", 0, "property-db", Duration.ofSeconds(5)));
+
+        clock.now = NOW.plusSeconds(90);
+        NotificationMessage recent = message("recent", 0, "property-db", Duration.ZERO);
+        recent.setSourceTimestamp(clock.now.minusMillis(100));
+        tracker.recordAck(recent);
+        assertThat(tracker.worstOffenders()).extracting(NotificationLatencyTracker.Offender::notificationId)
+                .containsExactly("old", "recent");
+
+        clock.now = NOW.plusSeconds(200);
+        assertThat(tracker.worstOffenders()).extracting(NotificationLatencyTracker.Offender::notificationId)
+                .containsExactly("recent");
+    }
+
+    private NotificationLatencyTracker tracker(Clock clock, int maxOffenders) {
+        return new NotificationLatencyTracker(meterRegistry, maxOffenders, 60_000, clock);
+    }
+
+    private static NotificationMessage message(String id, int partition, String strategy, Duration age) {
+        return NotificationMessage.builder()
+                .notificationId(id)
+                .subscriptionId(100L)
+                .propCode("FNLCO")
+                .sourceTimestamp(NOW.minus(age))
+                .sourcePartition(partition)
+                .strategy(strategy)
+                .build();
+    }
+
+    private static final class MutableClock extends Clock {
+
+        private Instant now;
+
+        private MutableClock(Instant now) {
+            this.now = now;
+        }
+
+        @Override
+        public Instant instant() {
+            return now;
+        }
+
+        @Override
+        public ZoneOffset getZone() {
+            return ZoneOffset.UTC;
+        }
+
+        @Override
+        public Clock withZone(java.time.ZoneId zone) {
+            return this;
+        }
+    }
+}
@@ -0,0 +1,122 @@
+package com.example.stran.service;
+
+import com.example.stran.dto.notification.NotificationMessage;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.junit.jupiter.api.io.TempDir;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Captor;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.kafka.core.KafkaTemplate;
+import org.springframework.kafka.support.SendResult;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.time.Instant;
+import java.util.concurrent.CompletableFuture;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class NotificationOutboxTest {
+
+    private static final String TOPIC = "stran-notifications";
+
+    @TempDir
+    Path tempDir;
+
+    @Mock
+    private KafkaTemplate<String, NotificationMessage> kafkaTemplate;
+
+    @Captor
+    private ArgumentCaptor<NotificationMessage> messageCaptor;
+
+    private final MeterRegistry meterRegistry = new SimpleMeterRegistry();
+
+    private NotificationOutbox outbox;
+
+    @AfterEach
+    void tearDown() throws InterruptedException {
+        if (outbox != null) {
+            outbox.shutdown();
+        }
+    }
+
+    @Test
+    @DisplayName("replays spilled notifications in order once the topic accepts sends")
+    void drain_replaysInOrder() throws IOException {
+        outbox = newOutbox();
+        when(kafkaTemplate.send(eq(TOPIC), anyString(), any(NotificationMessage.class)))
+                .thenReturn(CompletableFuture.completedFuture(mock(SendResult.class)));
+
+        outbox.spill(message(100L));
+        outbox.spill(message(101L));
+        outbox.spill(message(102L));
+        assertThat(outbox.hasBacklog()).isTrue();
+        assertThat(meterRegistry.get("stran.outbox.depth").gauge().value()).isEqualTo(3.0);
+
+        outbox.drain();
+
+        verify(kafkaTemplate, times(3)).send(eq(TOPIC), anyString(), messageCaptor.capture());
+        assertThat(messageCaptor.getAllValues()).extracting(NotificationMessage::getSubscriptionId)
+                .containsExactly(100L, 101L, 102L);
+        assertThat(messageCaptor.getValue().getNotificationId()).isEqualTo("notif-102");
+        assertThat(outbox.hasBacklog()).isFalse();
+        assertThat(meterRegistry.get("stran.outbox.spilled").counter().count()).isEqualTo(3.0);
+        assertThat(meterRegistry.get("stran.outbox.drained").counter().count()).isEqualTo(3.0);
+    }
+
+    @Test
+    @DisplayName("keeps the backlog when the topic is still unavailable")
+    void drain_keepsBacklogOnFailure() throws IOException {
+        outbox = newOutbox();
+        when(kafkaTemplate.send(eq(TOPIC), anyString(), any(NotificationMessage.class)))
+                .thenReturn(CompletableFuture.failedFuture(new RuntimeException("Topic unavailable")));
+
+        outbox.spill(message(100L));
+        outbox.spill(message(101L));
+        outbox.drain();
+
+        verify(kafkaTemplate, times(1)).send(eq(TOPIC), anyString(), any(NotificationMessage.class));
+        assertThat(outbox.depth()).isEqualTo(2);
+        assertThat(meterRegistry.get("stran.outbox.drained").counter().count()).isZero();
+    }
+
+    @Test
+    @DisplayName("replays notifications left over from a previous run")
+    void open_replaysPreviousBacklog() throws Exception {
+        outbox = newOutbox();
+        outbox.spill(message(100L));
+        outbox.shutdown();
+
+        outbox = newOutbox();
+        assertThat(outbox.depth()).isEqualTo(1);
+    }
+
+    private NotificationOutbox newOutbox() throws IOException {
+        return new NotificationOutbox(kafkaTemplate, TOPIC, tempDir.toString(),
+                64 * 1024, 4, 60_000, 100, 1_000, meterRegistry);
+    }
+
+    private static NotificationMessage message(Long subscriptionId) {
+        return NotificationMessage.builder()
+                .notificationId("notif-" + subscriptionId)
+                .subscriptionId(subscriptionId)
+                .guestId("guest-123")
+                .propCode("FNLCO")
+                .checkInDate("2026-03-09")
+                .nights(3)
+                .message("Availability found at property FNLCO for 3 night(s) starting 2026-03-09")
+                .timestamp(Instant.parse("2026-03-01T00:00:00Z"))
+                .build();
+    }
+}
@@ -0,0 +1,134 @@
+package com.example.stran.service;
+
+import com.example.stran.dto.notification.NotificationMessage;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.awaitility.Awaitility.await;
+
+class NotificationPriorityLanesTest {
+
+    private static final Clock CLOCK = Clock.fixed(Instant.parse("2026-03-01T00:00:00Z"), ZoneOffset.UTC);
+
+    private final MeterRegistry meterRegistry = new SimpleMeterRegistry();
+
+    private NotificationPriorityLanes lanes;
+
+    @AfterEach
+    void tearDown() throws InterruptedException {
+        if (lanes != null) {
+            lanes.shutdown();
+        }
+    }
+
+    @Test
+    @DisplayName("assigns lanes by days until check-in")
+    void laneFor_usesDaysUntilCheckIn() {
+        lanes = newLanes(new int[]{7, 30}, new int[]{4, 2, 1}, 100, 10);
+
+        assertThat(lanes.laneFor("2026-03-04")).isZero();
+        assertThat(lanes.laneFor("2026-03-08")).isZero();
+        assertThat(lanes.laneFor("2026-03-09")).isEqualTo(1);
+        assertThat(lanes.laneFor("2027-01-01")).isEqualTo(2);
+        assertThat(lanes.laneFor("not-a-date")).isEqualTo(2);
+    }
+
+    @Test
+    @DisplayName("releases near-term notifications ahead of far-future ones by weight")
+    void submit_favoursNearTermLane() {
+        lanes = newLanes(new int[]{7}, new int[]{3, 1}, 100, 1);
+        List<String> sent = new CopyOnWriteArrayList<>();
+        CompletableFuture<Void> blocker = new CompletableFuture<>();
+
+        // Occupy the single in-flight slot so everything below queues up
+        lanes.submit(message("2026-03-02"), () -> blocker);
+        List<CompletableFuture<String>> results = new ArrayList<>();
+        for (int i = 0; i < 4; i++) {
+            String far = "far-" + i;
+            results.add(lanes.submit(message("2027-01-01"), () -> send(sent, far)));
+        }
+        for (int i = 0; i < 4; i++) {
+            String near = "near-" + i;
+            results.add(lanes.submit(message("2026-03-03"), () -> send(sent, near)));
+        }
+        blocker.complete(null);
+
+        await().atMost(Duration.ofSeconds(2)).until(() -> results.stream().allMatch(CompletableFuture::isDone));
+        assertThat(sent.subList(0, 4)).filteredOn(s -> s.startsWith("near")).hasSize(3);
+        assertThat(sent).filteredOn(s -> s.startsWith("near")).containsExactly("near-0", "near-1", "near-2", "near-3");
+        assertThat(sent).filteredOn(s -> s.startsWith("far")).containsExactly("far-0", "far-1", "far-2", "far-3");
+        assertThat(meterRegistry.get("stran.notification.lane.latency").tag("lane", "le7d").timer().count())
+                .isEqualTo(5);
+    }
+
+    @Test
+    @DisplayName("fails the caller when a lane stays full")
+    void submit_failsWhenLaneFull() {
+        lanes = newLanes(new int[]{7}, new int[]{2, 1}, 1, 1);
+        lanes.submit(message("2026-03-02"), CompletableFuture::new);
+        await().atMost(Duration.ofSeconds(1)).until(() -> lanes.queued(0) == 0);
+        lanes.submit(message("2026-03-02"), CompletableFuture::new);
+
+        assertThatThrownBy(() -> lanes.submit(message("2026-03-02"), CompletableFuture::new))
+                .isInstanceOf(IllegalStateException.class)
+                .hasMessageContaining("le7d");
+    }
+
+    @Test
+    @DisplayName("releases queued sends on shutdown and sends directly once stopped")
+    void shutdown_releasesQueuedThenSendsDirectly() throws InterruptedException {
+        lanes = newLanes(new int[]{7}, new int[]{2, 1}, 100, 1);
+        List<String> sent = new CopyOnWriteArrayList<>();
+        lanes.submit(message("2026-03-02"), CompletableFuture::new);
+        CompletableFuture<String> queued = lanes.submit(message("2026-03-02"), () -> send(sent, "queued"));
+
+        lanes.shutdown();
+        CompletableFuture<String> late = lanes.submit(message("2026-03-02"), () -> send(sent, "late"));
+
+        assertThat(queued).isCompletedWithValue("queued");
+        assertThat(late).isCompletedWithValue("late");
+        assertThat(sent).containsExactly("queued", "late");
+        assertThat(lanes.isRunning()).isFalse();
+        lanes = null;
+    }
+
+    @Test
+    @DisplayName("rejects a weight list that does not match the lane bounds")
+    void constructor_rejectsMismatchedWeights() {
+        assertThatThrownBy(() -> newLanes(new int[]{7, 30}, new int[]{2, 1}, 10, 10))
+                .isInstanceOf(IllegalArgumentException.class);
+    }
+
+    private NotificationPriorityLanes newLanes(int[] bounds, int[] weights, int maxQueued, int maxInFlight) {
+        return new NotificationPriorityLanes(bounds, weights, maxQueued, maxInFlight, 50, meterRegistry, CLOCK);
+    }
+
+    private static CompletableFuture<String> send(List<String> sent, String value) {
+        sent.add(value);
+        return CompletableFuture.completedFuture(value);
+    }
+
+    private static NotificationMessage message(String checkInDate) {
+        return NotificationMessage.builder()
+                .notificationId("notif-" + checkInDate)
+                .subscriptionId(100L)
+                .propCode("FNLCO")
+                .checkInDate(checkInDate)
+                .nights(3)
+                .build();
+    }
+}
@@ -12,12 +12,14 @@ import org.mockito.ArgumentCaptor;
 import org.mockito.Captor;
 import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.beans.factory.ObjectProvider;
 import org.springframework.kafka.core.KafkaTemplate;
 import org.springframework.kafka.support.SendResult;
 
 import java.time.Instant;
 import java.util.List;
 import java.util.concurrent.CompletableFuture;
+import java.util.function.Supplier;
 
 import static org.assertj.core.api.Assertions.assertThat;
 import static org.mockito.ArgumentMatchers.any;
@@ -30,6 +32,27 @@ class NotificationProducerTest {
     @Mock
     private KafkaTemplate<String, NotificationMessage> kafkaTemplate;
 
+    @Mock
+    private ObjectProvider<NotificationAckTracker> ackTracker;
+
+    @Mock
+    private ObjectProvider<NotificationOutbox> outbox;
+
+    @Mock
+    private ObjectProvider<NotificationRateGovernor> rateGovernor;
+
+    @Mock
+    private ObjectProvider<NotificationPriorityLanes> priorityLanes;
+
+    @Mock
+    private PipelineMetrics pipelineMetrics;
+
+    @Mock
+    private NotificationLatencyTracker latencyTracker;
+
+    @Mock
+    private HotPathLog hotPathLog;
+
     @Captor
     private ArgumentCaptor<String> topicCaptor;
 
@@ -45,7 +68,7 @@ class NotificationProducerTest {
 
     @BeforeEach
     void setUp() {
-        producer = new NotificationProducer(kafkaTemplate, "stran-notifications");
+        producer = new NotificationProducer(kafkaTemplate, "stran-notifications", ackTracker, outbox, rateGovernor, priorityLanes, pipelineMetrics, latencyTracker, hotPathLog);
 
         testMessage = NotificationMessage.builder()
                 .notificationId("notif-001")
@@ -119,4 +142,92 @@ class NotificationProducerTest {
 
         verify(kafkaTemplate).send("stran-notifications", "100", testMessage);
     }
+
+    @Test
+    @DisplayName("registers each send with the ack tracker when commit-after-ack is enabled")
+    void sendSingle_registersWithAckTracker() {
+        NotificationAckTracker tracker = mock(NotificationAckTracker.class);
+        when(ackTracker.getIfAvailable()).thenReturn(tracker);
+        CompletableFuture<SendResult<String, NotificationMessage>> future = new CompletableFuture<>();
+        when(kafkaTemplate.send(any(String.class), any(String.class), any(NotificationMessage.class)))
+                .thenReturn(future);
+
+        producer.sendSingle(testMessage);
+
+        verify(tracker).track(any(), any());
+    }
+
+    @Test
+    @DisplayName("re-issues failed sends through the rate governor, not straight to the topic")
+    @SuppressWarnings("unchecked")
+    void sendSingle_retryGoesThroughRateGovernor() {
+        NotificationAckTracker tracker = mock(NotificationAckTracker.class);
+        when(ackTracker.getIfAvailable()).thenReturn(tracker);
+        NotificationRateGovernor governor = mock(NotificationRateGovernor.class);
+        when(rateGovernor.getIfAvailable()).thenReturn(governor);
+        when(governor.submit(eq("FNLCO"), any())).thenReturn(new CompletableFuture<>());
+
+        producer.sendSingle(testMessage);
+
+        ArgumentCaptor<Supplier<CompletableFuture<SendResult<String, NotificationMessage>>>> resend =
+                ArgumentCaptor.forClass(Supplier.class);
+        verify(tracker).track(any(), resend.capture());
+        resend.getValue().get();
+
+        verify(governor, times(2)).submit(eq("FNLCO"), any());
+        verifyNoInteractions(kafkaTemplate);
+    }
+
+    @Test
+    @DisplayName("spills a failed send to the outbox and completes normally")
+    void sendSingle_spillsFailedSendToOutbox() {
+        NotificationOutbox spillover = mock(NotificationOutbox.class);
+        when(outbox.getIfAvailable()).thenReturn(spillover);
+        when(kafkaTemplate.send(any(String.class), any(String.class), any(NotificationMessage.class)))
+                .thenReturn(CompletableFuture.failedFuture(new RuntimeException("Topic unavailable")));
+
+        CompletableFuture<SendResult<String, NotificationMessage>> send = producer.sendSingle(testMessage);
+
+        verify(spillover).spill(testMessage);
+        assertThat(send).isCompletedWithValue(null);
+    }
+
+    @Test
+    @DisplayName("queues behind the outbox backlog instead of sending directly")
+    void sendSingle_queuesBehindOutboxBacklog() {
+        NotificationOutbox spillover = mock(NotificationOutbox.class);
+        when(outbox.getIfAvailable()).thenReturn(spillover);
+        when(spillover.hasBacklog()).thenReturn(true);
+
+        producer.sendSingle(testMessage);
+
+        verify(spillover).spill(testMessage);
+        verifyNoInteractions(kafkaTemplate);
+    }
+
+    @Test
+    @DisplayName("releases sends through the rate governor keyed by property")
+    void sendSingle_goesThroughRateGovernor() {
+        NotificationRateGovernor governor = mock(NotificationRateGovernor.class);
+        when(rateGovernor.getIfAvailable()).thenReturn(governor);
+        when(governor.submit(eq("FNLCO"), any())).thenReturn(new CompletableFuture<>());
+
+        producer.sendSingle(testMessage);
+
+        verify(governor).submit(eq("FNLCO"), any());
+        verifyNoInteractions(kafkaTemplate);
+    }
+
+    @Test
+    @DisplayName("queues sends in their priority lane before the rate governor")
+    void sendSingle_goesThroughPriorityLanes() {
+        NotificationPriorityLanes lanes = mock(NotificationPriorityLanes.class);
+        when(priorityLanes.getIfAvailable()).thenReturn(lanes);
+        when(lanes.submit(eq(testMessage), any())).thenReturn(new CompletableFuture<>());
+
+        producer.sendSingle(testMessage);
+
+        verify(lanes).submit(eq(testMessage), any());
+        verifyNoInteractions(kafkaTemplate, rateGovernor);
+    }
 }
@@ -0,0 +1,176 @@
+package com.example.stran.service;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.kafka.listener.AbstractMessageListenerContainer;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.awaitility.Awaitility.await;
+
+class NotificationRateGovernorTest {
+
+    private NotificationRateGovernor governor;
+
+    @AfterEach
+    void tearDown() throws InterruptedException {
+        if (governor != null) {
+            governor.shutdown();
+        }
+    }
+
+    @Test
+    @DisplayName("sends immediately while both buckets have tokens")
+    void submit_sendsImmediatelyWithinBurst() {
+        governor = new NotificationRateGovernor(100, 100, 1, 10, 1_000);
+        List<String> sent = new CopyOnWriteArrayList<>();
+
+        CompletableFuture<String> result = governor.submit("FNLCO", () -> send(sent, "a"));
+
+        assertThat(result).isCompletedWithValue("a");
+        assertThat(governor.queued()).isZero();
+    }
+
+    @Test
+    @DisplayName("queues sends over the per-property rate and releases them in order")
+    void submit_queuesOverPropertyRate() {
+        governor = new NotificationRateGovernor(1_000, 20, 0.05, 100, 1_000);
+        List<String> sent = new CopyOnWriteArrayList<>();
+
+        List<CompletableFuture<String>> results = List.of(
+                governor.submit("FNLCO", () -> send(sent, "a")),
+                governor.submit("FNLCO", () -> send(sent, "b")),
+                governor.submit("FNLCO", () -> send(sent, "c")));
+
+        assertThat(sent).containsExactly("a");
+        assertThat(governor.queued()).isEqualTo(2);
+        await().atMost(Duration.ofSeconds(2)).until(() -> results.stream().allMatch(CompletableFuture::isDone));
+        assertThat(sent).containsExactly("a", "b", "c");
+    }
+
+    @Test
+    @DisplayName("does not let a throttled property hold back other properties")
+    void submit_keepsPropertiesIndependent() {
+        governor = new NotificationRateGovernor(1_000, 1, 1, 100, 1_000);
+        List<String> sent = new CopyOnWriteArrayList<>();
+
+        governor.submit("FNLCO", () -> send(sent, "a"));
+        governor.submit("FNLCO", () -> send(sent, "b"));
+        governor.submit("NYCMQ", () -> send(sent, "c"));
+
+        assertThat(sent).containsExactly("a", "c");
+        assertThat(governor.queued()).isEqualTo(1);
+    }
+
+    @Test
+    @DisplayName("does not hold the governor while a send is in progress")
+    void submit_sendsOutsideLock() throws Exception {
+        governor = new NotificationRateGovernor(1_000, 100, 1, 100, 1_000);
+        List<String> sent = new CopyOnWriteArrayList<>();
+        CountDownLatch sending = new CountDownLatch(1);
+        CountDownLatch unblock = new CountDownLatch(1);
+        Thread slow = new Thread(() -> governor.submit("FNLCO", () -> {
+            sending.countDown();
+            awaitQuietly(unblock);
+            return send(sent, "a");
+        }));
+        slow.start();
+        assertThat(sending.await(1, TimeUnit.SECONDS)).isTrue();
+
+        CompletableFuture<String> other = governor.submit("NYCMQ", () -> send(sent, "b"));
+
+        assertThat(other).isCompletedWithValue("b");
+        assertThat(governor.queued()).isZero();
+        unblock.countDown();
+        slow.join(1_000);
+        assertThat(sent).containsExactly("b", "a");
+    }
+
+    @Test
+    @DisplayName("blocks and then fails the caller when the queue stays full")
+    void submit_failsWhenQueueFull() {
+        governor = new NotificationRateGovernor(1_000, 1, 1, 1, 50);
+        List<String> sent = new CopyOnWriteArrayList<>();
+        governor.submit("FNLCO", () -> send(sent, "a"));
+        governor.submit("FNLCO", () -> send(sent, "b"));
+
+        assertThatThrownBy(() -> governor.submit("FNLCO", () -> send(sent, "c")))
+                .isInstanceOf(IllegalStateException.class)
+                .hasMessageContaining("queue full");
+        assertThat(sent).containsExactly("a");
+    }
+
+    @Test
+    @DisplayName("applies rate changes made at runtime")
+    void setPropertyRate_appliesAtRuntime() {
+        governor = new NotificationRateGovernor(1_000, 0.1, 10, 100, 1_000);
+        List<String> sent = new CopyOnWriteArrayList<>();
+        governor.submit("FNLCO", () -> send(sent, "a"));
+        CompletableFuture<String> throttled = governor.submit("FNLCO", () -> send(sent, "b"));
+        assertThat(throttled).isNotDone();
+
+        governor.setPropertyRate("FNLCO", 50.0);
+
+        await().atMost(Duration.ofSeconds(2)).until(throttled::isDone);
+        assertThat(governor.getPropertyOverrides()).containsEntry("FNLCO", 50.0);
+    }
+
+    @Test
+    @DisplayName("releases queued sends on shutdown")
+    void shutdown_releasesQueued() throws InterruptedException {
+        governor = new NotificationRateGovernor(1_000, 0.1, 10, 100, 1_000);
+        List<String> sent = new CopyOnWriteArrayList<>();
+        governor.submit("FNLCO", () -> send(sent, "a"));
+        governor.submit("FNLCO", () -> send(sent, "b"));
+
+        governor.shutdown();
+        governor = null;
+
+        assertThat(sent).containsExactly("a", "b");
+    }
+
+    @Test
+    @DisplayName("sends unthrottled instead of queueing once stopped")
+    void submit_afterShutdownSendsDirectly() throws InterruptedException {
+        governor = new NotificationRateGovernor(1_000, 0.1, 10, 100, 1_000);
+        List<String> sent = new CopyOnWriteArrayList<>();
+        governor.submit("FNLCO", () -> send(sent, "a"));
+        governor.shutdown();
+
+        CompletableFuture<String> late = governor.submit("FNLCO", () -> send(sent, "b"));
+
+        assertThat(late).isCompletedWithValue("b");
+        assertThat(governor.queued()).isZero();
+        governor = null;
+    }
+
+    @Test
+    @DisplayName("stops after the priority lanes and digest, and before the outbox and producer")
+    void getPhase_ordersShutdown() {
+        assertThat(NotificationDigestBuffer.PHASE).isLessThan(AbstractMessageListenerContainer.DEFAULT_PHASE);
+        assertThat(NotificationPriorityLanes.PHASE).isLessThan(NotificationDigestBuffer.PHASE);
+        assertThat(NotificationRateGovernor.PHASE).isLessThan(NotificationPriorityLanes.PHASE);
+        assertThat(NotificationOutbox.PHASE).isLessThan(NotificationRateGovernor.PHASE);
+    }
+
+    private static void awaitQuietly(CountDownLatch latch) {
+        try {
+            latch.await(1, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private static CompletableFuture<String> send(List<String> sent, String value) {
+        sent.add(value);
+        return CompletableFuture.completedFuture(value);
+    }
+}
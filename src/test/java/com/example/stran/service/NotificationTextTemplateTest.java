@@ -0,0 +1,43 @@
+package com.example.stran.service;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatIllegalArgumentException;
+
+class NotificationTextTemplateTest {
+
+    @Test
+    @DisplayName("renders placeholders in any order and repeats")
+    void render_substitutesPlaceholders() {
+        NotificationTextTemplate template = NotificationTextTemplate.compile(
+                "{b} then {a}, again {b}.", "a", "b");
+
+        assertThat(template.render("1", "2")).isEqualTo("2 then 1, again 2.");
+    }
+
+    @Test
+    @DisplayName("matches the text String.format used to produce")
+    void render_matchesLegacyFormat() {
+        assertThat(NotificationDispatchService.MESSAGE_TEMPLATE.render("FNLCO", "3", "2026-03-09"))
+                .isEqualTo(String.format("Availability found at property %s for %d night(s) starting %s",
+                        "FNLCO", 3, "2026-03-09"));
+    }
+
+    @Test
+    @DisplayName("rejects unknown and unterminated placeholders")
+    void compile_rejectsBadTemplates() {
+        assertThatIllegalArgumentException().isThrownBy(() -> NotificationTextTemplate.compile("{x}", "a"));
+        assertThatIllegalArgumentException().isThrownBy(() -> NotificationTextTemplate.compile("{a", "a"));
+    }
+
+    @Test
+    @DisplayName("generates well-formed version-4 UUIDs")
+    void randomId_isVersion4Uuid() {
+        java.util.UUID id = java.util.UUID.fromString(NotificationIdGenerator.randomId());
+
+        assertThat(id.version()).isEqualTo(4);
+        assertThat(id.variant()).isEqualTo(2);
+    }
+}
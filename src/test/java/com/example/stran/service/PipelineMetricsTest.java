@@ -0,0 +1,48 @@
+package com.example.stran.service;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class PipelineMetricsTest {
+
+    private final MeterRegistry meterRegistry = new SimpleMeterRegistry();
+    private final PipelineMetrics metrics = new PipelineMetrics(meterRegistry);
+
+    @Test
+    @DisplayName("registers one stage timer per pipeline stage")
+    void constructor_registersStageTimers() {
+        assertThat(meterRegistry.get("stran.pipeline.stage").timers())
+                .extracting(timer -> timer.getId().getTag("stage"))
+                .containsExactlyInAnyOrder("deserialization", "property_resolution", "subscription_query",
+                        "los_filter", "notification_build", "publish_ack");
+    }
+
+    @Test
+    @DisplayName("accumulates candidates and matches per strategy")
+    void matched_countsPerStrategy() {
+        metrics.matched("property-db", 10, 2);
+        metrics.matched("property-db", 5, 1);
+        metrics.matched("property-mmap", 4, 4);
+
+        assertThat(meterRegistry.get("stran.matching.candidates").tag("strategy", "property-db").counter().count())
+                .isEqualTo(15.0);
+        assertThat(meterRegistry.get("stran.matching.matches").tag("strategy", "property-db").counter().count())
+                .isEqualTo(3.0);
+        assertThat(meterRegistry.get("stran.matching.matches").tag("strategy", "property-mmap").counter().count())
+                .isEqualTo(4.0);
+    }
+
+    @Test
+    @DisplayName("tracks sends awaiting acknowledgment")
+    void sendStarted_tracksInFlight() {
+        metrics.sendStarted();
+        metrics.sendStarted();
+        metrics.sendCompleted();
+
+        assertThat(meterRegistry.get("stran.notification.sends.in-flight").gauge().value()).isEqualTo(1.0);
+    }
+}
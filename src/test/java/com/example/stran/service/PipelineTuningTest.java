@@ -0,0 +1,144 @@
+package com.example.stran.service;
+
+import com.example.stran.dto.inventory.InventoryEvent;
+import com.example.stran.dto.notification.NotificationMessage;
+import org.apache.kafka.clients.consumer.ConsumerConfig;
+import org.apache.kafka.clients.producer.ProducerConfig;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InOrder;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.support.StaticListableBeanFactory;
+import org.springframework.kafka.config.KafkaListenerEndpointRegistry;
+import org.springframework.kafka.core.ConsumerFactory;
+import org.springframework.kafka.core.DefaultKafkaProducerFactory;
+import org.springframework.kafka.listener.ConcurrentMessageListenerContainer;
+import org.springframework.kafka.listener.ContainerProperties;
+import org.springframework.util.backoff.FixedBackOff;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatIllegalArgumentException;
+import static org.assertj.core.api.InstanceOfAssertFactories.MAP;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class PipelineTuningTest {
+
+    @Mock
+    private KafkaListenerEndpointRegistry listenerRegistry;
+
+    @Mock
+    private ConsumerFactory<String, InventoryEvent> consumerFactory;
+
+    @Mock
+    private ConcurrentMessageListenerContainer<String, InventoryEvent> container;
+
+    private final ContainerProperties containerProperties = new ContainerProperties("rate-recomm-prd");
+    private final FixedBackOff backOff = new FixedBackOff(1000L, 3);
+    private final StaticListableBeanFactory beans = new StaticListableBeanFactory();
+    private final NotificationAckTracker ackTracker = new NotificationAckTracker(1000, 50, 1_000, 10);
+    private DefaultKafkaProducerFactory<String, NotificationMessage> producerFactory;
+
+    @BeforeEach
+    void setUp() {
+        producerFactory = new DefaultKafkaProducerFactory<>(Map.of(
+                ProducerConfig.BOOTSTRAP_SERVERS_CONFIG, "localhost:9092",
+                ProducerConfig.MAX_IN_FLIGHT_REQUESTS_PER_CONNECTION, 5));
+        lenient().when(listenerRegistry.getListenerContainers()).thenReturn(List.of(container));
+        lenient().when(container.getContainerProperties()).thenReturn(containerProperties);
+        lenient().when(consumerFactory.getConfigurationProperties()).thenReturn(Map.of());
+        beans.addBean("ackTracker", ackTracker);
+    }
+
+    @AfterEach
+    void tearDown() throws InterruptedException {
+        ackTracker.shutdown();
+    }
+
+    @Test
+    @DisplayName("restarts running listener containers with the new concurrency and max.poll.records")
+    void apply_restartsContainers() {
+        when(container.isRunning()).thenReturn(true);
+
+        tuning().apply(changes(4, 200, null, null, null));
+
+        InOrder order = inOrder(container);
+        order.verify(container).stop();
+        order.verify(container).setConcurrency(4);
+        order.verify(container).start();
+        assertThat(containerProperties.getKafkaConsumerProperties())
+                .containsEntry(ConsumerConfig.MAX_POLL_RECORDS_CONFIG, "200");
+    }
+
+    @Test
+    @DisplayName("changes backoff, producer and in-flight settings in place and reports them")
+    void apply_changesInPlace() {
+        PipelineTuning tuning = tuning();
+
+        tuning.apply(new PipelineTuning.Changes(null, null, 250L, 5L, 10, 65536, 1, 20, null, null, null, null));
+
+        verify(container, never()).stop();
+        assertThat(backOff.getInterval()).isEqualTo(250L);
+        assertThat(backOff.getMaxAttempts()).isEqualTo(5L);
+        assertThat(producerFactory.getConfigurationProperties())
+                .containsEntry(ProducerConfig.LINGER_MS_CONFIG, 10)
+                .containsEntry(ProducerConfig.BATCH_SIZE_CONFIG, 65536)
+                .containsEntry(ProducerConfig.MAX_IN_FLIGHT_REQUESTS_PER_CONNECTION, 1);
+        assertThat(ackTracker.getMaxInFlight()).isEqualTo(20);
+
+        Map<String, Object> effective = tuning.effective();
+        assertThat(effective.get("consumer")).asInstanceOf(MAP)
+                .containsEntry("retryIntervalMs", 250L)
+                .containsEntry("retryMaxAttempts", 5L);
+        assertThat(effective.get("producer")).asInstanceOf(MAP)
+                .containsEntry("lingerMs", 10)
+                .containsEntry("maxInFlightRequests", 1);
+        assertThat(effective.get("inFlight")).isEqualTo(Map.of("commitAfterAckMaxInFlight", 20));
+    }
+
+    @Test
+    @DisplayName("rejects invalid values and disabled components without applying anything")
+    void apply_validatesFirst() {
+        PipelineTuning tuning = tuning();
+
+        assertThatIllegalArgumentException()
+                .isThrownBy(() -> tuning.apply(changes(2, null, 100L, null, 6)))
+                .withMessageContaining("maxInFlightRequests");
+        assertThatIllegalArgumentException()
+                .isThrownBy(() -> tuning.apply(new PipelineTuning.Changes(
+                        null, null, 100L, null, null, null, null, null, null, Duration.ofMinutes(1), null, null)))
+                .withMessageContaining("stran.hot-lanes");
+        producerFactory.setTransactionIdPrefix("stran-tx-");
+        assertThatIllegalArgumentException()
+                .isThrownBy(() -> tuning.apply(changes(null, null, 100L, 10, null)))
+                .withMessageContaining("transactions");
+
+        assertThat(backOff.getInterval()).isEqualTo(1000L);
+        verify(container, never()).setConcurrency(anyInt());
+    }
+
+    private PipelineTuning tuning() {
+        return new PipelineTuning(listenerRegistry, consumerFactory, producerFactory, backOff,
+                provider(NotificationAckTracker.class), provider(NotificationPriorityLanes.class),
+                provider(HotPropertyLanes.class), provider(LatestAvailability.class));
+    }
+
+    private <T> ObjectProvider<T> provider(Class<T> type) {
+        return beans.getBeanProvider(type);
+    }
+
+    private static PipelineTuning.Changes changes(Integer concurrency, Integer maxPollRecords, Long retryIntervalMs,
+                                                  Integer lingerMs, Integer maxInFlightRequests) {
+        return new PipelineTuning.Changes(concurrency, maxPollRecords, retryIntervalMs, null, lingerMs, null,
+                maxInFlightRequests, null, null, null, null, null);
+    }
+}
@@ -15,6 +15,7 @@ import org.junit.jupiter.api.extension.ExtendWith;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.beans.factory.ObjectProvider;
 
 import java.math.BigDecimal;
 import java.time.Instant;
@@ -36,6 +37,21 @@ class PropertyAvailabilityMatchingServiceTest {
     @Mock
     private StaySubscriptionRepository subscriptionRepository;
 
+    @Mock
+    private ObjectProvider<SubscriptionCache> subscriptionCacheProvider;
+
+    @Mock
+    private SubscriptionCache subscriptionCache;
+
+    @Mock
+    private PipelineMetrics pipelineMetrics;
+
+    @Mock
+    private HotPathLog hotPathLog;
+
+    @Mock
+    private HotKeyTracker hotKeyTracker;
+
     @InjectMocks
     private PropertyAvailabilityMatchingService service;
 
@@ -111,6 +127,25 @@ class PropertyAvailabilityMatchingServiceTest {
         assertThat(result.get(0).getId()).isEqualTo(100L);
     }
 
+    @Test
+    @DisplayName("records candidates vs matches and the time of each stage")
+    void findMatchingSubscriptions_recordsMetrics() {
+        StaySubscription tooLong = new StaySubscription();
+        tooLong.setId(101L);
+        tooLong.setCheckInDate(LocalDate.of(2026, 3, 9));
+        tooLong.setCheckOutDate(LocalDate.of(2026, 3, 14)); // 5 nights, pattern allows 3
+        when(propertyRepository.findByPropCode("FNLCO")).thenReturn(Optional.of(testProperty));
+        when(subscriptionRepository.findActivePropertySubscriptions(1L, LocalDate.of(2026, 3, 9)))
+                .thenReturn(List.of(testSubscription, tooLong));
+
+        service.findMatchingSubscriptions(testEventBody);
+
+        verify(pipelineMetrics).matched("property-db", 2, 1);
+        verify(pipelineMetrics).record(eq(PipelineMetrics.Stage.PROPERTY_RESOLUTION), anyLong());
+        verify(pipelineMetrics).record(eq(PipelineMetrics.Stage.SUBSCRIPTION_QUERY), anyLong());
+        verify(pipelineMetrics).record(eq(PipelineMetrics.Stage.LOS_FILTER), anyLong());
+    }
+
     @Test
     @DisplayName("returns empty when property not found for propCode")
     void findMatchingSubscriptions_returnsEmptyWhenPropertyNotFound() {
@@ -176,4 +211,17 @@ class PropertyAvailabilityMatchingServiceTest {
 
         assertThat(result).hasSize(2);
     }
+
+    @Test
+    @DisplayName("serves candidates from the subscription cache without querying the DB")
+    void findMatchingSubscriptions_usesCacheWhenPropertyCached() {
+        when(subscriptionCacheProvider.getIfAvailable()).thenReturn(subscriptionCache);
+        when(subscriptionCache.find("FNLCO", LocalDate.of(2026, 3, 9)))
+                .thenReturn(Optional.of(List.of(testSubscription)));
+
+        List<StaySubscription> result = service.findMatchingSubscriptions(testEventBody);
+
+        assertThat(result).containsExactly(testSubscription);
+        verifyNoInteractions(propertyRepository, subscriptionRepository);
+    }
 }
@@ -0,0 +1,118 @@
+package com.example.stran.service;
+
+import com.example.stran.entity.Property;
+import com.example.stran.repository.PropertyRepository;
+import org.apache.kafka.clients.consumer.Consumer;
+import org.apache.kafka.clients.producer.internals.BuiltInPartitioner;
+import org.apache.kafka.common.PartitionInfo;
+import org.apache.kafka.common.TopicPartition;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Captor;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.nio.charset.StandardCharsets;
+import java.time.Instant;
+import java.util.Collection;
+import java.util.List;
+import java.util.Set;
+import java.util.stream.IntStream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class PropertyPartitionOwnershipTest {
+
+    private static final String TOPIC = "stran-inventory-by-property";
+    private static final int PARTITIONS = 4;
+
+    @Mock
+    private PropertyRepository propertyRepository;
+
+    @Mock
+    private SubscriptionCache subscriptionCache;
+
+    @Mock
+    private Consumer<String, Object> consumer;
+
+    @Captor
+    private ArgumentCaptor<Collection<Property>> loadedCaptor;
+
+    private PropertyPartitionOwnership ownership;
+
+    private List<Property> properties;
+
+    @BeforeEach
+    void setUp() {
+        ownership = new PropertyPartitionOwnership(propertyRepository, subscriptionCache, TOPIC);
+
+        properties = IntStream.range(0, 20)
+                .mapToObj(i -> new Property((long) i, "Hotel " + i, "PROP" + i + "HF", 0.0, 0.0, "HF",
+                        "PROP" + i, Instant.now(), Instant.now(), 0))
+                .toList();
+
+        lenient().when(consumer.partitionsFor(TOPIC)).thenReturn(IntStream.range(0, PARTITIONS)
+                .mapToObj(p -> new PartitionInfo(TOPIC, p, null, null, null))
+                .toList());
+        lenient().when(propertyRepository.findByPropCodeIsNotNull()).thenReturn(properties);
+    }
+
+    @Test
+    @DisplayName("partitionFor agrees with the Kafka producer's default key partitioning")
+    void partitionFor_matchesDefaultPartitioner() {
+        for (Property property : properties) {
+            byte[] key = property.getPropCode().getBytes(StandardCharsets.UTF_8);
+            assertThat(PropertyPartitionOwnership.partitionFor(property.getPropCode(), PARTITIONS))
+                    .isEqualTo(BuiltInPartitioner.partitionForKey(key, PARTITIONS));
+        }
+    }
+
+    @Test
+    @DisplayName("loads only the properties that hash to assigned partitions")
+    void onPartitionsAssigned_loadsOwnedProperties() {
+        when(subscriptionCache.cachedPropCodes()).thenReturn(Set.of());
+
+        ownership.onPartitionsAssigned(consumer, List.of(new TopicPartition(TOPIC, 0), new TopicPartition(TOPIC, 1)));
+
+        verify(subscriptionCache).load(loadedCaptor.capture());
+        assertThat(loadedCaptor.getValue())
+                .isNotEmpty()
+                .allSatisfy(p -> assertThat(PropertyPartitionOwnership.partitionFor(p.getPropCode(), PARTITIONS))
+                        .isIn(0, 1));
+        assertThat(loadedCaptor.getValue()).hasSize((int) properties.stream()
+                .filter(p -> PropertyPartitionOwnership.partitionFor(p.getPropCode(), PARTITIONS) < 2)
+                .count());
+    }
+
+    @Test
+    @DisplayName("evicts properties whose partition moved to another instance")
+    void onPartitionsAssigned_evictsRevokedProperties() {
+        String movedAway = properties.stream()
+                .map(Property::getPropCode)
+                .filter(code -> PropertyPartitionOwnership.partitionFor(code, PARTITIONS) == 3)
+                .findFirst()
+                .orElseThrow();
+        when(subscriptionCache.cachedPropCodes()).thenReturn(Set.of(movedAway));
+
+        ownership.onPartitionsAssigned(consumer, List.of(new TopicPartition(TOPIC, 3)));
+        ownership.onPartitionsRevokedAfterCommit(consumer, List.of(new TopicPartition(TOPIC, 3)));
+        ownership.onPartitionsAssigned(consumer, List.of(new TopicPartition(TOPIC, 0)));
+
+        assertThat(ownership.owns(movedAway)).isFalse();
+        verify(subscriptionCache).evict(List.of(movedAway));
+    }
+
+    @Test
+    @DisplayName("ignores partitions of topics other than the repartition topic")
+    void onPartitionsAssigned_ignoresOtherTopics() {
+        ownership.onPartitionsAssigned(consumer, List.of(new TopicPartition("rate-recomm-prd", 0)));
+
+        verifyNoInteractions(subscriptionCache, propertyRepository);
+        assertThat(ownership.owns("PROP1")).isFalse();
+    }
+}
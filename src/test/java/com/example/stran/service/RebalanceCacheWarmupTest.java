@@ -0,0 +1,120 @@
+package com.example.stran.service;
+
+import com.example.stran.entity.Property;
+import com.example.stran.repository.PropertyRepository;
+import org.apache.kafka.clients.consumer.Consumer;
+import org.apache.kafka.clients.consumer.ConsumerRecord;
+import org.apache.kafka.clients.consumer.MockConsumer;
+import org.apache.kafka.clients.consumer.OffsetResetStrategy;
+import org.apache.kafka.common.TopicPartition;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Captor;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.time.Instant;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class RebalanceCacheWarmupTest {
+
+    private static final String TOPIC = "rate-recomm-prd";
+    private static final TopicPartition P0 = new TopicPartition(TOPIC, 0);
+    private static final TopicPartition P1 = new TopicPartition(TOPIC, 1);
+
+    @Mock
+    private PropertyRepository propertyRepository;
+
+    @Mock
+    private SubscriptionCache subscriptionCache;
+
+    @Mock
+    private Consumer<String, Object> groupConsumer;
+
+    @Captor
+    private ArgumentCaptor<Collection<String>> propCodesCaptor;
+
+    private MockConsumer<String, byte[]> tail;
+    private RebalanceCacheWarmup warmup;
+
+    @BeforeEach
+    void setUp() {
+        tail = new MockConsumer<>(OffsetResetStrategy.EARLIEST);
+        warmup = new RebalanceCacheWarmup(propertyRepository, subscriptionCache, TOPIC, 3, 5_000,
+                () -> tail, Runnable::run);
+    }
+
+    @Test
+    @DisplayName("loads the properties recently seen on newly assigned partitions that are not cached yet")
+    void onPartitionsAssigned_loadsRecentlySeenProperties() {
+        tail.updateBeginningOffsets(Map.of(P0, 0L, P1, 0L));
+        tail.updateEndOffsets(Map.of(P0, 5L, P1, 1L));
+        tail.schedulePollTask(() -> {
+            // Offsets 0-1 are older than the 3-record tail
+            addRecord(P0, 0, "OLDCO::NG7BCD");
+            addRecord(P0, 1, "OLDCO::NG7BCD");
+            addRecord(P0, 2, "FNLCO::NG7BCD");
+            addRecord(P0, 3, "ISOL1::RACK");
+            addRecord(P0, 4, null);
+            addRecord(P1, 0, "CACHD::NG7BCD");
+        });
+        when(subscriptionCache.cachedPropCodes()).thenReturn(Set.of("CACHD"));
+        List<Property> properties = List.of(property(1L, "FNLCO"), property(2L, "ISOL1"));
+        when(propertyRepository.findByPropCodeIn(any())).thenReturn(properties);
+
+        warmup.onPartitionsAssigned(groupConsumer, List.of(P0, P1, new TopicPartition("other", 0)));
+
+        verify(propertyRepository).findByPropCodeIn(propCodesCaptor.capture());
+        assertThat(propCodesCaptor.getValue()).containsExactlyInAnyOrder("FNLCO", "ISOL1");
+        verify(subscriptionCache).load(properties);
+        assertThat(tail.closed()).isTrue();
+    }
+
+    @Test
+    @DisplayName("evicts properties of revoked partitions unless still seen on an owned partition")
+    void onPartitionsRevoked_evictsReleasedProperties() {
+        tail.updateBeginningOffsets(Map.of(P0, 0L, P1, 0L));
+        tail.updateEndOffsets(Map.of(P0, 2L, P1, 1L));
+        tail.schedulePollTask(() -> {
+            addRecord(P0, 0, "FNLCO::NG7BCD");
+            addRecord(P0, 1, "ISOL1::NG7BCD");
+            addRecord(P1, 0, "ISOL1::RACK");
+        });
+        when(subscriptionCache.cachedPropCodes()).thenReturn(Set.of());
+        when(propertyRepository.findByPropCodeIn(any())).thenReturn(List.of());
+        warmup.onPartitionsAssigned(groupConsumer, List.of(P0, P1));
+
+        warmup.onPartitionsRevokedAfterCommit(groupConsumer, List.of(P0));
+
+        verify(subscriptionCache).evict(Set.of("FNLCO"));
+    }
+
+    @Test
+    @DisplayName("extracts the propCode from propCode::ratePlanCode keys")
+    void propCode_parsesSourceKey() {
+        assertThat(RebalanceCacheWarmup.propCode("FNLCO::NG7BCD")).isEqualTo("FNLCO");
+        assertThat(RebalanceCacheWarmup.propCode("FNLCO")).isEqualTo("FNLCO");
+        assertThat(RebalanceCacheWarmup.propCode("::NG7BCD")).isNull();
+        assertThat(RebalanceCacheWarmup.propCode(null)).isNull();
+    }
+
+    private void addRecord(TopicPartition partition, long offset, String key) {
+        tail.addRecord(new ConsumerRecord<>(partition.topic(), partition.partition(), offset, key, new byte[0]));
+    }
+
+    private static Property property(long id, String propCode) {
+        return new Property(id, "Hotel " + propCode, propCode + "HF", 0.0, 0.0, "HF", propCode,
+                Instant.now(), Instant.now(), 0);
+    }
+}
@@ -0,0 +1,153 @@
+package com.example.stran.service;
+
+import com.example.stran.dto.inventory.InventoryEventBody;
+import com.example.stran.entity.StaySubscription;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.util.List;
+import java.util.concurrent.AbstractExecutorService;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class ShadowMatchingTest {
+
+    @Mock
+    private SubscriptionMatchingStrategy candidate;
+
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+    private final AtomicLong now = new AtomicLong();
+    private final InventoryEventBody event = InventoryEventBody.builder()
+            .propCode("FNLCO")
+            .startDate("2026-03-09")
+            .build();
+
+    @BeforeEach
+    void setUp() {
+        when(candidate.name()).thenReturn("property-mmap");
+    }
+
+    @Test
+    @DisplayName("counts identical ID sets as a match and records both engines' latency")
+    void offer_countsMatch() {
+        ShadowMatching shadow = shadow(1.0, new DirectExecutor());
+        when(candidate.supports(event)).thenReturn(true);
+        when(candidate.findMatchingSubscriptions(event)).thenAnswer(invocation -> {
+            now.addAndGet(TimeUnit.MILLISECONDS.toNanos(2));
+            return List.of(subscription(2L), subscription(1L));
+        });
+
+        shadow.offer("property-db", event, List.of(subscription(1L), subscription(2L)),
+                TimeUnit.MILLISECONDS.toNanos(5));
+
+        assertThat(comparisons("match")).isEqualTo(1.0);
+        assertThat(comparisons("mismatch")).isZero();
+        assertThat(meterRegistry.get("stran.shadow.latency").tag("engine", "primary").timer()
+                .totalTime(TimeUnit.MILLISECONDS)).isEqualTo(5.0);
+        assertThat(meterRegistry.get("stran.shadow.latency").tag("engine", "candidate").timer()
+                .totalTime(TimeUnit.MILLISECONDS)).isEqualTo(2.0);
+    }
+
+    @Test
+    @DisplayName("counts differing ID sets and candidate failures without affecting the caller")
+    void offer_countsMismatchAndError() {
+        ShadowMatching shadow = shadow(1.0, new DirectExecutor());
+        when(candidate.supports(event)).thenReturn(true);
+        when(candidate.findMatchingSubscriptions(event))
+                .thenReturn(List.of(subscription(1L), subscription(3L)))
+                .thenThrow(new IllegalStateException("store closed"));
+
+        shadow.offer("property-db", event, List.of(subscription(1L), subscription(2L)), 0);
+        shadow.offer("property-db", event, List.of(), 0);
+
+        assertThat(comparisons("mismatch")).isEqualTo(1.0);
+        assertThat(comparisons("error")).isEqualTo(1.0);
+    }
+
+    @Test
+    @DisplayName("only shadows the primary strategy's sampled events, and drops them when the queue is full")
+    void offer_samplesPrimaryOnly() {
+        ShadowMatching sampledOut = shadow(0.0, new DirectExecutor());
+        sampledOut.offer("property-db", event, List.of(), 0);
+        ShadowMatching otherStrategy = shadow(1.0, new DirectExecutor());
+        otherStrategy.offer("area-db", event, List.of(), 0);
+        verify(candidate, never()).findMatchingSubscriptions(any());
+
+        ShadowMatching full = shadow(1.0, new RejectingExecutor());
+        full.offer("property-db", event, List.of(), 0);
+        assertThat(comparisons("dropped")).isEqualTo(1.0);
+    }
+
+    @Test
+    @DisplayName("refuses a candidate that is the primary strategy")
+    void constructor_rejectsPrimaryAsCandidate() {
+        assertThatThrownBy(() -> new ShadowMatching(candidate, "property-mmap", 1.0, 1_000, new DirectExecutor(),
+                meterRegistry, () -> 0.0, now::get))
+                .isInstanceOf(IllegalStateException.class);
+    }
+
+    private ShadowMatching shadow(double sampleRate, AbstractExecutorService executor) {
+        return new ShadowMatching(candidate, "property-db", sampleRate, 1_000, executor, meterRegistry,
+                () -> 0.5, now::get);
+    }
+
+    private double comparisons(String outcome) {
+        return meterRegistry.get("stran.shadow.comparisons").tag("outcome", outcome).counter().count();
+    }
+
+    private static StaySubscription subscription(long id) {
+        StaySubscription sub = new StaySubscription();
+        sub.setId(id);
+        return sub;
+    }
+
+    private static class DirectExecutor extends AbstractExecutorService {
+        @Override
+        public void execute(Runnable command) {
+            command.run();
+        }
+
+        @Override
+        public void shutdown() {
+        }
+
+        @Override
+        public List<Runnable> shutdownNow() {
+            return List.of();
+        }
+
+        @Override
+        public boolean isShutdown() {
+            return false;
+        }
+
+        @Override
+        public boolean isTerminated() {
+            return false;
+        }
+
+        @Override
+        public boolean awaitTermination(long timeout, TimeUnit unit) {
+            return true;
+        }
+    }
+
+    private static class RejectingExecutor extends DirectExecutor {
+        @Override
+        public void execute(Runnable command) {
+            throw new RejectedExecutionException("full");
+        }
+    }
+}
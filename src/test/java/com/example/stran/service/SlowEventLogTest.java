@@ -0,0 +1,97 @@
+package com.example.stran.service;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+class SlowEventLogTest {
+
+    private static final long MS = TimeUnit.MILLISECONDS.toNanos(1);
+    private static final Instant NOW = Instant.parse("2026-03-09T12:00:00Z");
+
+    private final MeterRegistry meterRegistry = new SimpleMeterRegistry();
+    private final PipelineMetrics pipelineMetrics = new PipelineMetrics(meterRegistry);
+    private final Clock clock = mock(Clock.class);
+    private final SlowEventLog slowEventLog = new SlowEventLog(100, 3, Duration.ofMinutes(15), meterRegistry, clock);
+
+    @BeforeEach
+    void setUp() {
+        when(clock.instant()).thenReturn(NOW);
+    }
+
+    @Test
+    @DisplayName("ignores events within the budget")
+    void offer_ignoresEventsUnderBudget() {
+        EventTrace trace = pipelineMetrics.beginEvent();
+        pipelineMetrics.endEvent();
+
+        slowEventLog.offer(trace, 100 * MS, "rate-recomm-prd", 0, 1L, "FNLCO", "2026-03-09");
+
+        assertThat(slowEventLog.slowest()).isEmpty();
+        assertThat(meterRegistry.get("stran.pipeline.slow-events").counter().count()).isZero();
+    }
+
+    @Test
+    @DisplayName("records the stage breakdown and counts traced on the listener thread")
+    void offer_recordsBreakdown() {
+        EventTrace trace = pipelineMetrics.beginEvent();
+        pipelineMetrics.record(PipelineMetrics.Stage.SUBSCRIPTION_QUERY, System.nanoTime() - 150 * MS);
+        pipelineMetrics.matched("property-db", 5_000, 1_200);
+        pipelineMetrics.endEvent();
+        pipelineMetrics.record(PipelineMetrics.Stage.LOS_FILTER, System.nanoTime() - 50 * MS);
+
+        slowEventLog.offer(trace, 400 * MS, "rate-recomm-prd", 2, 42L, "FNLCO", "2026-03-09");
+
+        SlowEventLog.SlowEvent event = slowEventLog.slowest().get(0);
+        assertThat(event.partition()).isEqualTo(2);
+        assertThat(event.offset()).isEqualTo(42L);
+        assertThat(event.propCode()).isEqualTo("FNLCO");
+        assertThat(event.candidates()).isEqualTo(5_000);
+        assertThat(event.matches()).isEqualTo(1_200);
+        assertThat(event.stages()).containsOnlyKeys(PipelineMetrics.Stage.SUBSCRIPTION_QUERY);
+        assertThat(event.stages().get(PipelineMetrics.Stage.SUBSCRIPTION_QUERY)).isGreaterThanOrEqualTo(Duration.ofMillis(150));
+        assertThat(event.other()).isLessThanOrEqualTo(Duration.ofMillis(250));
+        assertThat(meterRegistry.get("stran.pipeline.slow-events").counter().count()).isEqualTo(1.0);
+    }
+
+    @Test
+    @DisplayName("keeps the slowest events when full, evicting the fastest, and lists them slowest first")
+    void offer_evictsFastestEntries() {
+        long[] elapsedMs = {300, 150, 500, 120, 400};
+        for (int i = 0; i < elapsedMs.length; i++) {
+            slowEventLog.offer(pipelineMetrics.beginEvent(), elapsedMs[i] * MS, "rate-recomm-prd", 0, i, "P" + i, "2026-03-09");
+        }
+
+        List<SlowEventLog.SlowEvent> events = slowEventLog.slowest();
+
+        assertThat(events).extracting(SlowEventLog.SlowEvent::offset).containsExactly(2L, 4L, 0L);
+        assertThat(slowEventLog.recorded()).isEqualTo(5);
+    }
+
+    @Test
+    @DisplayName("evicts entries older than the window so faster recent events are kept again")
+    void offer_evictsEntriesOutsideWindow() {
+        for (int i = 0; i < 3; i++) {
+            slowEventLog.offer(pipelineMetrics.beginEvent(), 900 * MS, "rate-recomm-prd", 0, i, "OLD", "2026-03-09");
+        }
+
+        when(clock.instant()).thenReturn(NOW.plus(Duration.ofMinutes(16)));
+        assertThat(slowEventLog.slowest()).isEmpty();
+
+        slowEventLog.offer(pipelineMetrics.beginEvent(), 110 * MS, "rate-recomm-prd", 0, 3L, "NEW", "2026-03-09");
+
+        assertThat(slowEventLog.slowest()).extracting(SlowEventLog.SlowEvent::offset).containsExactly(3L);
+    }
+}
@@ -0,0 +1,113 @@
+package com.example.stran.service;
+
+import com.example.stran.entity.Property;
+import com.example.stran.entity.StaySubscription;
+import com.example.stran.entity.SubscriptionSearchType;
+import com.example.stran.entity.SubscriptionStatus;
+import com.example.stran.repository.StaySubscriptionRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.math.BigDecimal;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyCollection;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class SubscriptionCacheTest {
+
+    private static final LocalDate CHECK_IN = LocalDate.of(2026, 3, 9);
+
+    @Mock
+    private StaySubscriptionRepository subscriptionRepository;
+
+    @InjectMocks
+    private SubscriptionCache cache;
+
+    private Property property;
+
+    @BeforeEach
+    void setUp() {
+        property = new Property(1L, "Test Hotel", "FNLCOHF", 40.0, -74.0, "HF", "FNLCO",
+                Instant.now(), Instant.now(), 0);
+    }
+
+    @Test
+    @DisplayName("returns empty for properties that were never loaded")
+    void find_returnsEmptyWhenNotCached() {
+        assertThat(cache.find("FNLCO", CHECK_IN)).isEmpty();
+    }
+
+    @Test
+    @DisplayName("serves loaded subscriptions by property and check-in date")
+    void load_cachesSubscriptionsByDate() {
+        when(subscriptionRepository.findActivePropertySubscriptions(anyCollection()))
+                .thenReturn(List.of(subscription(100L, CHECK_IN, SubscriptionStatus.ACTIVE)));
+
+        cache.load(List.of(property));
+
+        assertThat(cache.find("FNLCO", CHECK_IN)).hasValueSatisfying(subs ->
+                assertThat(subs).extracting(StaySubscription::getId).containsExactly(100L));
+        assertThat(cache.find("FNLCO", CHECK_IN.plusDays(1))).hasValue(List.of());
+        assertThat(cache.size()).isEqualTo(1);
+    }
+
+    @Test
+    @DisplayName("refresh applies inserts and removes subscriptions that are no longer active")
+    void refresh_appliesChanges() {
+        when(subscriptionRepository.findActivePropertySubscriptions(anyCollection()))
+                .thenReturn(List.of(subscription(100L, CHECK_IN, SubscriptionStatus.ACTIVE)));
+        cache.load(List.of(property));
+
+        when(subscriptionRepository.findByUpdatedAtAfterOrderByUpdatedAtAsc(any()))
+                .thenReturn(List.of(
+                        subscription(100L, CHECK_IN, SubscriptionStatus.CANCELLED),
+                        subscription(101L, CHECK_IN, SubscriptionStatus.ACTIVE)));
+
+        cache.refresh();
+
+        assertThat(cache.find("FNLCO", CHECK_IN)).hasValueSatisfying(subs ->
+                assertThat(subs).extracting(StaySubscription::getId).containsExactly(101L));
+    }
+
+    @Test
+    @DisplayName("evicted properties fall back to the database")
+    void evict_removesProperty() {
+        when(subscriptionRepository.findActivePropertySubscriptions(anyCollection())).thenReturn(List.of());
+        cache.load(List.of(property));
+
+        cache.evict(List.of("FNLCO"));
+
+        assertThat(cache.find("FNLCO", CHECK_IN)).isEmpty();
+        assertThat(cache.cachedPropCodes()).isEmpty();
+    }
+
+    private StaySubscription subscription(Long id, LocalDate checkIn, SubscriptionStatus status) {
+        StaySubscription sub = new StaySubscription();
+        sub.setId(id);
+        sub.setGuestId("guest-" + id);
+        sub.setSearchType(SubscriptionSearchType.PROPERTY);
+        sub.setPropertyId(1L);
+        sub.setCheckInDate(checkIn);
+        sub.setCheckOutDate(checkIn.plusDays(3));
+        sub.setMaxPricePerNight(BigDecimal.valueOf(200));
+        sub.setCurrencyCode("USD");
+        sub.setNumAdults(2);
+        sub.setNumRooms(1);
+        sub.setStatus(status);
+        sub.setCreatedAt(Instant.now());
+        sub.setUpdatedAt(Instant.now());
+        sub.setCheckCount(0);
+        return sub;
+    }
+}
@@ -0,0 +1,69 @@
+package com.example.stran.service;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.awaitility.Awaitility.await;
+
+class WeightedAdmissionTest {
+
+    @Test
+    @DisplayName("admits immediately below the bound")
+    void acquire_admitsBelowBound() {
+        WeightedAdmission admission = new WeightedAdmission(new int[]{1, 1}, 2, 1_000);
+
+        assertThat(admission.acquire(0)).isTrue();
+        assertThat(admission.acquire(1)).isTrue();
+        assertThat(admission.inProcess()).isEqualTo(2);
+
+        admission.release();
+        admission.release();
+        assertThat(admission.inProcess()).isZero();
+    }
+
+    @Test
+    @DisplayName("hands freed slots to waiting sources in proportion to their weights")
+    void release_grantsByWeight() throws InterruptedException {
+        WeightedAdmission admission = new WeightedAdmission(new int[]{3, 1}, 1, 10_000);
+        List<Integer> order = new CopyOnWriteArrayList<>();
+        admission.acquire(0);
+
+        List<Thread> threads = new ArrayList<>();
+        for (int i = 0; i < 8; i++) {
+            int source = i % 2;
+            Thread thread = new Thread(() -> {
+                admission.acquire(source);
+                order.add(source);
+                admission.release();
+            });
+            threads.add(thread);
+            thread.start();
+        }
+        await().atMost(5, TimeUnit.SECONDS).until(() -> admission.waiting() == 8);
+
+        admission.release();
+        for (Thread thread : threads) {
+            thread.join(5_000);
+        }
+
+        assertThat(order.subList(0, 4)).containsExactly(0, 0, 1, 0);
+        assertThat(order).hasSize(8);
+        assertThat(admission.inProcess()).isZero();
+    }
+
+    @Test
+    @DisplayName("admits a source over the bound once it has waited max-wait-ms")
+    void acquire_admitsOverBoundAfterWait() {
+        WeightedAdmission admission = new WeightedAdmission(new int[]{1}, 1, 20);
+        admission.acquire(0);
+
+        assertThat(admission.acquire(0)).isFalse();
+        assertThat(admission.inProcess()).isEqualTo(2);
+    }
+}
@@ -0,0 +1,121 @@
+package com.example.stran.sketch;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.ZoneOffset;
+import java.util.List;
+import java.util.Random;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class WindowedHeavyHittersTest {
+
+    private static final Instant NOW = Instant.parse("2026-03-01T12:00:00Z");
+
+    @Test
+    @DisplayName("finds the heaviest keys among many light ones")
+    void top_findsHeavyKeysInLongTail() {
+        WindowedHeavyHitters hitters = new WindowedHeavyHitters(
+                Duration.ofMinutes(5), 5, 3, 4, 1024, 1, Clock.fixed(NOW, ZoneOffset.UTC));
+        Random random = new Random(42);
+        for (int i = 0; i < 50_000; i++) {
+            hitters.add("P" + random.nextInt(20_000), 1);
+        }
+        hitters.add("HOT1", 3_000);
+        hitters.add("HOT2", 2_000);
+        hitters.add("HOT3", 1_000);
+
+        List<WindowedHeavyHitters.HeavyHitter> top = hitters.top();
+
+        assertThat(top).extracting(WindowedHeavyHitters.HeavyHitter::key).containsExactly("HOT1", "HOT2", "HOT3");
+        assertThat(top.get(0).count()).isBetween(3_000L, 3_000L + 2 * 56_000L / 1024);
+        assertThat(hitters.total()).isEqualTo(56_000);
+    }
+
+    @Test
+    @DisplayName("counts concurrent writers exactly across stripes and merges their heaviest keys")
+    void add_stripedConcurrentWriters() throws InterruptedException {
+        WindowedHeavyHitters hitters = new WindowedHeavyHitters(
+                Duration.ofMinutes(5), 5, 2, 4, 1024, 8, Clock.fixed(NOW, ZoneOffset.UTC));
+        Thread[] writers = new Thread[4];
+        for (int t = 0; t < writers.length; t++) {
+            int seed = t;
+            writers[t] = new Thread(() -> {
+                Random random = new Random(seed);
+                for (int i = 0; i < 10_000; i++) {
+                    hitters.add("P" + random.nextInt(5_000), 1);
+                }
+                hitters.add("HOT1", 500);
+                hitters.add("HOT2", 250);
+            });
+            writers[t].start();
+        }
+        for (Thread writer : writers) {
+            writer.join();
+        }
+
+        assertThat(hitters.total()).isEqualTo(4 * 10_750);
+        assertThat(hitters.top()).extracting(WindowedHeavyHitters.HeavyHitter::key).containsExactly("HOT1", "HOT2");
+    }
+
+    @Test
+    @DisplayName("never reports less than the true count")
+    void top_neverUndercounts() {
+        CountMinSketch sketch = new CountMinSketch(4, 64);
+        for (int i = 0; i < 1_000; i++) {
+            sketch.add("P" + i, i % 7 + 1);
+        }
+
+        for (int i = 0; i < 1_000; i++) {
+            assertThat(sketch.estimate("P" + i)).isGreaterThanOrEqualTo(i % 7 + 1);
+        }
+    }
+
+    @Test
+    @DisplayName("drops counts once they slide out of the window")
+    void top_slidesWindow() {
+        MutableClock clock = new MutableClock(NOW);
+        WindowedHeavyHitters hitters = new WindowedHeavyHitters(Duration.ofMinutes(5), 5, 2, 4, 256, 1, clock);
+
+        hitters.add("OLD", 100);
+        clock.now = NOW.plus(Duration.ofMinutes(3));
+        hitters.add("NEW", 10);
+        assertThat(hitters.top()).extracting(WindowedHeavyHitters.HeavyHitter::key).containsExactly("OLD", "NEW");
+
+        clock.now = NOW.plus(Duration.ofMinutes(5));
+        assertThat(hitters.top()).containsExactly(new WindowedHeavyHitters.HeavyHitter("NEW", 10));
+        assertThat(hitters.total()).isEqualTo(10);
+
+        clock.now = NOW.plus(Duration.ofMinutes(9));
+        hitters.add("NEWER", 1);
+        assertThat(hitters.top()).containsExactly(new WindowedHeavyHitters.HeavyHitter("NEWER", 1));
+    }
+
+    private static final class MutableClock extends Clock {
+
+        private Instant now;
+
+        private MutableClock(Instant now) {
+            this.now = now;
+        }
+
+        @Override
+        public Instant instant() {
+            return now;
+        }
+
+        @Override
+        public ZoneOffset getZone() {
+            return ZoneOffset.UTC;
+        }
+
+        @Override
+        public Clock withZone(java.time.ZoneId zone) {
+            return this;
+        }
+    }
+}
@@ -0,0 +1,120 @@
+package com.example.stran.store;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.stream.IntStream;
+import java.util.stream.Stream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class MappedOutboxLogTest {
+
+    @TempDir
+    Path tempDir;
+
+    private MappedOutboxLog outbox;
+
+    @BeforeEach
+    void setUp() throws IOException {
+        outbox = MappedOutboxLog.open(tempDir, 256, 4);
+    }
+
+    @AfterEach
+    void tearDown() {
+        outbox.close();
+    }
+
+    @Test
+    @DisplayName("returns entries in append order and consumes them on advance")
+    void peekAndAdvance_preserveOrder() {
+        outbox.append(bytes("a"));
+        outbox.append(bytes("b"));
+        outbox.append(bytes("c"));
+
+        assertThat(strings(outbox.peek(2))).containsExactly("a", "b");
+        assertThat(outbox.pending()).isEqualTo(3);
+
+        outbox.advance(2);
+
+        assertThat(strings(outbox.peek(10))).containsExactly("c");
+        assertThat(outbox.pending()).isEqualTo(1);
+    }
+
+    @Test
+    @DisplayName("rolls across segments and deletes segments the reader has passed")
+    void append_rollsSegments() throws IOException {
+        IntStream.range(0, 10).forEach(i -> outbox.append(bytes("entry-" + "x".repeat(40) + i)));
+
+        assertThat(segmentFiles()).hasSizeGreaterThan(1);
+        assertThat(strings(outbox.peek(10))).hasSize(10).last().asString().endsWith("9");
+
+        outbox.advance(10);
+
+        assertThat(outbox.pending()).isZero();
+        assertThat(segmentFiles()).hasSize(1);
+    }
+
+    @Test
+    @DisplayName("recovers pending entries and the read position after reopening")
+    void open_recoversState() throws IOException {
+        outbox.append(bytes("a"));
+        outbox.append(bytes("b"));
+        outbox.append(bytes("c"));
+        outbox.advance(1);
+        outbox.close();
+
+        outbox = MappedOutboxLog.open(tempDir, 256, 4);
+        assertThat(outbox.pending()).isEqualTo(2);
+        assertThat(strings(outbox.peek(10))).containsExactly("b", "c");
+
+        outbox.append(bytes("d"));
+        assertThat(strings(outbox.peek(10))).containsExactly("b", "c", "d");
+    }
+
+    @Test
+    @DisplayName("rejects appends once the segment limit is reached")
+    void append_rejectsWhenFull() {
+        byte[] entry = new byte[200];
+        for (int i = 0; i < 4; i++) {
+            outbox.append(entry);
+        }
+
+        assertThatThrownBy(() -> outbox.append(entry))
+                .isInstanceOf(MappedOutboxLog.OutboxFullException.class);
+
+        outbox.advance(1);
+        outbox.append(entry);
+        assertThat(outbox.pending()).isEqualTo(4);
+    }
+
+    @Test
+    @DisplayName("rejects entries larger than a segment")
+    void append_rejectsOversizedEntry() {
+        assertThatThrownBy(() -> outbox.append(new byte[512]))
+                .isInstanceOf(IllegalArgumentException.class);
+    }
+
+    private List<Path> segmentFiles() throws IOException {
+        try (Stream<Path> files = Files.list(tempDir)) {
+            return files.filter(f -> f.getFileName().toString().startsWith("segment-")).toList();
+        }
+    }
+
+    private static byte[] bytes(String value) {
+        return value.getBytes(StandardCharsets.UTF_8);
+    }
+
+    private static List<String> strings(List<byte[]> entries) {
+        return entries.stream().map(e -> new String(e, StandardCharsets.UTF_8)).toList();
+    }
+}
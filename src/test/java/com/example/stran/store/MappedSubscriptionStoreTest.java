@@ -0,0 +1,121 @@
+package com.example.stran.store;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class MappedSubscriptionStoreTest {
+
+    private static final int DAY = (int) LocalDate.of(2026, 3, 9).toEpochDay();
+
+    @TempDir
+    Path tempDir;
+
+    private Path file;
+    private MappedSubscriptionStore store;
+
+    @BeforeEach
+    void setUp() throws IOException {
+        file = tempDir.resolve("subscriptions.store");
+        store = MappedSubscriptionStore.open(file, 16, 4096);
+    }
+
+    @AfterEach
+    void tearDown() throws IOException {
+        store.close();
+    }
+
+    @Test
+    @DisplayName("finds records by property and check-in day")
+    void forEach_visitsRecordsForKey() {
+        store.upsert(100L, 1L, DAY, 3, "guest-123");
+        store.upsert(101L, 1L, DAY, 2, "guest-456");
+        store.upsert(102L, 1L, DAY + 1, 2, "guest-789");
+        store.upsert(103L, 2L, DAY, 2, "guest-000");
+
+        assertThat(visit(1L, DAY)).containsExactlyInAnyOrder("100:3:guest-123", "101:2:guest-456");
+        assertThat(visit(1L, DAY + 1)).containsExactly("102:2:guest-789");
+        assertThat(visit(3L, DAY)).isEmpty();
+        assertThat(store.size()).isEqualTo(4);
+    }
+
+    @Test
+    @DisplayName("updates in place and moves records whose key changes")
+    void upsert_updatesAndRekeys() {
+        store.upsert(100L, 1L, DAY, 3, "guest-123");
+        store.upsert(100L, 1L, DAY, 4, "guest-123");
+        assertThat(visit(1L, DAY)).containsExactly("100:4:guest-123");
+
+        store.upsert(100L, 1L, DAY + 7, 4, "guest-123");
+        assertThat(visit(1L, DAY)).isEmpty();
+        assertThat(visit(1L, DAY + 7)).containsExactly("100:4:guest-123");
+        assertThat(store.size()).isEqualTo(1);
+    }
+
+    @Test
+    @DisplayName("removed subscriptions are no longer visited")
+    void remove_hidesRecord() {
+        store.upsert(100L, 1L, DAY, 3, "guest-123");
+        store.remove(100L);
+        store.remove(999L);
+
+        assertThat(visit(1L, DAY)).isEmpty();
+        assertThat(store.size()).isZero();
+    }
+
+    @Test
+    @DisplayName("reopening a committed store keeps records and the high-water mark")
+    void open_reusesCommittedStore() throws IOException {
+        Instant highWaterMark = Instant.parse("2026-03-01T12:00:00.123456Z");
+        store.upsert(100L, 1L, DAY, 3, "guest-123");
+        store.commit(highWaterMark);
+        store.close();
+
+        store = MappedSubscriptionStore.open(file, 16, 4096);
+
+        assertThat(store.highWaterMark()).isEqualTo(highWaterMark);
+        assertThat(visit(1L, DAY)).containsExactly("100:3:guest-123");
+    }
+
+    @Test
+    @DisplayName("a store left dirty by an interrupted batch is rebuilt empty")
+    void open_resetsDirtyStore() throws IOException {
+        store.upsert(100L, 1L, DAY, 3, "guest-123");
+        store.close();
+
+        store = MappedSubscriptionStore.open(file, 16, 4096);
+
+        assertThat(store.highWaterMark()).isEqualTo(Instant.EPOCH);
+        assertThat(visit(1L, DAY)).isEmpty();
+    }
+
+    @Test
+    @DisplayName("throws StoreFullException when record capacity is exhausted")
+    void upsert_throwsWhenFull() {
+        for (long id = 1; id <= 16; id++) {
+            store.upsert(id, 1L, DAY, 1, "g");
+        }
+
+        assertThatThrownBy(() -> store.upsert(17L, 1L, DAY, 1, "g"))
+                .isInstanceOf(MappedSubscriptionStore.StoreFullException.class);
+    }
+
+    private List<String> visit(long propertyId, int epochDay) {
+        List<String> seen = new ArrayList<>();
+        store.forEach(propertyId, epochDay, (id, nights, guestRef) ->
+                seen.add(id + ":" + nights + ":" + store.guestId(guestRef)));
+        return seen;
+    }
+}
@@ -0,0 +1,92 @@
+package com.example.stran.streams;
+
+import com.example.stran.entity.StaySubscription;
+import com.example.stran.repository.StaySubscriptionRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.SliceImpl;
+import org.springframework.kafka.core.KafkaTemplate;
+
+import java.time.Clock;
+import java.time.Instant;
+import java.time.ZoneOffset;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class SubscriptionChangeFeedTest {
+
+    private static final String TOPIC = "stran-subscription-changes";
+    private static final Instant NOW = Instant.parse("2026-03-01T00:00:00Z");
+
+    @Mock
+    private StaySubscriptionRepository subscriptionRepository;
+
+    @Mock
+    private KafkaTemplate<String, StaySubscription> kafkaTemplate;
+
+    private SubscriptionChangeFeed feed;
+
+    @BeforeEach
+    void setUp() {
+        feed = new SubscriptionChangeFeed(subscriptionRepository, kafkaTemplate, TOPIC, 2,
+                Clock.fixed(NOW, ZoneOffset.UTC));
+    }
+
+    @Test
+    @DisplayName("publishes every changed subscription keyed by id, page by page, and advances the high-water mark")
+    void publish_sendsChangesAndAdvances() {
+        StaySubscription first = subscription(1L, NOW.minusSeconds(30));
+        StaySubscription second = subscription(2L, NOW.minusSeconds(20));
+        StaySubscription third = subscription(3L, NOW.minusSeconds(10));
+        when(subscriptionRepository.findByUpdatedAtGreaterThanAndUpdatedAtLessThanEqual(
+                eq(Instant.EPOCH), eq(NOW), any(Pageable.class)))
+                .thenAnswer(invocation -> {
+                    Pageable page = invocation.getArgument(2);
+                    return page.getPageNumber() == 0
+                            ? new SliceImpl<>(List.of(first, second), page, true)
+                            : new SliceImpl<>(List.of(third), page, false);
+                });
+        when(kafkaTemplate.send(eq(TOPIC), anyString(), any())).thenReturn(CompletableFuture.completedFuture(null));
+
+        feed.publish();
+
+        verify(kafkaTemplate).send(TOPIC, "1", first);
+        verify(kafkaTemplate).send(TOPIC, "2", second);
+        verify(kafkaTemplate).send(TOPIC, "3", third);
+        assertThat(feed.highWaterMark()).isEqualTo(third.getUpdatedAt());
+    }
+
+    @Test
+    @DisplayName("keeps the high-water mark when a send fails so the changes are published again")
+    void publish_keepsHighWaterMarkOnFailure() {
+        StaySubscription sub = subscription(1L, NOW.minusSeconds(10));
+        when(subscriptionRepository.findByUpdatedAtGreaterThanAndUpdatedAtLessThanEqual(
+                eq(Instant.EPOCH), eq(NOW), any(Pageable.class)))
+                .thenAnswer(invocation -> new SliceImpl<>(List.of(sub), invocation.getArgument(2), false));
+        when(kafkaTemplate.send(TOPIC, "1", sub))
+                .thenReturn(CompletableFuture.failedFuture(new IllegalStateException("broker down")));
+
+        feed.publish();
+
+        assertThat(feed.highWaterMark()).isEqualTo(Instant.EPOCH);
+    }
+
+    private static StaySubscription subscription(long id, Instant updatedAt) {
+        StaySubscription sub = new StaySubscription();
+        sub.setId(id);
+        sub.setUpdatedAt(updatedAt);
+        return sub;
+    }
+}
@@ -0,0 +1,215 @@
+package com.example.stran.streams;
+
+import com.example.stran.dto.inventory.EventContext;
+import com.example.stran.dto.inventory.InventoryEvent;
+import com.example.stran.dto.inventory.InventoryEventBody;
+import com.example.stran.dto.inventory.InventoryEventValue;
+import com.example.stran.dto.inventory.RoomRecommendation;
+import com.example.stran.dto.inventory.SourceRecord;
+import com.example.stran.dto.notification.NotificationMessage;
+import com.example.stran.entity.StaySubscription;
+import com.example.stran.entity.SubscriptionSearchType;
+import com.example.stran.entity.SubscriptionStatus;
+import com.example.stran.serialization.NotificationMessageDeserializer;
+import com.example.stran.service.NotificationIdGenerator;
+import com.example.stran.service.PipelineMetrics;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.apache.kafka.common.serialization.StringDeserializer;
+import org.apache.kafka.common.serialization.StringSerializer;
+import org.apache.kafka.streams.KeyValue;
+import org.apache.kafka.streams.StreamsConfig;
+import org.apache.kafka.streams.TestInputTopic;
+import org.apache.kafka.streams.TestOutputTopic;
+import org.apache.kafka.streams.TopologyTestDriver;
+import org.apache.kafka.streams.state.KeyValueStore;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.kafka.support.serializer.JsonSerializer;
+
+import java.math.BigDecimal;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.util.List;
+import java.util.Map;
+import java.util.Properties;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class SubscriptionMatchingTopologyTest {
+
+    private static final String INVENTORY = "rate-recomm-prd";
+    private static final String CHANGES = "stran-subscription-changes";
+    private static final String NOTIFICATIONS = "stran-notifications";
+    private static final LocalDate CHECK_IN = LocalDate.of(2026, 3, 9);
+    private static final Instant NOW = Instant.parse("2026-03-01T00:00:00Z");
+
+    @TempDir
+    Path stateDir;
+
+    private TopologyTestDriver driver;
+    private TestInputTopic<String, StaySubscription> changes;
+    private TestInputTopic<String, InventoryEvent> inventory;
+    private TestOutputTopic<String, NotificationMessage> notifications;
+
+    @BeforeEach
+    void setUp() {
+        SubscriptionMatchingTopology topology = new SubscriptionMatchingTopology(INVENTORY, CHANGES, NOTIFICATIONS,
+                4, "json", Map.of("FNLCO", 1L, "ISOL1", 2L)::get, new PipelineMetrics(new SimpleMeterRegistry()));
+        Properties props = new Properties();
+        props.put(StreamsConfig.APPLICATION_ID_CONFIG, "stran-matching-streams-test");
+        props.put(StreamsConfig.BOOTSTRAP_SERVERS_CONFIG, "dummy:9092");
+        props.put(StreamsConfig.STATE_DIR_CONFIG, stateDir.toString());
+        driver = new TopologyTestDriver(topology.build(), props, NOW);
+
+        JsonSerializer<StaySubscription> subscriptionSerializer = new JsonSerializer<StaySubscription>().noTypeInfo();
+        JsonSerializer<InventoryEvent> inventorySerializer = new JsonSerializer<InventoryEvent>().noTypeInfo();
+        changes = driver.createInputTopic(CHANGES, new StringSerializer(), subscriptionSerializer);
+        inventory = driver.createInputTopic(INVENTORY, new StringSerializer(), inventorySerializer);
+        notifications = driver.createOutputTopic(NOTIFICATIONS, new StringDeserializer(),
+                new NotificationMessageDeserializer());
+    }
+
+    @AfterEach
+    void tearDown() {
+        driver.close();
+    }
+
+    @Test
+    @DisplayName("emits a notification keyed by subscription id for each subscription of the stay with its length of stay available")
+    void inventoryEvent_matchesStoredSubscriptions() {
+        publish(subscription(100L, 1L, CHECK_IN, 3, SubscriptionStatus.ACTIVE, 1));
+        publish(subscription(101L, 1L, CHECK_IN, 5, SubscriptionStatus.ACTIVE, 1));
+        publish(subscription(102L, 1L, CHECK_IN.plusDays(1), 3, SubscriptionStatus.ACTIVE, 1));
+        publish(subscription(103L, 2L, CHECK_IN, 3, SubscriptionStatus.ACTIVE, 1));
+        Instant eventTime = Instant.parse("2026-03-01T00:00:05Z");
+
+        inventory.pipeInput("FNLCO::NG7BCD", event("FNLCO", CHECK_IN, "YYYNNNN"), eventTime);
+
+        List<KeyValue<String, NotificationMessage>> emitted = notifications.readKeyValuesToList();
+        assertThat(emitted).hasSize(1);
+        assertThat(emitted.get(0).key).isEqualTo("100");
+        NotificationMessage message = emitted.get(0).value;
+        assertThat(message.getSubscriptionId()).isEqualTo(100L);
+        assertThat(message.getPropCode()).isEqualTo("FNLCO");
+        assertThat(message.getCheckInDate()).isEqualTo("2026-03-09");
+        assertThat(message.getNights()).isEqualTo(3);
+        assertThat(message.getSourceTimestamp()).isEqualTo(eventTime);
+        assertThat(message.getNotificationId()).isEqualTo(NotificationIdGenerator.fromSource(
+                new SourceRecord(INVENTORY, 0, 0, eventTime.toEpochMilli()), 100L));
+    }
+
+    @Test
+    @DisplayName("removes cancelled subscriptions and moves rescheduled ones to their new stay")
+    void subscriptionChanges_updateStays() {
+        publish(subscription(100L, 1L, CHECK_IN, 3, SubscriptionStatus.ACTIVE, 1));
+        publish(subscription(101L, 1L, CHECK_IN, 2, SubscriptionStatus.ACTIVE, 1));
+        publish(subscription(100L, 1L, CHECK_IN, 3, SubscriptionStatus.CANCELLED, 2));
+        publish(subscription(101L, 1L, CHECK_IN.plusDays(1), 2, SubscriptionStatus.ACTIVE, 2));
+
+        inventory.pipeInput("FNLCO::NG7BCD", event("FNLCO", CHECK_IN, "YYYNNNN"));
+        assertThat(notifications.isEmpty()).isTrue();
+
+        inventory.pipeInput("FNLCO::NG7BCD", event("FNLCO", CHECK_IN.plusDays(1), "YYYNNNN"));
+        assertThat(notifications.readKeyValuesToList()).extracting(kv -> kv.key).containsExactly("101");
+
+        KeyValueStore<String, StayBucket> stays = driver.getKeyValueStore(SubscriptionMatchingTopology.SUBSCRIPTIONS_BY_STAY);
+        assertThat(stays.get(StayBucket.key(1L, CHECK_IN))).isNull();
+    }
+
+    @Test
+    @DisplayName("deletes a subscription from both stores on a tombstone")
+    void subscriptionTombstone_deletesFromStores() {
+        publish(subscription(100L, 1L, CHECK_IN, 3, SubscriptionStatus.ACTIVE, 1));
+        publish(subscription(101L, 1L, CHECK_IN, 2, SubscriptionStatus.ACTIVE, 1));
+
+        changes.pipeInput("100", null);
+        changes.pipeInput("999", null);
+        inventory.pipeInput("FNLCO::NG7BCD", event("FNLCO", CHECK_IN, "YYYNNNN"));
+
+        assertThat(notifications.readKeyValuesToList()).extracting(kv -> kv.key).containsExactly("101");
+        KeyValueStore<String, StayBucket> stays = driver.getKeyValueStore(SubscriptionMatchingTopology.SUBSCRIPTIONS_BY_STAY);
+        KeyValueStore<Long, StaySubscription> versions = driver.getKeyValueStore(SubscriptionMatchingTopology.SUBSCRIPTIONS_BY_ID);
+        assertThat(stays.get(StayBucket.key(1L, CHECK_IN)).subscriptions())
+                .extracting(StaySubscription::getId).containsExactly(101L);
+        assertThat(versions.get(100L)).isNull();
+    }
+
+    @Test
+    @DisplayName("drops a subscription version older than the one already stored")
+    void subscriptionChanges_dropStaleVersions() {
+        publish(subscription(100L, 1L, CHECK_IN, 3, SubscriptionStatus.ACTIVE, 2));
+        publish(subscription(100L, 1L, CHECK_IN, 3, SubscriptionStatus.CANCELLED, 1));
+
+        inventory.pipeInput("FNLCO::NG7BCD", event("FNLCO", CHECK_IN, "YYYNNNN"));
+
+        assertThat(notifications.readKeyValuesToList()).extracting(kv -> kv.key).containsExactly("100");
+    }
+
+    @Test
+    @DisplayName("skips events of unknown properties or with an invalid date, and evicts stays once their check-in date has passed")
+    void skipsInvalidEventsAndEvictsPastStays() {
+        publish(subscription(100L, 1L, CHECK_IN, 3, SubscriptionStatus.ACTIVE, 1));
+        publish(subscription(101L, 1L, CHECK_IN.plusDays(30), 3, SubscriptionStatus.ACTIVE, 1));
+
+        inventory.pipeInput("NOPE::NG7BCD", event("NOPE", CHECK_IN, "YYYNNNN"));
+        inventory.pipeInput("FNLCO::NG7BCD", event("FNLCO", null, "YYYNNNN"));
+        assertThat(notifications.isEmpty()).isTrue();
+
+        driver.advanceWallClockTime(Duration.ofDays(10));
+
+        KeyValueStore<String, StayBucket> stays = driver.getKeyValueStore(SubscriptionMatchingTopology.SUBSCRIPTIONS_BY_STAY);
+        KeyValueStore<Long, StaySubscription> versions = driver.getKeyValueStore(SubscriptionMatchingTopology.SUBSCRIPTIONS_BY_ID);
+        assertThat(stays.get(StayBucket.key(1L, CHECK_IN))).isNull();
+        assertThat(stays.get(StayBucket.key(1L, CHECK_IN.plusDays(30))).subscriptions())
+                .extracting(StaySubscription::getId).containsExactly(101L);
+        assertThat(versions.get(100L)).isNull();
+        assertThat(versions.get(101L)).isNotNull();
+    }
+
+    private void publish(StaySubscription subscription) {
+        changes.pipeInput(String.valueOf(subscription.getId()), subscription);
+    }
+
+    private static StaySubscription subscription(long id, long propertyId, LocalDate checkIn, int nights,
+                                                 SubscriptionStatus status, int version) {
+        StaySubscription sub = new StaySubscription();
+        sub.setId(id);
+        sub.setGuestId("guest-" + id);
+        sub.setSearchType(SubscriptionSearchType.PROPERTY);
+        sub.setPropertyId(propertyId);
+        sub.setCheckInDate(checkIn);
+        sub.setCheckOutDate(checkIn.plusDays(nights));
+        sub.setMaxPricePerNight(BigDecimal.valueOf(200));
+        sub.setCurrencyCode("USD");
+        sub.setNumAdults(2);
+        sub.setNumRooms(1);
+        sub.setStatus(status);
+        sub.setCreatedAt(NOW);
+        sub.setUpdatedAt(NOW.plusSeconds(version));
+        sub.setCheckCount(0);
+        return sub;
+    }
+
+    private static InventoryEvent event(String propCode, LocalDate date, String pattern) {
+        InventoryEventBody body = InventoryEventBody.builder()
+                .recommendationId(1L)
+                .propCode(propCode)
+                .startDate(date != null ? date.toString() : null)
+                .endDate(date != null ? date.toString() : null)
+                .ratePlanCode("NG7BCD")
+                .roomRecommendations(List.of(RoomRecommendation.builder()
+                        .roomTypeCode("KING")
+                        .lengthOfStayPattern(List.of(pattern))
+                        .build()))
+                .build();
+        return InventoryEvent.builder()
+                .key(propCode + "::NG7BCD")
+                .value(InventoryEventValue.builder().context(new EventContext()).body(body).build())
+                .build();
+    }
+}